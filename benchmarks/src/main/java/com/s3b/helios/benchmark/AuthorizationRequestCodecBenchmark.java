@@ -0,0 +1,81 @@
+package com.s3b.helios.benchmark;
+
+import com.s3b.helios.oauth2.repository.CompactHeliosAuthorizationRequestCodec;
+import com.s3b.helios.oauth2.repository.HeliosAuthorizationRequestCodec;
+import com.s3b.helios.oauth2.repository.SerializingHeliosAuthorizationRequestCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the encoding and the decoding of the authorization request cookie by the Java serialization of the previous releases
+ * and by {@link CompactHeliosAuthorizationRequestCodec}, with and without compression.
+ * The length of the cookie value, sent back by the browser on every request, is printed when each codec is set up.
+ * @author Sébastien SAEZ
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AuthorizationRequestCodecBenchmark {
+
+    private static final byte[] SECRET = "helios-benchmark-cookie-secret-0".getBytes();
+
+    @Param({"serialization", "compact", "compact-deflate"})
+    private String codecName;
+
+    private HeliosAuthorizationRequestCodec codec;
+
+    private OAuth2AuthorizationRequest authorizationRequest;
+
+    private String value;
+
+    @Setup
+    public void setUp() {
+        codec = switch (codecName) {
+            case "serialization" -> new SerializingHeliosAuthorizationRequestCodec();
+            case "compact" -> new CompactHeliosAuthorizationRequestCodec(SECRET, false);
+            case "compact-deflate" -> new CompactHeliosAuthorizationRequestCodec(SECRET, true);
+            default -> throw new IllegalArgumentException("Unknown codec " + codecName);
+        };
+        authorizationRequest = OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+                .clientId("123456789012-abcdefghijklmnopqrstuvwxyz012345.apps.googleusercontent.com")
+                .redirectUri("https://helios.example.com/login/oauth2/code/google")
+                .scopes(Set.of("openid", "profile", "email"))
+                .state("Qm9iTHVjYXM0MmJvYmx1Y2FzNDJib2JsdWNhczQyYm9i")
+                .additionalParameters(Map.of("nonce", "bm9uY2Vub25jZW5vbmNlbm9uY2Vub25jZW5vbmNlbm9uY2U"))
+                .attributes(Map.of("registration_id", "google", "nonce", "bm9uY2Vub25jZW5vbmNlbm9uY2Vub25jZW5vbmNlbm9uY2U"))
+                .build();
+        value = codec.encode(authorizationRequest);
+        System.out.printf("%n# Cookie value of the %s codec: %d characters%n", codecName, value.length());
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String encode() {
+        return codec.encode(authorizationRequest);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public OAuth2AuthorizationRequest decode() {
+        return codec.decode(value);
+    }
+}
@@ -0,0 +1,87 @@
+package com.s3b.helios.benchmark;
+
+import com.s3b.helios.client.key.HeliosKeySet;
+import com.s3b.helios.client.key.HeliosSigningKey;
+import com.s3b.helios.client.token.DefaultHeliosJwtTokenReader;
+import com.s3b.helios.client.token.DefaultHeliosJwtTokenWriter;
+import com.s3b.helios.client.token.DefaultHeliosPasetoTokenReader;
+import com.s3b.helios.client.token.DefaultHeliosPasetoTokenWriter;
+import com.s3b.helios.client.token.HeliosTokenReader;
+import com.s3b.helios.client.token.HeliosTokenWriter;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyPairGenerator;
+import java.util.Map;
+
+/**
+ * Shared material of the token benchmarks.
+ * @author Sébastien SAEZ
+ */
+final class BenchmarkTokens {
+    /**
+     * Prevent class instantiation.
+     */
+    private BenchmarkTokens(){}
+
+    /**
+     * A Base64 secret long enough for HS256.
+     */
+    static final String SECRET = "c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0";
+
+    /**
+     * A subject shaped like an OpenId Connect subject.
+     */
+    static final String SUBJECT = "109286572232326515547";
+
+    /**
+     * The token lifetime used by the writers, in hours.
+     */
+    static final int EXPIRATION_HOURS = 10;
+
+    /**
+     * The key id of the asymmetric keys.
+     */
+    static final String KID = "helios-benchmark";
+
+    /**
+     * A 256 bits Base64 secret for PASETO <code>v2.local</code>.
+     */
+    static final String PASETO_SECRET = "c2VjcmV0LXRoYXQtaXMtZXhhY3RseS0zMi1ieXRlcyE=";
+
+    /**
+     * A matching writer and reader for a token format.
+     * @param writer the writer signing with the algorithm
+     * @param reader the reader verifying the tokens of the writer
+     */
+    record TokenPair(HeliosTokenWriter writer, HeliosTokenReader reader) {
+    }
+
+    /**
+     * Create a writer and a reader of tokens signed with the specified algorithm.
+     * @param algorithm <code>HS256</code> for the shared secret, <code>EdDSA</code> / <code>ES256</code> / <code>RS256</code> for JWT
+     *                  or <code>v2.local</code> / <code>v2.public</code> for PASETO
+     * @return the writer and the reader
+     */
+    static TokenPair tokens(String algorithm) throws GeneralSecurityException {
+        if ("HS256".equals(algorithm)) {
+            return new TokenPair(new DefaultHeliosJwtTokenWriter(SECRET, EXPIRATION_HOURS), new DefaultHeliosJwtTokenReader(SECRET));
+        }
+        if ("v2.local".equals(algorithm)) {
+            return new TokenPair(new DefaultHeliosPasetoTokenWriter(PASETO_SECRET, EXPIRATION_HOURS),
+                    new DefaultHeliosPasetoTokenReader(PASETO_SECRET));
+        }
+        var generator = KeyPairGenerator.getInstance(switch (algorithm) {
+            case "EdDSA", "v2.public" -> "Ed25519";
+            case "ES256" -> "EC";
+            default -> "RSA";
+        });
+        var keyPair = generator.generateKeyPair();
+        if ("v2.public".equals(algorithm)) {
+            return new TokenPair(new DefaultHeliosPasetoTokenWriter(keyPair.getPrivate(), EXPIRATION_HOURS),
+                    new DefaultHeliosPasetoTokenReader(keyPair.getPublic()));
+        }
+        return new TokenPair(
+                new DefaultHeliosJwtTokenWriter(new HeliosSigningKey(KID, algorithm, keyPair.getPrivate()), EXPIRATION_HOURS),
+                new DefaultHeliosJwtTokenReader(new HeliosKeySet(Map.of(KID, keyPair.getPublic()))));
+    }
+}
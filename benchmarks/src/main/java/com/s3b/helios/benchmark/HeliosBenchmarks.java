@@ -0,0 +1,41 @@
+package com.s3b.helios.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Run the Helios benchmarks with the GC profiler, to report the allocation rate, and write the results as JSON.
+ * <p>
+ * Every standard JMH command line option is accepted, e.g. <code>java -jar helios-benchmarks.jar TokenReader -rff reader.json</code>.
+ * @author Sébastien SAEZ
+ */
+public final class HeliosBenchmarks {
+    /**
+     * Prevent class instantiation.
+     */
+    private HeliosBenchmarks(){}
+
+    /**
+     * The result file used when none is specified.
+     */
+    private static final String DEFAULT_RESULT_FILE = "helios-benchmarks.json";
+
+    public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+        var commandLine = new CommandLineOptions(args);
+        var options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result(DEFAULT_RESULT_FILE);
+        }
+        new Runner(options.build()).run();
+    }
+}
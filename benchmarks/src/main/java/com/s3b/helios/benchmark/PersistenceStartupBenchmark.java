@@ -0,0 +1,138 @@
+package com.s3b.helios.benchmark;
+
+import com.s3b.helios.client.configuration.HeliosTokenAutoConfiguration;
+import com.s3b.helios.jdbc.configuration.HeliosJdbcAutoConfiguration;
+import com.s3b.helios.jpa.configuration.HeliosJpaAutoConfiguration;
+import com.s3b.helios.jpa.entity.HeliosUserEntity;
+import com.s3b.helios.jpa.repository.DefaultHeliosRepository;
+import com.s3b.helios.oauth2.configuration.HeliosOauth2AutoConfiguration;
+import com.s3b.helios.oauth2.configuration.HeliosOauth2WebSecurity;
+import com.s3b.helios.service.HeliosUserService;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+
+import java.lang.management.ManagementFactory;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the start of an application context holding the helios JDBC or the helios JPA persistence, over an in-memory H2 database.
+ * <p>
+ * Each invocation starts a new context on a new database and runs the <code>schema.sql</code> script, the JPA context also bootstraps Hibernate.
+ * The heap retained by the started context, measured after a full GC outside of the timed section, is reported per iteration as the
+ * <code>retainedHeapBytes</code> secondary result, JMH sums it over the iterations in the summary.
+ * The GC profiler reports the bytes allocated during the start as <code>gc.alloc.rate.norm</code>.
+ * @author Sébastien SAEZ
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(3)
+@State(Scope.Benchmark)
+public class PersistenceStartupBenchmark {
+
+    @Param({"jdbc", "jpa"})
+    String starter;
+
+    ConfigurableApplicationContext context;
+
+    long heapBeforeStart;
+
+    /**
+     * The heap retained by the last context started, reset on each iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class HeapCounters {
+        public long retainedHeapBytes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            retainedHeapBytes = 0;
+        }
+    }
+
+    @Setup(Level.Invocation)
+    public void collectGarbage() {
+        heapBeforeStart = usedHeapAfterGc();
+    }
+
+    @TearDown(Level.Invocation)
+    public void closeContext(HeapCounters counters) {
+        counters.retainedHeapBytes = usedHeapAfterGc() - heapBeforeStart;
+        context.close();
+    }
+
+    @Benchmark
+    public HeliosUserService start() {
+        context = new SpringApplicationBuilder("jdbc".equals(starter) ? JdbcApplication.class : JpaApplication.class)
+                .web(WebApplicationType.NONE)
+                .logStartupInfo(false)
+                .properties("spring.main.banner-mode=off",
+                        "logging.level.root=warn",
+                        "spring.datasource.url=jdbc:h2:mem:" + UUID.randomUUID() + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+                        "spring.sql.init.mode=always",
+                        "spring.jpa.hibernate.ddl-auto=none",
+                        "spring.jpa.defer-datasource-initialization=true",
+                        "spring.jpa.open-in-view=false")
+                .run();
+        return context.getBean(HeliosUserService.class);
+    }
+
+    /**
+     * Collect the garbage until the used heap stops decreasing, the objects released by a closed context may need several cycles.
+     */
+    private static long usedHeapAfterGc() {
+        var memory = ManagementFactory.getMemoryMXBean();
+        var used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            memory.gc();
+            var current = memory.getHeapMemoryUsage().getUsed();
+            if (current >= used) {
+                return current;
+            }
+            used = current;
+        }
+        return used;
+    }
+
+    /**
+     * The application of the JDBC starter, without Hibernate.
+     */
+    @SpringBootConfiguration(proxyBeanMethods = false)
+    @EnableAutoConfiguration(exclude = {HeliosTokenAutoConfiguration.class, HeliosOauth2AutoConfiguration.class, HeliosOauth2WebSecurity.class, HibernateJpaAutoConfiguration.class, JpaRepositoriesAutoConfiguration.class, HeliosJpaAutoConfiguration.class})
+    static class JdbcApplication {
+    }
+
+    /**
+     * The application of the JPA starter, configured as described in the README.
+     */
+    @SpringBootConfiguration(proxyBeanMethods = false)
+    @EnableAutoConfiguration(exclude = {HeliosTokenAutoConfiguration.class, HeliosOauth2AutoConfiguration.class, HeliosOauth2WebSecurity.class, HeliosJdbcAutoConfiguration.class})
+    @EnableJpaRepositories(basePackageClasses = DefaultHeliosRepository.class)
+    @EntityScan(basePackageClasses = HeliosUserEntity.class)
+    static class JpaApplication {
+    }
+}
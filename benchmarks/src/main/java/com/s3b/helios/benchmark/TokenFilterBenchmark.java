@@ -0,0 +1,125 @@
+package com.s3b.helios.benchmark;
+
+import com.s3b.helios.client.filter.DefaultHeliosTokenFilter;
+import com.s3b.helios.client.token.DefaultHeliosJwtTokenReader;
+import com.s3b.helios.client.token.DefaultHeliosJwtTokenWriter;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure a request going through {@link DefaultHeliosTokenFilter} with mocked servlet objects.
+ * @author Sébastien SAEZ
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenFilterBenchmark {
+
+    /**
+     * The filter shared by every benchmark thread, as in a servlet container.
+     */
+    @State(Scope.Benchmark)
+    public static class FilterState {
+        DefaultHeliosTokenFilter filter;
+
+        String token;
+
+        @Setup
+        public void setUp() {
+            filter = new DefaultHeliosTokenFilter(new DefaultHeliosJwtTokenReader(BenchmarkTokens.SECRET),
+                    List.of("/actuator/health", "/static/**"));
+            token = new DefaultHeliosJwtTokenWriter(BenchmarkTokens.SECRET, BenchmarkTokens.EXPIRATION_HOURS)
+                    .generate(BenchmarkTokens.SUBJECT);
+        }
+    }
+
+    /**
+     * The servlet objects of one benchmark thread, reused across invocations.
+     */
+    @State(Scope.Thread)
+    public static class RequestState {
+        MockHttpServletRequest authorized;
+
+        MockHttpServletRequest anonymous;
+
+        MockHttpServletRequest healthCheck;
+
+        MockHttpServletResponse response;
+
+        @Setup
+        public void setUp(FilterState filterState) {
+            authorized = new MockHttpServletRequest("GET", "/helios/" + BenchmarkTokens.SUBJECT);
+            authorized.addHeader("Authorization", "Bearer " + filterState.token);
+            anonymous = new MockHttpServletRequest("GET", "/helios/" + BenchmarkTokens.SUBJECT);
+            healthCheck = new MockHttpServletRequest("GET", "/actuator/health");
+            response = new MockHttpServletResponse();
+        }
+
+        @TearDown
+        public void tearDown() {
+            SecurityContextHolder.clearContext();
+        }
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void authorizedRequest(FilterState filterState, RequestState requestState, Blackhole blackhole) throws ServletException, IOException {
+        filterState.filter.doFilter(requestState.authorized, requestState.response, chain(blackhole));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void authorizedRequestConcurrently(FilterState filterState, RequestState requestState, Blackhole blackhole) throws ServletException, IOException {
+        filterState.filter.doFilter(requestState.authorized, requestState.response, chain(blackhole));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void anonymousRequest(FilterState filterState, RequestState requestState, Blackhole blackhole) throws ServletException, IOException {
+        filterState.filter.doFilter(requestState.anonymous, requestState.response, chain(blackhole));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void anonymousRequestConcurrently(FilterState filterState, RequestState requestState, Blackhole blackhole) throws ServletException, IOException {
+        filterState.filter.doFilter(requestState.anonymous, requestState.response, chain(blackhole));
+    }
+
+    @Benchmark
+    @Threads(1)
+    public void healthCheckRequest(FilterState filterState, RequestState requestState, Blackhole blackhole) throws ServletException, IOException {
+        filterState.filter.doFilter(requestState.healthCheck, requestState.response, chain(blackhole));
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public void healthCheckRequestConcurrently(FilterState filterState, RequestState requestState, Blackhole blackhole) throws ServletException, IOException {
+        filterState.filter.doFilter(requestState.healthCheck, requestState.response, chain(blackhole));
+    }
+
+    private static FilterChain chain(Blackhole blackhole) {
+        return (request, response) -> blackhole.consume(request);
+    }
+}
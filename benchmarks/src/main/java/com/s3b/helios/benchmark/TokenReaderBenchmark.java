@@ -0,0 +1,83 @@
+package com.s3b.helios.benchmark;
+
+import com.s3b.helios.client.token.HeliosTokenReader;
+import com.s3b.helios.client.token.HeliosTokenVerification;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the token reading of {@link com.s3b.helios.client.token.DefaultHeliosJwtTokenReader} for each signature algorithm
+ * and of {@link com.s3b.helios.client.token.DefaultHeliosPasetoTokenReader} for each PASETO purpose.
+ * @author Sébastien SAEZ
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenReaderBenchmark {
+
+    @Param({"HS256", "EdDSA", "ES256", "RS256", "v2.local", "v2.public"})
+    private String algorithm;
+
+    private HeliosTokenReader reader;
+
+    private String token;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        var tokens = BenchmarkTokens.tokens(algorithm);
+        reader = tokens.reader();
+        token = tokens.writer().generate(BenchmarkTokens.SUBJECT);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean validate() {
+        return reader.validate(token);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public boolean validateConcurrently() {
+        return reader.validate(token);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String extractSubject() {
+        return reader.extractSubject(token);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String extractSubjectConcurrently() {
+        return reader.extractSubject(token);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public HeliosTokenVerification verify() {
+        return reader.verify(token);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public HeliosTokenVerification verifyConcurrently() {
+        return reader.verify(token);
+    }
+}
@@ -0,0 +1,54 @@
+package com.s3b.helios.benchmark;
+
+import com.s3b.helios.client.token.HeliosTokenWriter;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.security.GeneralSecurityException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measure the token generation of {@link com.s3b.helios.client.token.DefaultHeliosJwtTokenWriter} for each signature algorithm
+ * and of {@link com.s3b.helios.client.token.DefaultHeliosPasetoTokenWriter} for each PASETO purpose.
+ * @author Sébastien SAEZ
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TokenWriterBenchmark {
+
+    @Param({"HS256", "EdDSA", "ES256", "RS256", "v2.local", "v2.public"})
+    private String algorithm;
+
+    private HeliosTokenWriter writer;
+
+    @Setup
+    public void setUp() throws GeneralSecurityException {
+        writer = BenchmarkTokens.tokens(algorithm).writer();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public String generate() {
+        return writer.generate(BenchmarkTokens.SUBJECT);
+    }
+
+    @Benchmark
+    @Threads(Threads.MAX)
+    public String generateConcurrently() {
+        return writer.generate(BenchmarkTokens.SUBJECT);
+    }
+}
@@ -1,14 +1,19 @@
 package com.s3b.helios.client.configuration;
 
 import com.s3b.helios.client.filter.DefaultHeliosTokenFilter;
+import com.s3b.helios.client.revocation.HeliosRevocationList;
 import com.s3b.helios.client.token.HeliosTokenReader;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.List;
+
 
 /**
  * A container class registering beans used for helios client configuration.
@@ -25,6 +30,8 @@ public class HeliosClientAutoConfiguration {
      *
      * @param http the http security configuration
      * @param tokenReader a token reader implementation
+     * @param excludedPaths the path patterns of <code>application.token-provider.filter.excluded-paths</code> let through without token
+     * @param revocationList the revoked tokens, if any
      * @return a {@link SecurityFilterChain} for further information
      * @throws Exception  if an error occurred when building the Object
      *
@@ -34,8 +41,11 @@ public class HeliosClientAutoConfiguration {
      *
      */
     @Bean
-    public SecurityFilterChain heliosFilterChain(HttpSecurity http, HeliosTokenReader tokenReader) throws Exception {
-        http.addFilterBefore(new DefaultHeliosTokenFilter(tokenReader), UsernamePasswordAuthenticationFilter.class);
+    public SecurityFilterChain heliosFilterChain(HttpSecurity http, HeliosTokenReader tokenReader,
+                                                 @Value("${application.token-provider.filter.excluded-paths:}") List<String> excludedPaths,
+                                                 ObjectProvider<HeliosRevocationList> revocationList) throws Exception {
+        http.addFilterBefore(new DefaultHeliosTokenFilter(tokenReader, excludedPaths, revocationList.getIfAvailable()),
+                UsernamePasswordAuthenticationFilter.class);
         log.debug("[heliosFilterChain] DefaultHeliosTokenFilter added before the UsernamePasswordAuthenticationFilter");
         return http.build();
     }
@@ -0,0 +1,91 @@
+package com.s3b.helios.client.configuration;
+
+import com.s3b.helios.client.filter.HeliosServerSecurityContextRepository;
+import com.s3b.helios.client.revocation.HeliosRevocationList;
+import com.s3b.helios.client.token.HeliosTokenReader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * A container class registering beans used for helios client configuration of reactive web applications.
+ * It is the WebFlux counterpart of {@link HeliosClientAutoConfiguration}.
+ *
+ * @author Sébastien SAEZ
+ *
+ */
+@AutoConfiguration(after = HeliosTokenAutoConfiguration.class)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@ConditionalOnClass({EnableWebFluxSecurity.class, ServerHttpSecurity.class})
+@EnableWebFluxSecurity
+@Slf4j
+public class HeliosReactiveClientAutoConfiguration {
+
+    /**
+     * Create a {@link HeliosServerSecurityContextRepository} if it does not exist yet.
+     * The tokens are verified on the event loop, unless <code>application.token-provider.reactive.offload-verification</code> is set:
+     * they are verified on the parallel scheduler then. The revoked tokens are rejected when a {@link HeliosRevocationList} is defined.
+     *
+     * @param tokenReader a token reader implementation
+     * @param offloadVerification whether the tokens are verified on the parallel scheduler
+     * @param revocationList the revoked tokens, if any
+     * @return a {@link HeliosServerSecurityContextRepository} for further information
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosServerSecurityContextRepository.class)
+    public HeliosServerSecurityContextRepository heliosServerSecurityContextRepository(HeliosTokenReader tokenReader,
+                                                                                       @Value("${application.token-provider.reactive.offload-verification:false}") boolean offloadVerification,
+                                                                                       ObjectProvider<HeliosRevocationList> revocationList){
+        return new HeliosServerSecurityContextRepository(tokenReader,
+                offloadVerification ? Schedulers.parallel() : Schedulers.immediate(), revocationList.getIfAvailable());
+    }
+
+    /**
+     * Define a stateless {@link SecurityWebFilterChain} authenticating the requests with {@link HeliosServerSecurityContextRepository}
+     * only if the application does not define its own {@link SecurityWebFilterChain}.
+     * The excluded paths are permitted without token, the other requests without a valid token get a forbidden response.
+     *
+     * @param http the reactive http security configuration
+     * @param securityContextRepository the repository loading the security context from the token
+     * @param excludedPaths the path patterns of <code>application.token-provider.filter.excluded-paths</code> let through without token
+     * @return a {@link SecurityWebFilterChain} for further information
+     *
+     * @see HeliosServerSecurityContextRepository
+     * @see ServerHttpSecurity
+     */
+    @Bean
+    @ConditionalOnMissingBean(SecurityWebFilterChain.class)
+    public SecurityWebFilterChain heliosSecurityWebFilterChain(ServerHttpSecurity http,
+                                                               HeliosServerSecurityContextRepository securityContextRepository,
+                                                               @Value("${application.token-provider.filter.excluded-paths:}") List<String> excludedPaths){
+        var forbidden = new HttpStatusServerEntryPoint(HttpStatus.FORBIDDEN);
+        http.csrf(ServerHttpSecurity.CsrfSpec::disable)
+                .httpBasic(ServerHttpSecurity.HttpBasicSpec::disable)
+                .formLogin(ServerHttpSecurity.FormLoginSpec::disable)
+                .logout(ServerHttpSecurity.LogoutSpec::disable)
+                .securityContextRepository(securityContextRepository)
+                .exceptionHandling(e -> e.authenticationEntryPoint(forbidden))
+                .authorizeExchange(exchanges -> {
+                    var patterns = excludedPaths.stream().map(String::trim).filter(path -> !path.isEmpty()).toArray(String[]::new);
+                    if (patterns.length > 0) {
+                        exchanges.pathMatchers(patterns).permitAll();
+                    }
+                    exchanges.anyExchange().authenticated();
+                });
+        log.debug("[heliosSecurityWebFilterChain] HeliosServerSecurityContextRepository defined as security context repository");
+        return http.build();
+    }
+}
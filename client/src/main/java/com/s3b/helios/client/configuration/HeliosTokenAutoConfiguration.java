@@ -1,11 +1,31 @@
 package com.s3b.helios.client.configuration;
 
+import com.s3b.helios.client.key.HeliosKeyRing;
+import com.s3b.helios.client.key.HeliosKeySet;
+import com.s3b.helios.client.revocation.HeliosRevocationList;
+import com.s3b.helios.client.revocation.HeliosRevocationListMetrics;
+import com.s3b.helios.client.revocation.HeliosRevocationSource;
+import com.s3b.helios.client.revocation.InMemoryHeliosRevocationSource;
+import com.s3b.helios.client.token.CachingHeliosTokenReader;
 import com.s3b.helios.client.token.DefaultHeliosJwtTokenReader;
+import com.s3b.helios.client.token.DefaultHeliosPasetoTokenReader;
 import com.s3b.helios.client.token.HeliosTokenReader;
+import dev.paseto.jpaseto.Pasetos;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.Resource;
+import org.springframework.util.StringUtils;
+
+import java.security.PublicKey;
+import java.time.Duration;
 
 /**
  * A container class registering token beans.
@@ -14,18 +34,184 @@ import org.springframework.context.annotation.Bean;
  *
  */
 @Slf4j
+@Import({HeliosTokenAutoConfiguration.HeliosPasetoTokenConfiguration.class, HeliosTokenAutoConfiguration.HeliosRevocationMetricsConfiguration.class})
 public class HeliosTokenAutoConfiguration {
     /**
-     * Create bean with a JWT implementation of {@link HeliosTokenReader} if it does not exist yet
+     * Create a {@link HeliosKeyRing} reloading <code>application.token-provider.jwt.key-set</code> each time the file changes,
+     * when <code>application.token-provider.jwt.key-set-reload.enabled</code> is set.
+     * The keys removed from the file still verify the tokens during
+     * <code>application.token-provider.jwt.key-set-reload.grace-period</code>.
+     *
+     * @param keySet a file holding the JWK Set of the token issuer
+     * @param gracePeriod how long a removed key still verifies the tokens
+     * @return the watched {@link HeliosKeyRing}, closed with the application context
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosKeyRing.class)
+    @ConditionalOnProperty(name = "application.token-provider.jwt.key-set-reload.enabled", havingValue = "true")
+    public HeliosKeyRing heliosKeyRing(@Value("${application.token-provider.jwt.key-set:#{null}}") Resource keySet,
+                                       @Value("${application.token-provider.jwt.key-set-reload.grace-period:1h}") Duration gracePeriod){
+        if (keySet == null) {
+            throw new IllegalStateException("application.token-provider.jwt.key-set must be defined to reload the keys");
+        }
+        var keyRing = new HeliosKeyRing(keySet, gracePeriod);
+        keyRing.watch();
+        return keyRing;
+    }
+
+    /**
+     * Create bean with a JWT implementation of {@link HeliosTokenReader} if it does not exist yet.
+     * The tokens are verified with the {@link HeliosKeyRing} when it is defined, with the public keys of
+     * <code>application.token-provider.jwt.key-set</code> when it is defined,
+     * with the <code>application.token-provider.jwt.jwtSecret</code> shared secret otherwise.
+     * When <code>application.token-provider.cache.enabled</code> is set, the reader keeps the verified tokens in a cache.
      *
      * @param jwtSecret the secret key to generate a JWT token
+     * @param keySet a file or classpath resource holding the JWK Set of the token issuer
+     * @param keyRing the reloaded key set, if any
+     * @param cacheEnabled whether the verified tokens are cached
+     * @param cacheMaximumSize the maximum number of verified tokens cached
+     * @param cacheTtl the maximum duration a verified token is cached
      * @return the {@link DefaultHeliosJwtTokenReader} for further information
      * @see HeliosTokenReader
+     * @see HeliosKeySet
+     * @see CachingHeliosTokenReader
      */
     @Bean
     @ConditionalOnMissingBean(HeliosTokenReader.class)
-    public HeliosTokenReader jwtTokenReader(@Value("${application.token-provider.jwt.jwtSecret}") String jwtSecret){
+    @ConditionalOnProperty(name = "application.token-provider.type", havingValue = "jwt", matchIfMissing = true)
+    public HeliosTokenReader jwtTokenReader(@Value("${application.token-provider.jwt.jwtSecret:}") String jwtSecret,
+                                            @Value("${application.token-provider.jwt.key-set:#{null}}") Resource keySet,
+                                            ObjectProvider<HeliosKeyRing> keyRing,
+                                            @Value("${application.token-provider.cache.enabled:false}") boolean cacheEnabled,
+                                            @Value("${application.token-provider.cache.maximum-size:10000}") long cacheMaximumSize,
+                                            @Value("${application.token-provider.cache.ttl:5m}") Duration cacheTtl){
         log.info("HeliosTokenProvider implementation is missing, the default one will be create");
-        return new DefaultHeliosJwtTokenReader(jwtSecret);
+        var ring = keyRing.getIfAvailable();
+        DefaultHeliosJwtTokenReader reader;
+        if (ring != null) {
+            reader = new DefaultHeliosJwtTokenReader(ring);
+        } else if (keySet != null) {
+            reader = new DefaultHeliosJwtTokenReader(HeliosKeySet.load(keySet));
+        } else {
+            reader = new DefaultHeliosJwtTokenReader(requireSecret(jwtSecret));
+        }
+        return cacheEnabled ? new CachingHeliosTokenReader(reader, cacheMaximumSize, cacheTtl) : reader;
+    }
+
+    /**
+     * Register the PASETO token reader when the optional jpaseto dependencies are available.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(Pasetos.class)
+    static class HeliosPasetoTokenConfiguration {
+
+        /**
+         * Create bean with a PASETO implementation of {@link HeliosTokenReader} if it does not exist yet and
+         * <code>application.token-provider.type</code> is <code>paseto</code>.
+         * The <code>v2.public</code> tokens are verified with the Ed25519 public key of <code>application.token-provider.paseto.key-set</code>
+         * when it is defined, the <code>v2.local</code> tokens are decrypted with the <code>application.token-provider.paseto.secret</code>
+         * shared secret otherwise.
+         * When <code>application.token-provider.cache.enabled</code> is set, the reader keeps the verified tokens in a cache.
+         *
+         * @param secret the Base64 encoded 256 bits secret key of the <code>v2.local</code> tokens
+         * @param keySet a file or classpath resource holding the JWK Set with the Ed25519 public key of the token issuer
+         * @param cacheEnabled whether the verified tokens are cached
+         * @param cacheMaximumSize the maximum number of verified tokens cached
+         * @param cacheTtl the maximum duration a verified token is cached
+         * @return the {@link DefaultHeliosPasetoTokenReader} for further information
+         * @see HeliosTokenReader
+         * @see HeliosKeySet
+         * @see CachingHeliosTokenReader
+         */
+        @Bean
+        @ConditionalOnMissingBean(HeliosTokenReader.class)
+        @ConditionalOnProperty(name = "application.token-provider.type", havingValue = "paseto")
+        public HeliosTokenReader pasetoTokenReader(@Value("${application.token-provider.paseto.secret:}") String secret,
+                                                   @Value("${application.token-provider.paseto.key-set:#{null}}") Resource keySet,
+                                                   @Value("${application.token-provider.cache.enabled:false}") boolean cacheEnabled,
+                                                   @Value("${application.token-provider.cache.maximum-size:10000}") long cacheMaximumSize,
+                                                   @Value("${application.token-provider.cache.ttl:5m}") Duration cacheTtl){
+            log.info("HeliosTokenProvider implementation is missing, the default PASETO one will be create");
+            HeliosTokenReader reader;
+            if (keySet != null) {
+                if (!(HeliosKeySet.load(keySet).find(null) instanceof PublicKey publicKey)) {
+                    throw new IllegalStateException("application.token-provider.paseto.key-set must hold a single Ed25519 public key");
+                }
+                reader = new DefaultHeliosPasetoTokenReader(publicKey);
+            } else if (StringUtils.hasText(secret)) {
+                reader = new DefaultHeliosPasetoTokenReader(secret);
+            } else {
+                throw new IllegalStateException("Either application.token-provider.paseto.secret or application.token-provider.paseto.key-set must be defined");
+            }
+            return cacheEnabled ? new CachingHeliosTokenReader(reader, cacheMaximumSize, cacheTtl) : reader;
+        }
+    }
+
+    /**
+     * Create an {@link InMemoryHeliosRevocationSource} if no {@link HeliosRevocationSource} exists yet and
+     * <code>application.token-provider.revocation.source</code> is <code>memory</code>. The application revokes the tokens it verifies itself through it.
+     * The revocations only reach the instance publishing them, so it is never the default : a server with several instances defines
+     * a source shared by the instances, such as a database table, instead.
+     * @return the source of the revocations
+     * @see HeliosRevocationSource
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosRevocationSource.class)
+    @ConditionalOnProperty(name = "application.token-provider.revocation.source", havingValue = "memory")
+    public InMemoryHeliosRevocationSource heliosRevocationSource(){
+        log.warn("The revocations are kept in the memory of this instance, they are not applied by the other instances of the server");
+        return new InMemoryHeliosRevocationSource();
+    }
+
+    /**
+     * Create a {@link HeliosRevocationList} polling the {@link HeliosRevocationSource} if it does not exist yet and
+     * <code>application.token-provider.revocation.enabled</code> is set. The token filters reject the revoked tokens.
+     * @param source the source of the revocations, a bean must be defined or <code>application.token-provider.revocation.source</code> set to <code>memory</code>
+     * @param capacity the maximum number of revocations kept in memory, the Bloom filter is sized for it
+     * @param falsePositiveRate the false positive rate of the Bloom filter at capacity
+     * @param pollInterval the delay between two polls of the source
+     * @return the polled {@link HeliosRevocationList}, closed with the application context
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosRevocationList.class)
+    @ConditionalOnProperty(name = "application.token-provider.revocation.enabled", havingValue = "true")
+    public HeliosRevocationList heliosRevocationList(ObjectProvider<HeliosRevocationSource> source,
+                                                     @Value("${application.token-provider.revocation.capacity:100000}") int capacity,
+                                                     @Value("${application.token-provider.revocation.false-positive-rate:0.01}") double falsePositiveRate,
+                                                     @Value("${application.token-provider.revocation.poll-interval:10s}") Duration pollInterval){
+        var revocationSource = source.getIfAvailable();
+        if (revocationSource == null) {
+            throw new IllegalStateException("Either a HeliosRevocationSource bean or application.token-provider.revocation.source=memory must be defined");
+        }
+        var revocationList = new HeliosRevocationList(revocationSource, capacity, falsePositiveRate);
+        revocationList.start(pollInterval);
+        return revocationList;
+    }
+
+    /**
+     * Publish the metrics of the {@link HeliosRevocationList} when Micrometer is available.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    @ConditionalOnProperty(name = "application.token-provider.revocation.enabled", havingValue = "true")
+    static class HeliosRevocationMetricsConfiguration {
+
+        /**
+         * Create a {@link MeterBinder} publishing the memory, the size and the counters of the revocation list
+         * @param revocationList the revoked tokens
+         * @return the metrics of the revocation list
+         */
+        @Bean
+        public HeliosRevocationListMetrics heliosRevocationListMetrics(HeliosRevocationList revocationList){
+            return new HeliosRevocationListMetrics(revocationList);
+        }
+    }
+
+    private static String requireSecret(String jwtSecret) {
+        if (!StringUtils.hasText(jwtSecret)) {
+            throw new IllegalStateException("Either application.token-provider.jwt.jwtSecret or application.token-provider.jwt.key-set must be defined");
+        }
+        return jwtSecret;
     }
 }
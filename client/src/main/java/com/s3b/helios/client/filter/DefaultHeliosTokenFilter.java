@@ -1,21 +1,22 @@
 package com.s3b.helios.client.filter;
 
+import com.s3b.helios.client.revocation.HeliosRevocationList;
 import com.s3b.helios.client.token.HeliosTokenReader;
-import io.micrometer.common.util.StringUtils;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.lang.NonNull;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.List;
-import java.util.Optional;
 
 
 /**
@@ -25,7 +26,6 @@ import java.util.Optional;
  * @see HeliosTokenReader
  * @author Sébastien SAEZ
  */
-@RequiredArgsConstructor
 @Slf4j
 public class DefaultHeliosTokenFilter extends OncePerRequestFilter {
     /**
@@ -35,49 +35,91 @@ public class DefaultHeliosTokenFilter extends OncePerRequestFilter {
     private final HeliosTokenReader tokenReader;
 
     /**
-     * The constant to refer authorization header from http requests
+     * The paths let through without any token
      */
-    private static final String AUTHORIZATION_HEADER = "Authorization";
+    private final HeliosPathMatcher excludedPaths;
 
     /**
-     * The token prefix of an authorization header from http requests
+     * The revoked tokens, <code>null</code> when the tokens are not revoked
      */
-    private static final String BEARER_TOKEN_PREFIX = "Bearer ";
+    private final HeliosRevocationList revocationList;
+
+    /**
+     * Resolve the decoded path within the application, without the path parameters
+     */
+    private static final UrlPathHelper URL_PATH_HELPER = new UrlPathHelper();
+
+    /**
+     * Create a filter applied on every path
+     * @param tokenReader the token reader used to extract and validate the token
+     */
+    public DefaultHeliosTokenFilter(HeliosTokenReader tokenReader) {
+        this(tokenReader, null);
+    }
+
+    /**
+     * Create a filter skipping the specified paths, such as health checks or static assets.
+     * The patterns are compiled once, literal paths and <code>/**</code> prefixes are matched without parsing the request path.
+     * @param tokenReader the token reader used to extract and validate the token
+     * @param excludedPaths the {@link org.springframework.web.util.pattern.PathPattern} expressions of the excluded paths,
+     *                      relative to the context path, may be <code>null</code>
+     */
+    public DefaultHeliosTokenFilter(HeliosTokenReader tokenReader, Collection<String> excludedPaths) {
+        this(tokenReader, excludedPaths, null);
+    }
+
+    /**
+     * Create a filter skipping the specified paths and rejecting the revoked tokens.
+     * @param tokenReader the token reader used to extract and validate the token
+     * @param excludedPaths the {@link org.springframework.web.util.pattern.PathPattern} expressions of the excluded paths,
+     *                      relative to the context path, may be <code>null</code>
+     * @param revocationList the revoked tokens checked once the token is verified, may be <code>null</code>
+     */
+    public DefaultHeliosTokenFilter(HeliosTokenReader tokenReader, Collection<String> excludedPaths, HeliosRevocationList revocationList) {
+        this.tokenReader = tokenReader;
+        this.excludedPaths = HeliosPathMatcher.compile(excludedPaths);
+        this.revocationList = revocationList;
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p></p>
+     * The excluded paths are checked before any token work, against the decoded and normalized path within the application :
+     * the path parameters such as <code>;jsessionid=</code> are removed, the encoded chars are decoded, the duplicated slashes
+     * and the <code>..</code> segments are resolved, so an excluded pattern cannot be reached by an encoded path whatever the firewall.
+     */
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (excludedPaths.isEmpty()) {
+            return false;
+        }
+        return excludedPaths.matches(StringUtils.cleanPath(URL_PATH_HELPER.getPathWithinApplication(request)));
+    }
 
     /**
      * {@inheritDoc}
      * <p></p>
      * Verify if the token from authorization request is valid to update the security context and let pass the request.
+     * The token is verified and its subject is read in a single pass with {@link HeliosTokenReader#verify(String)},
+     * then checked against the {@link HeliosRevocationList} when it is defined.
      * Otherwise a forbidden response is returned
      */
     @Override
     protected void doFilterInternal(@NonNull HttpServletRequest request,
                                     @NonNull HttpServletResponse response,
                                     @NonNull FilterChain filterChain) throws ServletException, IOException {
-        log.info("DefaultHeliosTokenFilter processing on the income http request");
-        var token = resolveHeaderToken(request);
-        if (token.isPresent()
-               && tokenReader.validate(token.get())) {
-            log.debug("Token is present and valid");
-            var username = tokenReader.extractSubject(token.get());
+        var token = HeliosBearerToken.resolve(request.getHeader(HeliosBearerToken.AUTHORIZATION_HEADER));
+        var verification = token == null ? null : tokenReader.verify(token);
+        if (verification != null && verification.isVerified()
+                && (revocationList == null || !revocationList.isRevoked(verification.getClaims()))) {
+            var username = verification.getClaims().getSubject();
             var authToken = new UsernamePasswordAuthenticationToken(username, "default", List.of());
             SecurityContextHolder.getContext().setAuthentication(authToken);
             log.debug("SecurityContextHolder updated for the username : {}", username);
             filterChain.doFilter(request, response);
         } else {
+            log.debug("Request rejected, the token is missing, invalid or revoked");
             response.setStatus(HttpServletResponse.SC_FORBIDDEN);
         }
     }
-
-    /**
-     * Extract the token string after "Bearer " from the http authorization header.
-     * @param request the incoming http request
-     * @return an {@link Optional} describing the token stored
-     */
-    private Optional<String> resolveHeaderToken(HttpServletRequest request) {
-        var bearerToken = request.getHeader(AUTHORIZATION_HEADER);
-        return StringUtils.isNotEmpty(bearerToken) && bearerToken.startsWith(BEARER_TOKEN_PREFIX)
-                ? Optional.of(bearerToken.substring(7))
-                : Optional.empty();
-    }
 }
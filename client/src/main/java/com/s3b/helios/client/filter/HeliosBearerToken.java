@@ -0,0 +1,38 @@
+package com.s3b.helios.client.filter;
+
+/**
+ * Read the bearer token of an http authorization header, shared by the servlet and the reactive filters.
+ *
+ * @author Sébastien SAEZ
+ */
+final class HeliosBearerToken {
+
+    /**
+     * The constant to refer authorization header from http requests
+     */
+    static final String AUTHORIZATION_HEADER = "Authorization";
+
+    /**
+     * The token prefix of an authorization header from http requests
+     */
+    private static final String BEARER_TOKEN_PREFIX = "Bearer ";
+
+    /**
+     * Prevent class instantiation.
+     */
+    private HeliosBearerToken(){}
+
+    /**
+     * Extract the token string after "Bearer " from the http authorization header.
+     * The scheme is compared in place, only the token itself is copied.
+     * @param authorizationHeader the value of the authorization header, may be <code>null</code>
+     * @return the token, <code>null</code> if the header is missing or is not a bearer token
+     */
+    static String resolve(String authorizationHeader) {
+        return authorizationHeader != null
+                && authorizationHeader.length() > BEARER_TOKEN_PREFIX.length()
+                && authorizationHeader.startsWith(BEARER_TOKEN_PREFIX)
+                ? authorizationHeader.substring(BEARER_TOKEN_PREFIX.length())
+                : null;
+    }
+}
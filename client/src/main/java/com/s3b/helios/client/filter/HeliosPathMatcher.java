@@ -0,0 +1,129 @@
+package com.s3b.helios.client.filter;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * A matcher of request paths compiled once from {@link PathPattern} expressions.
+ * <p>
+ * The patterns are split by cost :
+ * <p> - a literal path, e.g. <code>/actuator/health</code>, is an exact lookup in a hash set
+ * <p> - a literal prefix ending with <code>/**</code>, e.g. <code>/static/**</code>, is a string prefix comparison
+ * <p> - any other pattern is matched by {@link PathPattern}, the path is only parsed when such a pattern exists
+ *
+ * @author Sébastien SAEZ
+ */
+final class HeliosPathMatcher {
+
+    /**
+     * A matcher which never matches
+     */
+    static final HeliosPathMatcher NONE = new HeliosPathMatcher(Set.of(), new String[0], List.of());
+
+    /**
+     * The suffix matching any path below a prefix
+     */
+    private static final String ANY_PATH_SUFFIX = "/**";
+
+    /**
+     * The literal paths
+     */
+    private final Set<String> exactPaths;
+
+    /**
+     * The literal prefixes, without the trailing <code>/**</code>
+     */
+    private final String[] prefixes;
+
+    /**
+     * The patterns holding wildcards, captures or regular expressions
+     */
+    private final List<PathPattern> patterns;
+
+    private HeliosPathMatcher(Set<String> exactPaths, String[] prefixes, List<PathPattern> patterns) {
+        this.exactPaths = exactPaths;
+        this.prefixes = prefixes;
+        this.patterns = patterns;
+    }
+
+    /**
+     * Compile the specified patterns.
+     * @param patterns the {@link PathPattern} expressions, may be <code>null</code>
+     * @return the compiled matcher
+     * @throws org.springframework.web.util.pattern.PatternParseException if a pattern is not valid
+     */
+    static HeliosPathMatcher compile(Collection<String> patterns) {
+        if (patterns == null || patterns.isEmpty()) {
+            return NONE;
+        }
+        var exactPaths = new HashSet<String>();
+        var prefixes = new ArrayList<String>();
+        var pathPatterns = new ArrayList<PathPattern>();
+        for (String pattern : patterns) {
+            var trimmed = pattern.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            if (isLiteral(trimmed)) {
+                exactPaths.add(trimmed);
+            } else if (trimmed.endsWith(ANY_PATH_SUFFIX)
+                    && isLiteral(trimmed.substring(0, trimmed.length() - ANY_PATH_SUFFIX.length()))) {
+                prefixes.add(trimmed.substring(0, trimmed.length() - ANY_PATH_SUFFIX.length()));
+            } else {
+                pathPatterns.add(PathPatternParser.defaultInstance.parse(trimmed));
+            }
+        }
+        return new HeliosPathMatcher(Set.copyOf(exactPaths), prefixes.toArray(String[]::new), List.copyOf(pathPatterns));
+    }
+
+    /**
+     * @param path the request path, without the context path
+     * @return <code>true</code> if one of the patterns matches the path
+     *         <code>false</code> otherwise.
+     */
+    boolean matches(String path) {
+        if (exactPaths.contains(path)) {
+            return true;
+        }
+        for (String prefix : prefixes) {
+            if (path.startsWith(prefix)
+                    && (path.length() == prefix.length() || path.charAt(prefix.length()) == '/')) {
+                return true;
+            }
+        }
+        if (patterns.isEmpty()) {
+            return false;
+        }
+        var pathContainer = PathContainer.parsePath(path);
+        for (PathPattern pattern : patterns) {
+            if (pattern.matches(pathContainer)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return <code>true</code> if no pattern is defined
+     */
+    boolean isEmpty() {
+        return exactPaths.isEmpty() && prefixes.length == 0 && patterns.isEmpty();
+    }
+
+    private static boolean isLiteral(String pattern) {
+        for (int i = 0; i < pattern.length(); i++) {
+            var c = pattern.charAt(i);
+            if (c == '*' || c == '?' || c == '{') {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,116 @@
+package com.s3b.helios.client.filter;
+
+import com.s3b.helios.client.revocation.HeliosRevocationList;
+import com.s3b.helios.client.token.HeliosTokenReader;
+import com.s3b.helios.client.token.HeliosTokenVerification;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContext;
+import org.springframework.security.core.context.SecurityContextImpl;
+import org.springframework.security.web.server.context.ServerSecurityContextRepository;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+
+/**
+ * A stateless {@link ServerSecurityContextRepository} building the security context from the bearer token of each request,
+ * the reactive counterpart of {@link DefaultHeliosTokenFilter}.
+ * <p>
+ * {@link HeliosTokenReader} implementations verify the tokens in memory, without any I/O, so the verification runs on the calling thread by default.
+ * A {@link Scheduler} such as {@link Schedulers#parallel()} moves it off the event loop, which pays off for the costly asymmetric algorithms.
+ *
+ * @see HeliosTokenReader
+ * @see org.springframework.security.config.web.server.ServerHttpSecurity#securityContextRepository(ServerSecurityContextRepository)
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class HeliosServerSecurityContextRepository implements ServerSecurityContextRepository {
+
+    /**
+     * The token reader used to verify the token
+     */
+    private final HeliosTokenReader tokenReader;
+
+    /**
+     * The scheduler verifying the tokens
+     */
+    private final Scheduler scheduler;
+
+    /**
+     * The revoked tokens, <code>null</code> when the tokens are not revoked
+     */
+    private final HeliosRevocationList revocationList;
+
+    /**
+     * Create a repository verifying the tokens on the calling thread
+     * @param tokenReader the token reader used to verify the token
+     */
+    public HeliosServerSecurityContextRepository(HeliosTokenReader tokenReader) {
+        this(tokenReader, Schedulers.immediate());
+    }
+
+    /**
+     * Create a repository verifying the tokens on the specified scheduler
+     * @param tokenReader the token reader used to verify the token
+     * @param scheduler the scheduler verifying the tokens
+     */
+    public HeliosServerSecurityContextRepository(HeliosTokenReader tokenReader, Scheduler scheduler) {
+        this(tokenReader, scheduler, null);
+    }
+
+    /**
+     * Create a repository verifying the tokens on the specified scheduler and rejecting the revoked tokens
+     * @param tokenReader the token reader used to verify the token
+     * @param scheduler the scheduler verifying the tokens
+     * @param revocationList the revoked tokens checked once the token is verified, may be <code>null</code>
+     */
+    public HeliosServerSecurityContextRepository(HeliosTokenReader tokenReader, Scheduler scheduler, HeliosRevocationList revocationList) {
+        this.tokenReader = tokenReader;
+        this.scheduler = scheduler;
+        this.revocationList = revocationList;
+    }
+
+    /**
+     * The tokens are issued by the server, nothing is saved.
+     * @param exchange the current exchange
+     * @param context the security context
+     * @return an empty {@link Mono}
+     */
+    @Override
+    public Mono<Void> save(ServerWebExchange exchange, SecurityContext context) {
+        return Mono.empty();
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p></p>
+     * The token is read from the authorization header and verified in a single pass with {@link HeliosTokenReader#verify(String)},
+     * then checked against the {@link HeliosRevocationList} when it is defined.
+     * @param exchange the current exchange
+     * @return the security context of the token subject, empty if the token is missing, invalid or revoked
+     */
+    @Override
+    public Mono<SecurityContext> load(ServerWebExchange exchange) {
+        var token = HeliosBearerToken.resolve(exchange.getRequest().getHeaders().getFirst(HeliosBearerToken.AUTHORIZATION_HEADER));
+        if (token == null) {
+            return Mono.empty();
+        }
+        var verification = Mono.fromSupplier(() -> tokenReader.verify(token));
+        if (scheduler != Schedulers.immediate()) {
+            verification = verification.subscribeOn(scheduler);
+        }
+        return verification
+                .filter(HeliosTokenVerification::isVerified)
+                .filter(verified -> revocationList == null || !revocationList.isRevoked(verified.getClaims()))
+                .map(this::securityContext);
+    }
+
+    private SecurityContext securityContext(HeliosTokenVerification verification) {
+        var username = verification.getClaims().getSubject();
+        log.debug("Security context loaded for the username : {}", username);
+        return new SecurityContextImpl(new UsernamePasswordAuthenticationToken(username, "default", List.of()));
+    }
+}
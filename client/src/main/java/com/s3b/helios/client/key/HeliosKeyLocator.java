@@ -0,0 +1,22 @@
+package com.s3b.helios.client.key;
+
+import java.security.Key;
+
+/**
+ * Locate the verification key of a token with the key id (<code>kid</code>) of its header.
+ *
+ * @author Sébastien SAEZ
+ *
+ * @see HeliosKeySet
+ * @see HeliosKeyRing
+ */
+@FunctionalInterface
+public interface HeliosKeyLocator {
+
+    /**
+     * Return the verification key of the specified key id.
+     * @param kid the key id of the token header, may be <code>null</code>
+     * @return the matching key, <code>null</code> if none matches
+     */
+    Key find(String kid);
+}
@@ -0,0 +1,194 @@
+package com.s3b.helios.client.key;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchService;
+import java.security.Key;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A set of verification keys indexed by key id (<code>kid</code>) which is reloaded while the application is running.
+ * <p>
+ * The keys are read from a JWK Set document, see {@link HeliosKeySet#load(Resource)}. When the document is reloaded :
+ * <p> - the new keys are used at once
+ * <p> - the keys removed from the document are retired, they still verify the tokens until the grace period ends
+ * <p>
+ * The lookups read an immutable snapshot replaced on every reload, so they never wait for a reload in progress.
+ * Call {@link #watch()} to reload the document each time its directory changes, the watcher is stopped by {@link #close()}.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public final class HeliosKeyRing implements HeliosKeyLocator, AutoCloseable {
+
+    /**
+     * The JWK Set document holding the active keys
+     */
+    private final Resource resource;
+
+    /**
+     * How long a removed key still verifies the tokens
+     */
+    private final Duration gracePeriod;
+
+    /**
+     * The clock retiring the keys
+     */
+    private final Clock clock;
+
+    /**
+     * The active and retired keys indexed by key id, replaced on every reload
+     */
+    private volatile Snapshot snapshot;
+
+    /**
+     * The service watching the directory of the document, <code>null</code> until {@link #watch()} is called
+     */
+    private WatchService watchService;
+
+    /**
+     * Create a key ring and load the keys of the specified document.
+     * @param resource a file or classpath resource holding a JWK Set
+     * @param gracePeriod how long a key removed from the document still verifies the tokens
+     * @throws UncheckedIOException if the resource can not be read
+     * @throws IllegalArgumentException if the document is not a valid JWK Set
+     */
+    public HeliosKeyRing(Resource resource, Duration gracePeriod) {
+        this(resource, gracePeriod, Clock.systemUTC());
+    }
+
+    HeliosKeyRing(Resource resource, Duration gracePeriod, Clock clock) {
+        this.resource = resource;
+        this.gracePeriod = gracePeriod;
+        this.clock = clock;
+        this.snapshot = new Snapshot(Map.of(), null);
+        reload();
+    }
+
+    /**
+     * {@inheritDoc}
+     * A retired key is returned until its grace period ends.
+     * @param kid the key id of the token header, may be <code>null</code>
+     * @return the matching key, <code>null</code> if none matches
+     */
+    @Override
+    public Key find(String kid) {
+        var current = snapshot;
+        if (kid == null) {
+            return current.defaultKey();
+        }
+        var entry = current.keys().get(kid);
+        if (entry == null || entry.retiredUntil() != null && clock.instant().isAfter(entry.retiredUntil())) {
+            return null;
+        }
+        return entry.key();
+    }
+
+    /**
+     * Load the document again and replace the keys.
+     * The keys missing from the document are retired until the end of the grace period.
+     * @throws UncheckedIOException if the resource can not be read, the previous keys are kept
+     * @throws IllegalArgumentException if the document is not a valid JWK Set, the previous keys are kept
+     */
+    public synchronized void reload() {
+        var keySet = HeliosKeySet.load(resource);
+        var now = clock.instant();
+        var keys = new HashMap<String, Entry>();
+        snapshot.keys().forEach((kid, entry) -> {
+            if (keySet.getKeys().containsKey(kid)) {
+                return;
+            }
+            if (entry.retiredUntil() == null) {
+                log.info("The key '{}' is retired, it verifies the tokens until the end of the grace period", kid);
+                keys.put(kid, new Entry(entry.key(), now.plus(gracePeriod)));
+            } else if (!now.isAfter(entry.retiredUntil())) {
+                keys.put(kid, entry);
+            }
+        });
+        keySet.getKeys().forEach((kid, key) -> keys.put(kid, new Entry(key, null)));
+        snapshot = new Snapshot(Map.copyOf(keys), keySet.find(null));
+    }
+
+    /**
+     * Watch the directory of the document and reload the keys each time it changes.
+     * The watcher runs in a daemon thread until {@link #close()} is called.
+     * @throws UncheckedIOException if the resource is not a file or its directory can not be watched
+     */
+    public synchronized void watch() {
+        if (watchService != null) {
+            return;
+        }
+        try {
+            Path directory = resource.getFile().toPath().toAbsolutePath().getParent();
+            watchService = FileSystems.getDefault().newWatchService();
+            directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY);
+            var watcher = new Thread(() -> watchLoop(watchService), "helios-key-ring-watcher");
+            watcher.setDaemon(true);
+            watcher.start();
+            log.info("Watching {} for key rotations", directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to watch the key set " + resource, e);
+        }
+    }
+
+    /**
+     * Stop watching the document.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+            watchService = null;
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                var watchKey = service.take();
+                // Every event of the directory triggers a reload, the document may be replaced through a symbolic link
+                watchKey.pollEvents();
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    log.error("Unable to reload the key set {}, the previous keys are kept: {}", resource, e.getMessage(), e);
+                }
+                if (!watchKey.reset()) {
+                    log.warn("The directory of the key set {} is no longer watched", resource);
+                    return;
+                }
+            }
+        } catch (ClosedWatchServiceException e) {
+            log.debug("The key set watcher is stopped");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A key with its retirement deadline
+     * @param key the verification key
+     * @param retiredUntil the end of the grace period, <code>null</code> while the key is active
+     */
+    private record Entry(Key key, Instant retiredUntil) {
+    }
+
+    /**
+     * The keys of a reload
+     * @param keys the active and retired keys indexed by key id
+     * @param defaultKey the key used when the token does not specify a key id
+     */
+    private record Snapshot(Map<String, Entry> keys, Key defaultKey) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.s3b.helios.client.key;
+
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PrivateJwk;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.Key;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * An immutable set of verification keys indexed by their key id (<code>kid</code>).
+ * <p>
+ * It is usually loaded from a JWK Set document holding the public keys of the token issuer,
+ * so a resource server verifies the tokens without holding any signing key.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public final class HeliosKeySet implements HeliosKeyLocator {
+
+    /**
+     * The verification keys indexed by key id
+     */
+    private final Map<String, Key> keys;
+
+    /**
+     * The key used when the token does not specify a key id, <code>null</code> if the set holds several keys
+     */
+    private final Key defaultKey;
+
+    /**
+     * Create a key set
+     * @param keys the verification keys indexed by key id
+     * @throws IllegalArgumentException if the key set is empty
+     */
+    public HeliosKeySet(Map<String, ? extends Key> keys) {
+        if (keys.isEmpty()) {
+            throw new IllegalArgumentException("The key set does not contain any key");
+        }
+        this.keys = Map.copyOf(keys);
+        this.defaultKey = keys.size() == 1 ? keys.values().iterator().next() : null;
+    }
+
+    /**
+     * Load a JWK Set document (RFC 7517) from the specified resource.
+     * <p>
+     * Only the public part of the asymmetric keys is kept. A key without <code>kid</code> is only allowed
+     * if it is the single key of the set.
+     * @param resource a file or classpath resource holding a JWK Set
+     * @return the key set
+     * @throws UncheckedIOException if the resource can not be read
+     * @throws IllegalArgumentException if the document is not a valid JWK Set
+     */
+    public static HeliosKeySet load(Resource resource) {
+        try (InputStream inputStream = resource.getInputStream()) {
+            var jwkSet = Jwks.setParser().build().parse(inputStream);
+            var keys = new HashMap<String, Key>();
+            for (Jwk<?> jwk : jwkSet.getKeys()) {
+                var kid = jwk.getId() == null ? "" : jwk.getId();
+                if (keys.put(kid, verificationKey(jwk)) != null) {
+                    throw new IllegalArgumentException("The key id '" + kid + "' is defined several times in " + resource);
+                }
+            }
+            log.info("{} verification key(s) loaded from {}", keys.size(), resource);
+            return new HeliosKeySet(keys);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the key set " + resource, e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param kid the key id of the token header, may be <code>null</code>
+     * @return the matching key, <code>null</code> if none matches
+     */
+    @Override
+    public Key find(String kid) {
+        return kid == null ? defaultKey : keys.get(kid);
+    }
+
+    /**
+     * @return every verification key indexed by key id
+     */
+    public Map<String, Key> getKeys() {
+        return Collections.unmodifiableMap(keys);
+    }
+
+    private static Key verificationKey(Jwk<?> jwk) {
+        if (jwk instanceof PrivateJwk<?, ?, ?> privateJwk) {
+            log.warn("The key set contains the private key '{}', only its public key is used", jwk.getId());
+            return privateJwk.toPublicJwk().toKey();
+        }
+        return jwk.toKey();
+    }
+}
@@ -0,0 +1,161 @@
+package com.s3b.helios.client.key;
+
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.Keys;
+import io.jsonwebtoken.security.PrivateJwk;
+import io.jsonwebtoken.security.SecretJwk;
+import lombok.Getter;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.Key;
+import java.security.PrivateKey;
+import java.security.interfaces.ECKey;
+import java.security.interfaces.EdECKey;
+import java.security.interfaces.RSAKey;
+
+/**
+ * A key used to sign the tokens, with its JWS algorithm and its optional key id (<code>kid</code>).
+ * <p>
+ * The supported algorithms are <code>EdDSA</code> (Ed25519 or Ed448), <code>ES256</code>,
+ * <code>ES384</code>, <code>ES512</code>, <code>RS256</code>, <code>RS384</code>, <code>RS512</code>
+ * and <code>HS256</code> for a shared secret. Their signing and verification costs are compared by
+ * the helios-benchmarks module.
+ *
+ * @author Sébastien SAEZ
+ */
+@Getter
+public final class HeliosSigningKey {
+
+    /**
+     * The key id written in the token header, <code>null</code> to omit it
+     */
+    private final String kid;
+
+    /**
+     * The JWS algorithm name
+     */
+    private final String algorithm;
+
+    /**
+     * The private key, or the secret key for HMAC
+     */
+    private final Key key;
+
+    /**
+     * Create a signing key
+     * @param kid the key id written in the token header, <code>null</code> to omit it
+     * @param algorithm the JWS algorithm name
+     * @param key the private key, or the secret key for HMAC
+     * @throws IllegalArgumentException if the algorithm is not supported or does not match the key
+     */
+    public HeliosSigningKey(String kid, String algorithm, Key key) {
+        this.kid = kid;
+        this.algorithm = algorithm;
+        this.key = key;
+        checkAlgorithm();
+    }
+
+    /**
+     * Create a HS256 signing key from a Base64 encoded secret
+     * @param kid the key id written in the token header, <code>null</code> to omit it
+     * @param base64Secret the Base64 encoded secret
+     * @return the signing key
+     * @throws io.jsonwebtoken.security.WeakKeyException if the secret is shorter than 256 bits
+     */
+    public static HeliosSigningKey hmac(String kid, String base64Secret) {
+        return new HeliosSigningKey(kid, "HS256", Keys.hmacShaKeyFor(Decoders.BASE64.decode(base64Secret)));
+    }
+
+    /**
+     * Create a signing key from a private key, the algorithm is deduced from the key type.
+     * @param kid the key id written in the token header, <code>null</code> to omit it
+     * @param privateKey an Ed25519, EC or RSA private key
+     * @return the signing key
+     * @throws IllegalArgumentException if the key type is not supported
+     */
+    public static HeliosSigningKey of(String kid, PrivateKey privateKey) {
+        return new HeliosSigningKey(kid, defaultAlgorithm(privateKey), privateKey);
+    }
+
+    /**
+     * Load a private JWK (RFC 7517) from the specified resource.
+     * The algorithm is read from the <code>alg</code> member, or deduced from the key type when it is missing.
+     * @param resource a file or classpath resource holding a private or secret JWK
+     * @return the signing key
+     * @throws UncheckedIOException if the resource can not be read
+     * @throws IllegalArgumentException if the document is not a private or secret JWK
+     */
+    public static HeliosSigningKey load(Resource resource) {
+        try (InputStream inputStream = resource.getInputStream()) {
+            var jwk = Jwks.parser().build().parse(inputStream);
+            if (jwk instanceof PrivateJwk<?, ?, ?> privateJwk) {
+                var privateKey = privateJwk.toKey();
+                var algorithm = jwk.getAlgorithm() == null ? defaultAlgorithm(privateKey) : jwk.getAlgorithm();
+                return new HeliosSigningKey(jwk.getId(), algorithm, privateKey);
+            }
+            if (jwk instanceof SecretJwk) {
+                var algorithm = jwk.getAlgorithm() == null ? "HS256" : jwk.getAlgorithm();
+                return new HeliosSigningKey(jwk.getId(), algorithm, jwk.toKey());
+            }
+            throw new IllegalArgumentException("The signing key " + resource + " is neither a private nor a secret key");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Unable to read the signing key " + resource, e);
+        }
+    }
+
+    /**
+     * @return the name of the JCA algorithm signing with this key
+     */
+    public String getJcaAlgorithm() {
+        return switch (algorithm) {
+            case "HS256" -> "HmacSHA256";
+            case "EdDSA" -> ((EdECKey) key).getParams().getName();
+            case "ES256" -> "SHA256withECDSAinP1363Format";
+            case "ES384" -> "SHA384withECDSAinP1363Format";
+            case "ES512" -> "SHA512withECDSAinP1363Format";
+            case "RS256" -> "SHA256withRSA";
+            case "RS384" -> "SHA384withRSA";
+            case "RS512" -> "SHA512withRSA";
+            default -> throw new IllegalArgumentException("The algorithm " + algorithm + " is not supported");
+        };
+    }
+
+    /**
+     * @return <code>true</code> if the key is a shared secret
+     *         <code>false</code> if it is a private key.
+     */
+    public boolean isSecret() {
+        return !(key instanceof PrivateKey);
+    }
+
+    private void checkAlgorithm() {
+        var matches = switch (algorithm) {
+            case "HS256" -> isSecret();
+            case "EdDSA" -> key instanceof EdECKey;
+            case "ES256", "ES384", "ES512" -> key instanceof ECKey;
+            case "RS256", "RS384", "RS512" -> key instanceof RSAKey;
+            default -> throw new IllegalArgumentException("The algorithm " + algorithm + " is not supported");
+        };
+        if (!matches) {
+            throw new IllegalArgumentException("The key " + key.getAlgorithm() + " can not be used with " + algorithm);
+        }
+    }
+
+    private static String defaultAlgorithm(PrivateKey privateKey) {
+        if (privateKey instanceof EdECKey) {
+            return "EdDSA";
+        }
+        if (privateKey instanceof ECKey ecKey) {
+            var fieldSize = ecKey.getParams().getCurve().getField().getFieldSize();
+            return fieldSize <= 256 ? "ES256" : fieldSize <= 384 ? "ES384" : "ES512";
+        }
+        if (privateKey instanceof RSAKey) {
+            return "RS256";
+        }
+        throw new IllegalArgumentException("The key " + privateKey.getAlgorithm() + " is not supported");
+    }
+}
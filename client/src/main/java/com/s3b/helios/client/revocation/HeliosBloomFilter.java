@@ -0,0 +1,126 @@
+package com.s3b.helios.client.revocation;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A Bloom filter of strings with a fixed number of bits, sized once for an expected number of insertions and a false positive rate.
+ * <p>
+ * {@link #mightContain(long, String)} never misses an inserted string, it may answer <code>true</code> for a string which has not been inserted.
+ * The bits are set atomically, a string is visible to the readers once {@link #put(long, String)} returns.
+ * The indexes are derived from a single 64 bits hash with the Kirsch-Mitzenmacher double hashing, so a lookup does not allocate.
+ *
+ * @author Sébastien SAEZ
+ */
+final class HeliosBloomFilter {
+
+    /**
+     * The words holding the bits
+     */
+    private final AtomicLongArray words;
+
+    /**
+     * The number of bits
+     */
+    private final long bitCount;
+
+    /**
+     * The number of bits set per string
+     */
+    private final int hashCount;
+
+    private HeliosBloomFilter(long bitCount, int hashCount) {
+        this.words = new AtomicLongArray((int) ((bitCount + 63) >>> 6));
+        this.bitCount = (long) words.length() << 6;
+        this.hashCount = hashCount;
+    }
+
+    /**
+     * Create a filter sized for the specified number of strings
+     * @param expectedInsertions the number of strings inserted at most
+     * @param falsePositiveRate the probability of a false positive once the expected strings are inserted, between 0 and 1 exclusive
+     * @return an empty filter
+     */
+    static HeliosBloomFilter create(int expectedInsertions, double falsePositiveRate) {
+        if (expectedInsertions < 1) {
+            throw new IllegalArgumentException("The expected insertions must be positive");
+        }
+        if (!(falsePositiveRate > 0 && falsePositiveRate < 1)) {
+            throw new IllegalArgumentException("The false positive rate must be between 0 and 1 exclusive");
+        }
+        var bits = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        bits = Math.min(Math.max(bits, 64), (long) Integer.MAX_VALUE << 6);
+        var hashes = (int) Math.max(1, Math.round((double) bits / expectedInsertions * Math.log(2)));
+        return new HeliosBloomFilter(bits, hashes);
+    }
+
+    /**
+     * Insert a string
+     * @param seed the namespace of the string, the same string of two namespaces sets different bits
+     * @param key the string
+     */
+    void put(long seed, String key) {
+        var hash = hash(seed, key);
+        var low = hash & 0xFFFFFFFFL;
+        var high = hash >>> 32;
+        for (int i = 0; i < hashCount; i++) {
+            var index = Math.floorMod(low + i * high, bitCount);
+            var word = (int) (index >>> 6);
+            var mask = 1L << index;
+            var current = words.get(word);
+            while ((current & mask) == 0 && !words.weakCompareAndSetVolatile(word, current, current | mask)) {
+                current = words.get(word);
+            }
+        }
+    }
+
+    /**
+     * @param seed the namespace of the string
+     * @param key the string
+     * @return <code>false</code> if the string has never been inserted,
+     *         <code>true</code> if it has probably been inserted.
+     */
+    boolean mightContain(long seed, String key) {
+        var hash = hash(seed, key);
+        var low = hash & 0xFFFFFFFFL;
+        var high = hash >>> 32;
+        for (int i = 0; i < hashCount; i++) {
+            var index = Math.floorMod(low + i * high, bitCount);
+            if ((words.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the memory held by the bits in bytes
+     */
+    long getByteSize() {
+        return (long) words.length() << 3;
+    }
+
+    /**
+     * @param insertions the number of strings inserted
+     * @return the probability of a false positive after the specified insertions
+     */
+    double getFalsePositiveRate(long insertions) {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions / bitCount), hashCount);
+    }
+
+    /**
+     * The FNV-1a hash of the UTF-16 chars, finalized with the MurmurHash3 mix so every bit depends on every char
+     */
+    private static long hash(long seed, String key) {
+        var hash = 0xCBF29CE484222325L ^ seed;
+        for (int i = 0; i < key.length(); i++) {
+            hash ^= key.charAt(i);
+            hash *= 0x100000001B3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
@@ -0,0 +1,78 @@
+package com.s3b.helios.client.revocation;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A revocation published by a {@link HeliosRevocationSource} : either a single token, by its <code>jti</code> claim,
+ * or every token of a subject issued before an epoch, such as on logout from every device or on a password change.
+ * <p>
+ * A revocation is kept until it expires, once every token it revokes is expired anyway.
+ *
+ * @param type what is revoked
+ * @param value the token id or the subject
+ * @param issuedBefore the epoch of a subject revocation, the tokens issued before are revoked, <code>null</code> for a token revocation.
+ *                     The <code>iat</code> claim only holds whole seconds, so the epoch is rounded up to the next whole second :
+ *                     a token issued during the second of the epoch is revoked, a token issued from the next second stays valid
+ * @param expiresAt when the revocation can be forgotten, the expiration of the token or of the last token issued before the epoch
+ *
+ * @author Sébastien SAEZ
+ */
+public record HeliosRevocation(Type type, String value, Instant issuedBefore, Instant expiresAt) {
+
+    /**
+     * What is revoked
+     */
+    public enum Type {
+        /**
+         * A single token, by its <code>jti</code> claim
+         */
+        TOKEN,
+        /**
+         * Every token of a subject issued before an epoch
+         */
+        SUBJECT
+    }
+
+    /**
+     * Validate the revocation
+     * @throws IllegalArgumentException if a field is missing
+     */
+    public HeliosRevocation {
+        if (type == null || value == null || expiresAt == null || (type == Type.SUBJECT && issuedBefore == null)) {
+            throw new IllegalArgumentException("The type, the value, the expiry and the epoch of a subject revocation are required");
+        }
+        if (issuedBefore != null && issuedBefore.getNano() != 0) {
+            issuedBefore = issuedBefore.truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        }
+    }
+
+    /**
+     * Revoke a single token
+     * @param tokenId the <code>jti</code> claim of the token
+     * @param expiresAt the expiration of the token
+     * @return the revocation of the token
+     */
+    public static HeliosRevocation token(String tokenId, Instant expiresAt) {
+        return new HeliosRevocation(Type.TOKEN, tokenId, null, expiresAt);
+    }
+
+    /**
+     * Revoke the tokens of a subject issued before the epoch
+     * @param subject the subject of the tokens
+     * @param issuedBefore the epoch, rounded up to the next whole second, the tokens issued at or after it stay valid
+     * @param expiresAt the expiration of the last token issued before the epoch, usually the epoch plus the lifetime of the tokens
+     * @return the revocation of the subject
+     */
+    public static HeliosRevocation subject(String subject, Instant issuedBefore, Instant expiresAt) {
+        return new HeliosRevocation(Type.SUBJECT, subject, issuedBefore, expiresAt);
+    }
+
+    /**
+     * @param now the current instant
+     * @return <code>true</code> if every token revoked by this revocation is expired
+     */
+    public boolean isExpired(Instant now) {
+        return !now.isBefore(expiresAt);
+    }
+}
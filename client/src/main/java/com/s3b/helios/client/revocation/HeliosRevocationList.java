@@ -0,0 +1,364 @@
+package com.s3b.helios.client.revocation;
+
+import com.s3b.helios.client.token.HeliosTokenClaims;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The revoked tokens checked by the token filters, without any I/O on the request path.
+ * <p>
+ * The revocations are polled from a {@link HeliosRevocationSource} and kept in two tiers :
+ * <p> - a Bloom filter of a fixed size holding every revoked token id and subject, which rejects most tokens in a few memory reads
+ * <p> - the exact revocations, only looked up when the Bloom filter answers a probable hit, which tells the false positives apart
+ * and holds the epochs of the subject revocations
+ * <p>
+ * The memory is bounded by the capacity : the Bloom filter is sized once for the capacity, and no more than the capacity of exact revocations are kept.
+ * Beyond the capacity, the revocations only go into the Bloom filter and a probable hit without exact revocation is rejected,
+ * so no revocation is lost and the false positives are denied until the next snapshot. The expired revocations are dropped on each poll
+ * and the Bloom filter is rebuilt without them.
+ *
+ * @author Sébastien SAEZ
+ * @see HeliosRevocation
+ */
+@Slf4j
+public class HeliosRevocationList implements AutoCloseable {
+
+    /**
+     * The claim holding the token id
+     */
+    public static final String TOKEN_ID_CLAIM = "jti";
+
+    /**
+     * The estimated memory of an exact revocation in bytes : the map node, the key and the revocation with its instants
+     */
+    static final long ESTIMATED_ENTRY_BYTES = 160;
+
+    /**
+     * The Bloom filter namespace of the token ids
+     */
+    private static final long TOKEN_SEED = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The Bloom filter namespace of the subjects
+     */
+    private static final long SUBJECT_SEED = 0xC2B2AE3D27D4EB4FL;
+
+    /**
+     * The source of the revocations
+     */
+    private final HeliosRevocationSource source;
+
+    /**
+     * The maximum number of exact revocations, also the number of strings the Bloom filter is sized for
+     */
+    private final int capacity;
+
+    /**
+     * The false positive rate of the Bloom filter at capacity
+     */
+    private final double falsePositiveRate;
+
+    /**
+     * The time source of the expiry
+     */
+    private final Clock clock;
+
+    /**
+     * The current revocations, replaced on a snapshot or a rebuild
+     */
+    private volatile Revocations revocations;
+
+    /**
+     * The version of the last update applied
+     */
+    private volatile long version;
+
+    /**
+     * The number of tokens hitting the Bloom filter
+     */
+    private final LongAdder probableHits = new LongAdder();
+
+    /**
+     * The number of probable hits which were not revoked
+     */
+    private final LongAdder falsePositives = new LongAdder();
+
+    /**
+     * The number of tokens rejected as revoked
+     */
+    private final LongAdder revokedHits = new LongAdder();
+
+    /**
+     * The poller, <code>null</code> until {@link #start(Duration)} is called
+     */
+    private ScheduledExecutorService poller;
+
+    /**
+     * Create an empty list, call {@link #refresh()} or {@link #start(Duration)} to load the revocations
+     * @param source the source of the revocations
+     * @param capacity the maximum number of exact revocations kept in memory
+     * @param falsePositiveRate the false positive rate of the Bloom filter at capacity, such as <code>0.01</code>
+     */
+    public HeliosRevocationList(HeliosRevocationSource source, int capacity, double falsePositiveRate) {
+        this(source, capacity, falsePositiveRate, Clock.systemUTC());
+    }
+
+    /**
+     * Create an empty list with the specified time source
+     * @param source the source of the revocations
+     * @param capacity the maximum number of exact revocations kept in memory
+     * @param falsePositiveRate the false positive rate of the Bloom filter at capacity, such as <code>0.01</code>
+     * @param clock the time source of the expiry
+     */
+    public HeliosRevocationList(HeliosRevocationSource source, int capacity, double falsePositiveRate, Clock clock) {
+        this.source = source;
+        this.capacity = capacity;
+        this.falsePositiveRate = falsePositiveRate;
+        this.clock = clock;
+        this.revocations = newRevocations();
+        log.info("Revocation list created for {} revocations, its Bloom filter holds {} bytes", capacity, revocations.bloomFilter.getByteSize());
+    }
+
+    /**
+     * Check whether the verified token has been revoked, by its <code>jti</code> claim or by an epoch of its subject.
+     * The exact revocations are only looked up when the Bloom filter answers a probable hit.
+     * @param claims the claims of the verified token
+     * @return <code>true</code> if the token is revoked
+     *         <code>false</code> otherwise.
+     */
+    public boolean isRevoked(HeliosTokenClaims claims) {
+        var current = revocations;
+        if (claims.getClaim(TOKEN_ID_CLAIM) instanceof String tokenId && current.bloomFilter.mightContain(TOKEN_SEED, tokenId)) {
+            probableHits.increment();
+            if (current.tokens.containsKey(tokenId) || current.overflowed) {
+                revokedHits.increment();
+                return true;
+            }
+            falsePositives.increment();
+        }
+        var subject = claims.getSubject();
+        if (subject != null && current.bloomFilter.mightContain(SUBJECT_SEED, subject)) {
+            probableHits.increment();
+            var revocation = current.subjects.get(subject);
+            if (revocation == null ? current.overflowed
+                    : claims.getIssuedAt() == null || claims.getIssuedAt().isBefore(revocation.issuedBefore())) {
+                revokedHits.increment();
+                return true;
+            }
+            falsePositives.increment();
+        }
+        return false;
+    }
+
+    /**
+     * Poll the source and apply its update, then drop the expired revocations.
+     * The previous revocations are kept when the source fails.
+     */
+    public synchronized void refresh() {
+        HeliosRevocationUpdate update;
+        try {
+            update = source.poll(version);
+        } catch (RuntimeException e) {
+            log.warn("Unable to poll the revocations, the previous ones are kept: {}", e.getMessage());
+            return;
+        }
+        var now = clock.instant();
+        if (update != null) {
+            if (update.snapshot()) {
+                var snapshot = newRevocations();
+                update.revocations().forEach(revocation -> add(snapshot, revocation, now));
+                revocations = snapshot;
+            } else {
+                update.revocations().forEach(revocation -> add(revocations, revocation, now));
+            }
+            version = update.version();
+            log.debug("{} revocation(s) applied, version {}", update.revocations().size(), version);
+        }
+        purge(now);
+    }
+
+    /**
+     * Poll the source at the specified interval in a daemon thread until {@link #close()} is called.
+     * The first poll happens immediately.
+     * @param interval the delay between two polls
+     */
+    public synchronized void start(Duration interval) {
+        if (poller != null) {
+            return;
+        }
+        poller = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "helios-revocation-poller");
+            thread.setDaemon(true);
+            return thread;
+        });
+        poller.scheduleWithFixedDelay(this::refresh, 0, interval.toMillis(), TimeUnit.MILLISECONDS);
+        log.info("The revocations are polled every {}", interval);
+    }
+
+    /**
+     * Stop polling the source.
+     */
+    @Override
+    public synchronized void close() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
+        }
+    }
+
+    /**
+     * @return the version of the last update applied, <code>0</code> before the first update
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the number of exact token revocations
+     */
+    public int getRevokedTokenCount() {
+        return revocations.tokens.size();
+    }
+
+    /**
+     * @return the number of exact subject revocations
+     */
+    public int getRevokedSubjectCount() {
+        return revocations.subjects.size();
+    }
+
+    /**
+     * @return the memory held by the Bloom filter in bytes, fixed by the capacity
+     */
+    public long getBloomFilterBytes() {
+        return revocations.bloomFilter.getByteSize();
+    }
+
+    /**
+     * @return the estimated memory of the revocation list in bytes, the Bloom filter and the exact revocations
+     */
+    public long getEstimatedMemoryBytes() {
+        var current = revocations;
+        return current.bloomFilter.getByteSize() + ESTIMATED_ENTRY_BYTES * (current.tokens.size() + current.subjects.size());
+    }
+
+    /**
+     * @return the expected false positive rate of the Bloom filter with the current revocations
+     */
+    public double getExpectedFalsePositiveRate() {
+        var current = revocations;
+        return current.bloomFilter.getFalsePositiveRate(current.insertions);
+    }
+
+    /**
+     * @return <code>true</code> if the capacity has been exceeded, the false positives are then rejected until the next snapshot
+     */
+    public boolean isOverflowed() {
+        return revocations.overflowed;
+    }
+
+    /**
+     * @return the number of tokens hitting the Bloom filter
+     */
+    public long getProbableHitCount() {
+        return probableHits.sum();
+    }
+
+    /**
+     * @return the number of probable hits which were not revoked
+     */
+    public long getFalsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    /**
+     * @return the number of tokens rejected as revoked
+     */
+    public long getRevokedHitCount() {
+        return revokedHits.sum();
+    }
+
+    /**
+     * Add a revocation, the exact revocation is stored before the Bloom filter bits so a probable hit always finds it
+     */
+    private void add(Revocations target, HeliosRevocation revocation, Instant now) {
+        if (revocation.isExpired(now)) {
+            return;
+        }
+        var tokens = revocation.type() == HeliosRevocation.Type.TOKEN;
+        var exact = tokens ? target.tokens : target.subjects;
+        if (exact.containsKey(revocation.value()) || target.tokens.size() + target.subjects.size() < capacity) {
+            exact.merge(revocation.value(), revocation, HeliosRevocationList::latest);
+        } else if (!target.overflowed) {
+            target.overflowed = true;
+            log.warn("The revocation list exceeds its capacity of {}, the probable hits are rejected until the next snapshot", capacity);
+        }
+        target.bloomFilter.put(tokens ? TOKEN_SEED : SUBJECT_SEED, revocation.value());
+        target.insertions++;
+    }
+
+    /**
+     * Drop the expired revocations and rebuild the Bloom filter without them, unless revocations were only stored in the Bloom filter
+     */
+    private void purge(Instant now) {
+        var current = revocations;
+        var purged = current.tokens.values().removeIf(revocation -> revocation.isExpired(now));
+        purged |= current.subjects.values().removeIf(revocation -> revocation.isExpired(now));
+        if (!purged || current.overflowed) {
+            return;
+        }
+        var rebuilt = newRevocations();
+        current.tokens.values().forEach(revocation -> add(rebuilt, revocation, now));
+        current.subjects.values().forEach(revocation -> add(rebuilt, revocation, now));
+        revocations = rebuilt;
+        log.debug("Expired revocations dropped, {} revocation(s) kept", rebuilt.insertions);
+    }
+
+    private Revocations newRevocations() {
+        return new Revocations(HeliosBloomFilter.create(capacity, falsePositiveRate));
+    }
+
+    private static HeliosRevocation latest(HeliosRevocation previous, HeliosRevocation revocation) {
+        if (previous.issuedBefore() == null) {
+            return previous.expiresAt().isAfter(revocation.expiresAt()) ? previous : revocation;
+        }
+        return new HeliosRevocation(previous.type(), previous.value(),
+                previous.issuedBefore().isAfter(revocation.issuedBefore()) ? previous.issuedBefore() : revocation.issuedBefore(),
+                previous.expiresAt().isAfter(revocation.expiresAt()) ? previous.expiresAt() : revocation.expiresAt());
+    }
+
+    /**
+     * The Bloom filter and the exact revocations, only changed by the polling thread
+     */
+    private static final class Revocations {
+
+        private final HeliosBloomFilter bloomFilter;
+
+        private final Map<String, HeliosRevocation> tokens = new ConcurrentHashMap<>();
+
+        private final Map<String, HeliosRevocation> subjects = new ConcurrentHashMap<>();
+
+        /**
+         * The number of strings inserted in the Bloom filter
+         */
+        private volatile long insertions;
+
+        /**
+         * Whether revocations were only stored in the Bloom filter
+         */
+        private volatile boolean overflowed;
+
+        private Revocations(HeliosBloomFilter bloomFilter) {
+            this.bloomFilter = bloomFilter;
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.s3b.helios.client.revocation;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publish the memory, the size and the counters of a {@link HeliosRevocationList} to Micrometer.
+ *
+ * @author Sébastien SAEZ
+ */
+@RequiredArgsConstructor
+public class HeliosRevocationListMetrics implements MeterBinder {
+
+    /**
+     * The observed revocation list
+     */
+    private final HeliosRevocationList revocationList;
+
+    /**
+     * {@inheritDoc}
+     * @param registry the registry publishing the meters
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("helios.revocation.memory", revocationList, HeliosRevocationList::getEstimatedMemoryBytes)
+                .description("The estimated memory of the Bloom filter and of the exact revocations")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("helios.revocation.bloom.memory", revocationList, HeliosRevocationList::getBloomFilterBytes)
+                .description("The memory of the Bloom filter, fixed by the capacity")
+                .baseUnit(BaseUnits.BYTES)
+                .register(registry);
+        Gauge.builder("helios.revocation.tokens", revocationList, HeliosRevocationList::getRevokedTokenCount)
+                .description("The number of revoked tokens")
+                .register(registry);
+        Gauge.builder("helios.revocation.subjects", revocationList, HeliosRevocationList::getRevokedSubjectCount)
+                .description("The number of revoked subjects")
+                .register(registry);
+        Gauge.builder("helios.revocation.false.positive.rate", revocationList, HeliosRevocationList::getExpectedFalsePositiveRate)
+                .description("The expected false positive rate of the Bloom filter")
+                .register(registry);
+        Gauge.builder("helios.revocation.overflowed", revocationList, list -> list.isOverflowed() ? 1 : 0)
+                .description("Whether the capacity has been exceeded")
+                .register(registry);
+        FunctionCounter.builder("helios.revocation.probable.hits", revocationList, HeliosRevocationList::getProbableHitCount)
+                .description("The number of tokens hitting the Bloom filter")
+                .register(registry);
+        FunctionCounter.builder("helios.revocation.false.positives", revocationList, HeliosRevocationList::getFalsePositiveCount)
+                .description("The number of probable hits which were not revoked")
+                .register(registry);
+        FunctionCounter.builder("helios.revocation.rejected", revocationList, HeliosRevocationList::getRevokedHitCount)
+                .description("The number of tokens rejected as revoked")
+                .register(registry);
+    }
+}
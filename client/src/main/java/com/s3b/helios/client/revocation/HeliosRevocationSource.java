@@ -0,0 +1,21 @@
+package com.s3b.helios.client.revocation;
+
+/**
+ * The source of the revocations polled by a {@link HeliosRevocationList}, such as a database table, a shared cache or the server API.
+ * <p>
+ * The source only returns the changes since the version of the previous poll, so a poll stays cheap whatever the number of revocations.
+ *
+ * @author Sébastien SAEZ
+ * @see InMemoryHeliosRevocationSource
+ */
+@FunctionalInterface
+public interface HeliosRevocationSource {
+
+    /**
+     * Return the revocations published after the specified version
+     * @param sinceVersion the version of the previous update, <code>0</code> on the first poll
+     * @return the new revocations, a snapshot of every revocation if the changes since the version are unknown,
+     *         <code>null</code> if nothing changed
+     */
+    HeliosRevocationUpdate poll(long sinceVersion);
+}
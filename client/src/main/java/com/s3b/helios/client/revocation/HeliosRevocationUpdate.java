@@ -0,0 +1,23 @@
+package com.s3b.helios.client.revocation;
+
+import java.util.List;
+
+/**
+ * The revocations published by a {@link HeliosRevocationSource} since a version.
+ *
+ * @param version the version of the source once the revocations are applied, passed to the next poll
+ * @param snapshot <code>true</code> if the revocations replace every known revocation,
+ *                 such as on the first poll or when the source cannot tell the changes since the requested version
+ * @param revocations the new revocations
+ *
+ * @author Sébastien SAEZ
+ */
+public record HeliosRevocationUpdate(long version, boolean snapshot, List<HeliosRevocation> revocations) {
+
+    /**
+     * Copy the revocations
+     */
+    public HeliosRevocationUpdate {
+        revocations = revocations == null ? List.of() : List.copyOf(revocations);
+    }
+}
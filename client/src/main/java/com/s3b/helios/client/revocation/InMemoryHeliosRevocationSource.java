@@ -0,0 +1,103 @@
+package com.s3b.helios.client.revocation;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A {@link HeliosRevocationSource} holding the revocations in the memory of this instance, ordered by version.
+ * <p>
+ * It suits a server verifying its own tokens : the application revokes the tokens with {@link #revokeToken(String, Instant)}
+ * or {@link #revokeSubject(String, Instant, Instant)} and the {@link HeliosRevocationList} picks them up on its next poll.
+ * The expired revocations are dropped on each poll. The versions are assigned under a lock, so a poll never misses a revocation being published.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class InMemoryHeliosRevocationSource implements HeliosRevocationSource {
+
+    /**
+     * The revocations by version
+     */
+    private final ConcurrentSkipListMap<Long, HeliosRevocation> revocations = new ConcurrentSkipListMap<>();
+
+    /**
+     * The version of the last revocation
+     */
+    private final AtomicLong version = new AtomicLong();
+
+    /**
+     * The time source of the expiry
+     */
+    private final Clock clock;
+
+    /**
+     * Create an empty source
+     */
+    public InMemoryHeliosRevocationSource() {
+        this(Clock.systemUTC());
+    }
+
+    /**
+     * Create an empty source with the specified time source
+     * @param clock the time source of the expiry
+     */
+    public InMemoryHeliosRevocationSource(Clock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Publish a revocation
+     * @param revocation the revocation
+     */
+    public synchronized void revoke(HeliosRevocation revocation) {
+        revocations.put(version.incrementAndGet(), revocation);
+        log.debug("{} {} revoked", revocation.type(), revocation.value());
+    }
+
+    /**
+     * Revoke a single token
+     * @param tokenId the <code>jti</code> claim of the token
+     * @param expiresAt the expiration of the token
+     */
+    public void revokeToken(String tokenId, Instant expiresAt) {
+        revoke(HeliosRevocation.token(tokenId, expiresAt));
+    }
+
+    /**
+     * Revoke the tokens of a subject issued before the epoch
+     * @param subject the subject of the tokens
+     * @param issuedBefore the epoch, the tokens issued at or after it stay valid
+     * @param expiresAt the expiration of the last token issued before the epoch
+     */
+    public void revokeSubject(String subject, Instant issuedBefore, Instant expiresAt) {
+        revoke(HeliosRevocation.subject(subject, issuedBefore, expiresAt));
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized HeliosRevocationUpdate poll(long sinceVersion) {
+        var now = clock.instant();
+        revocations.values().removeIf(revocation -> revocation.isExpired(now));
+        var current = version.get();
+        if (sinceVersion == current) {
+            return null;
+        }
+        var snapshot = sinceVersion <= 0 || sinceVersion > current;
+        var changes = new ArrayList<HeliosRevocation>(snapshot ? revocations.values() : revocations.subMap(sinceVersion, false, current, true).values());
+        return new HeliosRevocationUpdate(current, snapshot, changes);
+    }
+
+    /**
+     * @return the number of revocations kept
+     */
+    public int size() {
+        return revocations.size();
+    }
+}
@@ -0,0 +1,163 @@
+package com.s3b.helios.client.token;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+
+/**
+ * A {@link HeliosTokenReader} keeping the result of the successful verifications of a delegate reader.
+ * <p>
+ * The tokens are indexed by their SHA-256 digest, the token itself is never stored.
+ * An entry is evicted when the cache is full, when its time to live is over or when the token expires,
+ * whichever comes first. Failed verifications are never cached.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class CachingHeliosTokenReader implements HeliosTokenReader {
+
+    /**
+     * The reader performing the verification on a cache miss
+     */
+    private final HeliosTokenReader delegate;
+
+    /**
+     * The successful verifications indexed by the digest of the token
+     */
+    private final Cache<ByteBuffer, HeliosTokenVerification> cache;
+
+    /**
+     * One digest per thread, a {@link MessageDigest} is not thread safe
+     */
+    private final ThreadLocal<MessageDigest> digest = ThreadLocal.withInitial(CachingHeliosTokenReader::sha256);
+
+    /**
+     * Create a cache on top of the specified reader.
+     * @param delegate the reader performing the verification on a cache miss
+     * @param maximumSize the maximum number of tokens kept
+     * @param timeToLive the maximum duration a verification is kept
+     */
+    public CachingHeliosTokenReader(HeliosTokenReader delegate, long maximumSize, Duration timeToLive) {
+        this(delegate, maximumSize, timeToLive, Ticker.systemTicker(), Clock.systemUTC());
+    }
+
+    CachingHeliosTokenReader(HeliosTokenReader delegate, long maximumSize, Duration timeToLive, Ticker ticker, Clock clock) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new TokenExpiry(timeToLive, clock))
+                .ticker(ticker)
+                .recordStats()
+                .build();
+        log.info("Verified token cache enabled with a maximum size of {} and a time to live of {}", maximumSize, timeToLive);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param token to verify
+     * @return <code>true</code> if the token is valid or not
+     *         <code>false</code> otherwise.
+     */
+    @Override
+    public boolean validate(String token) {
+        return verify(token).isVerified();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The subject is read from the cache when the token has already been verified.
+     * @param token used to extract the subject
+     * @return the subject from the specified token
+     */
+    @Override
+    public String extractSubject(String token) {
+        var verification = verify(token);
+        return verification.isVerified()
+                ? verification.getClaims().getSubject()
+                : delegate.extractSubject(token);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The delegate reader is only called when the token is not in the cache.
+     * @param token to verify
+     * @return the verified claims or the reason of the failure
+     */
+    @Override
+    public HeliosTokenVerification verify(String token) {
+        if (token == null || token.isEmpty()) {
+            return delegate.verify(token);
+        }
+        var key = ByteBuffer.wrap(digest.get().digest(token.getBytes(StandardCharsets.US_ASCII)));
+        var cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        var verification = delegate.verify(token);
+        if (verification.isVerified()) {
+            cache.put(key, verification);
+        }
+        return verification;
+    }
+
+    /**
+     * @return the hit, miss and eviction counters of the cache
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return the approximate number of tokens kept
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    /**
+     * Keep a verification for the time to live, or until the token expires if it is sooner.
+     */
+    private record TokenExpiry(Duration timeToLive, Clock clock) implements Expiry<ByteBuffer, HeliosTokenVerification> {
+
+        @Override
+        public long expireAfterCreate(ByteBuffer key, HeliosTokenVerification value, long currentTime) {
+            var expiration = value.getClaims().getExpiration();
+            if (expiration == null) {
+                return timeToLive.toNanos();
+            }
+            var remaining = Duration.between(clock.instant(), expiration);
+            if (remaining.isNegative()) {
+                return 0;
+            }
+            return remaining.compareTo(timeToLive) < 0 ? remaining.toNanos() : timeToLive.toNanos();
+        }
+
+        @Override
+        public long expireAfterUpdate(ByteBuffer key, HeliosTokenVerification value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+
+        @Override
+        public long expireAfterRead(ByteBuffer key, HeliosTokenVerification value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -1,30 +1,70 @@
 package com.s3b.helios.client.token;
 
+import com.s3b.helios.client.key.HeliosKeyLocator;
+import com.s3b.helios.client.key.HeliosKeyRing;
+import com.s3b.helios.client.key.HeliosKeySet;
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwsHeader;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.LocatorAdapter;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
 import java.security.Key;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
 
 /**
  * An implementation of {@link HeliosTokenReader} which provides JWT token reading process
  *
  * @author Sébastien SAEZ
  */
-@RequiredArgsConstructor
 @Slf4j
 public class DefaultHeliosJwtTokenReader implements HeliosTokenReader {
 
     /**
-     * The secret to generate a JWT token.
+     * The parser verifying the signature with the configured keys.
+     * It is immutable and shared by every request thread.
      */
-    private final String jwtSecret;
+    private final JwtParser parser;
+
+    /**
+     * Derive the HS256 key from the secret and prepare the parser once.
+     * @param jwtSecret the Base64 encoded secret used to sign the JWT tokens
+     * @throws io.jsonwebtoken.security.WeakKeyException if the secret is shorter than 256 bits
+     */
+    public DefaultHeliosJwtTokenReader(String jwtSecret) {
+        this.parser = Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret)))
+                .build();
+    }
+
+    /**
+     * Prepare the parser once to verify the tokens with the keys of the specified key set or key ring.
+     * The key is selected with the <code>kid</code> header of the token, the algorithm must match the key type.
+     * @param keySet the verification keys of the token issuer
+     *
+     * @see HeliosKeySet
+     * @see HeliosKeyRing
+     */
+    public DefaultHeliosJwtTokenReader(HeliosKeyLocator keySet) {
+        this.parser = Jwts.parser()
+                .keyLocator(new LocatorAdapter<Key>() {
+                    @Override
+                    protected Key locate(JwsHeader header) {
+                        return keySet.find(header.getKeyId());
+                    }
+                })
+                .build();
+    }
 
     /**
      * {@inheritDoc}
@@ -33,8 +73,7 @@ public class DefaultHeliosJwtTokenReader implements HeliosTokenReader {
      */
     @Override
     public String extractSubject(String token) {
-        return Jwts.parserBuilder().setSigningKey(key()).build()
-                .parseClaimsJws(token).getBody().getSubject();
+        return parser.parseSignedClaims(token).getPayload().getSubject();
     }
 
     /**
@@ -46,29 +85,55 @@ public class DefaultHeliosJwtTokenReader implements HeliosTokenReader {
      */
     @Override
     public boolean validate(String authToken) {
+        return verify(authToken).isVerified();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The signature is checked and the claims are read with a single parsing of the token.
+     * When the token isn't valid, the cause is logged
+     * @param token to verify
+     * @return the verified claims or the reason of the failure
+     */
+    @Override
+    public HeliosTokenVerification verify(String token) {
         try {
-            Jwts.parserBuilder().setSigningKey(key()).build().parseClaimsJws(authToken);
-            return true;
+            var claims = parser.parseSignedClaims(token).getPayload();
+            return HeliosTokenVerification.verified(toHeliosClaims(claims));
         } catch (MalformedJwtException e) {
             log.error("Invalid JWT token: {}", e.getMessage(), e);
+            return HeliosTokenVerification.failed(HeliosTokenFailure.MALFORMED);
         } catch (ExpiredJwtException e) {
             log.error("JWT token is expired: {}", e.getMessage(), e);
+            return HeliosTokenVerification.failed(HeliosTokenFailure.EXPIRED);
         } catch (UnsupportedJwtException e) {
             log.error("JWT token is unsupported: {}", e.getMessage(), e);
+            return HeliosTokenVerification.failed(HeliosTokenFailure.UNSUPPORTED);
         } catch (IllegalArgumentException e) {
             log.error("JWT claims string is empty: {}", e.getMessage(), e);
+            return HeliosTokenVerification.failed(HeliosTokenFailure.EMPTY);
         } catch (SignatureException e){
             log.error("JWT Invalid signature {}", e.getMessage(), e);
+            return HeliosTokenVerification.failed(HeliosTokenFailure.INVALID_SIGNATURE);
+        } catch (JwtException e) {
+            log.error("JWT token is rejected: {}", e.getMessage(), e);
+            return HeliosTokenVerification.failed(HeliosTokenFailure.INVALID);
         }
-
-        return false;
     }
 
     /**
-     * Create a key based on the JWT secret defined
-     * @return a key to build a JWT token
+     * Map the JWT claims to the helios claims view
+     * @param claims the claims of a verified JWT token
+     * @return the helios claims view
      */
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    private static HeliosTokenClaims toHeliosClaims(Claims claims) {
+        return new HeliosTokenClaims(claims.getSubject(),
+                toInstant(claims.getIssuedAt()),
+                toInstant(claims.getExpiration()),
+                Collections.unmodifiableMap(claims));
+    }
+
+    private static Instant toInstant(Date date) {
+        return date == null ? null : date.toInstant();
     }
 }
@@ -1,60 +1,196 @@
 package com.s3b.helios.client.token;
 
-import io.jsonwebtoken.Jwts;
-import io.jsonwebtoken.SignatureAlgorithm;
-import io.jsonwebtoken.io.Decoders;
-import io.jsonwebtoken.security.Keys;
-import lombok.RequiredArgsConstructor;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
+import com.s3b.helios.client.key.HeliosSigningKey;
 import lombok.extern.slf4j.Slf4j;
 
-import java.security.Key;
+import javax.crypto.Mac;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.Signature;
+import java.time.Duration;
 import java.time.Instant;
-import java.time.temporal.ChronoUnit;
-import java.util.Date;
+import java.util.Base64;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * An implementation of {@link HeliosTokenWriter} which provides JWT token writing process
+ * <p>
+ * The token is serialized in the JWS compact form without going through a builder : the header never changes,
+ * so it is encoded once, and only the claims and the signature are computed for each token.
  *
  * @author Sébastien SAEZ
  */
 @Slf4j
-@RequiredArgsConstructor
 public class DefaultHeliosJwtTokenWriter implements HeliosTokenWriter {
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    /**
+     * The expiration time of the JWT token generated.
+     */
+    private final Duration expiration;
+
+    /**
+     * The expiration time defined in seconds for the JWT token generated.
+     */
+    private final long jwtExpirationSeconds;
+
+    /**
+     * The Base64URL encoded JWS header shared by every generated token, followed by the '.' separator.
+     */
+    private final String encodedHeader;
+
+    /**
+     * One signer per thread, initialized once with the signing key.
+     */
+    private final ThreadLocal<Signer> signer;
+
+    /**
+     * Derive the HS256 signing key from the secret once.
+     * @param jwtSecret the Base64 encoded secret to sign the JWT tokens
+     * @param jwtExpirationHours the expiration time defined in hours for the JWT token generated
+     * @throws io.jsonwebtoken.security.WeakKeyException if the secret is shorter than 256 bits
+     */
+    public DefaultHeliosJwtTokenWriter(String jwtSecret, int jwtExpirationHours) {
+        this(HeliosSigningKey.hmac(null, jwtSecret), jwtExpirationHours);
+    }
+
+    /**
+     * Derive the HS256 signing key from the secret once.
+     * @param jwtSecret the Base64 encoded secret to sign the JWT tokens
+     * @param expiration the expiration time of the JWT token generated, truncated to the second
+     * @throws io.jsonwebtoken.security.WeakKeyException if the secret is shorter than 256 bits
+     */
+    public DefaultHeliosJwtTokenWriter(String jwtSecret, Duration expiration) {
+        this(HeliosSigningKey.hmac(null, jwtSecret), expiration);
+    }
+
     /**
-     * The secret to generate a JWT token.
+     * Sign the tokens with the specified key, the header holds its algorithm and its key id.
+     * @param signingKey the key to sign the JWT tokens
+     * @param jwtExpirationHours the expiration time defined in hours for the JWT token generated
+     *
+     * @see HeliosSigningKey
      */
-    private final String jwtSecret;
+    public DefaultHeliosJwtTokenWriter(HeliosSigningKey signingKey, int jwtExpirationHours) {
+        this(signingKey, Duration.ofHours(jwtExpirationHours));
+    }
 
     /**
-     * The expiration time defined in hours for the JWT token generated.
+     * Sign the tokens with the specified key and a lifetime shorter than an hour, such as the access tokens renewed with a refresh token.
+     * @param signingKey the key to sign the JWT tokens
+     * @param expiration the expiration time of the JWT token generated, truncated to the second
+     *
+     * @see HeliosSigningKey
      */
-    private final int jwtExpirationHours;
+    public DefaultHeliosJwtTokenWriter(HeliosSigningKey signingKey, Duration expiration) {
+        this.jwtExpirationSeconds = expiration.getSeconds();
+        this.expiration = Duration.ofSeconds(jwtExpirationSeconds);
+        this.encodedHeader = encodeHeader(signingKey) + '.';
+        // fail fast at startup rather than on the first login
+        newSigner(signingKey);
+        this.signer = ThreadLocal.withInitial(() -> newSigner(signingKey));
+        log.info("The JWT tokens are signed with {}", signingKey.getAlgorithm());
+    }
 
     /**
      * {@inheritDoc}
      *<p>
-     * The token is built based on the defined secret and {@link SignatureAlgorithm#HS256} :
+     * The token is built based on the defined signing key :
      *<p> - with the authentication subject
      *<p> - with an expiration time
+     *<p> - with a random token id, the <code>jti</code> claim revoking this token only
      * @param subject the subject to create the token and store in it
      * @return a generated token
      */
     @Override
     public String generate(String subject) {
-        return Jwts.builder()
-                .setSubject(subject)
-                .setIssuedAt(new Date())
-                .setExpiration(Date.from(Instant.now().plus(jwtExpirationHours, ChronoUnit.HOURS)))
-                .signWith(key(), SignatureAlgorithm.HS256)
-                .compact();
+        var issuedAt = Instant.now().getEpochSecond();
+        var payload = new StringBuilder(64);
+        payload.append('{');
+        if (subject != null) {
+            payload.append("\"sub\":\"");
+            JsonStringEncoder.getInstance().quoteAsString(subject, payload);
+            payload.append("\",");
+        }
+        payload.append("\"iat\":").append(issuedAt)
+                .append(",\"exp\":").append(issuedAt + jwtExpirationSeconds)
+                .append(",\"jti\":\"").append(tokenId())
+                .append("\"}");
+
+        var signingInput = encodedHeader + encode(payload.toString().getBytes(StandardCharsets.UTF_8));
+        try {
+            var signature = signer.get().sign(signingInput.getBytes(StandardCharsets.US_ASCII));
+            return signingInput + '.' + encode(signature);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to sign the token", e);
+        }
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * A token id only has to be unique, 128 random bits without the cost of a {@link java.security.SecureRandom}
+     * @return the URL safe Base64 of 128 random bits
+     */
+    static String tokenId() {
+        var random = ThreadLocalRandom.current();
+        var bytes = new byte[16];
+        random.nextBytes(bytes);
+        return encode(bytes);
+    }
+
+    private static String encodeHeader(HeliosSigningKey signingKey) {
+        var header = new StringBuilder("{\"alg\":\"").append(signingKey.getAlgorithm()).append('"');
+        if (signingKey.getKid() != null) {
+            header.append(",\"kid\":\"");
+            JsonStringEncoder.getInstance().quoteAsString(signingKey.getKid(), header);
+            header.append('"');
+        }
+        header.append('}');
+        return encode(header.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String encode(byte[] bytes) {
+        return ENCODER.encodeToString(bytes);
+    }
+
+    /**
+     * Create a signer initialized with the specified key
+     * @param signingKey the HMAC secret or the private key
+     * @return a signer ready to sign
+     */
+    private static Signer newSigner(HeliosSigningKey signingKey) {
+        try {
+            if (signingKey.isSecret()) {
+                var mac = Mac.getInstance(signingKey.getJcaAlgorithm());
+                mac.init(signingKey.getKey());
+                return mac::doFinal;
+            }
+            var signature = Signature.getInstance(signingKey.getJcaAlgorithm());
+            signature.initSign((PrivateKey) signingKey.getKey());
+            return data -> {
+                signature.update(data);
+                return signature.sign();
+            };
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to initialize the " + signingKey.getAlgorithm() + " signature", e);
+        }
+    }
 
     /**
-     * Create a key based on the JWT secret defined
-     * @return a key to build a JWT token
+     * Compute the signature of the JWS signing input
      */
-    private Key key() {
-        return Keys.hmacShaKeyFor(Decoders.BASE64.decode(jwtSecret));
+    @FunctionalInterface
+    private interface Signer {
+        byte[] sign(byte[] data) throws GeneralSecurityException;
     }
 }
@@ -0,0 +1,149 @@
+package com.s3b.helios.client.token;
+
+import dev.paseto.jpaseto.ExpiredPasetoException;
+import dev.paseto.jpaseto.Paseto;
+import dev.paseto.jpaseto.PasetoException;
+import dev.paseto.jpaseto.PasetoIOException;
+import dev.paseto.jpaseto.PasetoParser;
+import dev.paseto.jpaseto.PasetoSecurityException;
+import dev.paseto.jpaseto.PasetoSignatureException;
+import dev.paseto.jpaseto.Pasetos;
+import dev.paseto.jpaseto.Purpose;
+import dev.paseto.jpaseto.UnsupportedPasetoException;
+import dev.paseto.jpaseto.Version;
+import dev.paseto.jpaseto.lang.Keys;
+import io.jsonwebtoken.io.Decoders;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.SecretKey;
+import java.security.PublicKey;
+import java.util.Collections;
+
+/**
+ * An implementation of {@link HeliosTokenReader} which provides PASETO <code>v2.local</code> or <code>v2.public</code> token reading process
+ * <p>
+ * The version and the purpose of a PASETO token are fixed by its header, so there is no algorithm to negotiate :
+ * a token of another version or purpose is rejected.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class DefaultHeliosPasetoTokenReader implements HeliosTokenReader {
+
+    /**
+     * The parser decrypting or verifying the tokens, shared by every request thread.
+     */
+    private final PasetoParser parser;
+
+    /**
+     * The only purpose accepted by this reader
+     */
+    private final Purpose purpose;
+
+    /**
+     * Size of the <code>v2.local</code> shared secret in bytes
+     */
+    static final int SHARED_SECRET_LENGTH = 32;
+
+    /**
+     * Read <code>v2.local</code> tokens, encrypted with the specified Base64 encoded shared secret.
+     * @param base64SharedSecret the Base64 encoded 256 bits secret key
+     * @throws IllegalArgumentException if the secret is not a Base64 encoded 256 bits key
+     */
+    public DefaultHeliosPasetoTokenReader(String base64SharedSecret) {
+        this(sharedSecret(base64SharedSecret));
+    }
+
+    /**
+     * Read <code>v2.local</code> tokens, encrypted with the specified shared secret.
+     * @param sharedSecret the 256 bits secret key
+     */
+    public DefaultHeliosPasetoTokenReader(SecretKey sharedSecret) {
+        this.parser = Pasetos.parserBuilder().setSharedSecret(sharedSecret).build();
+        this.purpose = Purpose.LOCAL;
+    }
+
+    /**
+     * Read <code>v2.public</code> tokens, signed with the private key matching the specified Ed25519 public key.
+     * @param publicKey the Ed25519 public key
+     */
+    public DefaultHeliosPasetoTokenReader(PublicKey publicKey) {
+        this.parser = Pasetos.parserBuilder().setPublicKey(publicKey).build();
+        this.purpose = Purpose.PUBLIC;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param token used to extract the subject
+     * @return the subject from the specified token
+     * @throws PasetoException if the token is not valid
+     */
+    @Override
+    public String extractSubject(String token) {
+        return parse(token).getClaims().getSubject();
+    }
+
+    /**
+     * {@inheritDoc}
+     * This method always returns immediately. When the token isn't valid, the cause is logged
+     * @param token to verify
+     * @return <code>true</code> if the token is valid or not
+     *         <code>false</code> otherwise.
+     */
+    @Override
+    public boolean validate(String token) {
+        return verify(token).isVerified();
+    }
+
+    /**
+     * {@inheritDoc}
+     * When the token isn't valid, the cause is logged
+     * @param token to verify
+     * @return the verified claims or the reason of the failure
+     */
+    @Override
+    public HeliosTokenVerification verify(String token) {
+        if (token == null || token.isEmpty()) {
+            log.error("PASETO token is empty");
+            return HeliosTokenVerification.failed(HeliosTokenFailure.EMPTY);
+        }
+        try {
+            var claims = parse(token).getClaims();
+            return HeliosTokenVerification.verified(new HeliosTokenClaims(claims.getSubject(),
+                    claims.getIssuedAt(),
+                    claims.getExpiration(),
+                    Collections.unmodifiableMap(claims)));
+        } catch (ExpiredPasetoException e) {
+            log.error("PASETO token is expired: {}", e.getMessage(), e);
+            return HeliosTokenVerification.failed(HeliosTokenFailure.EXPIRED);
+        } catch (PasetoSignatureException | PasetoSecurityException e) {
+            log.error("PASETO Invalid signature {}", e.getMessage(), e);
+            return HeliosTokenVerification.failed(HeliosTokenFailure.INVALID_SIGNATURE);
+        } catch (UnsupportedPasetoException e) {
+            log.error("PASETO token is unsupported: {}", e.getMessage(), e);
+            return HeliosTokenVerification.failed(HeliosTokenFailure.UNSUPPORTED);
+        } catch (PasetoIOException | IllegalArgumentException e) {
+            log.error("Invalid PASETO token: {}", e.getMessage(), e);
+            return HeliosTokenVerification.failed(HeliosTokenFailure.MALFORMED);
+        } catch (PasetoException e) {
+            log.error("PASETO token is rejected: {}", e.getMessage(), e);
+            return HeliosTokenVerification.failed(HeliosTokenFailure.INVALID);
+        }
+    }
+
+    static SecretKey sharedSecret(String base64SharedSecret) {
+        var secret = Decoders.BASE64.decode(base64SharedSecret);
+        if (secret.length != SHARED_SECRET_LENGTH) {
+            throw new IllegalArgumentException("The PASETO shared secret must be a Base64 encoded " + SHARED_SECRET_LENGTH * 8 + " bits key");
+        }
+        return Keys.secretKey(secret);
+    }
+
+    private Paseto parse(String token) {
+        var paseto = parser.parse(token);
+        if (paseto.getVersion() != Version.V2 || paseto.getPurpose() != purpose) {
+            throw new UnsupportedPasetoException("Only v2." + purpose.name().toLowerCase() + " tokens are accepted");
+        }
+        return paseto;
+    }
+}
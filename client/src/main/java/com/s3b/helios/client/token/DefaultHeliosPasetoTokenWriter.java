@@ -0,0 +1,127 @@
+package com.s3b.helios.client.token;
+
+import dev.paseto.jpaseto.Pasetos;
+import lombok.extern.slf4j.Slf4j;
+
+import javax.crypto.SecretKey;
+import java.security.PrivateKey;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * An implementation of {@link HeliosTokenWriter} which provides PASETO <code>v2.local</code> or <code>v2.public</code> token writing process
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class DefaultHeliosPasetoTokenWriter implements HeliosTokenWriter {
+
+    /**
+     * The shared secret encrypting <code>v2.local</code> tokens, <code>null</code> for <code>v2.public</code> tokens
+     */
+    private final SecretKey sharedSecret;
+
+    /**
+     * The Ed25519 private key signing <code>v2.public</code> tokens, <code>null</code> for <code>v2.local</code> tokens
+     */
+    private final PrivateKey privateKey;
+
+    /**
+     * The expiration time of the PASETO token generated.
+     */
+    private final Duration expiration;
+
+    /**
+     * Write <code>v2.local</code> tokens, encrypted with the specified Base64 encoded shared secret.
+     * @param base64SharedSecret the Base64 encoded 256 bits secret key
+     * @param expirationHours the expiration time defined in hours for the PASETO token generated
+     * @throws IllegalArgumentException if the secret is not a Base64 encoded 256 bits key
+     */
+    public DefaultHeliosPasetoTokenWriter(String base64SharedSecret, int expirationHours) {
+        this(DefaultHeliosPasetoTokenReader.sharedSecret(base64SharedSecret), expirationHours);
+    }
+
+    /**
+     * Write <code>v2.local</code> tokens, encrypted with the specified Base64 encoded shared secret.
+     * @param base64SharedSecret the Base64 encoded 256 bits secret key
+     * @param expiration the expiration time of the PASETO token generated, truncated to the second
+     * @throws IllegalArgumentException if the secret is not a Base64 encoded 256 bits key
+     */
+    public DefaultHeliosPasetoTokenWriter(String base64SharedSecret, Duration expiration) {
+        this(DefaultHeliosPasetoTokenReader.sharedSecret(base64SharedSecret), expiration);
+    }
+
+    /**
+     * Write <code>v2.local</code> tokens, encrypted with the specified shared secret.
+     * @param sharedSecret the 256 bits secret key
+     * @param expirationHours the expiration time defined in hours for the PASETO token generated
+     */
+    public DefaultHeliosPasetoTokenWriter(SecretKey sharedSecret, int expirationHours) {
+        this(sharedSecret, Duration.ofHours(expirationHours));
+    }
+
+    /**
+     * Write <code>v2.local</code> tokens, encrypted with the specified shared secret.
+     * @param sharedSecret the 256 bits secret key
+     * @param expiration the expiration time of the PASETO token generated, truncated to the second
+     */
+    public DefaultHeliosPasetoTokenWriter(SecretKey sharedSecret, Duration expiration) {
+        this.sharedSecret = sharedSecret;
+        this.privateKey = null;
+        this.expiration = expiration.truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * Write <code>v2.public</code> tokens, signed with the specified Ed25519 private key.
+     * @param privateKey the Ed25519 private key
+     * @param expirationHours the expiration time defined in hours for the PASETO token generated
+     */
+    public DefaultHeliosPasetoTokenWriter(PrivateKey privateKey, int expirationHours) {
+        this(privateKey, Duration.ofHours(expirationHours));
+    }
+
+    /**
+     * Write <code>v2.public</code> tokens, signed with the specified Ed25519 private key.
+     * @param privateKey the Ed25519 private key
+     * @param expiration the expiration time of the PASETO token generated, truncated to the second
+     */
+    public DefaultHeliosPasetoTokenWriter(PrivateKey privateKey, Duration expiration) {
+        this.sharedSecret = null;
+        this.privateKey = privateKey;
+        this.expiration = expiration.truncatedTo(ChronoUnit.SECONDS);
+    }
+
+    /**
+     * {@inheritDoc}
+     *<p>
+     * The token is built :
+     *<p> - with the authentication subject
+     *<p> - with an expiration time
+     *<p> - with a random token id, the <code>jti</code> claim revoking this token only
+     * @param subject the subject to create the token and store in it
+     * @return a generated token
+     */
+    @Override
+    public String generate(String subject) {
+        var issuedAt = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+        var expiresAt = issuedAt.plus(expiration);
+        return sharedSecret != null
+                ? Pasetos.V2.LOCAL.builder().setSharedSecret(sharedSecret)
+                        .setSubject(subject).setIssuedAt(issuedAt).setExpiration(expiresAt)
+                        .setTokenId(DefaultHeliosJwtTokenWriter.tokenId())
+                        .compact()
+                : Pasetos.V2.PUBLIC.builder().setPrivateKey(privateKey)
+                        .setSubject(subject).setIssuedAt(issuedAt).setExpiration(expiresAt)
+                        .setTokenId(DefaultHeliosJwtTokenWriter.tokenId())
+                        .compact();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Duration getExpiration() {
+        return expiration;
+    }
+}
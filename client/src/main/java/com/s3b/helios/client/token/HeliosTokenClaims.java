@@ -0,0 +1,56 @@
+package com.s3b.helios.client.token;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A read-only view of the claims stored in a verified token
+ * @author Sébastien SAEZ
+ */
+@Getter
+@RequiredArgsConstructor
+public final class HeliosTokenClaims {
+    /**
+     * The subject of the token
+     */
+    private final String subject;
+
+    /**
+     * The instant the token was issued at, <code>null</code> if the token does not define it
+     */
+    private final Instant issuedAt;
+
+    /**
+     * The instant the token expires at, <code>null</code> if the token does not define it
+     */
+    private final Instant expiration;
+
+    /**
+     * Every claim stored in the token, including the registered ones
+     */
+    private final Map<String, Object> claims;
+
+    /**
+     * Return the value of the specified claim.
+     * @param name the name of the claim
+     * @return the value of the claim, <code>null</code> if the token does not define it
+     */
+    public Object getClaim(String name) {
+        return claims.get(name);
+    }
+
+    /**
+     * Return the value of the specified claim cast to the specified type.
+     * @param name the name of the claim
+     * @param type the expected type of the claim
+     * @return the value of the claim, <code>null</code> if the token does not define it
+     * @param <T> the expected type of the claim
+     * @throws ClassCastException if the claim is not of the expected type
+     */
+    public <T> T getClaim(String name, Class<T> type) {
+        return type.cast(claims.get(name));
+    }
+}
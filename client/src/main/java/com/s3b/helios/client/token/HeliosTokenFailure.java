@@ -0,0 +1,32 @@
+package com.s3b.helios.client.token;
+
+/**
+ * The reasons why a token could not be verified by a {@link HeliosTokenReader}
+ * @author Sébastien SAEZ
+ */
+public enum HeliosTokenFailure {
+    /**
+     * The token is not a well formed token
+     */
+    MALFORMED,
+    /**
+     * The token is expired
+     */
+    EXPIRED,
+    /**
+     * The token format or algorithm is not supported by the reader
+     */
+    UNSUPPORTED,
+    /**
+     * The token or its claims are empty
+     */
+    EMPTY,
+    /**
+     * The signature of the token does not match
+     */
+    INVALID_SIGNATURE,
+    /**
+     * The token is rejected for any other reason
+     */
+    INVALID
+}
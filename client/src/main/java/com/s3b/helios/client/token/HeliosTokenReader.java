@@ -1,5 +1,7 @@
 package com.s3b.helios.client.token;
 
+import java.util.Map;
+
 /**
  * The reading of a token is handled by the implementations of this interface
  * @author Sébastien SAEZ
@@ -19,4 +21,23 @@ public interface HeliosTokenReader {
      * @return the subject from the specified token
      */
     String extractSubject(String token);
+
+    /**
+     * Verify the specified token and return its claims in a single pass.
+     * <p>
+     * The default implementation relies on {@link #validate(String)} and {@link #extractSubject(String)},
+     * so the token is read twice and only the subject is available. Implementations should override it
+     * to parse the token once.
+     * @param token to verify
+     * @return the verified claims or the reason of the failure
+     *
+     * @see HeliosTokenVerification
+     */
+    default HeliosTokenVerification verify(String token) {
+        if (!validate(token)) {
+            return HeliosTokenVerification.failed(HeliosTokenFailure.INVALID);
+        }
+        return HeliosTokenVerification.verified(
+                new HeliosTokenClaims(extractSubject(token), null, null, Map.of()));
+    }
 }
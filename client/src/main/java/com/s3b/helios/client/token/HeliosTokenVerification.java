@@ -0,0 +1,85 @@
+package com.s3b.helios.client.token;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * The outcome of a token verification : either the verified claims or the reason of the failure.
+ * @author Sébastien SAEZ
+ *
+ * @see HeliosTokenReader#verify(String)
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public final class HeliosTokenVerification {
+
+    /**
+     * One shared instance per failure reason, failures do not carry any state.
+     */
+    private static final Map<HeliosTokenFailure, HeliosTokenVerification> FAILURES = new EnumMap<>(HeliosTokenFailure.class);
+
+    static {
+        for (var failure : HeliosTokenFailure.values()) {
+            FAILURES.put(failure, new HeliosTokenVerification(null, failure));
+        }
+    }
+
+    /**
+     * The claims of the verified token, <code>null</code> when the verification failed
+     */
+    private final HeliosTokenClaims claims;
+
+    /**
+     * The reason of the failure, <code>null</code> when the token is verified
+     */
+    private final HeliosTokenFailure failure;
+
+    /**
+     * Create a successful verification
+     * @param claims the claims read from the verified token
+     * @return a successful verification
+     */
+    public static HeliosTokenVerification verified(HeliosTokenClaims claims) {
+        if (claims == null) {
+            throw new IllegalArgumentException("The claims of a verified token are required");
+        }
+        return new HeliosTokenVerification(claims, null);
+    }
+
+    /**
+     * Return the failed verification for the specified reason
+     * @param failure the reason why the token is rejected
+     * @return a failed verification
+     */
+    public static HeliosTokenVerification failed(HeliosTokenFailure failure) {
+        return FAILURES.get(failure);
+    }
+
+    /**
+     * @return <code>true</code> if the token is verified
+     *         <code>false</code> otherwise.
+     */
+    public boolean isVerified() {
+        return claims != null;
+    }
+
+    /**
+     * @return the claims of the verified token
+     * @throws IllegalStateException if the verification failed
+     */
+    public HeliosTokenClaims getClaims() {
+        if (claims == null) {
+            throw new IllegalStateException("The token is not verified : " + failure);
+        }
+        return claims;
+    }
+
+    /**
+     * @return the reason of the failure, <code>null</code> if the token is verified
+     */
+    public HeliosTokenFailure getFailure() {
+        return failure;
+    }
+}
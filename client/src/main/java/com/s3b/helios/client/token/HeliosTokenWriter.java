@@ -1,5 +1,7 @@
 package com.s3b.helios.client.token;
 
+import java.time.Duration;
+
 /**
  * The writing of a token is handled by the implementations of this interface
  * @author Sébastien SAEZ
@@ -12,4 +14,11 @@ public interface HeliosTokenWriter {
      * @return a generated token
      */
     String generate(String subject);
+
+    /**
+     * @return the lifetime of the generated tokens, <code>null</code> if it is unknown
+     */
+    default Duration getExpiration() {
+        return null;
+    }
 }
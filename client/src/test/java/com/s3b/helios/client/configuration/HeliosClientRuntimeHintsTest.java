@@ -0,0 +1,34 @@
+package com.s3b.helios.client.configuration;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+
+class HeliosClientRuntimeHintsTest {
+
+    @Test
+    void should_RegisterJjwtImplementations_When_HintsAreRegistered() {
+        var hints = new RuntimeHints();
+
+        new HeliosClientRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        for (String type : HeliosClientRuntimeHints.JJWT_IMPLEMENTATIONS) {
+            assertDoesNotThrow(() -> Class.forName(type), type + " does not exist in jjwt-impl");
+            assertThat(RuntimeHintsPredicates.reflection().onType(TypeReference.of(type))).accepts(hints);
+        }
+    }
+
+    @Test
+    void should_LoadRegistrar_When_AotFactoriesAreRead() {
+        var registrars = SpringFactoriesLoader.forResourceLocation("META-INF/spring/aot.factories")
+                .load(RuntimeHintsRegistrar.class);
+
+        assertThat(registrars).hasAtLeastOneElementOfType(HeliosClientRuntimeHints.class);
+    }
+}
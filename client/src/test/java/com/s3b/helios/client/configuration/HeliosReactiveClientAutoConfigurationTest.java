@@ -0,0 +1,92 @@
+package com.s3b.helios.client.configuration;
+
+import com.s3b.helios.client.filter.HeliosServerSecurityContextRepository;
+import com.s3b.helios.client.token.DefaultHeliosJwtTokenWriter;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.reactive.WebFluxAutoConfiguration;
+import org.springframework.boot.test.context.runner.ReactiveWebApplicationContextRunner;
+import org.springframework.boot.test.context.runner.WebApplicationContextRunner;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.security.Principal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeliosReactiveClientAutoConfigurationTest {
+
+    private static final String SECRET = "c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0";
+
+    private final ReactiveWebApplicationContextRunner contextRunner = new ReactiveWebApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(WebFluxAutoConfiguration.class,
+                    HeliosTokenAutoConfiguration.class,
+                    HeliosReactiveClientAutoConfiguration.class))
+            .withInitializer(context -> context.getBeanFactory().setConversionService(new ApplicationConversionService()))
+            .withUserConfiguration(HelloController.class)
+            .withPropertyValues("application.token-provider.jwt.jwtSecret=" + SECRET,
+                    "application.token-provider.filter.excluded-paths=/actuator/health");
+
+    @Test
+    void should_AuthenticateRequests_When_ApplicationIsReactive() {
+        var token = new DefaultHeliosJwtTokenWriter(SECRET, 1).generate("subject");
+
+        contextRunner.run(context -> {
+            assertThat(context).hasSingleBean(HeliosServerSecurityContextRepository.class);
+            var client = WebTestClient.bindToApplicationContext(context).build();
+
+            client.get().uri("/hello").headers(headers -> headers.setBearerAuth(token)).exchange()
+                    .expectStatus().isOk()
+                    .expectBody(String.class).isEqualTo("hello subject");
+            client.get().uri("/hello").exchange().expectStatus().isForbidden();
+            client.get().uri("/hello").headers(headers -> headers.setBearerAuth("invalid")).exchange().expectStatus().isForbidden();
+            client.get().uri("/actuator/health").exchange().expectStatus().isOk();
+        });
+    }
+
+    @Test
+    void should_NotConfigureReactiveSecurity_When_ApplicationIsServlet() {
+        new WebApplicationContextRunner()
+                .withInitializer(context -> context.getBeanFactory().setConversionService(new ApplicationConversionService()))
+                .withConfiguration(AutoConfigurations.of(HeliosTokenAutoConfiguration.class, HeliosReactiveClientAutoConfiguration.class))
+                .withPropertyValues("application.token-provider.jwt.jwtSecret=" + SECRET)
+                .run(context -> assertThat(context).doesNotHaveBean(HeliosServerSecurityContextRepository.class));
+    }
+
+    @Test
+    void should_LoadReactiveSecurityFromImportsFile_When_AutoConfigurationIsEnabled() {
+        new ReactiveWebApplicationContextRunner()
+                .withInitializer(context -> context.getBeanFactory().setConversionService(new ApplicationConversionService()))
+                .withUserConfiguration(AutoConfiguredApplication.class)
+                .withPropertyValues("application.token-provider.jwt.jwtSecret=" + SECRET)
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).hasSingleBean(HeliosTokenAutoConfiguration.class);
+                    assertThat(context).hasSingleBean(HeliosReactiveClientAutoConfiguration.class);
+                    assertThat(context).hasSingleBean(HeliosServerSecurityContextRepository.class);
+                });
+    }
+
+    @Configuration(proxyBeanMethods = false)
+    @EnableAutoConfiguration
+    static class AutoConfiguredApplication {
+    }
+
+    @RestController
+    static class HelloController {
+
+        @GetMapping("/hello")
+        String hello(Principal principal) {
+            return "hello " + principal.getName();
+        }
+
+        @GetMapping("/actuator/health")
+        String health() {
+            return "UP";
+        }
+    }
+}
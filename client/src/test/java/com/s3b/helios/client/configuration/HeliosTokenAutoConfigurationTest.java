@@ -0,0 +1,74 @@
+package com.s3b.helios.client.configuration;
+
+import com.s3b.helios.client.revocation.HeliosRevocationList;
+import com.s3b.helios.client.revocation.HeliosRevocationListMetrics;
+import com.s3b.helios.client.revocation.HeliosRevocationSource;
+import com.s3b.helios.client.revocation.HeliosRevocationUpdate;
+import com.s3b.helios.client.revocation.InMemoryHeliosRevocationSource;
+import com.s3b.helios.client.token.DefaultHeliosPasetoTokenReader;
+import com.s3b.helios.client.token.HeliosTokenReader;
+import dev.paseto.jpaseto.Pasetos;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.boot.test.context.FilteredClassLoader;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeliosTokenAutoConfigurationTest {
+
+    private static final String SECRET = "c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0c2VjcmV0";
+
+    private static final String PASETO_SECRET = "cGFzZXRvcGFzZXRvcGFzZXRvcGFzZXRvcGFzZXRvMzI=";
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(HeliosTokenAutoConfiguration.class))
+            .withInitializer(context -> context.getBeanFactory().setConversionService(new ApplicationConversionService()))
+            .withPropertyValues("application.token-provider.jwt.jwtSecret=" + SECRET,
+                    "application.token-provider.revocation.enabled=true");
+
+    @Test
+    void should_FailToStart_When_RevocationSourceIsNotDefined() {
+        contextRunner.run(context -> assertThat(context).getFailure()
+                .rootCause()
+                .hasMessageContaining("application.token-provider.revocation.source=memory"));
+    }
+
+    @Test
+    void should_UseInMemorySource_When_ItIsExplicitlyChosen() {
+        contextRunner.withPropertyValues("application.token-provider.revocation.source=memory")
+                .run(context -> {
+                    assertThat(context).hasSingleBean(InMemoryHeliosRevocationSource.class);
+                    assertThat(context).hasSingleBean(HeliosRevocationList.class);
+                    assertThat(context).hasSingleBean(HeliosRevocationListMetrics.class);
+                });
+    }
+
+    @Test
+    void should_UseSharedSource_When_SourceBeanIsDefined() {
+        contextRunner.withBean(HeliosRevocationSource.class, () -> sinceVersion -> new HeliosRevocationUpdate(sinceVersion, false, List.of()))
+                .withPropertyValues("application.token-provider.revocation.source=memory")
+                .run(context -> {
+                    assertThat(context).doesNotHaveBean(InMemoryHeliosRevocationSource.class);
+                    assertThat(context).hasSingleBean(HeliosRevocationList.class);
+                });
+    }
+
+    @Test
+    void should_RegisterPasetoReader_Only_When_JpasetoIsAvailable() {
+        var pasetoRunner = new ApplicationContextRunner()
+                .withConfiguration(AutoConfigurations.of(HeliosTokenAutoConfiguration.class))
+                .withInitializer(context -> context.getBeanFactory().setConversionService(new ApplicationConversionService()))
+                .withPropertyValues("application.token-provider.type=paseto", "application.token-provider.paseto.secret=" + PASETO_SECRET);
+
+        pasetoRunner.run(context -> assertThat(context).getBean(HeliosTokenReader.class).isInstanceOf(DefaultHeliosPasetoTokenReader.class));
+        pasetoRunner.withClassLoader(new FilteredClassLoader(Pasetos.class))
+                .run(context -> {
+                    assertThat(context).hasNotFailed();
+                    assertThat(context).doesNotHaveBean(HeliosTokenReader.class);
+                });
+    }
+}
@@ -0,0 +1,87 @@
+package com.s3b.helios.client.filter;
+
+import com.s3b.helios.client.token.HeliosTokenClaims;
+import com.s3b.helios.client.token.HeliosTokenFailure;
+import com.s3b.helios.client.token.HeliosTokenReader;
+import com.s3b.helios.client.token.HeliosTokenVerification;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import reactor.core.scheduler.Schedulers;
+import reactor.test.StepVerifier;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class HeliosServerSecurityContextRepositoryTest {
+
+    @Mock
+    private HeliosTokenReader tokenReader;
+
+    private HeliosServerSecurityContextRepository repository;
+
+    @BeforeEach
+    void setUp() {
+        repository = new HeliosServerSecurityContextRepository(tokenReader);
+    }
+
+    @Test
+    void should_LoadSecurityContext_When_TokenIsVerified() {
+        var exchange = exchange("Bearer valid");
+        Mockito.doReturn(HeliosTokenVerification.verified(new HeliosTokenClaims("subject", null, null, Map.of())))
+                .when(tokenReader).verify("valid");
+
+        StepVerifier.create(repository.load(exchange))
+                .assertNext(context -> {
+                    assertEquals("subject", context.getAuthentication().getPrincipal());
+                    assertTrue(context.getAuthentication().isAuthenticated());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void should_BeEmpty_When_TokenIsNotValid() {
+        Mockito.doReturn(HeliosTokenVerification.failed(HeliosTokenFailure.EXPIRED)).when(tokenReader).verify("expired");
+
+        StepVerifier.create(repository.load(exchange("Bearer expired"))).verifyComplete();
+    }
+
+    @Test
+    void should_BeEmptyWithoutVerification_When_TokenIsNotPresent() {
+        StepVerifier.create(repository.load(exchange(null))).verifyComplete();
+        StepVerifier.create(repository.load(exchange("Basic dXNlcjpwYXNzd29yZA=="))).verifyComplete();
+
+        Mockito.verifyNoInteractions(tokenReader);
+    }
+
+    @Test
+    void should_VerifyTokenOnScheduler_When_SchedulerIsDefined() {
+        var offloading = new HeliosServerSecurityContextRepository(tokenReader, Schedulers.parallel());
+        var threads = new String[1];
+        Mockito.doAnswer(invocation -> {
+            threads[0] = Thread.currentThread().getName();
+            return HeliosTokenVerification.verified(new HeliosTokenClaims("subject", null, null, Map.of()));
+        }).when(tokenReader).verify(any());
+
+        StepVerifier.create(offloading.load(exchange("Bearer valid"))).expectNextCount(1).verifyComplete();
+
+        assertTrue(threads[0].startsWith("parallel-"), threads[0]);
+    }
+
+    private static MockServerWebExchange exchange(String authorization) {
+        var request = MockServerHttpRequest.get("/helios/subject");
+        if (authorization != null) {
+            request.header("Authorization", authorization);
+        }
+        return MockServerWebExchange.from(request);
+    }
+}
@@ -0,0 +1,130 @@
+package com.s3b.helios.client.key;
+
+import com.s3b.helios.client.token.DefaultHeliosJwtTokenReader;
+import com.s3b.helios.client.token.DefaultHeliosJwtTokenWriter;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Jwk;
+import io.jsonwebtoken.security.Jwks;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import javax.crypto.SecretKey;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeliosKeyRingTest {
+
+    private static final String SUBJECT = "mySubject";
+
+    private static final Duration GRACE_PERIOD = Duration.ofHours(1);
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_VerifyTokensOfRetiredKey_Until_GracePeriodEnds() throws IOException {
+        var clock = new MutableClock();
+        var oldKey = Jwts.SIG.HS256.key().build();
+        var newKey = Jwts.SIG.HS256.key().build();
+        var file = directory.resolve("jwks.json");
+        write(file, Jwks.builder().key(oldKey).id("old").build());
+        var keyRing = new HeliosKeyRing(new FileSystemResource(file), GRACE_PERIOD, clock);
+        var reader = new DefaultHeliosJwtTokenReader(keyRing);
+        var oldToken = writer("old", oldKey).generate(SUBJECT);
+
+        write(file, Jwks.builder().key(newKey).id("new").build());
+        keyRing.reload();
+
+        assertEquals(SUBJECT, reader.extractSubject(writer("new", newKey).generate(SUBJECT)));
+        assertTrue(reader.validate(oldToken));
+        assertEquals(newKey, keyRing.find(null));
+
+        clock.advance(GRACE_PERIOD.plusSeconds(1));
+
+        assertFalse(reader.validate(oldToken));
+        assertNull(keyRing.find("old"));
+    }
+
+    @Test
+    void should_KeepKeys_When_ReloadedDocumentIsInvalid() throws IOException {
+        var key = Jwts.SIG.HS256.key().build();
+        var file = directory.resolve("jwks.json");
+        write(file, Jwks.builder().key(key).id("current").build());
+        var keyRing = new HeliosKeyRing(new FileSystemResource(file), GRACE_PERIOD);
+
+        Files.writeString(file, "{\"keys\":");
+
+        assertThrows(RuntimeException.class, keyRing::reload);
+        assertEquals(key, keyRing.find("current"));
+    }
+
+    @Test
+    void should_LoadNewKey_When_WatchedFileChanges() throws Exception {
+        var key = Jwts.SIG.HS256.key().build();
+        var rotatedKey = Jwts.SIG.HS256.key().build();
+        var file = directory.resolve("jwks.json");
+        write(file, Jwks.builder().key(key).id("current").build());
+
+        try (var keyRing = new HeliosKeyRing(new FileSystemResource(file), GRACE_PERIOD)) {
+            keyRing.watch();
+            write(file, Jwks.builder().key(key).id("current").build(), Jwks.builder().key(rotatedKey).id("rotated").build());
+
+            var deadline = Instant.now().plusSeconds(30);
+            while (keyRing.find("rotated") == null && Instant.now().isBefore(deadline)) {
+                Thread.sleep(50);
+            }
+            assertNotNull(keyRing.find("rotated"));
+            assertEquals(key, keyRing.find("current"));
+        }
+    }
+
+    private static DefaultHeliosJwtTokenWriter writer(String kid, SecretKey key) {
+        return new DefaultHeliosJwtTokenWriter(new HeliosSigningKey(kid, "HS256", key), 1);
+    }
+
+    private static void write(Path file, Jwk<?>... jwks) throws IOException {
+        Files.writeString(file, Stream.of(jwks)
+                .map(Jwks::UNSAFE_JSON)
+                .collect(Collectors.joining(",", "{\"keys\":[", "]}")));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant = Instant.now();
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
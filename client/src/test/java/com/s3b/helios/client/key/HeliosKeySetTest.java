@@ -0,0 +1,138 @@
+package com.s3b.helios.client.key;
+
+import com.s3b.helios.client.token.DefaultHeliosJwtTokenReader;
+import com.s3b.helios.client.token.DefaultHeliosJwtTokenWriter;
+import io.jsonwebtoken.security.Jwks;
+import io.jsonwebtoken.security.PublicJwk;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+import java.security.PublicKey;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeliosKeySetTest {
+
+    private static final String SUBJECT = "mySubject";
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void should_VerifyToken_When_SignedWithEd25519PrivateJwk() throws Exception {
+        var keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        var signingKey = HeliosSigningKey.load(privateJwk("ed", keyPair));
+        assertEquals("EdDSA", signingKey.getAlgorithm());
+
+        var token = new DefaultHeliosJwtTokenWriter(signingKey, 1).generate(SUBJECT);
+        var reader = new DefaultHeliosJwtTokenReader(HeliosKeySet.load(keySet(publicJwk("ed", keyPair.getPublic()))));
+
+        var verification = reader.verify(token);
+        assertTrue(verification.isVerified());
+        assertEquals(SUBJECT, verification.getClaims().getSubject());
+    }
+
+    @Test
+    void should_VerifyTokens_When_KeySetHoldsEcAndRsaKeys() throws Exception {
+        var ecKeyPair = keyPair("EC", 256);
+        var rsaKeyPair = keyPair("RSA", 2048);
+        var reader = new DefaultHeliosJwtTokenReader(HeliosKeySet.load(keySet(
+                publicJwk("ec", ecKeyPair.getPublic()),
+                publicJwk("rsa", rsaKeyPair.getPublic()))));
+
+        var ecToken = new DefaultHeliosJwtTokenWriter(HeliosSigningKey.of("ec", ecKeyPair.getPrivate()), 1).generate(SUBJECT);
+        var rsaToken = new DefaultHeliosJwtTokenWriter(HeliosSigningKey.of("rsa", rsaKeyPair.getPrivate()), 1).generate(SUBJECT);
+
+        assertTrue(reader.validate(ecToken));
+        assertTrue(reader.validate(rsaToken));
+    }
+
+    @Test
+    void should_RejectToken_When_KeyIdIsUnknown() throws Exception {
+        var keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        var otherKeyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        var reader = new DefaultHeliosJwtTokenReader(HeliosKeySet.load(keySet(
+                publicJwk("first", keyPair.getPublic()),
+                publicJwk("second", otherKeyPair.getPublic()))));
+
+        var token = new DefaultHeliosJwtTokenWriter(HeliosSigningKey.of("unknown", keyPair.getPrivate()), 1).generate(SUBJECT);
+
+        assertFalse(reader.validate(token));
+    }
+
+    @Test
+    void should_RejectToken_When_SignedWithSharedSecret() throws Exception {
+        var keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        var reader = new DefaultHeliosJwtTokenReader(HeliosKeySet.load(keySet(publicJwk("ed", keyPair.getPublic()))));
+
+        var token = new DefaultHeliosJwtTokenWriter("secretsecretsecretsecretsecretsecretsecretsecret", 1).generate(SUBJECT);
+
+        assertFalse(reader.validate(token));
+    }
+
+    @Test
+    void should_KeepPublicKeyOnly_When_KeySetHoldsPrivateKey() throws Exception {
+        var keyPair = KeyPairGenerator.getInstance("Ed25519").generateKeyPair();
+        var privateJwk = Files.readString(privateJwk("ed", keyPair).getFile().toPath());
+
+        var keySet = HeliosKeySet.load(write("{\"keys\":[" + privateJwk + "]}"));
+
+        assertInstanceOf(PublicKey.class, keySet.find("ed"));
+        assertEquals(keySet.find("ed"), keySet.find(null));
+    }
+
+    @Test
+    void should_HaveNoDefaultKey_When_KeySetHoldsSeveralKeys() throws Exception {
+        var keySet = HeliosKeySet.load(keySet(
+                publicJwk("first", KeyPairGenerator.getInstance("Ed25519").generateKeyPair().getPublic()),
+                publicJwk("second", KeyPairGenerator.getInstance("Ed25519").generateKeyPair().getPublic())));
+
+        assertNull(keySet.find(null));
+        assertEquals(2, keySet.getKeys().size());
+    }
+
+    @Test
+    void should_Throw_When_AlgorithmDoesNotMatchKey() throws Exception {
+        var privateKey = KeyPairGenerator.getInstance("Ed25519").generateKeyPair().getPrivate();
+        assertThrows(IllegalArgumentException.class, () -> new HeliosSigningKey("ed", "RS256", privateKey));
+    }
+
+    private static KeyPair keyPair(String algorithm, int size) throws NoSuchAlgorithmException {
+        var generator = KeyPairGenerator.getInstance(algorithm);
+        generator.initialize(size);
+        return generator.generateKeyPair();
+    }
+
+    private static PublicJwk<?> publicJwk(String kid, PublicKey publicKey) {
+        return Jwks.builder().key(publicKey).id(kid).build();
+    }
+
+    private FileSystemResource privateJwk(String kid, KeyPair keyPair) throws IOException {
+        var jwk = Jwks.builder().key(keyPair.getPrivate()).publicKey(keyPair.getPublic()).id(kid).build();
+        return write(Jwks.UNSAFE_JSON(jwk));
+    }
+
+    private FileSystemResource keySet(PublicJwk<?>... jwks) throws IOException {
+        return write(Stream.of(jwks).map(Jwks::json).collect(Collectors.joining(",", "{\"keys\":[", "]}")));
+    }
+
+    private FileSystemResource write(String content) throws IOException {
+        var file = Files.createTempFile(directory, "jwk", ".json");
+        Files.writeString(file, content);
+        return new FileSystemResource(file);
+    }
+}
@@ -0,0 +1,184 @@
+package com.s3b.helios.client.revocation;
+
+import com.s3b.helios.client.token.HeliosTokenClaims;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeliosRevocationListTest {
+
+    private static final Instant NOW = Instant.parse("2026-01-01T00:00:00Z");
+
+    private final MutableClock clock = new MutableClock(NOW);
+
+    private final InMemoryHeliosRevocationSource source = new InMemoryHeliosRevocationSource(clock);
+
+    private final HeliosRevocationList revocationList = new HeliosRevocationList(source, 1000, 0.01, clock);
+
+    @Test
+    void should_RejectToken_When_TokenIdIsRevoked() {
+        source.revokeToken("revoked-id", NOW.plusSeconds(900));
+        revocationList.refresh();
+
+        assertTrue(revocationList.isRevoked(token("user", "revoked-id", NOW)));
+        assertFalse(revocationList.isRevoked(token("user", "valid-id", NOW)));
+        assertEquals(1, revocationList.getRevokedTokenCount());
+        assertEquals(1, revocationList.getRevokedHitCount());
+    }
+
+    @Test
+    void should_RejectTokensIssuedBeforeEpoch_When_SubjectIsRevoked() {
+        source.revokeSubject("user", NOW, NOW.plusSeconds(900));
+        revocationList.refresh();
+
+        assertTrue(revocationList.isRevoked(token("user", "old-id", NOW.minusSeconds(60))));
+        assertFalse(revocationList.isRevoked(token("user", "new-id", NOW)));
+        assertFalse(revocationList.isRevoked(token("other", "other-id", NOW.minusSeconds(60))));
+    }
+
+    @Test
+    void should_RevokeTokensOfEpochSecond_When_EpochHasFractionOfSecond() {
+        source.revokeSubject("user", NOW.plusMillis(400), NOW.plusSeconds(900));
+        source.revokeSubject("exact", NOW, NOW.plusSeconds(900));
+        revocationList.refresh();
+
+        assertTrue(revocationList.isRevoked(token("user", "before-id", NOW.minusSeconds(1))));
+        assertTrue(revocationList.isRevoked(token("user", "same-second-id", NOW)));
+        assertFalse(revocationList.isRevoked(token("user", "next-second-id", NOW.plusSeconds(1))));
+        assertTrue(revocationList.isRevoked(token("exact", "before-id", NOW.minusSeconds(1))));
+        assertFalse(revocationList.isRevoked(token("exact", "same-second-id", NOW)));
+        assertEquals(NOW.plusSeconds(1), HeliosRevocation.subject("user", NOW.plusNanos(1), NOW.plusSeconds(900)).issuedBefore());
+    }
+
+    @Test
+    void should_ConfirmProbableHitsWithExactRevocations_When_BloomFilterAnswersFalsePositives() {
+        var smallList = new HeliosRevocationList(source, 10, 0.2, clock);
+        for (int i = 0; i < 10; i++) {
+            source.revokeToken("revoked-" + i, NOW.plusSeconds(900));
+        }
+        smallList.refresh();
+
+        for (int i = 0; i < 10_000; i++) {
+            assertFalse(smallList.isRevoked(token(null, "valid-" + i, NOW)));
+        }
+        for (int i = 0; i < 10; i++) {
+            assertTrue(smallList.isRevoked(token(null, "revoked-" + i, NOW)));
+        }
+        assertTrue(smallList.getFalsePositiveCount() > 0);
+        assertEquals(smallList.getFalsePositiveCount() + 10, smallList.getProbableHitCount());
+    }
+
+    @Test
+    void should_ApplyOnlyNewRevocations_When_SourceIsPolledAgain() {
+        source.revokeToken("first", NOW.plusSeconds(900));
+        revocationList.refresh();
+        var version = revocationList.getVersion();
+
+        assertNull(source.poll(version));
+        source.revokeToken("second", NOW.plusSeconds(900));
+        var update = source.poll(version);
+        revocationList.refresh();
+
+        assertFalse(update.snapshot());
+        assertEquals(List.of(HeliosRevocation.token("second", NOW.plusSeconds(900))), update.revocations());
+        assertTrue(revocationList.isRevoked(token(null, "first", NOW)));
+        assertTrue(revocationList.isRevoked(token(null, "second", NOW)));
+    }
+
+    @Test
+    void should_DropRevocation_When_RevokedTokensAreExpired() {
+        source.revokeToken("short", NOW.plusSeconds(60));
+        source.revokeToken("long", NOW.plusSeconds(900));
+        revocationList.refresh();
+
+        clock.advance(Duration.ofSeconds(60));
+        revocationList.refresh();
+
+        assertEquals(1, revocationList.getRevokedTokenCount());
+        assertFalse(revocationList.isRevoked(token(null, "short", NOW)));
+        assertTrue(revocationList.isRevoked(token(null, "long", NOW)));
+    }
+
+    @Test
+    void should_BoundMemoryAndRejectProbableHits_When_CapacityIsExceeded() {
+        var smallList = new HeliosRevocationList(source, 10, 0.01, clock);
+        var bloomFilterBytes = smallList.getBloomFilterBytes();
+        for (int i = 0; i < 100; i++) {
+            source.revokeToken("revoked-" + i, NOW.plusSeconds(900));
+        }
+        smallList.refresh();
+
+        assertTrue(smallList.isOverflowed());
+        assertEquals(10, smallList.getRevokedTokenCount());
+        assertEquals(bloomFilterBytes, smallList.getBloomFilterBytes());
+        assertEquals(bloomFilterBytes + 10 * HeliosRevocationList.ESTIMATED_ENTRY_BYTES, smallList.getEstimatedMemoryBytes());
+        for (int i = 0; i < 100; i++) {
+            assertTrue(smallList.isRevoked(token(null, "revoked-" + i, NOW)));
+        }
+    }
+
+    @Test
+    void should_KeepRevocations_When_SourceFails() {
+        var failing = new HeliosRevocationSource() {
+            private boolean failed;
+
+            @Override
+            public HeliosRevocationUpdate poll(long sinceVersion) {
+                if (failed) {
+                    throw new IllegalStateException("unavailable");
+                }
+                failed = true;
+                return new HeliosRevocationUpdate(1, true, List.of(HeliosRevocation.token("revoked-id", NOW.plusSeconds(900))));
+            }
+        };
+        var failingList = new HeliosRevocationList(failing, 100, 0.01, clock);
+        failingList.refresh();
+        failingList.refresh();
+
+        assertEquals(1, failingList.getVersion());
+        assertTrue(failingList.isRevoked(token(null, "revoked-id", NOW)));
+    }
+
+    private static HeliosTokenClaims token(String subject, String tokenId, Instant issuedAt) {
+        return new HeliosTokenClaims(subject, issuedAt, issuedAt.plusSeconds(900), Map.of(HeliosRevocationList.TOKEN_ID_CLAIM, tokenId));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.s3b.helios.client.token;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@ExtendWith(MockitoExtension.class)
+class CachingHeliosTokenReaderTest {
+
+    private static final String TOKEN = "header.payload.signature";
+    private static final Instant NOW = Instant.parse("2023-09-24T10:00:00Z");
+
+    @Mock
+    private HeliosTokenReader delegate;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final Ticker ticker = nanos::get;
+
+    private CachingHeliosTokenReader reader(Duration ttl) {
+        return new CachingHeliosTokenReader(delegate, 100, ttl, ticker, Clock.fixed(NOW, ZoneOffset.UTC));
+    }
+
+    @Test
+    void should_CallDelegateOnce_When_TokenIsVerifiedTwice() {
+        var reader = reader(Duration.ofMinutes(5));
+        var verified = verifiedUntil(NOW.plus(Duration.ofHours(1)));
+        Mockito.doReturn(verified).when(delegate).verify(TOKEN);
+
+        assertSame(verified, reader.verify(TOKEN));
+        assertSame(verified, reader.verify(TOKEN));
+        assertEquals("subject", reader.extractSubject(TOKEN));
+
+        Mockito.verify(delegate, Mockito.times(1)).verify(TOKEN);
+        assertEquals(2, reader.stats().hitCount());
+        assertEquals(1, reader.stats().missCount());
+    }
+
+    @Test
+    void should_NotCacheFailure_When_TokenIsRejected() {
+        var reader = reader(Duration.ofMinutes(5));
+        Mockito.doReturn(HeliosTokenVerification.failed(HeliosTokenFailure.INVALID_SIGNATURE)).when(delegate).verify(TOKEN);
+
+        assertFalse(reader.validate(TOKEN));
+        assertFalse(reader.validate(TOKEN));
+
+        Mockito.verify(delegate, Mockito.times(2)).verify(TOKEN);
+        assertEquals(0, reader.estimatedSize());
+    }
+
+    @Test
+    void should_EvictEntry_When_TimeToLiveIsOver() {
+        var reader = reader(Duration.ofMinutes(5));
+        Mockito.doReturn(verifiedUntil(NOW.plus(Duration.ofHours(1)))).when(delegate).verify(TOKEN);
+
+        assertTrue(reader.validate(TOKEN));
+        nanos.addAndGet(Duration.ofMinutes(6).toNanos());
+        assertTrue(reader.validate(TOKEN));
+
+        Mockito.verify(delegate, Mockito.times(2)).verify(TOKEN);
+    }
+
+    @Test
+    void should_EvictEntry_When_TokenExpiresBeforeTimeToLive() {
+        var reader = reader(Duration.ofMinutes(5));
+        Mockito.doReturn(verifiedUntil(NOW.plus(Duration.ofSeconds(30)))).when(delegate).verify(TOKEN);
+
+        assertTrue(reader.validate(TOKEN));
+        nanos.addAndGet(Duration.ofSeconds(31).toNanos());
+        assertTrue(reader.validate(TOKEN));
+
+        Mockito.verify(delegate, Mockito.times(2)).verify(TOKEN);
+    }
+
+    private static HeliosTokenVerification verifiedUntil(Instant expiration) {
+        return HeliosTokenVerification.verified(new HeliosTokenClaims("subject", NOW, expiration, Map.of()));
+    }
+}
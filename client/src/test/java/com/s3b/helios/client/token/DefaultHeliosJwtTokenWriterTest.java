@@ -3,13 +3,18 @@ package com.s3b.helios.client.token;
 import io.jsonwebtoken.security.WeakKeyException;
 import org.junit.jupiter.api.Test;
 
+import java.time.Duration;
+
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DefaultHeliosJwtTokenWriterTest {
-    private HeliosTokenWriter tokenWriter = new DefaultHeliosJwtTokenWriter(
-            "secretsecretsecretsecretsecretsecretsecretsecret",
-            10);
+    private static final String SECRET = "secretsecretsecretsecretsecretsecretsecretsecret";
+
+    private HeliosTokenWriter tokenWriter = new DefaultHeliosJwtTokenWriter(SECRET, 10);
 
     @Test
     void tokenIsGeneratedSuccessfully() {
@@ -18,8 +23,34 @@ class DefaultHeliosJwtTokenWriterTest {
 
     @Test
     void should_ThrowWeakKeyEXception_When_KeyIslessThan32bits() {
-        tokenWriter = new DefaultHeliosJwtTokenWriter("secretsecretsecretsecretsecrets", 10);
-        assertThrows(WeakKeyException.class, () -> tokenWriter.generate("subject"));
+        assertThrows(WeakKeyException.class, () -> new DefaultHeliosJwtTokenWriter("secretsecretsecretsecretsecrets", 10));
+    }
+
+    @Test
+    void should_StartWithPreEncodedHeader_When_TokenIsGenerated() {
+        var token = tokenWriter.generate("mySubject");
+        assertTrue(token.startsWith("eyJhbGciOiJIUzI1NiJ9."));
+    }
+
+    @Test
+    void should_BeVerifiedByReader_When_TokenIsGenerated() {
+        var subject = "my \"quoted\" subject é";
+        var verification = new DefaultHeliosJwtTokenReader(SECRET).verify(tokenWriter.generate(subject));
+
+        assertTrue(verification.isVerified());
+        var claims = verification.getClaims();
+        assertEquals(subject, claims.getSubject());
+        assertEquals(Duration.ofHours(10), Duration.between(claims.getIssuedAt(), claims.getExpiration()));
+    }
+
+    @Test
+    void should_HoldUniqueTokenId_When_TokensAreGenerated() {
+        var reader = new DefaultHeliosJwtTokenReader(SECRET);
+        var first = reader.verify(tokenWriter.generate("mySubject")).getClaims().getClaim("jti", String.class);
+        var second = reader.verify(tokenWriter.generate("mySubject")).getClaims().getClaim("jti", String.class);
+
+        assertEquals(22, first.length());
+        assertNotEquals(first, second);
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,82 @@
+package com.s3b.helios.client.token;
+
+import dev.paseto.jpaseto.Version;
+import dev.paseto.jpaseto.lang.Keys;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultHeliosPasetoTokenReaderTest {
+
+    private static final String SUBJECT = "mySubject";
+
+    @Test
+    void should_ReturnClaims_When_LocalTokenIsVerified() {
+        var secret = Keys.secretKey();
+        var token = new DefaultHeliosPasetoTokenWriter(secret, 10).generate(SUBJECT);
+        var verification = new DefaultHeliosPasetoTokenReader(secret).verify(token);
+
+        assertTrue(token.startsWith("v2.local."));
+        assertTrue(verification.isVerified());
+        assertEquals(SUBJECT, verification.getClaims().getSubject());
+        assertEquals(Duration.ofHours(10), Duration.between(verification.getClaims().getIssuedAt(), verification.getClaims().getExpiration()));
+    }
+
+    @Test
+    void should_ReturnClaims_When_PublicTokenIsVerified() {
+        var keyPair = Keys.keyPairFor(Version.V2);
+        var token = new DefaultHeliosPasetoTokenWriter(keyPair.getPrivate(), 10).generate(SUBJECT);
+        var reader = new DefaultHeliosPasetoTokenReader(keyPair.getPublic());
+
+        assertTrue(token.startsWith("v2.public."));
+        assertEquals(SUBJECT, reader.extractSubject(token));
+        assertTrue(reader.validate(token));
+    }
+
+    @Test
+    void should_ReturnInvalidSignature_When_LocalTokenIsEncryptedWithAnotherSecret() {
+        var token = new DefaultHeliosPasetoTokenWriter(Keys.secretKey(), 10).generate(SUBJECT);
+        var verification = new DefaultHeliosPasetoTokenReader(Keys.secretKey()).verify(token);
+
+        assertEquals(HeliosTokenFailure.INVALID_SIGNATURE, verification.getFailure());
+    }
+
+    @Test
+    void should_ReturnExpired_When_TokenIsExpired() {
+        var secret = Keys.secretKey();
+        var token = new DefaultHeliosPasetoTokenWriter(secret, -1).generate(SUBJECT);
+        var verification = new DefaultHeliosPasetoTokenReader(secret).verify(token);
+
+        assertEquals(HeliosTokenFailure.EXPIRED, verification.getFailure());
+    }
+
+    @Test
+    void should_Reject_When_PurposeDoesNotMatch() {
+        var keyPair = Keys.keyPairFor(Version.V2);
+        var token = new DefaultHeliosPasetoTokenWriter(keyPair.getPrivate(), 10).generate(SUBJECT);
+
+        assertFalse(new DefaultHeliosPasetoTokenReader(Keys.secretKey()).validate(token));
+    }
+
+    @Test
+    void should_ReturnFailure_When_TokenIsMalformedOrEmpty() {
+        var reader = new DefaultHeliosPasetoTokenReader(Keys.secretKey());
+
+        assertFalse(reader.validate("v2.local.garbage"));
+        assertEquals(HeliosTokenFailure.EMPTY, reader.verify("").getFailure());
+    }
+
+    @Test
+    void should_ReadLocalToken_When_SecretIsBase64Encoded() {
+        var secret = "c2VjcmV0LXRoYXQtaXMtZXhhY3RseS0zMi1ieXRlcyE=";
+        var token = new DefaultHeliosPasetoTokenWriter(secret, 10).generate(SUBJECT);
+
+        assertEquals(SUBJECT, new DefaultHeliosPasetoTokenReader(secret).extractSubject(token));
+        assertThrows(IllegalArgumentException.class, () -> new DefaultHeliosPasetoTokenReader("dG9vLXNob3J0"));
+    }
+}
@@ -0,0 +1,20 @@
+package com.s3b.helios.exception;
+
+/**
+ * Thrown when a user is changed from a version which is not the current one.
+ * @author Sébastien SAEZ
+ * @see com.s3b.helios.model.HeliosUserDto#getVersion()
+ */
+public class HeliosVersionConflictException extends RuntimeException {
+
+    /**
+     * Create the exception for the specified user.
+     * @param subject the subject of the user
+     * @param expectedVersion the version the change was made from
+     * @param currentVersion the current version of the user, <code>null</code> if unknown
+     */
+    public HeliosVersionConflictException(String subject, Long expectedVersion, Long currentVersion) {
+        super("The user " + subject + " is at version " + (currentVersion == null ? "unknown" : currentVersion)
+                + ", the change was made from version " + expectedVersion);
+    }
+}
@@ -1,6 +1,6 @@
 package com.s3b.helios.model;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -16,7 +16,6 @@ import java.util.List;
 @Getter
 @Setter
 @NoArgsConstructor
-@AllArgsConstructor
 public class HeliosUserDto {
 
     /**
@@ -47,5 +46,51 @@ public class HeliosUserDto {
      * Every adresses of the user
      */
     private  List<HeliosAddressDto> address = new ArrayList<>();
+
+    /**
+     * Whether the addresses have been set, a change without addresses leaves the addresses of the user unchanged
+     */
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean addressSpecified;
+
+    /**
+     * The version of the user, incremented on each update, <code>null</code> when it is not tracked.
+     * When a change specifies it, the change is rejected if the user is no longer at this version.
+     */
+    private Long version;
+
+    public HeliosUserDto(Long id, String subject, String firstName, String lastName, LocalDate birthdate, List<HeliosAddressDto> address) {
+        this(id, subject, firstName, lastName, birthdate, address, null);
+    }
+
+    public HeliosUserDto(Long id, String subject, String firstName, String lastName, LocalDate birthdate, List<HeliosAddressDto> address, Long version) {
+        this.id = id;
+        this.subject = subject;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.birthdate = birthdate;
+        this.version = version;
+        setAddress(address);
+    }
+
+    /**
+     * Set the addresses of the user, a <code>null</code> list is read as an empty list which is not specified
+     * @param address every adresses of the user
+     */
+    public void setAddress(List<HeliosAddressDto> address) {
+        this.address = address != null ? address : new ArrayList<>();
+        this.addressSpecified = address != null;
+    }
+
+    /**
+     * Tell a change which sets no address apart from a change which removes every address :
+     * the addresses are specified when they have been set, even to an empty list, or when the list holds an address.
+     * @return <code>true</code> if the addresses of the user are specified
+     *         <code>false</code> otherwise.
+     */
+    public boolean hasAddressSpecified() {
+        return addressSpecified || !address.isEmpty();
+    }
 }
 
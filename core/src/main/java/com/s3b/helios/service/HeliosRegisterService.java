@@ -1,5 +1,6 @@
 package com.s3b.helios.service;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -13,4 +14,13 @@ public interface HeliosRegisterService {
      * @param attributes the user's information of the End-User
      */
     void processRegistration(Map<String, Object> attributes);
+
+    /**
+     * Perform the registration of several End-Users at once.
+     * The default implementation processes the registrations one by one, implementations may persist them in a single batch.
+     * @param registrations the user's information of each End-User
+     */
+    default void processRegistrations(List<Map<String, Object>> registrations) {
+        registrations.forEach(this::processRegistration);
+    }
 }
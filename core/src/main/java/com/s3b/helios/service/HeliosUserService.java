@@ -2,7 +2,10 @@ package com.s3b.helios.service;
 
 import com.s3b.helios.model.HeliosUserDto;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Basic CRUD operations on the user resource are handled by the implementations of this interface.
@@ -19,13 +22,71 @@ public interface HeliosUserService {
     Optional<HeliosUserDto> findUserBySubject(String subject);
 
     /**
-     * Update a user's details with the new details specified
+     * Fetch the version of a user without his details, to check whether a copy of the user is still current
+     * <p>
+     * The default implementation does not track the versions.
+     * @param subject the id to retrieve a user
+     * @return an {@link Optional} of the version of the user, empty if the user is not found or the versions are not tracked
+     *
+     * @see HeliosUserDto#getVersion()
+     */
+    default Optional<Long> findUserVersion(String subject) {
+        return Optional.empty();
+    }
+
+    /**
+     * Fetch the users of several subjects at once
+     * <p>
+     * The default implementation fetches the users one by one with {@link #findUserBySubject(String)}.
+     * @param subjects the ids to retrieve the users
+     * @return the user projections found, in the order of the first occurrence of their subject, the unknown subjects are skipped
+     *
+     * @see HeliosUserDto
+     */
+    default List<HeliosUserDto> findUsersBySubjects(Collection<String> subjects) {
+        return subjects.stream()
+                .distinct()
+                .map(this::findUserBySubject)
+                .flatMap(Optional::stream)
+                .toList();
+    }
+
+    /**
+     * Pass every user to the specified consumer, one at a time, without keeping them in memory.
+     * @param consumer the consumer of the user projections, called in the order of the user ids
+     *
+     * @see HeliosUserDto
+     */
+    void exportUsers(Consumer<HeliosUserDto> consumer);
+
+    /**
+     * Update a user's details with the new details specified, the <code>null</code> fields are left unchanged.
+     * When the addresses are specified they replace the current ones, matched by id : an address without id is added,
+     * an address with an id is updated and an address missing from the list is deleted.
      * @param subject the user's subject to perform the changes
      * @param heliosUserDto the new user details to save
      * @return  an {@link Optional} user with his updated details
+     * @throws com.s3b.helios.exception.HeliosVersionConflictException if the version of the details is specified and is not the current one
      *
      * @see HeliosUserDto
      */
     Optional<HeliosUserDto> updateUser(String subject, HeliosUserDto heliosUserDto);
 
+    /**
+     * Apply the specified fields to a user's details, the <code>null</code> fields are left unchanged.
+     * The addresses are matched by id when they are specified : an address without id is added,
+     * an address with an id is updated and an address missing from the list is removed.
+     * <p>
+     * The default implementation delegates to {@link #updateUser(String, HeliosUserDto)}.
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the fields to change
+     * @return  an {@link Optional} user with his updated details
+     * @throws com.s3b.helios.exception.HeliosVersionConflictException if the version of the fields is specified and is not the current one
+     *
+     * @see HeliosUserDto
+     */
+    default Optional<HeliosUserDto> patchUser(String subject, HeliosUserDto heliosUserDto) {
+        return updateUser(subject, heliosUserDto);
+    }
+
 }
@@ -0,0 +1,47 @@
+package com.s3b.helios.service.reactive;
+
+import com.s3b.helios.service.HeliosRegisterService;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A {@link HeliosRegisterService} waiting for a {@link ReactiveHeliosRegisterService},
+ * for the servlet applications using a non-blocking persistence.
+ * It blocks the calling thread and must not be called from an event loop.
+ *
+ * @author Sébastien SAEZ
+ */
+public class BlockingHeliosRegisterService implements HeliosRegisterService {
+
+    /**
+     * The service performing the registrations
+     */
+    private final ReactiveHeliosRegisterService delegate;
+
+    /**
+     * Create a blocking service on top of the specified reactive service
+     * @param delegate the service performing the registrations
+     */
+    public BlockingHeliosRegisterService(ReactiveHeliosRegisterService delegate) {
+        this.delegate = delegate;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param attributes the user's information of the End-User
+     */
+    @Override
+    public void processRegistration(Map<String, Object> attributes) {
+        delegate.processRegistration(attributes).block();
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param registrations the user's information of each End-User
+     */
+    @Override
+    public void processRegistrations(List<Map<String, Object>> registrations) {
+        delegate.processRegistrations(registrations).block();
+    }
+}
@@ -0,0 +1,67 @@
+package com.s3b.helios.service.reactive;
+
+import com.s3b.helios.model.HeliosUserDto;
+import com.s3b.helios.service.HeliosUserService;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * A {@link HeliosUserService} waiting for a {@link ReactiveHeliosUserService},
+ * for the servlet applications using a non-blocking persistence.
+ * It blocks the calling thread and must not be called from an event loop.
+ *
+ * @author Sébastien SAEZ
+ */
+public class BlockingHeliosUserService implements HeliosUserService {
+
+    /**
+     * The service performing the operations
+     */
+    private final ReactiveHeliosUserService delegate;
+
+    /**
+     * Create a blocking service on top of the specified reactive service
+     * @param delegate the service performing the operations
+     */
+    public BlockingHeliosUserService(ReactiveHeliosUserService delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Optional<HeliosUserDto> findUserBySubject(String subject) {
+        return delegate.findUserBySubject(subject).blockOptional();
+    }
+
+    @Override
+    public Optional<Long> findUserVersion(String subject) {
+        return delegate.findUserVersion(subject).blockOptional();
+    }
+
+    @Override
+    public List<HeliosUserDto> findUsersBySubjects(Collection<String> subjects) {
+        return delegate.findUsersBySubjects(subjects).collectList().block();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The users are requested by small batches as the consumer handles them, so memory stays bounded.
+     * @param consumer the consumer of the user projections, called in the order of the user ids
+     */
+    @Override
+    public void exportUsers(Consumer<HeliosUserDto> consumer) {
+        delegate.exportUsers().toIterable().forEach(consumer);
+    }
+
+    @Override
+    public Optional<HeliosUserDto> updateUser(String subject, HeliosUserDto heliosUserDto) {
+        return delegate.updateUser(subject, heliosUserDto).blockOptional();
+    }
+
+    @Override
+    public Optional<HeliosUserDto> patchUser(String subject, HeliosUserDto heliosUserDto) {
+        return delegate.patchUser(subject, heliosUserDto).blockOptional();
+    }
+}
@@ -0,0 +1,35 @@
+package com.s3b.helios.service.reactive;
+
+import com.s3b.helios.service.HeliosRegisterService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The non-blocking counterpart of {@link HeliosRegisterService}, implementations are responsible for processing a user registration
+ * without blocking the calling thread.
+ *
+ * @author Sébastien SAEZ
+ */
+public interface ReactiveHeliosRegisterService {
+    /**
+     * Perform the user registration after obtaining the user attributes of the End-User
+     * @param attributes the user's information of the End-User
+     * @return a {@link Mono} emitting <code>true</code> if the user is new, <code>false</code> if it already exists
+     */
+    Mono<Boolean> processRegistration(Map<String, Object> attributes);
+
+    /**
+     * Perform the registration of several End-Users at once.
+     * The default implementation processes the registrations one after the other.
+     * @param registrations the user's information of each End-User
+     * @return a {@link Mono} completing when every registration is processed
+     */
+    default Mono<Void> processRegistrations(List<Map<String, Object>> registrations) {
+        return Flux.fromIterable(registrations)
+                .concatMap(this::processRegistration)
+                .then();
+    }
+}
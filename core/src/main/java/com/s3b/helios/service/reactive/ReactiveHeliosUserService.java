@@ -0,0 +1,73 @@
+package com.s3b.helios.service.reactive;
+
+import com.s3b.helios.model.HeliosUserDto;
+import com.s3b.helios.service.HeliosUserService;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+
+/**
+ * The non-blocking counterpart of {@link HeliosUserService}, basic CRUD operations on the user resource are handled
+ * by the implementations of this interface without blocking the calling thread.
+ * @author Sébastien SAEZ
+ */
+public interface ReactiveHeliosUserService {
+    /**
+     * Fetch a user by subject
+     * @param subject the id to retrieve a user
+     * @return a {@link Mono} of the user projection for the specified subject, empty if the user is not found
+     *
+     * @see HeliosUserService#findUserBySubject(String)
+     */
+    Mono<HeliosUserDto> findUserBySubject(String subject);
+
+    /**
+     * Fetch the version of a user without his details
+     * @param subject the id to retrieve a user
+     * @return a {@link Mono} of the version of the user, empty if the user is not found
+     *
+     * @see HeliosUserService#findUserVersion(String)
+     */
+    Mono<Long> findUserVersion(String subject);
+
+    /**
+     * Fetch the users of several subjects at once
+     * @param subjects the ids to retrieve the users
+     * @return a {@link Flux} of the user projections found, the unknown subjects are skipped
+     *
+     * @see HeliosUserService#findUsersBySubjects(Collection)
+     */
+    Flux<HeliosUserDto> findUsersBySubjects(Collection<String> subjects);
+
+    /**
+     * Stream every user, in the order of the user ids. The users are read as they are requested.
+     * @return a {@link Flux} of every user projection
+     *
+     * @see HeliosUserService#exportUsers(java.util.function.Consumer)
+     */
+    Flux<HeliosUserDto> exportUsers();
+
+    /**
+     * Update a user's details with the new details specified
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the new user details to save
+     * @return a {@link Mono} of the user with his updated details, empty if the user is not found,
+     *         failing with {@link com.s3b.helios.exception.HeliosVersionConflictException} if the version of the details is not the current one
+     *
+     * @see HeliosUserService#updateUser(String, HeliosUserDto)
+     */
+    Mono<HeliosUserDto> updateUser(String subject, HeliosUserDto heliosUserDto);
+
+    /**
+     * Apply the specified fields to a user's details, the <code>null</code> fields are left unchanged.
+     * The addresses are matched by id when they are specified.
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the fields to change
+     * @return a {@link Mono} of the user with his updated details, empty if the user is not found,
+     *         failing with {@link com.s3b.helios.exception.HeliosVersionConflictException} if the version of the fields is not the current one
+     *
+     * @see HeliosUserService#patchUser(String, HeliosUserDto)
+     */
+    Mono<HeliosUserDto> patchUser(String subject, HeliosUserDto heliosUserDto);
+}
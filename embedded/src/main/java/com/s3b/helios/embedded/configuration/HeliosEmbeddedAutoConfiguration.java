@@ -0,0 +1,73 @@
+package com.s3b.helios.embedded.configuration;
+
+import com.s3b.helios.embedded.service.EmbeddedHeliosRegisterService;
+import com.s3b.helios.embedded.service.EmbeddedHeliosUserService;
+import com.s3b.helios.embedded.store.HeliosUserStore;
+import com.s3b.helios.service.HeliosRegisterService;
+import com.s3b.helios.service.HeliosUserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.context.annotation.Bean;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * A container class registering beans used for helios embedded store configuration.
+ *
+ * @author Sébastien SAEZ
+ *
+ */
+@AutoConfiguration
+@Slf4j
+public class HeliosEmbeddedAutoConfiguration {
+
+    /**
+     * Open the {@link HeliosUserStore} of <code>application.embedded.directory</code> if it does not exist yet.
+     * A snapshot is written every <code>application.embedded.snapshot-interval</code> and when the context is closed.
+     *
+     * @param directory the directory of the snapshot and the journals
+     * @param snapshotInterval the delay between two snapshots
+     * @param syncJournal whether each change is forced to the storage device before it is visible
+     * @return the opened store
+     */
+    @Bean(destroyMethod = "close")
+    @ConditionalOnMissingBean(HeliosUserStore.class)
+    public HeliosUserStore heliosUserStore(@Value("${application.embedded.directory:helios-data}") Path directory,
+                                           @Value("${application.embedded.snapshot-interval:5m}") Duration snapshotInterval,
+                                           @Value("${application.embedded.sync-journal:true}") boolean syncJournal){
+        var store = new HeliosUserStore(directory, syncJournal);
+        store.scheduleSnapshots(snapshotInterval);
+        return store;
+    }
+
+    /**
+     * Create bean with an embedded implementation of {@link HeliosRegisterService} if it does not exist yet
+     *
+     * @param store the store of the users
+     * @return the embedded implementation
+     * @see EmbeddedHeliosRegisterService
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosRegisterService.class)
+    public HeliosRegisterService heliosEmbeddedRegisterService(HeliosUserStore store){
+        log.info("HeliosRegisterService implementation is missing, the embedded one will be create");
+        return new EmbeddedHeliosRegisterService(store);
+    }
+
+    /**
+     * Create bean with an embedded implementation of {@link HeliosUserService} if it does not exist yet
+     *
+     * @param store the store of the users
+     * @return the embedded implementation
+     * @see EmbeddedHeliosUserService
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosUserService.class)
+    public HeliosUserService heliosEmbeddedUserService(HeliosUserStore store){
+        log.info("HeliosUserService implementation is missing, the embedded one will be create");
+        return new EmbeddedHeliosUserService(store);
+    }
+}
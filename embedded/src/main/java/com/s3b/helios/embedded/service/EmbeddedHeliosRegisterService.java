@@ -0,0 +1,42 @@
+package com.s3b.helios.embedded.service;
+
+import com.s3b.helios.embedded.store.HeliosUserStore;
+import com.s3b.helios.service.HeliosRegisterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Map;
+
+import static com.s3b.helios.constant.GoogleAttributesConstant.FAMILY_NAME_KEY;
+import static com.s3b.helios.constant.GoogleAttributesConstant.GIVEN_NAME_KEY;
+import static com.s3b.helios.constant.GoogleAttributesConstant.SUBJECT_KEY;
+
+/**
+ * An implementation of {@link HeliosRegisterService} based on the embedded {@link HeliosUserStore}
+ *
+ * @author Sébastien SAEZ
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddedHeliosRegisterService implements HeliosRegisterService {
+
+    /**
+     * The store of the users
+     */
+    private final HeliosUserStore store;
+
+    /**
+     * {@inheritDoc}
+     * Store the attributes mapped to a user unless the subject is already stored.
+     * @param attributes the user's information of the End-User
+     */
+    @Override
+    public void processRegistration(Map<String, Object> attributes) {
+        var subject = String.valueOf(attributes.get(SUBJECT_KEY));
+        if (store.insertIfAbsent(subject, String.valueOf(attributes.get(GIVEN_NAME_KEY)), String.valueOf(attributes.get(FAMILY_NAME_KEY)))) {
+            log.info("Registration saved with success : {}", subject);
+        } else {
+            log.info("The user already exists {}", subject);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.s3b.helios.embedded.service;
+
+import com.s3b.helios.embedded.store.HeliosUserStore;
+import com.s3b.helios.embedded.store.StoredAddress;
+import com.s3b.helios.embedded.store.StoredUser;
+import com.s3b.helios.exception.HeliosVersionConflictException;
+import com.s3b.helios.model.HeliosAddressDto;
+import com.s3b.helios.model.HeliosUserDto;
+import com.s3b.helios.service.HeliosUserService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * An implementation of {@link HeliosUserService} based on the embedded {@link HeliosUserStore}.
+ * The changes are applied atomically by the store, which increments the version of the user.
+ *
+ * @author Sébastien SAEZ
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class EmbeddedHeliosUserService implements HeliosUserService {
+
+    /**
+     * The store of the users
+     */
+    private final HeliosUserStore store;
+
+    @Override
+    public Optional<HeliosUserDto> findUserBySubject(String subject) {
+        var user = store.find(subject).map(EmbeddedHeliosUserService::buildHeliosUserDto);
+        if (user.isEmpty()) {
+            log.info("The user {} is not found", subject);
+        }
+        return user;
+    }
+
+    @Override
+    public Optional<Long> findUserVersion(String subject) {
+        return store.find(subject).map(StoredUser::version);
+    }
+
+    @Override
+    public List<HeliosUserDto> findUsersBySubjects(Collection<String> subjects) {
+        return subjects.stream()
+                .filter(Objects::nonNull)
+                .distinct()
+                .map(store::find)
+                .flatMap(Optional::stream)
+                .map(EmbeddedHeliosUserService::buildHeliosUserDto)
+                .toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The users are those stored when the export starts.
+     * @param consumer the consumer of the user projections, called in the order of the user ids
+     */
+    @Override
+    public void exportUsers(Consumer<HeliosUserDto> consumer) {
+        store.users().forEach(user -> consumer.accept(buildHeliosUserDto(user)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The details are applied as a patch, see {@link #patchUser(String, HeliosUserDto)}.
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the new user details to save
+     * @return the user with his updated details
+     * @throws HeliosVersionConflictException if the version of the details is specified and is not the current one
+     */
+    @Override
+    public Optional<HeliosUserDto> updateUser(String subject, HeliosUserDto heliosUserDto) {
+        return patchUser(subject, heliosUserDto);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The addresses are matched by id : an address without id is added, an address with an id is changed
+     * and an address missing from the list is removed. An address id which does not belong to the user is ignored.
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the fields to change
+     * @return the user with his updated details
+     * @throws HeliosVersionConflictException if the version of the fields is specified and is not the current one
+     */
+    @Override
+    public Optional<HeliosUserDto> patchUser(String subject, HeliosUserDto heliosUserDto) {
+        var patched = store.update(subject, current -> {
+            checkVersion(current, heliosUserDto.getVersion());
+            var user = applyFields(current, heliosUserDto);
+            return heliosUserDto.hasAddressSpecified() ? user.withAddresses(patchAddress(current, heliosUserDto.getAddress())) : user;
+        });
+        if (patched.isEmpty()) {
+            log.info("The user {} to change is not found", subject);
+            return Optional.empty();
+        }
+        log.info("The user {} changed", subject);
+        return patched.map(EmbeddedHeliosUserService::buildHeliosUserDto);
+    }
+
+    private static void checkVersion(StoredUser current, Long expectedVersion) {
+        if (expectedVersion != null && expectedVersion != current.version()) {
+            throw new HeliosVersionConflictException(current.subject(), expectedVersion, current.version());
+        }
+    }
+
+    private static StoredUser applyFields(StoredUser current, HeliosUserDto heliosUserDto) {
+        return new StoredUser(current.id(),
+                current.subject(),
+                Optional.ofNullable(heliosUserDto.getFirstName()).orElse(current.firstName()),
+                Optional.ofNullable(heliosUserDto.getLastName()).orElse(current.lastName()),
+                Optional.ofNullable(heliosUserDto.getBirthdate()).orElse(current.birthdate()),
+                current.version(),
+                current.addresses());
+    }
+
+    private static List<StoredAddress> patchAddress(StoredUser current, List<HeliosAddressDto> addressDtos) {
+        var existing = new LinkedHashMap<Long, StoredAddress>();
+        current.addresses().forEach(address -> existing.put(address.id(), address));
+        var kept = new HashSet<Long>();
+        var added = new ArrayList<StoredAddress>();
+        for (HeliosAddressDto addrDto : addressDtos) {
+            if (addrDto.getId() == null) {
+                added.add(new StoredAddress(null,
+                        addrDto.getAddress(),
+                        addrDto.getAddressComplement(),
+                        addrDto.getZipcode(),
+                        addrDto.getCity(),
+                        addrDto.getCountry()));
+                continue;
+            }
+            var address = existing.get(addrDto.getId());
+            if (address == null) {
+                log.warn("The address {} does not belong to the user {}, it is ignored", addrDto.getId(), current.subject());
+                continue;
+            }
+            kept.add(addrDto.getId());
+            existing.put(address.id(), new StoredAddress(address.id(),
+                    Optional.ofNullable(addrDto.getAddress()).orElse(address.address()),
+                    Optional.ofNullable(addrDto.getAddressComplement()).orElse(address.addressComplement()),
+                    Optional.ofNullable(addrDto.getZipcode()).orElse(address.zipCode()),
+                    Optional.ofNullable(addrDto.getCity()).orElse(address.city()),
+                    Optional.ofNullable(addrDto.getCountry()).orElse(address.country())));
+        }
+        existing.keySet().retainAll(kept);
+        var addresses = new ArrayList<>(existing.values());
+        addresses.addAll(added);
+        return addresses;
+    }
+
+    private static HeliosUserDto buildHeliosUserDto(StoredUser user) {
+        var addressList = new ArrayList<HeliosAddressDto>(user.addresses().size());
+        user.addresses().forEach(address -> addressList.add(new HeliosAddressDto(address.id(),
+                address.address(),
+                address.addressComplement(),
+                address.zipCode(),
+                address.city(),
+                address.country())));
+        return new HeliosUserDto(user.id(),
+                user.subject(),
+                user.firstName(),
+                user.lastName(),
+                user.birthdate(),
+                addressList,
+                user.version());
+    }
+}
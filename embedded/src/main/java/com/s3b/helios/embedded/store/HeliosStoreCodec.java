@@ -0,0 +1,103 @@
+package com.s3b.helios.embedded.store;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The binary encoding of the users shared by the journal and the snapshots.
+ * <p>
+ * A string is its UTF-8 length followed by its bytes, <code>-1</code> for <code>null</code>,
+ * a date is its epoch day with <code>Long.MIN_VALUE</code> for <code>null</code>.
+ *
+ * @author Sébastien SAEZ
+ */
+final class HeliosStoreCodec {
+
+    private static final int NULL_LENGTH = -1;
+
+    private static final long NULL_DATE = Long.MIN_VALUE;
+
+    private HeliosStoreCodec() {
+    }
+
+    /**
+     * @param user the user to encode
+     * @return the bytes of the user
+     */
+    static byte[] encode(StoredUser user) {
+        var bytes = new ByteArrayOutputStream(128);
+        try (var out = new DataOutputStream(bytes)) {
+            out.writeLong(user.id());
+            writeString(out, user.subject());
+            writeString(out, user.firstName());
+            writeString(out, user.lastName());
+            out.writeLong(user.birthdate() == null ? NULL_DATE : user.birthdate().toEpochDay());
+            out.writeLong(user.version());
+            out.writeInt(user.addresses().size());
+            for (StoredAddress address : user.addresses()) {
+                out.writeLong(address.id());
+                writeString(out, address.address());
+                writeString(out, address.addressComplement());
+                writeString(out, address.zipCode());
+                writeString(out, address.city());
+                writeString(out, address.country());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Decode a user at the position of the buffer and move the position after it
+     * @param buffer the buffer holding the user
+     * @return the decoded user
+     */
+    static StoredUser decode(ByteBuffer buffer) {
+        var id = buffer.getLong();
+        var subject = readString(buffer);
+        var firstName = readString(buffer);
+        var lastName = readString(buffer);
+        var epochDay = buffer.getLong();
+        var version = buffer.getLong();
+        var count = buffer.getInt();
+        var addresses = new ArrayList<StoredAddress>(count);
+        for (int i = 0; i < count; i++) {
+            addresses.add(new StoredAddress(buffer.getLong(),
+                    readString(buffer),
+                    readString(buffer),
+                    readString(buffer),
+                    readString(buffer),
+                    readString(buffer)));
+        }
+        return new StoredUser(id, subject, firstName, lastName, epochDay == NULL_DATE ? null : LocalDate.ofEpochDay(epochDay),
+                version, List.copyOf(addresses));
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_LENGTH);
+            return;
+        }
+        var bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        var length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        var bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
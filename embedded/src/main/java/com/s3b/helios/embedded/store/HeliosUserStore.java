@@ -0,0 +1,485 @@
+package com.s3b.helios.embedded.store;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.UnaryOperator;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * An in-process store of the users indexed by subject, persisted in a directory without any database server.
+ * <p>
+ * The users are held in memory as immutable {@link StoredUser}, the reads are lock-free. Each change is persisted before it is visible :
+ * <p> - the new state of the user is appended to the current journal, <code>journal-&lt;generation&gt;.log</code>, with its length and CRC32
+ * <p> - {@link #snapshot()} switches to a new journal generation, writes every user to a memory-mapped <code>users.snapshot</code> file
+ * replaced atomically, then deletes the journals held by the snapshot. The changes are not blocked while the snapshot is written.
+ * <p>
+ * On start, the snapshot is mapped and decoded, then only the journals written after it are replayed.
+ * A torn entry at the end of a journal, left by a crash during a write, is dropped.
+ * The snapshot is mapped in a single buffer, which limits it to 2 GB.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class HeliosUserStore implements AutoCloseable {
+
+    /**
+     * The name of the snapshot file
+     */
+    static final String SNAPSHOT_FILE = "users.snapshot";
+
+    /**
+     * The name of the snapshot file while it is written
+     */
+    private static final String SNAPSHOT_TMP_FILE = "users.snapshot.tmp";
+
+    /**
+     * The name of the journal files, holding their generation
+     */
+    private static final Pattern JOURNAL_FILE = Pattern.compile("journal-(\\d+)\\.log");
+
+    /**
+     * The first bytes of a snapshot, <code>HLS1</code>
+     */
+    private static final int SNAPSHOT_MAGIC = 0x484C5331;
+
+    /**
+     * The magic, the generation, the next user id, the next address id and the number of users
+     */
+    private static final int SNAPSHOT_HEADER_SIZE = Integer.BYTES + 3 * Long.BYTES + Integer.BYTES;
+
+    /**
+     * The length and the CRC32 of a journal entry
+     */
+    private static final int ENTRY_HEADER_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * The directory of the snapshot and the journals
+     */
+    private final Path directory;
+
+    /**
+     * Whether each journal entry is forced to the storage device before the change is visible
+     */
+    private final boolean syncJournal;
+
+    /**
+     * The users by subject
+     */
+    private final Map<String, StoredUser> users = new ConcurrentHashMap<>();
+
+    /**
+     * The lock ordering the changes and their journal entries
+     */
+    private final ReentrantLock writeLock = new ReentrantLock();
+
+    /**
+     * The monitor preventing two snapshots from being written at once
+     */
+    private final Object snapshotMonitor = new Object();
+
+    private long nextUserId = 1;
+
+    private long nextAddressId = 1;
+
+    /**
+     * The generation of the current journal
+     */
+    private long generation;
+
+    /**
+     * The generation of the last snapshot written
+     */
+    private long snapshotGeneration;
+
+    /**
+     * The number of entries written since the last snapshot
+     */
+    private long pendingEntries;
+
+    private FileChannel journal;
+
+    private ScheduledExecutorService scheduler;
+
+    private volatile boolean closed;
+
+    /**
+     * Open the store of the specified directory, created if it does not exist, and load its users.
+     * @param directory the directory of the snapshot and the journals
+     * @param syncJournal whether each journal entry is forced to the storage device before the change is visible
+     * @throws UncheckedIOException if the store cannot be read
+     */
+    public HeliosUserStore(Path directory, boolean syncJournal) {
+        this.directory = directory;
+        this.syncJournal = syncJournal;
+        try {
+            Files.createDirectories(directory);
+            var start = System.nanoTime();
+            loadSnapshot();
+            pendingEntries = replayJournals();
+            journal = openJournal(generation);
+            log.info("{} user(s) loaded from {} in {} ms, {} journal entries replayed",
+                    users.size(), directory, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), pendingEntries);
+        } catch (IOException e) {
+            throw new UncheckedIOException("The store " + directory + " cannot be opened", e);
+        }
+    }
+
+    /**
+     * @param subject the subject of the user
+     * @return the user of the subject, empty if it is not stored
+     */
+    public Optional<StoredUser> find(String subject) {
+        return subject == null ? Optional.empty() : Optional.ofNullable(users.get(subject));
+    }
+
+    /**
+     * @return every user, in the order of their ids
+     */
+    public List<StoredUser> users() {
+        return users.values().stream().sorted(Comparator.comparingLong(StoredUser::id)).toList();
+    }
+
+    /**
+     * @return the number of users
+     */
+    public int size() {
+        return users.size();
+    }
+
+    /**
+     * Store a new user unless the subject is already stored
+     * @param subject the subject of the user
+     * @param firstName the first name
+     * @param lastName the last name
+     * @return <code>true</code> if the user is new, <code>false</code> if the subject is already stored
+     */
+    public boolean insertIfAbsent(String subject, String firstName, String lastName) {
+        writeLock.lock();
+        try {
+            if (users.containsKey(subject)) {
+                return false;
+            }
+            store(new StoredUser(nextUserId, subject, firstName, lastName, null, 0, List.of()));
+            nextUserId++;
+            return true;
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Change a user atomically. The change function is called under the write lock, it may throw to abort the change.
+     * The id, the subject and the version returned by the function are ignored : the version is incremented
+     * and the addresses without id get a new one. When the function returns the current state, nothing is written
+     * and the version is kept.
+     * @param subject the subject of the user
+     * @param change the function computing the new state of the user from the current one
+     * @return the stored user, empty if the subject is not stored
+     */
+    public Optional<StoredUser> update(String subject, UnaryOperator<StoredUser> change) {
+        writeLock.lock();
+        try {
+            var current = users.get(subject);
+            if (current == null) {
+                return Optional.empty();
+            }
+            var changed = change.apply(current);
+            if (changed.equals(current)) {
+                return Optional.of(current);
+            }
+            var addressId = nextAddressId;
+            var addresses = new ArrayList<StoredAddress>(changed.addresses().size());
+            for (StoredAddress address : changed.addresses()) {
+                addresses.add(address.id() != null ? address : new StoredAddress(addressId++,
+                        address.address(),
+                        address.addressComplement(),
+                        address.zipCode(),
+                        address.city(),
+                        address.country()));
+            }
+            var user = new StoredUser(current.id(), current.subject(), changed.firstName(), changed.lastName(), changed.birthdate(),
+                    current.version() + 1, List.copyOf(addresses));
+            store(user);
+            nextAddressId = addressId;
+            return Optional.of(user);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Write every user to a new snapshot and delete the journals it holds. Nothing is written if nothing changed since the last snapshot.
+     * @throws UncheckedIOException if the snapshot cannot be written, the journals are kept then
+     */
+    public void snapshot() {
+        synchronized (snapshotMonitor) {
+            List<StoredUser> state;
+            long stateGeneration;
+            long userId;
+            long addressId;
+            writeLock.lock();
+            try {
+                if (pendingEntries == 0 && snapshotGeneration == generation) {
+                    return;
+                }
+                state = List.copyOf(users.values());
+                userId = nextUserId;
+                addressId = nextAddressId;
+                var previous = journal;
+                journal = openJournal(generation + 1);
+                generation++;
+                pendingEntries = 0;
+                stateGeneration = generation;
+                previous.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException("The journal of the store " + directory + " cannot be rotated", e);
+            } finally {
+                writeLock.unlock();
+            }
+            try {
+                var start = System.nanoTime();
+                writeSnapshot(state, stateGeneration, userId, addressId);
+                snapshotGeneration = stateGeneration;
+                deleteJournalsBefore(stateGeneration);
+                log.info("Snapshot of {} user(s) written in {} ms", state.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            } catch (IOException e) {
+                throw new UncheckedIOException("The snapshot of the store " + directory + " cannot be written", e);
+            }
+        }
+    }
+
+    /**
+     * Write a snapshot periodically, on a daemon thread
+     * @param interval the delay between the end of a snapshot and the start of the next one
+     */
+    public void scheduleSnapshots(Duration interval) {
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            var thread = new Thread(runnable, "helios-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (RuntimeException e) {
+                log.error("The periodic snapshot failed: {}", e.getMessage(), e);
+            }
+        }, interval.toMillis(), interval.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stop the periodic snapshots, write a last snapshot so the next start does not replay any journal, and close the journal.
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        try {
+            snapshot();
+        } finally {
+            writeLock.lock();
+            try {
+                closed = true;
+                journal.close();
+            } catch (IOException e) {
+                log.warn("The journal of the store {} cannot be closed: {}", directory, e.getMessage());
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    private void store(StoredUser user) {
+        if (closed) {
+            throw new IllegalStateException("The store " + directory + " is closed");
+        }
+        append(HeliosStoreCodec.encode(user));
+        users.put(user.subject(), user);
+        pendingEntries++;
+    }
+
+    private void append(byte[] payload) {
+        var crc = new CRC32();
+        crc.update(payload);
+        var entry = ByteBuffer.allocate(ENTRY_HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .flip();
+        long position = -1;
+        try {
+            position = journal.size();
+            while (entry.hasRemaining()) {
+                journal.write(entry);
+            }
+            if (syncJournal) {
+                journal.force(false);
+            }
+        } catch (IOException e) {
+            // A partial entry would hide the entries written after it on replay
+            if (position >= 0) {
+                try {
+                    journal.truncate(position);
+                } catch (IOException truncateException) {
+                    e.addSuppressed(truncateException);
+                }
+            }
+            throw new UncheckedIOException("The journal of the store " + directory + " cannot be written", e);
+        }
+    }
+
+    private void loadSnapshot() throws IOException {
+        var file = directory.resolve(SNAPSHOT_FILE);
+        if (Files.notExists(file)) {
+            return;
+        }
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < SNAPSHOT_HEADER_SIZE || buffer.getInt() != SNAPSHOT_MAGIC) {
+                throw new IOException("The snapshot " + file + " is not valid");
+            }
+            snapshotGeneration = buffer.getLong();
+            generation = snapshotGeneration;
+            nextUserId = buffer.getLong();
+            nextAddressId = buffer.getLong();
+            var count = buffer.getInt();
+            for (int i = 0; i < count; i++) {
+                var user = HeliosStoreCodec.decode(buffer);
+                users.put(user.subject(), user);
+            }
+        }
+    }
+
+    private long replayJournals() throws IOException {
+        var replayed = 0L;
+        for (long journalGeneration : journalGenerations()) {
+            var file = journalFile(journalGeneration);
+            if (journalGeneration < snapshotGeneration) {
+                // Left by a crash after the snapshot was written, it is already held by the snapshot
+                Files.delete(file);
+                continue;
+            }
+            replayed += replay(file);
+            generation = Math.max(generation, journalGeneration);
+        }
+        return replayed;
+    }
+
+    private long replay(Path file) throws IOException {
+        try (var channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            var crc = new CRC32();
+            var count = 0L;
+            while (buffer.remaining() >= ENTRY_HEADER_SIZE) {
+                var position = buffer.position();
+                var length = buffer.getInt();
+                var checksum = buffer.getInt();
+                if (length < 0 || length > buffer.remaining()) {
+                    return truncate(channel, file, position, count);
+                }
+                var payload = buffer.slice(buffer.position(), length);
+                crc.reset();
+                crc.update(payload.duplicate());
+                if ((int) crc.getValue() != checksum) {
+                    return truncate(channel, file, position, count);
+                }
+                apply(HeliosStoreCodec.decode(payload));
+                buffer.position(buffer.position() + length);
+                count++;
+            }
+            return buffer.hasRemaining() ? truncate(channel, file, buffer.position(), count) : count;
+        }
+    }
+
+    private long truncate(FileChannel channel, Path file, long position, long count) throws IOException {
+        log.warn("The journal {} ends with a torn entry at {}, it is dropped", file, position);
+        channel.truncate(position);
+        return count;
+    }
+
+    private void apply(StoredUser user) {
+        users.put(user.subject(), user);
+        nextUserId = Math.max(nextUserId, user.id() + 1);
+        for (StoredAddress address : user.addresses()) {
+            nextAddressId = Math.max(nextAddressId, address.id() + 1);
+        }
+    }
+
+    private void writeSnapshot(List<StoredUser> state, long stateGeneration, long userId, long addressId) throws IOException {
+        var encoded = new ArrayList<byte[]>(state.size());
+        long size = SNAPSHOT_HEADER_SIZE;
+        for (StoredUser user : state) {
+            var bytes = HeliosStoreCodec.encode(user);
+            encoded.add(bytes);
+            size += bytes.length;
+        }
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("The snapshot of " + size + " bytes exceeds the maximum size of a mapped file");
+        }
+        var tmp = directory.resolve(SNAPSHOT_TMP_FILE);
+        try (var channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            var buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            buffer.putInt(SNAPSHOT_MAGIC)
+                    .putLong(stateGeneration)
+                    .putLong(userId)
+                    .putLong(addressId)
+                    .putInt(encoded.size());
+            encoded.forEach(buffer::put);
+            buffer.force();
+        }
+        Files.move(tmp, directory.resolve(SNAPSHOT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private void deleteJournalsBefore(long stateGeneration) throws IOException {
+        for (long journalGeneration : journalGenerations()) {
+            if (journalGeneration < stateGeneration) {
+                Files.deleteIfExists(journalFile(journalGeneration));
+            }
+        }
+    }
+
+    private List<Long> journalGenerations() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.map(file -> JOURNAL_FILE.matcher(file.getFileName().toString()))
+                    .filter(Matcher::matches)
+                    .map(matcher -> Long.parseLong(matcher.group(1)))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private FileChannel openJournal(long journalGeneration) throws IOException {
+        return FileChannel.open(journalFile(journalGeneration), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    private Path journalFile(long journalGeneration) {
+        return directory.resolve("journal-" + journalGeneration + ".log");
+    }
+}
@@ -0,0 +1,15 @@
+package com.s3b.helios.embedded.store;
+
+/**
+ * An immutable address of a {@link StoredUser}
+ *
+ * @param id the id of the address, <code>null</code> until the address is stored
+ * @param address the address
+ * @param addressComplement the address complement
+ * @param zipCode the zip code
+ * @param city the city
+ * @param country the country
+ * @author Sébastien SAEZ
+ */
+public record StoredAddress(Long id, String address, String addressComplement, String zipCode, String city, String country) {
+}
@@ -0,0 +1,28 @@
+package com.s3b.helios.embedded.store;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * An immutable user held by {@link HeliosUserStore}
+ *
+ * @param id the id of the user, given by the store
+ * @param subject the subject of the user, unique
+ * @param firstName the first name
+ * @param lastName the last name
+ * @param birthdate the birthdate
+ * @param version the version of the user, incremented by the store on each change
+ * @param addresses the addresses of the user
+ * @author Sébastien SAEZ
+ */
+public record StoredUser(long id, String subject, String firstName, String lastName, LocalDate birthdate, long version,
+                         List<StoredAddress> addresses) {
+
+    /**
+     * @param addresses the addresses of the user
+     * @return a copy of the user with the specified addresses
+     */
+    public StoredUser withAddresses(List<StoredAddress> addresses) {
+        return new StoredUser(id, subject, firstName, lastName, birthdate, version, addresses);
+    }
+}
@@ -0,0 +1,108 @@
+package com.s3b.helios.embedded.service;
+
+import com.s3b.helios.embedded.store.HeliosUserStore;
+import com.s3b.helios.exception.HeliosVersionConflictException;
+import com.s3b.helios.model.HeliosAddressDto;
+import com.s3b.helios.model.HeliosUserDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddedHeliosUserServiceTest {
+
+    @TempDir
+    Path directory;
+
+    private EmbeddedHeliosUserService service;
+
+    @BeforeEach
+    void setUp() {
+        var store = new HeliosUserStore(directory, false);
+        new EmbeddedHeliosRegisterService(store).processRegistrations(List.of(
+                Map.of("sub", "subject", "given_name", "first", "family_name", "last"),
+                Map.of("sub", "other", "given_name", "first", "family_name", "last")));
+        service = new EmbeddedHeliosUserService(store);
+    }
+
+    @Test
+    void should_MatchAddressesById_When_UpdatingUser() {
+        service.updateUser("subject", user(null, address(null, "1 rue de Paris", "75001")));
+
+        var updated = service.updateUser("subject", user(1L, address(1L, null, "75002"), address(null, "2 rue de Lyon", "69001"))).orElseThrow();
+        var replayed = service.updateUser("subject", user(null, address(1L, null, "75002"), address(2L, null, "69001"))).orElseThrow();
+
+        assertEquals(2L, updated.getVersion());
+        assertEquals(List.of(1L, 2L), updated.getAddress().stream().map(HeliosAddressDto::getId).toList());
+        assertEquals("75002", updated.getAddress().get(0).getZipcode());
+        assertEquals(List.of(1L, 2L), replayed.getAddress().stream().map(HeliosAddressDto::getId).toList());
+        assertEquals("first", updated.getFirstName());
+        assertTrue(service.updateUser("unknown", user(null)).isEmpty());
+    }
+
+    @Test
+    void should_DiffAddressesById_When_PatchingUser() {
+        service.updateUser("subject", user(null, address(null, "1 rue de Paris", "75001"), address(null, "2 rue de Lyon", "69001")));
+        var patch = user(null, address(2L, null, "69002"), address(null, "3 rue de Nice", "06000"), address(99L, "ignored", "00000"));
+        patch.setLastName("changed");
+
+        var patched = service.patchUser("subject", patch).orElseThrow();
+
+        assertEquals("changed", patched.getLastName());
+        assertEquals(List.of(2L, 3L), patched.getAddress().stream().map(HeliosAddressDto::getId).toList());
+        assertEquals("2 rue de Lyon", patched.getAddress().get(0).getAddress());
+        assertEquals("69002", patched.getAddress().get(0).getZipcode());
+        assertNull(patched.getAddress().get(0).getAddressComplement());
+        assertEquals(patched.getVersion(), service.findUserVersion("subject").orElseThrow());
+    }
+
+    @Test
+    void should_RaiseConflict_When_VersionIsStale() {
+        var stale = user(3L);
+        stale.setFirstName("changed");
+
+        assertThrows(HeliosVersionConflictException.class, () -> service.patchUser("subject", stale));
+        assertEquals("first", service.findUserBySubject("subject").orElseThrow().getFirstName());
+    }
+
+    @Test
+    void should_KeepVersion_When_NothingChanges() {
+        var user = service.updateUser("subject", user(null, address(null, "1 rue de Paris", "75001"))).orElseThrow();
+        var same = user(user.getVersion(), address(1L, "1 rue de Paris", "75001"));
+        same.setFirstName("first");
+
+        var unchanged = service.patchUser("subject", same).orElseThrow();
+
+        assertEquals(user.getVersion(), unchanged.getVersion());
+        assertEquals(user.getVersion(), service.findUserVersion("subject").orElseThrow());
+    }
+
+    @Test
+    void should_ExportAndFindUsersInOrder() {
+        var exported = new ArrayList<String>();
+
+        service.exportUsers(user -> exported.add(user.getSubject()));
+
+        assertEquals(List.of("subject", "other"), exported);
+        assertEquals(List.of("other", "subject"), service.findUsersBySubjects(Arrays.asList("other", null, "unknown", "subject", "other"))
+                .stream().map(HeliosUserDto::getSubject).toList());
+    }
+
+    private static HeliosUserDto user(Long version, HeliosAddressDto... addresses) {
+        return new HeliosUserDto(null, null, null, null, null, List.of(addresses), version);
+    }
+
+    private static HeliosAddressDto address(Long id, String address, String zipCode) {
+        return new HeliosAddressDto(id, address, null, zipCode, id == null ? "city" : null, id == null ? "France" : null);
+    }
+}
@@ -0,0 +1,110 @@
+package com.s3b.helios.embedded.store;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeliosUserStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_ReplayJournal_When_StoreIsReopenedWithoutSnapshot() {
+        var store = new HeliosUserStore(directory, false);
+        assertTrue(store.insertIfAbsent("subject", "first", "last"));
+        assertFalse(store.insertIfAbsent("subject", "other", "other"));
+        store.update("subject", user -> new StoredUser(0, null, user.firstName(), "changed", LocalDate.of(1990, 1, 1), 0,
+                List.of(new StoredAddress(null, "1 rue de Paris", null, "75001", "Paris", "France"))));
+        // No close, as after a crash
+
+        var reopened = new HeliosUserStore(directory, false);
+
+        var user = reopened.find("subject").orElseThrow();
+        assertEquals("changed", user.lastName());
+        assertEquals(LocalDate.of(1990, 1, 1), user.birthdate());
+        assertEquals(1L, user.version());
+        assertEquals(1L, user.addresses().get(0).id());
+        assertTrue(reopened.insertIfAbsent("other", "first", "last"));
+        assertEquals(2L, reopened.find("other").orElseThrow().id());
+    }
+
+    @Test
+    void should_LoadSnapshotAndDeleteJournals_When_StoreIsClosed() throws IOException {
+        try (var store = new HeliosUserStore(directory, true)) {
+            store.insertIfAbsent("first", "first", "last");
+            store.snapshot();
+            store.insertIfAbsent("second", "first", "last");
+        }
+
+        assertTrue(Files.exists(directory.resolve(HeliosUserStore.SNAPSHOT_FILE)));
+        assertEquals(List.of(0L), journalSizes());
+
+        try (var reopened = new HeliosUserStore(directory, true)) {
+            assertEquals(List.of("first", "second"), reopened.users().stream().map(StoredUser::subject).toList());
+            assertTrue(reopened.insertIfAbsent("third", "first", "last"));
+            assertEquals(3L, reopened.find("third").orElseThrow().id());
+        }
+    }
+
+    @Test
+    void should_DropTornEntry_When_JournalEndsWithPartialWrite() throws IOException {
+        var store = new HeliosUserStore(directory, false);
+        store.insertIfAbsent("first", "first", "last");
+        store.insertIfAbsent("second", "first", "last");
+        var journal = journals().get(0);
+        var size = Files.size(journal);
+        try (var channel = FileChannel.open(journal, StandardOpenOption.WRITE)) {
+            channel.truncate(size - 3);
+        }
+
+        var reopened = new HeliosUserStore(directory, false);
+
+        assertEquals(1, reopened.size());
+        assertTrue(reopened.find("first").isPresent());
+        assertTrue(reopened.insertIfAbsent("second", "first", "last"));
+        assertEquals(2, new HeliosUserStore(directory, false).size());
+    }
+
+    @Test
+    void should_NotStoreChange_When_ChangeFunctionThrows() {
+        var store = new HeliosUserStore(directory, false);
+        store.insertIfAbsent("subject", "first", "last");
+
+        assertThrows(IllegalStateException.class, () -> store.update("subject", user -> {
+            throw new IllegalStateException("conflict");
+        }));
+
+        assertEquals(0L, store.find("subject").orElseThrow().version());
+        assertEquals(0L, new HeliosUserStore(directory, false).find("subject").orElseThrow().version());
+        assertTrue(store.update("unknown", user -> user).isEmpty());
+    }
+
+    private List<Path> journals() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().startsWith("journal-")).sorted().toList();
+        }
+    }
+
+    private List<Long> journalSizes() throws IOException {
+        var sizes = new ArrayList<Long>();
+        for (Path journal : journals()) {
+            sizes.add(Files.size(journal));
+        }
+        return sizes;
+    }
+}
@@ -0,0 +1,61 @@
+package com.s3b.helios.jdbc.configuration;
+
+import com.s3b.helios.jdbc.service.DefaultJdbcHeliosRegisterService;
+import com.s3b.helios.jdbc.service.DefaultJdbcHeliosUserService;
+import com.s3b.helios.service.HeliosRegisterService;
+import com.s3b.helios.service.HeliosUserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * A container class registering beans used for helios JDBC configuration.
+ *
+ * @author Sébastien SAEZ
+ *
+ */
+@AutoConfiguration(after = {JdbcTemplateAutoConfiguration.class, DataSourceTransactionManagerAutoConfiguration.class})
+@ConditionalOnBean({NamedParameterJdbcTemplate.class, PlatformTransactionManager.class})
+@Slf4j
+public class HeliosJdbcAutoConfiguration {
+
+    /**
+     * Create bean with a JDBC implementation of {@link HeliosRegisterService} if it does not exist yet
+     *
+     * @param jdbcTemplate the template running the statements
+     * @param transactionManager the manager of the transactions
+     * @return the default JDBC implementation
+     * @see DefaultJdbcHeliosRegisterService
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosRegisterService.class)
+    public HeliosRegisterService heliosJdbcRegisterService(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager){
+        log.info("HeliosRegisterService implementation is missing, the default one will be create");
+        return new DefaultJdbcHeliosRegisterService(jdbcTemplate, new TransactionTemplate(transactionManager));
+    }
+
+    /**
+     * Create bean with a JDBC implementation of {@link HeliosUserService} if it does not exist yet
+     *
+     * @param jdbcTemplate the template running the statements
+     * @param transactionManager the manager of the transactions
+     * @param exportFetchSize the number of rows fetched at once by the export, <code>application.export.fetch-size</code>
+     * @return the default JDBC implementation
+     * @see DefaultJdbcHeliosUserService
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosUserService.class)
+    public HeliosUserService heliosJdbcUserService(NamedParameterJdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                                                   @Value("${application.export.fetch-size:1000}") int exportFetchSize){
+        log.info("HeliosUserService implementation is missing, the default one will be create");
+        return new DefaultJdbcHeliosUserService(jdbcTemplate, new TransactionTemplate(transactionManager), exportFetchSize);
+    }
+}
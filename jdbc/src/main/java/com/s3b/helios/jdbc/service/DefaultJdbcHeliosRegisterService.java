@@ -0,0 +1,76 @@
+package com.s3b.helios.jdbc.service;
+
+import com.s3b.helios.service.HeliosRegisterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.s3b.helios.constant.GoogleAttributesConstant.FAMILY_NAME_KEY;
+import static com.s3b.helios.constant.GoogleAttributesConstant.GIVEN_NAME_KEY;
+import static com.s3b.helios.constant.GoogleAttributesConstant.SUBJECT_KEY;
+
+/**
+ * An implementation of {@link HeliosRegisterService} based on plain JDBC statements
+ *
+ * @author Sébastien SAEZ
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class DefaultJdbcHeliosRegisterService implements HeliosRegisterService {
+
+    /**
+     * The insert-if-absent statement, the UNIQUE constraint on the subject makes it atomic
+     */
+    private static final String INSERT_IF_ABSENT = "INSERT INTO helios_user (subject, first_name, last_name) "
+            + "VALUES (:subject, :firstName, :lastName) ON CONFLICT DO NOTHING";
+
+    /**
+     * The template running the statements
+     */
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * The template running the batches of registrations in a transaction
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * {@inheritDoc}
+     * Store the attributes mapped to a user with a single insert-if-absent statement.
+     * @param attributes the user's information of the End-User
+     */
+    @Override
+    public void processRegistration(Map<String, Object> attributes) {
+        var subject = String.valueOf(attributes.get(SUBJECT_KEY));
+        if (jdbcTemplate.update(INSERT_IF_ABSENT, parameters(attributes)) > 0) {
+            log.info("Registration saved with success : {}", subject);
+        } else {
+            log.info("The user already exists {}", subject);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The registrations are sent in a single JDBC batch and stored in a single transaction
+     * @param registrations the user's information of each End-User
+     */
+    @Override
+    public void processRegistrations(List<Map<String, Object>> registrations) {
+        var batch = registrations.stream().map(DefaultJdbcHeliosRegisterService::parameters).toArray(SqlParameterSource[]::new);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_IF_ABSENT, batch));
+        log.info("{} registration(s) processed", registrations.size());
+    }
+
+    private static SqlParameterSource parameters(Map<String, Object> attributes) {
+        return new MapSqlParameterSource()
+                .addValue("subject", String.valueOf(attributes.get(SUBJECT_KEY)))
+                .addValue("firstName", String.valueOf(attributes.get(GIVEN_NAME_KEY)))
+                .addValue("lastName", String.valueOf(attributes.get(FAMILY_NAME_KEY)));
+    }
+}
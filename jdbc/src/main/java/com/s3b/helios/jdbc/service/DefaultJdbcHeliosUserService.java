@@ -0,0 +1,397 @@
+package com.s3b.helios.jdbc.service;
+
+import com.s3b.helios.exception.HeliosVersionConflictException;
+import com.s3b.helios.model.HeliosAddressDto;
+import com.s3b.helios.model.HeliosUserDto;
+import com.s3b.helios.service.HeliosUserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * An implementation of {@link HeliosUserService} based on hand-written JDBC statements over the <code>schema.sql</code> tables.
+ * <p>
+ * The users are read with their addresses in a single query and mapped without any entity.
+ * The changes of a user run in a transaction, the user row is locked and its version is incremented on each change,
+ * the address writes are sent in JDBC batches.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class DefaultJdbcHeliosUserService implements HeliosUserService {
+
+    /**
+     * The maximum number of subjects of a single IN list query
+     */
+    static final int SUBJECTS_CHUNK_SIZE = 500;
+
+    /**
+     * The query reading the users joined with their addresses, without the filter
+     */
+    private static final String USER_ROWS = "SELECT u.id, u.subject, u.first_name, u.last_name, u.birthdate, u.version, "
+            + "a.id AS address_id, a.address, a.address_complement, a.zip_code, a.city, a.country "
+            + "FROM helios_user u LEFT JOIN helios_address a ON a.helios_user_id = u.id ";
+
+    /**
+     * The update of the user columns, a <code>null</code> parameter keeps the current value
+     */
+    private static final String UPDATE_USER = "UPDATE helios_user SET first_name = COALESCE(:firstName, first_name), "
+            + "last_name = COALESCE(:lastName, last_name), birthdate = COALESCE(:birthdate, birthdate), version = version + 1 "
+            + "WHERE id = :id AND version = :version";
+
+    private static final String INSERT_ADDRESS = "INSERT INTO helios_address (helios_user_id, address, address_complement, zip_code, city, country) "
+            + "VALUES (:userId, :address, :addressComplement, :zipCode, :city, :country)";
+
+    /**
+     * The update of an address, a <code>null</code> parameter keeps the current value so every change shares the statement of the batch
+     */
+    private static final String UPDATE_ADDRESS = "UPDATE helios_address SET address = COALESCE(:address, address), "
+            + "address_complement = COALESCE(:addressComplement, address_complement), zip_code = COALESCE(:zipCode, zip_code), "
+            + "city = COALESCE(:city, city), country = COALESCE(:country, country) WHERE id = :id AND helios_user_id = :userId";
+
+    private static final RowMapper<UserRow> USER_ROW_MAPPER = (resultSet, rowNum) -> userRow(resultSet);
+
+    /**
+     * The template running the statements
+     */
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * The template running the export, with its fetch size
+     */
+    private final NamedParameterJdbcTemplate exportTemplate;
+
+    /**
+     * The template running the changes in a transaction
+     */
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * The template running the export in a read-only transaction, so the driver can stream the rows with a cursor
+     */
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    /**
+     * Create the service with an export fetching 1000 rows at once
+     * @param jdbcTemplate the template running the statements
+     * @param transactionTemplate the template running the changes in a transaction
+     */
+    public DefaultJdbcHeliosUserService(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate) {
+        this(jdbcTemplate, transactionTemplate, 1000);
+    }
+
+    /**
+     * Create the service
+     * @param jdbcTemplate the template running the statements
+     * @param transactionTemplate the template running the changes in a transaction
+     * @param exportFetchSize the number of rows fetched from the database at once by the export
+     */
+    public DefaultJdbcHeliosUserService(NamedParameterJdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate, int exportFetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        var exportJdbcTemplate = new JdbcTemplate(Objects.requireNonNull(jdbcTemplate.getJdbcTemplate().getDataSource()));
+        exportJdbcTemplate.setFetchSize(exportFetchSize);
+        this.exportTemplate = new NamedParameterJdbcTemplate(exportJdbcTemplate);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(Objects.requireNonNull(transactionTemplate.getTransactionManager()));
+        this.readOnlyTransactionTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public Optional<HeliosUserDto> findUserBySubject(String subject) {
+        var rows = jdbcTemplate.query(USER_ROWS + "WHERE u.subject = :subject ORDER BY a.id", Map.of("subject", subject), USER_ROW_MAPPER);
+        if (rows.isEmpty()) {
+            log.info("The user {} is not found", subject);
+            return Optional.empty();
+        }
+        return Optional.of(buildHeliosUserDto(rows));
+    }
+
+    @Override
+    public Optional<Long> findUserVersion(String subject) {
+        return jdbcTemplate.queryForList("SELECT version FROM helios_user WHERE subject = :subject", Map.of("subject", subject), Long.class)
+                .stream()
+                .findFirst();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The users are read with one query per chunk of {@value #SUBJECTS_CHUNK_SIZE} subjects.
+     * @param subjects the ids to retrieve the users
+     * @return the user projections found, in the order of the first occurrence of their subject
+     */
+    @Override
+    public List<HeliosUserDto> findUsersBySubjects(Collection<String> subjects) {
+        var distinctSubjects = subjects.stream().filter(Objects::nonNull).distinct().toList();
+        var usersBySubject = new HashMap<String, HeliosUserDto>(distinctSubjects.size());
+        for (int start = 0; start < distinctSubjects.size(); start += SUBJECTS_CHUNK_SIZE) {
+            var chunk = distinctSubjects.subList(start, Math.min(start + SUBJECTS_CHUNK_SIZE, distinctSubjects.size()));
+            var handler = new UserRowCallbackHandler(user -> usersBySubject.put(user.getSubject(), user));
+            jdbcTemplate.query(USER_ROWS + "WHERE u.subject IN (:subjects) ORDER BY u.id, a.id", Map.of("subjects", chunk), handler);
+            handler.flush();
+        }
+        return distinctSubjects.stream().map(usersBySubject::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The rows are fetched by batches of the export fetch size in a read-only transaction, only the rows of the current user are kept in memory.
+     * @param consumer the consumer of the user projections, called in the order of the user ids
+     */
+    @Override
+    public void exportUsers(Consumer<HeliosUserDto> consumer) {
+        readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            var handler = new UserRowCallbackHandler(consumer);
+            exportTemplate.query(USER_ROWS + "ORDER BY u.id, a.id", handler);
+            handler.flush();
+        });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The details are applied as a patch, see {@link #patchUser(String, HeliosUserDto)}.
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the new user details to save
+     * @return the user with his updated details
+     * @throws HeliosVersionConflictException if the version of the details is specified and is not the current one
+     */
+    @Override
+    public Optional<HeliosUserDto> updateUser(String subject, HeliosUserDto heliosUserDto) {
+        return patchUser(subject, heliosUserDto);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The addresses are diffed by id and each kind of change is sent in a single batch : an address without id is added,
+     * an address with an id is changed and an address missing from the list is removed.
+     * An address id which does not belong to the user is ignored.
+     * Only the addresses which differ are written, and the version of the user is only incremented when something changes.
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the fields to change
+     * @return the user with his updated details
+     * @throws HeliosVersionConflictException if the version of the fields is specified and is not the current one
+     */
+    @Override
+    public Optional<HeliosUserDto> patchUser(String subject, HeliosUserDto heliosUserDto) {
+        return transactionTemplate.execute(status -> {
+            var user = lockUser(subject, heliosUserDto.getVersion());
+            if (user.isEmpty()) {
+                log.info("The user {} to change is not found", subject);
+                return Optional.<HeliosUserDto>empty();
+            }
+            var current = findUserBySubject(subject).orElseThrow();
+            var changed = isChanged(heliosUserDto.getFirstName(), current.getFirstName())
+                    || isChanged(heliosUserDto.getLastName(), current.getLastName())
+                    || isChanged(heliosUserDto.getBirthdate(), current.getBirthdate());
+            if (heliosUserDto.hasAddressSpecified()) {
+                changed |= patchAddress(user.get(), current.getAddress(), heliosUserDto.getAddress());
+            }
+            if (!changed) {
+                log.info("The user {} is unchanged", subject);
+                return Optional.of(current);
+            }
+            updateColumns(user.get(), heliosUserDto);
+            log.info("The user {} changed", subject);
+            return findUserBySubject(subject);
+        });
+    }
+
+    /**
+     * Lock the row of a user until the end of the transaction and check the version the change is made from.
+     * @param subject the subject of the user
+     * @param expectedVersion the version the change is made from, <code>null</code> to skip the check
+     * @return the locked user, empty if the user is not found
+     */
+    private Optional<LockedUser> lockUser(String subject, Long expectedVersion) {
+        var user = jdbcTemplate.query("SELECT id, version FROM helios_user WHERE subject = :subject FOR UPDATE", Map.of("subject", subject),
+                (resultSet, rowNum) -> new LockedUser(resultSet.getLong("id"), subject, resultSet.getLong("version")))
+                .stream()
+                .findFirst();
+        user.ifPresent(locked -> {
+            if (expectedVersion != null && expectedVersion != locked.version()) {
+                throw new HeliosVersionConflictException(subject, expectedVersion, locked.version());
+            }
+        });
+        return user;
+    }
+
+    /**
+     * Write the non-null columns of the user and increment his version, even if only his addresses change.
+     * It is only called when something changes, so an unchanged user keeps his version.
+     */
+    private void updateColumns(LockedUser user, HeliosUserDto heliosUserDto) {
+        var parameters = new MapSqlParameterSource()
+                .addValue("firstName", heliosUserDto.getFirstName(), Types.VARCHAR)
+                .addValue("lastName", heliosUserDto.getLastName(), Types.VARCHAR)
+                .addValue("birthdate", heliosUserDto.getBirthdate(), Types.DATE)
+                .addValue("id", user.id())
+                .addValue("version", user.version());
+        if (jdbcTemplate.update(UPDATE_USER, parameters) == 0) {
+            throw new HeliosVersionConflictException(user.subject(), user.version(), null);
+        }
+    }
+
+    private void insertAddresses(long userId, List<HeliosAddressDto> addressDtos) {
+        if (addressDtos.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_ADDRESS, addressDtos.stream()
+                .map(addrDto -> addressParameters(userId, addrDto))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    /**
+     * Apply the addresses of the body to the user, the unchanged addresses are not written.
+     * @return whether an address is added, changed or removed
+     */
+    private boolean patchAddress(LockedUser user, List<HeliosAddressDto> currentAddresses, List<HeliosAddressDto> addressDtos) {
+        var existing = new HashMap<Long, HeliosAddressDto>();
+        currentAddresses.forEach(address -> existing.put(address.getId(), address));
+        var kept = new HashSet<Long>();
+        var added = new ArrayList<HeliosAddressDto>();
+        var changed = new ArrayList<SqlParameterSource>();
+        for (HeliosAddressDto addrDto : addressDtos) {
+            if (addrDto.getId() == null) {
+                added.add(addrDto);
+            } else if (existing.containsKey(addrDto.getId())) {
+                kept.add(addrDto.getId());
+                if (isChanged(existing.get(addrDto.getId()), addrDto)) {
+                    changed.add(addressParameters(user.id(), addrDto).addValue("id", addrDto.getId()));
+                }
+            } else {
+                log.warn("The address {} does not belong to the user {}, it is ignored", addrDto.getId(), user.subject());
+            }
+        }
+        var removed = existing.keySet().stream().filter(id -> !kept.contains(id)).toList();
+        if (!removed.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM helios_address WHERE id IN (:ids)", Map.of("ids", removed));
+        }
+        if (!changed.isEmpty()) {
+            jdbcTemplate.batchUpdate(UPDATE_ADDRESS, changed.toArray(SqlParameterSource[]::new));
+        }
+        insertAddresses(user.id(), added);
+        return !removed.isEmpty() || !changed.isEmpty() || !added.isEmpty();
+    }
+
+    private static boolean isChanged(HeliosAddressDto current, HeliosAddressDto addrDto) {
+        return isChanged(addrDto.getAddress(), current.getAddress())
+                || isChanged(addrDto.getAddressComplement(), current.getAddressComplement())
+                || isChanged(addrDto.getZipcode(), current.getZipcode())
+                || isChanged(addrDto.getCity(), current.getCity())
+                || isChanged(addrDto.getCountry(), current.getCountry());
+    }
+
+    /**
+     * @return whether a value is specified and differs from the current one
+     */
+    private static boolean isChanged(Object value, Object current) {
+        return value != null && !value.equals(current);
+    }
+
+    private static MapSqlParameterSource addressParameters(long userId, HeliosAddressDto addrDto) {
+        return new MapSqlParameterSource()
+                .addValue("userId", userId)
+                .addValue("address", addrDto.getAddress(), Types.VARCHAR)
+                .addValue("addressComplement", addrDto.getAddressComplement(), Types.VARCHAR)
+                .addValue("zipCode", addrDto.getZipcode(), Types.VARCHAR)
+                .addValue("city", addrDto.getCity(), Types.VARCHAR)
+                .addValue("country", addrDto.getCountry(), Types.VARCHAR);
+    }
+
+    private static UserRow userRow(ResultSet resultSet) throws SQLException {
+        return new UserRow(resultSet.getLong("id"),
+                resultSet.getString("subject"),
+                resultSet.getString("first_name"),
+                resultSet.getString("last_name"),
+                resultSet.getObject("birthdate", LocalDate.class),
+                resultSet.getLong("version"),
+                resultSet.getObject("address_id", Long.class),
+                resultSet.getString("address"),
+                resultSet.getString("address_complement"),
+                resultSet.getString("zip_code"),
+                resultSet.getString("city"),
+                resultSet.getString("country"));
+    }
+
+    private static HeliosUserDto buildHeliosUserDto(List<UserRow> rows) {
+        var first = rows.get(0);
+        var addressList = new ArrayList<HeliosAddressDto>(rows.size());
+        rows.stream().filter(row -> row.addressId() != null).forEach(row -> addressList.add(new HeliosAddressDto(row.addressId(),
+                row.address(),
+                row.addressComplement(),
+                row.zipCode(),
+                row.city(),
+                row.country())));
+        return new HeliosUserDto(first.id(),
+                first.subject(),
+                first.firstName(),
+                first.lastName(),
+                first.birthdate(),
+                addressList,
+                first.version());
+    }
+
+    /**
+     * Group the contiguous rows of a user, ordered by user id, and pass each user to a consumer
+     */
+    private static final class UserRowCallbackHandler implements RowCallbackHandler {
+
+        private final Consumer<HeliosUserDto> consumer;
+
+        private final List<UserRow> rows = new ArrayList<>();
+
+        private UserRowCallbackHandler(Consumer<HeliosUserDto> consumer) {
+            this.consumer = consumer;
+        }
+
+        @Override
+        public void processRow(ResultSet resultSet) throws SQLException {
+            var row = userRow(resultSet);
+            if (!rows.isEmpty() && rows.get(0).id() != row.id()) {
+                flush();
+            }
+            rows.add(row);
+        }
+
+        /**
+         * Pass the rows of the last user to the consumer
+         */
+        private void flush() {
+            if (!rows.isEmpty()) {
+                consumer.accept(buildHeliosUserDto(rows));
+                rows.clear();
+            }
+        }
+    }
+
+    /**
+     * A row joining a user with one of his addresses
+     */
+    private record UserRow(long id, String subject, String firstName, String lastName, LocalDate birthdate, long version,
+                           Long addressId, String address, String addressComplement, String zipCode, String city, String country) {
+    }
+
+    /**
+     * A user whose row is locked by the current transaction
+     */
+    private record LockedUser(long id, String subject, long version) {
+    }
+}
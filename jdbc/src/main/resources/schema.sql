@@ -0,0 +1,19 @@
+CREATE TABLE IF NOT EXISTS HELIOS_USER(
+    ID serial PRIMARY KEY ,
+    SUBJECT VARCHAR(255) not null UNIQUE,
+    FIRST_NAME VARCHAR(255),
+    LAST_NAME VARCHAR(255),
+    BIRTHDATE DATE,
+    VERSION BIGINT not null DEFAULT 0);
+
+ALTER TABLE HELIOS_USER ADD COLUMN IF NOT EXISTS VERSION BIGINT not null DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS  HELIOS_ADDRESS(
+    ID bigserial PRIMARY KEY,
+    HELIOS_USER_ID INTEGER not null references HELIOS_USER(ID),
+    ADDRESS Text not null,
+    ADDRESS_COMPLEMENT Text,
+    ZIP_CODE VARCHAR(6) not null,
+    CITY VARCHAR(255) not null,
+    COUNTRY VARCHAR(255) not null
+)
\ No newline at end of file
@@ -0,0 +1,160 @@
+package com.s3b.helios.jdbc.service;
+
+import com.s3b.helios.exception.HeliosVersionConflictException;
+import com.s3b.helios.model.HeliosAddressDto;
+import com.s3b.helios.model.HeliosUserDto;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DefaultJdbcHeliosUserServiceTest {
+
+    private NamedParameterJdbcTemplate jdbcTemplate;
+
+    private DefaultJdbcHeliosRegisterService registerService;
+
+    private DefaultJdbcHeliosUserService service;
+
+    @BeforeEach
+    void setUp() {
+        var dataSource = new DriverManagerDataSource("jdbc:h2:mem:" + UUID.randomUUID()
+                + ";MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(dataSource);
+        jdbcTemplate = new NamedParameterJdbcTemplate(dataSource);
+        var transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        registerService = new DefaultJdbcHeliosRegisterService(jdbcTemplate, transactionTemplate);
+        service = new DefaultJdbcHeliosUserService(jdbcTemplate, transactionTemplate, 2);
+    }
+
+    @Test
+    void should_InsertOnlyOnce_When_SubjectIsRegisteredTwice() {
+        registerService.processRegistration(registration("subject"));
+        registerService.processRegistration(registration("subject"));
+        registerService.processRegistrations(List.of(registration("subject"), registration("other")));
+
+        assertEquals(2L, jdbcTemplate.queryForObject("SELECT count(*) FROM helios_user", Map.of(), Long.class));
+    }
+
+    @Test
+    void should_ReturnUserWithAddresses_When_SubjectExists() {
+        register("subject");
+        service.updateUser("subject", new HeliosUserDto(null, null, "first", "last", LocalDate.of(1990, 1, 1),
+                List.of(address(null, "1 rue de Paris", "75001"), address(null, "2 rue de Lyon", "69001"))));
+
+        var user = service.findUserBySubject("subject").orElseThrow();
+
+        assertEquals("first", user.getFirstName());
+        assertEquals(LocalDate.of(1990, 1, 1), user.getBirthdate());
+        assertEquals(1L, user.getVersion());
+        assertEquals(List.of("1 rue de Paris", "2 rue de Lyon"), user.getAddress().stream().map(HeliosAddressDto::getAddress).toList());
+        assertTrue(service.findUserBySubject("unknown").isEmpty());
+        assertEquals(1L, service.findUserVersion("subject").orElseThrow());
+    }
+
+    @Test
+    void should_KeepSubjectsOrder_When_FindingManyUsers() {
+        var subjects = new ArrayList<String>();
+        IntStream.range(0, DefaultJdbcHeliosUserService.SUBJECTS_CHUNK_SIZE + 2).forEach(i -> subjects.add("subject-" + i));
+        registerService.processRegistrations(subjects.stream().map(this::registration).toList());
+        Collections.reverse(subjects);
+        var requested = new ArrayList<>(subjects);
+        requested.add(1, "unknown");
+        requested.add(subjects.get(1));
+
+        assertEquals(subjects, service.findUsersBySubjects(requested).stream().map(HeliosUserDto::getSubject).toList());
+    }
+
+    @Test
+    void should_ExportEveryUserOnce_When_RowsAreFetchedInBatches() {
+        register("first");
+        register("second");
+        register("third");
+        service.updateUser("second", new HeliosUserDto(null, null, null, null, null,
+                List.of(address(null, "1 rue de Paris", "75001"), address(null, "2 rue de Lyon", "69001"), address(null, "3 rue de Nice", "06000"))));
+        var exported = new ArrayList<String>();
+
+        service.exportUsers(user -> exported.add(user.getSubject() + ":" + user.getAddress().size()));
+
+        assertEquals(List.of("first:0", "second:3", "third:0"), exported);
+    }
+
+    @Test
+    void should_DiffAddressesById_When_PatchingUser() {
+        register("subject");
+        var user = service.updateUser("subject", new HeliosUserDto(null, null, "first", "last", null,
+                List.of(address(null, "1 rue de Paris", "75001"), address(null, "2 rue de Lyon", "69001")))).orElseThrow();
+        var kept = user.getAddress().get(0).getId();
+        var patch = new HeliosUserDto(null, null, null, "changed", null,
+                List.of(address(kept, null, "75002"), address(null, "3 rue de Nice", "06000"), address(999L, "ignored", "00000")));
+
+        var patched = service.patchUser("subject", patch).orElseThrow();
+
+        assertEquals("first", patched.getFirstName());
+        assertEquals("changed", patched.getLastName());
+        assertEquals(2L, patched.getVersion());
+        assertEquals(2, patched.getAddress().size());
+        assertEquals(kept, patched.getAddress().get(0).getId());
+        assertEquals("1 rue de Paris", patched.getAddress().get(0).getAddress());
+        assertEquals("75002", patched.getAddress().get(0).getZipcode());
+        assertNull(patched.getAddress().get(0).getAddressComplement());
+        assertEquals("3 rue de Nice", patched.getAddress().get(1).getAddress());
+    }
+
+    @Test
+    void should_RaiseConflict_When_VersionIsStale() {
+        register("subject");
+        var stale = new HeliosUserDto(null, null, "first", null, null, null, 5L);
+
+        assertThrows(HeliosVersionConflictException.class, () -> service.patchUser("subject", stale));
+
+        var user = service.findUserBySubject("subject").orElseThrow();
+        assertNull(user.getFirstName());
+        assertEquals(0L, user.getVersion());
+        assertTrue(service.patchUser("unknown", stale).isEmpty());
+    }
+
+    @Test
+    void should_KeepVersion_When_NothingChanges() {
+        register("subject");
+        var user = service.updateUser("subject", new HeliosUserDto(null, null, "first", "last", null,
+                List.of(address(null, "1 rue de Paris", "75001")))).orElseThrow();
+        var same = new HeliosUserDto(null, null, "first", null, null,
+                List.of(address(user.getAddress().get(0).getId(), "1 rue de Paris", "75001")), user.getVersion());
+
+        var unchanged = service.updateUser("subject", same).orElseThrow();
+
+        assertEquals(user.getVersion(), unchanged.getVersion());
+        assertEquals(user.getVersion(), service.findUserVersion("subject").orElseThrow());
+        assertEquals(user.getAddress().get(0).getId(), unchanged.getAddress().get(0).getId());
+    }
+
+    private void register(String subject) {
+        jdbcTemplate.update("INSERT INTO helios_user (subject) VALUES (:subject)", Map.of("subject", subject));
+    }
+
+    private Map<String, Object> registration(String subject) {
+        return Map.of("sub", subject, "given_name", "given", "family_name", "family");
+    }
+
+    private static HeliosAddressDto address(Long id, String address, String zipCode) {
+        return new HeliosAddressDto(id, address, null, zipCode, id == null ? "city" : null, id == null ? "France" : null);
+    }
+}
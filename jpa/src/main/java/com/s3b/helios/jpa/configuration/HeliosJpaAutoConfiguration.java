@@ -1,15 +1,25 @@
 package com.s3b.helios.jpa.configuration;
 
 import com.s3b.helios.jpa.repository.DefaultHeliosRepository;
+import com.s3b.helios.jpa.service.CachingHeliosUserService;
 import com.s3b.helios.jpa.service.DefaultJpaHeliosRegisterService;
 import com.s3b.helios.jpa.service.DefaultJpaHeliosUserService;
 import com.s3b.helios.service.HeliosRegisterService;
 import com.s3b.helios.service.HeliosUserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import java.time.Duration;
 
 /**
  * A container class registering beans used for helios JPA configuration.
@@ -30,7 +40,7 @@ public class HeliosJpaAutoConfiguration {
      * @see DefaultJpaHeliosRegisterService
      */
     @Bean
-    @ConditionalOnMissingBean(type = "HeliosRegisterService")
+    @ConditionalOnMissingBean(HeliosRegisterService.class)
     public HeliosRegisterService heliosJpaRegisterService(){
         log.info("HeliosRegisterService implementation is missing, the default one will be create");
         return new DefaultJpaHeliosRegisterService(repository);
@@ -43,9 +53,46 @@ public class HeliosJpaAutoConfiguration {
      * @see DefaultJpaHeliosUserService
      */
     @Bean
-    @ConditionalOnMissingBean(type = "HeliosUserService")
+    @ConditionalOnMissingBean(HeliosUserService.class)
     public HeliosUserService heliosJpaUserService(){
         log.info("HeliosUserService implementation is missing, the default one will be create");
         return new DefaultJpaHeliosUserService(repository);
     }
+
+    /**
+     * Keep the user profiles read by the default JPA {@link HeliosUserService} in a cache when <code>application.user-cache.enabled</code> is set.
+     * The cache decorates the transactional proxy of the JPA service bean, so the updates and the export still run in a transaction.
+     *
+     * @param userService the default JPA implementation bean
+     * @param cacheMaximumSize the maximum number of user profiles cached
+     * @param cacheTtl the maximum duration a user profile is cached
+     * @return the caching implementation, injected in place of the JPA one
+     * @see CachingHeliosUserService
+     */
+    @Bean
+    @Primary
+    @ConditionalOnBean(name = "heliosJpaUserService")
+    @ConditionalOnProperty(name = "application.user-cache.enabled", havingValue = "true")
+    public CachingHeliosUserService heliosCachingUserService(@Qualifier("heliosJpaUserService") HeliosUserService userService,
+                                                             @Value("${application.user-cache.maximum-size:10000}") long cacheMaximumSize,
+                                                             @Value("${application.user-cache.ttl:10m}") Duration cacheTtl){
+        return new CachingHeliosUserService(userService, cacheMaximumSize, cacheTtl);
+    }
+
+    /**
+     * Batch the statements flushed together, such as the address changes of a patch, unless the application defines its own batching.
+     * The inserts of entities with an identity column are not batched by Hibernate, the updates and deletes are.
+     * The method is static since the customizer is needed to create the entity manager factory, before the repository of this configuration exists.
+     *
+     * @param batchSize the maximum number of statements sent at once, <code>application.jpa.batch-size</code>
+     * @return a {@link HibernatePropertiesCustomizer} setting the JDBC batch size and ordering the statements
+     */
+    @Bean
+    public static HibernatePropertiesCustomizer heliosHibernateBatchingCustomizer(@Value("${application.jpa.batch-size:50}") int batchSize){
+        return properties -> {
+            properties.putIfAbsent(AvailableSettings.STATEMENT_BATCH_SIZE, batchSize);
+            properties.putIfAbsent(AvailableSettings.ORDER_INSERTS, true);
+            properties.putIfAbsent(AvailableSettings.ORDER_UPDATES, true);
+        };
+    }
 }
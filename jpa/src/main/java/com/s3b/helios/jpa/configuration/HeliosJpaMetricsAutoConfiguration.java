@@ -0,0 +1,34 @@
+package com.s3b.helios.jpa.configuration;
+
+import com.s3b.helios.jpa.service.CachingHeliosUserService;
+import com.s3b.helios.jpa.service.CachingHeliosUserServiceMetrics;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Publish the metrics of the user profile cache when Micrometer is available.
+ * It is applied after {@link HeliosJpaAutoConfiguration} so the cache bean is known when the condition is evaluated.
+ *
+ * @author Sébastien SAEZ
+ *
+ */
+@Configuration(proxyBeanMethods = false)
+@AutoConfigureAfter(HeliosJpaAutoConfiguration.class)
+@ConditionalOnClass(MeterBinder.class)
+@ConditionalOnBean(CachingHeliosUserService.class)
+public class HeliosJpaMetricsAutoConfiguration {
+
+    /**
+     * Create a {@link MeterBinder} publishing the size, the hit ratio and the evictions of the user profile cache
+     * @param userService the caching user service
+     * @return the metrics of the cache
+     */
+    @Bean
+    public CachingHeliosUserServiceMetrics heliosUserCacheMetrics(CachingHeliosUserService userService){
+        return new CachingHeliosUserServiceMetrics(userService);
+    }
+}
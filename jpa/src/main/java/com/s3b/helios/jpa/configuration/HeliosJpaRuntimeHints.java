@@ -0,0 +1,28 @@
+package com.s3b.helios.jpa.configuration;
+
+import com.s3b.helios.jpa.entity.HeliosAddressEntity;
+import com.s3b.helios.jpa.entity.HeliosUserEntity;
+import com.s3b.helios.jpa.repository.HeliosUserRow;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+
+/**
+ * The {@link RuntimeHintsRegistrar} of the helios JPA starter for a GraalVM native image.
+ * <p> - the entities are accessed by Hibernate through their fields and constructors, even when the application does not scan them
+ * <p> - {@link HeliosUserRow} is created by the constructor expression of a JPQL query
+ *
+ * @author Sébastien SAEZ
+ */
+class HeliosJpaRuntimeHints implements RuntimeHintsRegistrar {
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        var reflection = hints.reflection();
+        for (Class<?> entity : new Class<?>[]{HeliosUserEntity.class, HeliosAddressEntity.class}) {
+            reflection.registerType(entity, MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS,
+                    MemberCategory.INVOKE_DECLARED_METHODS);
+        }
+        reflection.registerType(HeliosUserRow.class, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+    }
+}
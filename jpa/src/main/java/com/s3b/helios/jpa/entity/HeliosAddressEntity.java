@@ -12,6 +12,7 @@ import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
 
 /**
  * A class to define the corresponding address data table
@@ -20,6 +21,7 @@ import lombok.Setter;
 @NoArgsConstructor(force = true)
 @Getter
 @Setter
+@DynamicUpdate
 @Entity(name = "HeliosAddress")
 @Table(name = "helios_address")
 public class HeliosAddressEntity {
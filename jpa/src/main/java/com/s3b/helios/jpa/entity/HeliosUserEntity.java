@@ -8,10 +8,13 @@ import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.OneToMany;
 import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.DynamicUpdate;
+import org.hibernate.annotations.OptimisticLock;
 
 import java.time.LocalDate;
 import java.util.ArrayList;
@@ -23,6 +26,7 @@ import java.util.List;
  */
 @NoArgsConstructor
 @Getter @Setter
+@DynamicUpdate
 @Entity(name = "HeliosUser")
 @Table(name = "helios_user")
 public class HeliosUserEntity {
@@ -34,6 +38,15 @@ public class HeliosUserEntity {
     @Setter(AccessLevel.NONE)
     private long id;
 
+    /**
+     * The version of the user, incremented on each update by
+     * {@link com.s3b.helios.jpa.repository.HeliosUserVersionRepository#incrementVersion(HeliosUserEntity)} only,
+     * the changes of the other fields are excluded from the optimistic lock so they do not increment it again
+     */
+    @Version
+    @Setter(AccessLevel.NONE)
+    private long version;
+
     /**
      * The subject of the saved user
      */
@@ -42,22 +55,26 @@ public class HeliosUserEntity {
     /**
      * The firstname persisted of the user
      */
+    @OptimisticLock(excluded = true)
     private String firstName;
 
     /**
      * The lastname persisted of the user
      */
+    @OptimisticLock(excluded = true)
     private String lastName;
 
     /**
      * This is the birthdate of the user
      */
+    @OptimisticLock(excluded = true)
     private LocalDate birthdate;
 
     /**
      * Every address of the user
      */
     @OneToMany(mappedBy = "heliosUser", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @OptimisticLock(excluded = true)
     private List<HeliosAddressEntity> address = new ArrayList<>();
 
     public HeliosUserEntity(String subject, String firstName, String lastName){
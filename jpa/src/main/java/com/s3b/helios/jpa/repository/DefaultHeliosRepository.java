@@ -2,8 +2,14 @@ package com.s3b.helios.jpa.repository;
 
 import com.s3b.helios.jpa.entity.HeliosUserEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -11,6 +17,51 @@ import java.util.Optional;
  * @author Sébastien SAEZ
  */
 @Repository
-public interface DefaultHeliosRepository extends JpaRepository<HeliosUserEntity, Long> {
+public interface DefaultHeliosRepository extends JpaRepository<HeliosUserEntity, Long>, HeliosUserStreamRepository, HeliosUserVersionRepository {
     Optional<HeliosUserEntity> findBySubject(String subject);
+
+    /**
+     * Read the user and his addresses in a single query, without loading managed entities.
+     * @param subject the subject of the user
+     * @return one row per address ordered by address id, a single row without address columns if the user has no address,
+     *         an empty list if the user does not exist
+     */
+    @Query("SELECT new com.s3b.helios.jpa.repository.HeliosUserRow(u.id, u.subject, u.firstName, u.lastName, u.birthdate, u.version, "
+            + "a.id, a.address, a.addressComplement, a.zipCode, a.city, a.country) "
+            + "FROM HeliosUser u LEFT JOIN u.address a WHERE u.subject = :subject ORDER BY a.id")
+    List<HeliosUserRow> findRowsBySubject(@Param("subject") String subject);
+
+    /**
+     * Read the version of a user without his details.
+     * @param subject the subject of the user
+     * @return the version of the user, empty if the user does not exist
+     */
+    @Query("SELECT u.version FROM HeliosUser u WHERE u.subject = :subject")
+    Optional<Long> findVersionBySubject(@Param("subject") String subject);
+
+    /**
+     * Read the users and their addresses of several subjects in a single query, without loading managed entities.
+     * The caller bounds the number of subjects, some databases limit the size of an IN list.
+     * @param subjects the subjects of the users
+     * @return one row per address ordered by user id then address id, a single row without address columns per user without address
+     */
+    @Query("SELECT new com.s3b.helios.jpa.repository.HeliosUserRow(u.id, u.subject, u.firstName, u.lastName, u.birthdate, u.version, "
+            + "a.id, a.address, a.addressComplement, a.zipCode, a.city, a.country) "
+            + "FROM HeliosUser u LEFT JOIN u.address a WHERE u.subject IN :subjects ORDER BY u.id, a.id")
+    List<HeliosUserRow> findRowsBySubjectIn(@Param("subjects") Collection<String> subjects);
+
+    /**
+     * Insert the user in a single statement unless a user with the same subject already exists.
+     * The UNIQUE constraint on the subject makes the statement atomic, two concurrent registrations of the same subject insert one row.
+     * The <code>ON CONFLICT DO NOTHING</code> clause is supported by PostgreSQL and by H2 in PostgreSQL mode.
+     * @param subject the subject of the user
+     * @param firstName the firstname of the user
+     * @param lastName the lastname of the user
+     * @return <code>1</code> if the user is inserted, <code>0</code> if it already exists
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO helios_user (subject, first_name, last_name) VALUES (:subject, :firstName, :lastName) ON CONFLICT DO NOTHING",
+            nativeQuery = true)
+    int insertIfAbsent(@Param("subject") String subject, @Param("firstName") String firstName, @Param("lastName") String lastName);
 }
@@ -0,0 +1,36 @@
+package com.s3b.helios.jpa.repository;
+
+import java.time.LocalDate;
+
+/**
+ * A read-only row joining a user with one of his addresses.
+ * The address columns are <code>null</code> on the single row of a user without address.
+ *
+ * @param id the technical id of the user
+ * @param subject the subject of the user
+ * @param firstName the firstname of the user
+ * @param lastName the lastname of the user
+ * @param birthdate the birthdate of the user
+ * @param version the version of the user
+ * @param addressId the technical id of the address
+ * @param address the full address
+ * @param addressComplement more information on the address
+ * @param zipCode the zipcode of the city
+ * @param city the city where the address is located
+ * @param country the country where the address is located
+ * @author Sébastien SAEZ
+ * @see DefaultHeliosRepository#findRowsBySubject(String)
+ */
+public record HeliosUserRow(Long id,
+                            String subject,
+                            String firstName,
+                            String lastName,
+                            LocalDate birthdate,
+                            long version,
+                            Long addressId,
+                            String address,
+                            String addressComplement,
+                            String zipCode,
+                            String city,
+                            String country) {
+}
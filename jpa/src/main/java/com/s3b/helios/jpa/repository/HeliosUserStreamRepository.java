@@ -0,0 +1,19 @@
+package com.s3b.helios.jpa.repository;
+
+import java.util.stream.Stream;
+
+/**
+ * A repository fragment reading every user through a forward-only cursor
+ * @author Sébastien SAEZ
+ * @see DefaultHeliosRepository
+ */
+public interface HeliosUserStreamRepository {
+
+    /**
+     * Read every user and his addresses in a single query, without loading managed entities.
+     * The rows are fetched from the database while the stream is consumed, which must happen in a transaction.
+     * The stream must be closed to release the cursor.
+     * @return one row per address ordered by user id then address id, a single row without address columns per user without address
+     */
+    Stream<HeliosUserRow> streamAllRows();
+}
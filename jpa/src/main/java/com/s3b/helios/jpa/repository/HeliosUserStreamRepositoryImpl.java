@@ -0,0 +1,47 @@
+package com.s3b.helios.jpa.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+
+import java.util.stream.Stream;
+
+/**
+ * The implementation of {@link HeliosUserStreamRepository} fetching the rows by batches of
+ * <code>application.export.fetch-size</code> rows, 1000 by default.
+ * @author Sébastien SAEZ
+ */
+public class HeliosUserStreamRepositoryImpl implements HeliosUserStreamRepository {
+
+    /**
+     * The query reading every user and his addresses
+     */
+    private static final String ALL_ROWS_QUERY = "SELECT new com.s3b.helios.jpa.repository.HeliosUserRow(u.id, u.subject, u.firstName, u.lastName, u.birthdate, u.version, "
+            + "a.id, a.address, a.addressComplement, a.zipCode, a.city, a.country) "
+            + "FROM HeliosUser u LEFT JOIN u.address a ORDER BY u.id, a.id";
+
+    /**
+     * The entity manager running the query
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * The number of rows fetched from the database at once
+     */
+    @Value("${application.export.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * {@inheritDoc}
+     * @return one row per address ordered by user id then address id
+     */
+    @Override
+    public Stream<HeliosUserRow> streamAllRows() {
+        return entityManager.createQuery(ALL_ROWS_QUERY, HeliosUserRow.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, fetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .getResultStream();
+    }
+}
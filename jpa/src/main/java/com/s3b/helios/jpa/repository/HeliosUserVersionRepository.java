@@ -0,0 +1,20 @@
+package com.s3b.helios.jpa.repository;
+
+import com.s3b.helios.jpa.entity.HeliosUserEntity;
+
+/**
+ * A repository fragment incrementing the version of a user
+ * @author Sébastien SAEZ
+ * @see DefaultHeliosRepository
+ */
+public interface HeliosUserVersionRepository {
+
+    /**
+     * Increment the version of a managed user immediately, even if only his addresses change.
+     * This is the only increment of the version, the changes of the user fields do not increment it again on flush.
+     * The row is locked until the end of the transaction.
+     * @param user the managed user
+     * @throws org.springframework.dao.OptimisticLockingFailureException if the user has been changed since he was read
+     */
+    void incrementVersion(HeliosUserEntity user);
+}
@@ -0,0 +1,28 @@
+package com.s3b.helios.jpa.repository;
+
+import com.s3b.helios.jpa.entity.HeliosUserEntity;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+
+/**
+ * The implementation of {@link HeliosUserVersionRepository} based on {@link LockModeType#PESSIMISTIC_FORCE_INCREMENT}
+ * @author Sébastien SAEZ
+ */
+public class HeliosUserVersionRepositoryImpl implements HeliosUserVersionRepository {
+
+    /**
+     * The entity manager locking the user
+     */
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * {@inheritDoc}
+     * @param user the managed user
+     */
+    @Override
+    public void incrementVersion(HeliosUserEntity user) {
+        entityManager.lock(user, LockModeType.PESSIMISTIC_FORCE_INCREMENT);
+    }
+}
@@ -0,0 +1,197 @@
+package com.s3b.helios.jpa.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.s3b.helios.model.HeliosUserDto;
+import com.s3b.helios.service.HeliosUserService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * A {@link HeliosUserService} keeping the user profiles read from a delegate service.
+ * <p>
+ * The profiles are indexed by subject. An entry is evicted when the cache is full or when its time to live is over,
+ * and it is invalidated when the user is updated through this service. Unknown subjects are never cached,
+ * so a user registered in the meantime is found on the next read.
+ * <p>
+ * The cached {@link HeliosUserDto} instances are shared between the callers and must not be modified.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class CachingHeliosUserService implements HeliosUserService {
+
+    /**
+     * The service reading and updating the users on a cache miss
+     */
+    private final HeliosUserService delegate;
+
+    /**
+     * The user profiles indexed by subject
+     */
+    private final Cache<String, HeliosUserDto> cache;
+
+    /**
+     * The number of invalidations, a bulk read checks it did not change while the profiles were read
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Create a cache on top of the specified service.
+     * @param delegate the service reading and updating the users on a cache miss
+     * @param maximumSize the maximum number of user profiles kept
+     * @param timeToLive the maximum duration a user profile is kept
+     */
+    public CachingHeliosUserService(HeliosUserService delegate, long maximumSize, Duration timeToLive) {
+        this(delegate, maximumSize, timeToLive, Ticker.systemTicker(), ForkJoinPool.commonPool());
+    }
+
+    CachingHeliosUserService(HeliosUserService delegate, long maximumSize, Duration timeToLive, Ticker ticker, Executor executor) {
+        this.delegate = delegate;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build();
+        log.info("User profile cache enabled with a maximum size of {} and a time to live of {}", maximumSize, timeToLive);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The delegate service is only called when the profile is not in the cache.
+     * The profile is loaded atomically for its subject, an invalidation waits for a load in progress so a stale profile is never kept.
+     * @param subject the subject to retrieve a user
+     * @return an {@link Optional} the user projection for the specified subject
+     */
+    @Override
+    public Optional<HeliosUserDto> findUserBySubject(String subject) {
+        if (subject == null) {
+            return delegate.findUserBySubject(null);
+        }
+        return Optional.ofNullable(cache.get(subject, key -> delegate.findUserBySubject(key).orElse(null)));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The version is always read from the delegate service, the profile cached by this instance may be older
+     * than a change made through another instance.
+     * @param subject the id to retrieve a user
+     * @return an {@link Optional} of the version of the user
+     */
+    @Override
+    public Optional<Long> findUserVersion(String subject) {
+        return delegate.findUserVersion(subject);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The delegate service is only called for the subjects whose profile is not in the cache.
+     * The profiles loaded are removed again when a user is invalidated while they are read, so a stale profile is never kept.
+     * @param subjects the ids to retrieve the users
+     * @return the user projections found, in the order of the first occurrence of their subject
+     */
+    @Override
+    public List<HeliosUserDto> findUsersBySubjects(Collection<String> subjects) {
+        var distinctSubjects = new LinkedHashSet<>(subjects);
+        distinctSubjects.remove(null);
+        var cached = new HashMap<>(cache.getAllPresent(distinctSubjects));
+        if (cached.size() < distinctSubjects.size()) {
+            var missing = distinctSubjects.stream().filter(subject -> !cached.containsKey(subject)).toList();
+            var loaded = new HashMap<String, HeliosUserDto>();
+            var generation = invalidations.get();
+            delegate.findUsersBySubjects(missing).forEach(user -> loaded.put(user.getSubject(), user));
+            cache.putAll(loaded);
+            if (invalidations.get() != generation) {
+                cache.invalidateAll(loaded.keySet());
+            }
+            cached.putAll(loaded);
+        }
+        return distinctSubjects.stream()
+                .map(cached::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The export bypasses the cache.
+     * @param consumer the consumer of the user projections
+     */
+    @Override
+    public void exportUsers(Consumer<HeliosUserDto> consumer) {
+        delegate.exportUsers(consumer);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The cached profile is invalidated whether the update succeeds or not, the next read fetches the saved profile.
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the new user details to save
+     * @return an {@link Optional} user with his updated details
+     */
+    @Override
+    public Optional<HeliosUserDto> updateUser(String subject, HeliosUserDto heliosUserDto) {
+        try {
+            return delegate.updateUser(subject, heliosUserDto);
+        } finally {
+            invalidate(subject);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     * The cached profile is invalidated whether the update succeeds or not, the next read fetches the saved profile.
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the fields to change
+     * @return an {@link Optional} user with his updated details
+     */
+    @Override
+    public Optional<HeliosUserDto> patchUser(String subject, HeliosUserDto heliosUserDto) {
+        try {
+            return delegate.patchUser(subject, heliosUserDto);
+        } finally {
+            invalidate(subject);
+        }
+    }
+
+    /**
+     * Remove the profile of a user updated without this service.
+     * @param subject the subject of the user
+     */
+    public void invalidate(String subject) {
+        if (subject != null) {
+            invalidations.incrementAndGet();
+            cache.invalidate(subject);
+        }
+    }
+
+    /**
+     * @return the hit, miss and eviction counters of the cache, {@link CacheStats#hitRate()} gives the hit ratio
+     * @see CachingHeliosUserServiceMetrics
+     */
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    /**
+     * @return the approximate number of user profiles kept
+     */
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+}
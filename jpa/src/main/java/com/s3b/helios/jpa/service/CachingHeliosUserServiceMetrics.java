@@ -0,0 +1,44 @@
+package com.s3b.helios.jpa.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Publish the size, the hit ratio and the counters of the cache of a {@link CachingHeliosUserService} to Micrometer.
+ *
+ * @author Sébastien SAEZ
+ */
+@RequiredArgsConstructor
+public class CachingHeliosUserServiceMetrics implements MeterBinder {
+
+    /**
+     * The observed user profile cache
+     */
+    private final CachingHeliosUserService userService;
+
+    /**
+     * {@inheritDoc}
+     * @param registry the registry publishing the meters
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("helios.user.cache.size", userService, CachingHeliosUserService::estimatedSize)
+                .description("The approximate number of user profiles cached")
+                .register(registry);
+        Gauge.builder("helios.user.cache.hit.ratio", userService, service -> service.stats().hitRate())
+                .description("The ratio of the reads served by the cache")
+                .register(registry);
+        FunctionCounter.builder("helios.user.cache.hits", userService, service -> service.stats().hitCount())
+                .description("The number of reads served by the cache")
+                .register(registry);
+        FunctionCounter.builder("helios.user.cache.misses", userService, service -> service.stats().missCount())
+                .description("The number of reads calling the delegate service")
+                .register(registry);
+        FunctionCounter.builder("helios.user.cache.evictions", userService, service -> service.stats().evictionCount())
+                .description("The number of user profiles evicted because the cache is full or their time to live is over")
+                .register(registry);
+    }
+}
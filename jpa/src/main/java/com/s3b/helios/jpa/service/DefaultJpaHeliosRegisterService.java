@@ -1,12 +1,13 @@
 package com.s3b.helios.jpa.service;
 
 
-import com.s3b.helios.jpa.entity.HeliosUserEntity;
 import com.s3b.helios.jpa.repository.DefaultHeliosRepository;
 import com.s3b.helios.service.HeliosRegisterService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
 import java.util.Map;
 
 import static com.s3b.helios.constant.GoogleAttributesConstant.FAMILY_NAME_KEY;
@@ -29,21 +30,42 @@ public class DefaultJpaHeliosRegisterService implements HeliosRegisterService {
 
     /**
      * {@inheritDoc}
-     * Store the attribues mapped to a user t
+     * Store the attributes mapped to a user, unless the user already exists
      * @param attributes the user's information of the End-User
+     * @see #registerIfAbsent(Map)
      */
     @Override
     public void processRegistration(Map<String, Object> attributes) {
-        log.info("Processing to a new registration");
+        registerIfAbsent(attributes);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The registrations are stored in a single transaction
+     * @param registrations the user's information of each End-User
+     */
+    @Override
+    @Transactional
+    public void processRegistrations(List<Map<String, Object>> registrations) {
+        registrations.forEach(this::registerIfAbsent);
+    }
+
+    /**
+     * Store the attributes mapped to a user with a single insert-if-absent statement.
+     * @param attributes the user's information of the End-User
+     * @return <code>true</code> if the user is new
+     *         <code>false</code> if it already exists.
+     */
+    public boolean registerIfAbsent(Map<String, Object> attributes) {
         var subject = String.valueOf(attributes.get(SUBJECT_KEY));
         var firstName = String.valueOf(attributes.get(GIVEN_NAME_KEY));
         var lastName = String.valueOf(attributes.get(FAMILY_NAME_KEY));
-        var entity = new HeliosUserEntity(subject, firstName, lastName);
-        this.repository.findBySubject(subject).ifPresentOrElse(
-                e -> log.info("The user already exists {}", e.getSubject()),
-                () -> {
-                    this.repository.save(entity);
-                    log.info("Registration saved with success : {}", subject);
-                });
+        var created = this.repository.insertIfAbsent(subject, firstName, lastName) > 0;
+        if (created) {
+            log.info("Registration saved with success : {}", subject);
+        } else {
+            log.info("The user already exists {}", subject);
+        }
+        return created;
     }
 }
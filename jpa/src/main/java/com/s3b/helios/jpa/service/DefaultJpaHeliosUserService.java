@@ -1,18 +1,29 @@
 package com.s3b.helios.jpa.service;
 
 
+import com.s3b.helios.exception.HeliosVersionConflictException;
 import com.s3b.helios.jpa.entity.HeliosAddressEntity;
 import com.s3b.helios.jpa.entity.HeliosUserEntity;
 import com.s3b.helios.jpa.repository.DefaultHeliosRepository;
+import com.s3b.helios.jpa.repository.HeliosUserRow;
 import com.s3b.helios.model.HeliosAddressDto;
 import com.s3b.helios.model.HeliosUserDto;
 import com.s3b.helios.service.HeliosUserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * An implementation of {@link HeliosUserService} based on JPA to perform CRUD operations
@@ -23,6 +34,11 @@ import java.util.Optional;
 @Slf4j
 public class DefaultJpaHeliosUserService implements HeliosUserService {
 
+    /**
+     * The maximum number of subjects of a single IN list query
+     */
+    static final int SUBJECTS_CHUNK_SIZE = 500;
+
     /**
      * Provide a default JPA repository
      */
@@ -30,62 +46,244 @@ public class DefaultJpaHeliosUserService implements HeliosUserService {
 
     /**
      * {@inheritDoc}
+     * The user and his addresses are read in a single query and projected without managed entities.
      * @param subject the subject to retrieve a user
      * @return an {@link Optional} the user projection for the specified subject
      *
      * @see HeliosUserDto
+     * @see DefaultHeliosRepository#findRowsBySubject(String)
      */
     @Override
     public Optional<HeliosUserDto> findUserBySubject(String subject) {
-        var optEntity = this.repository.findBySubject(subject);
+        var rows = this.repository.findRowsBySubject(subject);
 
-        if(optEntity.isEmpty()){
+        if(rows.isEmpty()){
             log.info("The user {} is not found", subject);
             return Optional.empty();
         }
 
-        var entity = optEntity.get();
-        return buildHeliosUserDto(entity);
+        return Optional.of(buildHeliosUserDto(rows));
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param subject the id to retrieve a user
+     * @return an {@link Optional} of the version of the user, empty if the user is not found
+     *
+     * @see DefaultHeliosRepository#findVersionBySubject(String)
+     */
+    @Override
+    public Optional<Long> findUserVersion(String subject) {
+        return this.repository.findVersionBySubject(subject);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The users are read with one query per chunk of {@value #SUBJECTS_CHUNK_SIZE} subjects.
+     * @param subjects the ids to retrieve the users
+     * @return the user projections found, in the order of the first occurrence of their subject
+     *
+     * @see DefaultHeliosRepository#findRowsBySubjectIn(Collection)
+     */
+    @Override
+    public List<HeliosUserDto> findUsersBySubjects(Collection<String> subjects) {
+        var distinctSubjects = new ArrayList<>(new LinkedHashSet<>(subjects));
+        var usersBySubject = new HashMap<String, HeliosUserDto>(distinctSubjects.size());
+        for (int from = 0; from < distinctSubjects.size(); from += SUBJECTS_CHUNK_SIZE) {
+            var chunk = distinctSubjects.subList(from, Math.min(from + SUBJECTS_CHUNK_SIZE, distinctSubjects.size()));
+            var rowsByUser = new LinkedHashMap<Long, List<HeliosUserRow>>();
+            this.repository.findRowsBySubjectIn(chunk)
+                    .forEach(row -> rowsByUser.computeIfAbsent(row.id(), id -> new ArrayList<>()).add(row));
+            rowsByUser.values().forEach(rows -> usersBySubject.put(rows.get(0).subject(), buildHeliosUserDto(rows)));
+        }
+        log.info("{} user(s) found for {} subject(s)", usersBySubject.size(), distinctSubjects.size());
+        return distinctSubjects.stream()
+                .map(usersBySubject::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The users are read through a forward-only cursor, only the rows of the current user are kept in memory.
+     * @param consumer the consumer of the user projections, called in the order of the user ids
+     *
+     * @see DefaultHeliosRepository#streamAllRows()
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(Consumer<HeliosUserDto> consumer) {
+        var count = 0L;
+        try (var rows = this.repository.streamAllRows()) {
+            var userRows = new ArrayList<HeliosUserRow>();
+            for (var iterator = rows.iterator(); iterator.hasNext(); ) {
+                var row = iterator.next();
+                if (!userRows.isEmpty() && !userRows.get(0).id().equals(row.id())) {
+                    consumer.accept(buildHeliosUserDto(userRows));
+                    userRows.clear();
+                    count++;
+                }
+                userRows.add(row);
+            }
+            if (!userRows.isEmpty()) {
+                consumer.accept(buildHeliosUserDto(userRows));
+                count++;
+            }
+        }
+        log.info("{} user(s) exported", count);
     }
 
     /**
      * {@inheritDoc}
-     * @param id the user's id to perform the changes
+     * The details are applied as a patch, see {@link #patchUser(String, HeliosUserDto)}.
+     * @param subject the user's subject to perform the changes
      * @param heliosUserDto the new user details to save
      * @return the user with his updated details
+     * @throws HeliosVersionConflictException if the version of the details is specified and is not the current one
      *
      * @see HeliosUserDto
      */
     @Override
+    @Transactional
     public Optional<HeliosUserDto> updateUser(String subject, HeliosUserDto heliosUserDto) {
+        return patchUser(subject, heliosUserDto);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only the changed columns are written, the addresses are diffed by id so unchanged addresses are not written again :
+     * an address without id is added, an address with an id is changed and an address missing from the list is removed.
+     * An address id which does not belong to the user is ignored.
+     * When something changes, the version of the user is incremented and the row is locked until the end of the transaction,
+     * otherwise nothing is written and the current user is returned.
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the fields to change
+     * @return the user with his updated details
+     * @throws HeliosVersionConflictException if the version of the fields is specified and is not the current one
+     *
+     * @see HeliosUserDto
+     */
+    @Override
+    @Transactional
+    public Optional<HeliosUserDto> patchUser(String subject, HeliosUserDto heliosUserDto) {
 
         var optionalHeliosEntity = this.repository.findBySubject(subject);
 
         if(optionalHeliosEntity.isEmpty()){
-            log.info("The user {} to update is not found", subject);
+            log.info("The user {} to change is not found", subject);
             return Optional.empty();
         }
 
         var entity = optionalHeliosEntity.get();
-        Optional.ofNullable(heliosUserDto.getFirstName()).ifPresent(entity::setFirstName);
-        Optional.ofNullable(heliosUserDto.getLastName()).ifPresent(entity::setLastName);
-        Optional.ofNullable(heliosUserDto.getBirthdate()).ifPresent(entity::setBirthdate);
-        var addressEntities = new ArrayList<HeliosAddressEntity>();
-        Optional.ofNullable(heliosUserDto.getAddress()).ifPresent(addressDtos -> addressDtos.forEach(addrDto ->
-                addressEntities.add(
-                        new HeliosAddressEntity(addrDto.getAddress(),
-                                addrDto.getAddressComplement(),
-                                addrDto.getZipcode(),
-                                addrDto.getCity() ,
-                                addrDto.getCountry(),
-                                entity))));
-        entity.addAllAddress(addressEntities);
+        checkVersion(entity, heliosUserDto.getVersion());
+        var changed = setIfChanged(heliosUserDto.getFirstName(), entity.getFirstName(), entity::setFirstName);
+        changed |= setIfChanged(heliosUserDto.getLastName(), entity.getLastName(), entity::setLastName);
+        changed |= setIfChanged(heliosUserDto.getBirthdate(), entity.getBirthdate(), entity::setBirthdate);
+        if (heliosUserDto.hasAddressSpecified()) {
+            changed |= patchAddress(entity, heliosUserDto.getAddress());
+        }
+        if (!changed) {
+            log.info("The user {} is unchanged", subject);
+            return buildHeliosUserDto(entity);
+        }
+        incrementVersion(entity);
 
         var saved = repository.save(entity);
-        log.info("The user {} updated", subject);
+        repository.flush();
+        log.info("The user {} changed", subject);
         return buildHeliosUserDto(saved);
     }
 
+    /**
+     * Check the version a change is made from.
+     * @param entity the managed user
+     * @param expectedVersion the version the change is made from, <code>null</code> to skip the check
+     */
+    private static void checkVersion(HeliosUserEntity entity, Long expectedVersion){
+        if (expectedVersion != null && expectedVersion != entity.getVersion()) {
+            throw new HeliosVersionConflictException(entity.getSubject(), expectedVersion, entity.getVersion());
+        }
+    }
+
+    /**
+     * Increment the version so the addresses changes are also versioned.
+     * @param entity the managed user
+     */
+    private void incrementVersion(HeliosUserEntity entity){
+        try {
+            repository.incrementVersion(entity);
+        } catch (OptimisticLockingFailureException e) {
+            throw new HeliosVersionConflictException(entity.getSubject(), entity.getVersion(), null);
+        }
+    }
+
+    /**
+     * Set a field to a new value when it is specified and differs from the current one.
+     * @return whether the field changed
+     */
+    private static <T> boolean setIfChanged(T value, T current, Consumer<T> setter){
+        if (value == null || value.equals(current)) {
+            return false;
+        }
+        setter.accept(value);
+        return true;
+    }
+
+    /**
+     * Apply the addresses of the body to the user.
+     * @return whether an address is added, changed or removed
+     */
+    private boolean patchAddress(HeliosUserEntity entity, List<HeliosAddressDto> addressDtos){
+        var existing = new HashMap<Long, HeliosAddressEntity>();
+        entity.getAddress().forEach(address -> existing.put(address.getId(), address));
+        var kept = new HashSet<Long>();
+        var added = new ArrayList<HeliosAddressEntity>();
+        var changed = false;
+        for (HeliosAddressDto addrDto : addressDtos) {
+            if (addrDto.getId() == null) {
+                added.add(new HeliosAddressEntity(addrDto.getAddress(),
+                        addrDto.getAddressComplement(),
+                        addrDto.getZipcode(),
+                        addrDto.getCity(),
+                        addrDto.getCountry(),
+                        entity));
+                continue;
+            }
+            var address = existing.get(addrDto.getId());
+            if (address == null) {
+                log.warn("The address {} does not belong to the user {}, it is ignored", addrDto.getId(), entity.getSubject());
+                continue;
+            }
+            kept.add(addrDto.getId());
+            changed |= setIfChanged(addrDto.getAddress(), address.getAddress(), address::setAddress);
+            changed |= setIfChanged(addrDto.getAddressComplement(), address.getAddressComplement(), address::setAddressComplement);
+            changed |= setIfChanged(addrDto.getZipcode(), address.getZipCode(), address::setZipCode);
+            changed |= setIfChanged(addrDto.getCity(), address.getCity(), address::setCity);
+            changed |= setIfChanged(addrDto.getCountry(), address.getCountry(), address::setCountry);
+        }
+        changed |= entity.getAddress().removeIf(address -> !kept.contains(address.getId()));
+        changed |= entity.getAddress().addAll(added);
+        return changed;
+    }
+
+    private HeliosUserDto buildHeliosUserDto(List<HeliosUserRow> rows){
+        var first = rows.get(0);
+        var addressList = new ArrayList<HeliosAddressDto>(rows.size());
+        rows.stream().filter(row -> row.addressId() != null).forEach(row -> addressList.add(new HeliosAddressDto(row.addressId(),
+                row.address(),
+                row.addressComplement(),
+                row.zipCode(),
+                row.city(),
+                row.country())));
+        return new HeliosUserDto(first.id(),
+                first.subject(),
+                first.firstName(),
+                first.lastName(),
+                first.birthdate(),
+                addressList,
+                first.version());
+    }
+
     private List<HeliosAddressDto> mapAddress(List<HeliosAddressEntity> addressEntities){
         var addressList = new ArrayList<HeliosAddressDto>();
         addressEntities.forEach(address -> addressList.add(new HeliosAddressDto(address.getId(),
@@ -103,6 +301,7 @@ public class DefaultJpaHeliosUserService implements HeliosUserService {
                 entity.getFirstName(),
                 entity.getLastName(),
                 entity.getBirthdate(),
-                mapAddress(entity.getAddress())));
+                mapAddress(entity.getAddress()),
+                entity.getVersion()));
     }
 }
@@ -3,7 +3,10 @@ CREATE TABLE IF NOT EXISTS HELIOS_USER(
     SUBJECT VARCHAR(255) not null UNIQUE,
     FIRST_NAME VARCHAR(255),
     LAST_NAME VARCHAR(255),
-    BIRTHDATE DATE);
+    BIRTHDATE DATE,
+    VERSION BIGINT not null DEFAULT 0);
+
+ALTER TABLE HELIOS_USER ADD COLUMN IF NOT EXISTS VERSION BIGINT not null DEFAULT 0;
 
 CREATE TABLE IF NOT EXISTS  HELIOS_ADDRESS(
     ID bigserial PRIMARY KEY,
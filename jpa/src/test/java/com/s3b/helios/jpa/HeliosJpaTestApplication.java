@@ -0,0 +1,11 @@
+package com.s3b.helios.jpa;
+
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+
+/**
+ * The application bootstrapping the JPA slice tests
+ * @author Sébastien SAEZ
+ */
+@SpringBootApplication
+public class HeliosJpaTestApplication {
+}
@@ -0,0 +1,69 @@
+package com.s3b.helios.jpa.configuration;
+
+import com.s3b.helios.jpa.HeliosJpaTestApplication;
+import com.s3b.helios.jpa.entity.HeliosAddressEntity;
+import com.s3b.helios.jpa.entity.HeliosUserEntity;
+import com.s3b.helios.jpa.repository.DefaultHeliosRepository;
+import com.s3b.helios.jpa.service.CachingHeliosUserService;
+import com.s3b.helios.jpa.service.CachingHeliosUserServiceMetrics;
+import com.s3b.helios.model.HeliosAddressDto;
+import com.s3b.helios.model.HeliosUserDto;
+import com.s3b.helios.service.HeliosUserService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+
+@SpringBootTest(classes = HeliosJpaTestApplication.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:helios-cache;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "application.user-cache.enabled=true"
+})
+class HeliosJpaAutoConfigurationTest {
+
+    @Autowired
+    private HeliosUserService userService;
+
+    @Autowired
+    private DefaultHeliosRepository repository;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void should_UpdatePatchAndExportInTransactions_When_UserCacheIsEnabled() {
+        var entity = new HeliosUserEntity("cached", "firstName", "lastName");
+        entity.addAllAddress(new ArrayList<>(List.of(new HeliosAddressEntity("1 Street", null, "75001", "Paris", "France", entity))));
+        repository.save(entity);
+        assertInstanceOf(CachingHeliosUserService.class, userService);
+        assertEquals(1, context.getBeanNamesForType(CachingHeliosUserServiceMetrics.class).length);
+        var user = userService.findUserBySubject("cached").orElseThrow();
+
+        var update = new HeliosUserDto();
+        update.setFirstName("newFirstName");
+        update.setAddress(List.of(new HeliosAddressDto(user.getAddress().get(0).getId(), "1 Street", null, "69001", "Lyon", "France")));
+        update.setVersion(user.getVersion());
+        userService.updateUser("cached", update).orElseThrow();
+
+        var patch = new HeliosUserDto();
+        patch.setLastName("newLastName");
+        patch.setVersion(user.getVersion() + 1);
+        userService.patchUser("cached", patch).orElseThrow();
+
+        var actual = userService.findUserBySubject("cached").orElseThrow();
+        assertEquals("newFirstName", actual.getFirstName());
+        assertEquals("newLastName", actual.getLastName());
+        assertEquals("Lyon", actual.getAddress().get(0).getCity());
+        assertEquals(user.getVersion() + 2, actual.getVersion());
+
+        var exported = new ArrayList<HeliosUserDto>();
+        userService.exportUsers(exported::add);
+        assertEquals(List.of("cached"), exported.stream().map(HeliosUserDto::getSubject).toList());
+    }
+}
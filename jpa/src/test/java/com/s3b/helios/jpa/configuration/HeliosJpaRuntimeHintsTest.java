@@ -0,0 +1,38 @@
+package com.s3b.helios.jpa.configuration;
+
+import com.s3b.helios.jpa.entity.HeliosAddressEntity;
+import com.s3b.helios.jpa.entity.HeliosUserEntity;
+import com.s3b.helios.jpa.repository.HeliosUserRow;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeliosJpaRuntimeHintsTest {
+
+    @Test
+    void should_RegisterEntitiesAndRow_When_HintsAreRegistered() {
+        var hints = new RuntimeHints();
+
+        new HeliosJpaRuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.reflection().onType(HeliosUserEntity.class)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(HeliosAddressEntity.class)
+                .withMemberCategories(MemberCategory.DECLARED_FIELDS, MemberCategory.INVOKE_DECLARED_CONSTRUCTORS)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(HeliosUserRow.class)
+                .withMemberCategory(MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS)).accepts(hints);
+    }
+
+    @Test
+    void should_LoadRegistrar_When_AotFactoriesAreRead() {
+        var registrars = SpringFactoriesLoader.forResourceLocation("META-INF/spring/aot.factories")
+                .load(RuntimeHintsRegistrar.class);
+
+        assertThat(registrars).hasAtLeastOneElementOfType(HeliosJpaRuntimeHints.class);
+    }
+}
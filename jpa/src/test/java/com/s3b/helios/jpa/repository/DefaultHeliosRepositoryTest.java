@@ -0,0 +1,265 @@
+package com.s3b.helios.jpa.repository;
+
+import com.s3b.helios.exception.HeliosVersionConflictException;
+import com.s3b.helios.jpa.entity.HeliosAddressEntity;
+import com.s3b.helios.jpa.entity.HeliosUserEntity;
+import com.s3b.helios.jpa.service.DefaultJpaHeliosRegisterService;
+import com.s3b.helios.jpa.service.DefaultJpaHeliosUserService;
+import com.s3b.helios.model.HeliosAddressDto;
+import com.s3b.helios.model.HeliosUserDto;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:helios;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "application.export.fetch-size=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class DefaultHeliosRepositoryTest {
+
+    @Autowired
+    private DefaultHeliosRepository repository;
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Test
+    void should_InsertOnce_When_SubjectIsRegisteredTwice() {
+        assertEquals(1, repository.insertIfAbsent("subject", "firstName", "lastName"));
+        assertEquals(0, repository.insertIfAbsent("subject", "otherFirstName", "otherLastName"));
+
+        var user = repository.findBySubject("subject").orElseThrow();
+        assertEquals("firstName", user.getFirstName());
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void should_ReportWhetherUserIsInserted_When_RegisteringIfAbsent() {
+        var service = new DefaultJpaHeliosRegisterService(repository);
+        var attributes = Map.<String, Object>of("sub", "registered", "given_name", "firstName", "family_name", "lastName");
+
+        assertTrue(service.registerIfAbsent(attributes));
+        assertFalse(service.registerIfAbsent(attributes));
+        assertEquals(1, repository.count());
+    }
+
+    @Test
+    void should_ReadUserAndAddressesInOneQuery_When_FindingUserBySubject() {
+        var user = new HeliosUserEntity("reader", "firstName", "lastName");
+        user.addAllAddress(new ArrayList<>(List.of(
+                new HeliosAddressEntity("1 Street", null, "75001", "Paris", "France", user),
+                new HeliosAddressEntity("2 Street", "B2", "69001", "Lyon", "France", user))));
+        entityManager.persist(user);
+        entityManager.flush();
+        entityManager.clear();
+        var statistics = statistics();
+
+        var actual = new DefaultJpaHeliosUserService(repository).findUserBySubject("reader").orElseThrow();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals("firstName", actual.getFirstName());
+        assertEquals(List.of("1 Street", "2 Street"), actual.getAddress().stream().map(HeliosAddressDto::getAddress).toList());
+    }
+
+    @Test
+    void should_ReadUserWithoutAddressInOneQuery_When_UserHasNoAddress() {
+        entityManager.persist(new HeliosUserEntity("homeless", "firstName", "lastName"));
+        entityManager.flush();
+        entityManager.clear();
+        var statistics = statistics();
+
+        var actual = new DefaultJpaHeliosUserService(repository).findUserBySubject("homeless").orElseThrow();
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertTrue(actual.getAddress().isEmpty());
+    }
+
+    @Test
+    void should_WriteOnlyChangedRows_When_UserIsPatched() {
+        var user = new HeliosUserEntity("patched", "firstName", "lastName");
+        user.addAllAddress(new ArrayList<>(List.of(
+                new HeliosAddressEntity("1 Street", null, "75001", "Paris", "France", user),
+                new HeliosAddressEntity("2 Street", null, "69001", "Lyon", "France", user),
+                new HeliosAddressEntity("3 Street", null, "13001", "Marseille", "France", user))));
+        entityManager.persist(user);
+        entityManager.flush();
+        entityManager.clear();
+        var ids = user.getAddress().stream().map(HeliosAddressEntity::getId).toList();
+
+        var changed = new HeliosAddressDto();
+        changed.setId(ids.get(0));
+        changed.setCity("Paris 1er");
+        var unchanged = new HeliosAddressDto();
+        unchanged.setId(ids.get(1));
+        var patch = new HeliosUserDto();
+        patch.setLastName("newLastName");
+        patch.setAddress(List.of(changed, unchanged, new HeliosAddressDto(null, "4 Street", null, "33000", "Bordeaux", "France")));
+        var statistics = statistics();
+
+        new DefaultJpaHeliosUserService(repository).patchUser("patched", patch);
+        entityManager.flush();
+
+        assertEquals(2, statistics.getEntityUpdateCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+        assertEquals(1, statistics.getEntityDeleteCount());
+        entityManager.clear();
+        var addresses = repository.findRowsBySubject("patched");
+        assertEquals(List.of("Paris 1er", "Lyon", "Bordeaux"), addresses.stream().map(HeliosUserRow::city).toList());
+        assertEquals("newLastName", addresses.get(0).lastName());
+    }
+
+    @Test
+    void should_ReadUsersInOneQueryPerChunk_When_FindingUsersBySubjects() {
+        var subjects = new ArrayList<String>();
+        for (int i = 0; i < 600; i++) {
+            var user = new HeliosUserEntity("bulk" + i, "firstName" + i, "lastName");
+            user.addAllAddress(new ArrayList<>(List.of(new HeliosAddressEntity(i + " Street", null, "75001", "Paris", "France", user))));
+            entityManager.persist(user);
+            subjects.add(0, "bulk" + i);
+        }
+        subjects.add("unknown");
+        entityManager.flush();
+        entityManager.clear();
+        var statistics = statistics();
+
+        var actual = new DefaultJpaHeliosUserService(repository).findUsersBySubjects(subjects);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(600, actual.size());
+        assertEquals("bulk599", actual.get(0).getSubject());
+        assertEquals("599 Street", actual.get(0).getAddress().get(0).getAddress());
+        assertEquals("bulk0", actual.get(599).getSubject());
+    }
+
+    @Test
+    void should_StreamEveryUserInOneQuery_When_ExportingUsers() {
+        for (int i = 0; i < 3; i++) {
+            var user = new HeliosUserEntity("export" + i, "firstName", "lastName");
+            if (i != 1) {
+                user.addAllAddress(new ArrayList<>(List.of(
+                        new HeliosAddressEntity(i + " Street", null, "75001", "Paris", "France", user),
+                        new HeliosAddressEntity(i + " Avenue", null, "75001", "Paris", "France", user))));
+            }
+            entityManager.persist(user);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        var statistics = statistics();
+
+        var actual = new ArrayList<HeliosUserDto>();
+        new DefaultJpaHeliosUserService(repository).exportUsers(actual::add);
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+        assertEquals(List.of("export0", "export1", "export2"), actual.stream().map(HeliosUserDto::getSubject).toList());
+        assertEquals(List.of("2 Street", "2 Avenue"), actual.get(2).getAddress().stream().map(HeliosAddressDto::getAddress).toList());
+        assertTrue(actual.get(1).getAddress().isEmpty());
+    }
+
+    @Test
+    void should_IncrementVersion_When_OnlyAnAddressIsPatched() {
+        var user = new HeliosUserEntity("versioned", "firstName", "lastName");
+        user.addAllAddress(new ArrayList<>(List.of(new HeliosAddressEntity("1 Street", null, "75001", "Paris", "France", user))));
+        entityManager.persist(user);
+        entityManager.flush();
+        entityManager.clear();
+        var service = new DefaultJpaHeliosUserService(repository);
+        var version = service.findUserVersion("versioned").orElseThrow();
+
+        var address = new HeliosAddressDto();
+        address.setId(user.getAddress().get(0).getId());
+        address.setCity("Lyon");
+        var patch = new HeliosUserDto();
+        patch.setAddress(List.of(address));
+        patch.setVersion(version);
+        var actual = service.patchUser("versioned", patch).orElseThrow();
+        entityManager.clear();
+
+        assertTrue(actual.getVersion() > version);
+        assertEquals(actual.getVersion(), service.findUserVersion("versioned").orElseThrow());
+        assertEquals(actual.getVersion(), service.findUserBySubject("versioned").orElseThrow().getVersion());
+
+        var stalePatch = new HeliosUserDto();
+        stalePatch.setFirstName("stale");
+        stalePatch.setVersion(version);
+        assertThrows(HeliosVersionConflictException.class, () -> service.patchUser("versioned", stalePatch));
+    }
+
+    @Test
+    void should_IncrementVersionOnce_When_FieldsAndAddressesAreChanged() {
+        var user = new HeliosUserEntity("versionedOnce", "firstName", "lastName");
+        user.addAllAddress(new ArrayList<>(List.of(new HeliosAddressEntity("1 Street", null, "75001", "Paris", "France", user))));
+        entityManager.persist(user);
+        entityManager.flush();
+        entityManager.clear();
+        var service = new DefaultJpaHeliosUserService(repository);
+        var version = service.findUserVersion("versionedOnce").orElseThrow();
+        var addressId = user.getAddress().get(0).getId();
+
+        var update = new HeliosUserDto();
+        update.setFirstName("newFirstName");
+        update.setAddress(List.of(new HeliosAddressDto(addressId, "1 Street", null, "69001", "Lyon", "France")));
+        update.setVersion(version);
+        service.updateUser("versionedOnce", update);
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(version + 1, service.findUserVersion("versionedOnce").orElseThrow());
+
+        var patch = new HeliosUserDto();
+        patch.setLastName("newLastName");
+        patch.setAddress(List.of(new HeliosAddressDto(null, "2 Street", null, "13001", "Marseille", "France")));
+        patch.setVersion(version + 1);
+        service.patchUser("versionedOnce", patch);
+        entityManager.flush();
+        entityManager.clear();
+        assertEquals(version + 2, service.findUserVersion("versionedOnce").orElseThrow());
+    }
+
+    @Test
+    void should_KeepVersionAndWriteNothing_When_NothingChanges() {
+        var user = new HeliosUserEntity("unchanged", "firstName", "lastName");
+        user.addAllAddress(new ArrayList<>(List.of(new HeliosAddressEntity("1 Street", null, "75001", "Paris", "France", user))));
+        entityManager.persist(user);
+        entityManager.flush();
+        entityManager.clear();
+        var service = new DefaultJpaHeliosUserService(repository);
+        var version = service.findUserVersion("unchanged").orElseThrow();
+        var statistics = statistics();
+
+        var update = new HeliosUserDto();
+        update.setFirstName("firstName");
+        update.setAddress(List.of(new HeliosAddressDto(user.getAddress().get(0).getId(), "1 Street", null, "75001", "Paris", "France")));
+        update.setVersion(version);
+        var actual = service.updateUser("unchanged", update).orElseThrow();
+        entityManager.flush();
+        entityManager.clear();
+
+        assertEquals(version, actual.getVersion());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertEquals(version, service.findUserVersion("unchanged").orElseThrow());
+    }
+
+    private Statistics statistics() {
+        var statistics = entityManager.getEntityManager().getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+}
@@ -0,0 +1,184 @@
+package com.s3b.helios.jpa.service;
+
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.s3b.helios.model.HeliosUserDto;
+import com.s3b.helios.service.HeliosUserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.Mockito;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+
+@ExtendWith(MockitoExtension.class)
+class CachingHeliosUserServiceTest {
+
+    private static final String SUBJECT = "subject";
+
+    @Mock
+    private HeliosUserService delegate;
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final Ticker ticker = nanos::get;
+
+    private CachingHeliosUserService service(long maximumSize) {
+        return new CachingHeliosUserService(delegate, maximumSize, Duration.ofMinutes(10), ticker, Runnable::run);
+    }
+
+    @Test
+    void should_CallDelegateOnce_When_UserIsReadTwice() {
+        var service = service(100);
+        var user = user(SUBJECT);
+        Mockito.doReturn(Optional.of(user)).when(delegate).findUserBySubject(SUBJECT);
+
+        assertSame(user, service.findUserBySubject(SUBJECT).orElseThrow());
+        assertSame(user, service.findUserBySubject(SUBJECT).orElseThrow());
+
+        Mockito.verify(delegate, Mockito.times(1)).findUserBySubject(SUBJECT);
+        assertEquals(0.5, service.stats().hitRate());
+    }
+
+    @Test
+    void should_NotCacheUnknownSubject_When_UserIsNotFound() {
+        var service = service(100);
+        Mockito.doReturn(Optional.empty()).when(delegate).findUserBySubject(SUBJECT);
+
+        assertTrue(service.findUserBySubject(SUBJECT).isEmpty());
+        assertTrue(service.findUserBySubject(SUBJECT).isEmpty());
+
+        Mockito.verify(delegate, Mockito.times(2)).findUserBySubject(SUBJECT);
+        assertEquals(0, service.estimatedSize());
+    }
+
+    @Test
+    void should_FetchOnlyMissingUsers_When_UsersAreReadInBulk() {
+        var service = service(100);
+        var cached = user(SUBJECT);
+        var missing = user("missing");
+        Mockito.doReturn(Optional.of(cached)).when(delegate).findUserBySubject(SUBJECT);
+        Mockito.doReturn(List.of(missing)).when(delegate).findUsersBySubjects(List.of("missing", "unknown"));
+
+        service.findUserBySubject(SUBJECT);
+        var actual = service.findUsersBySubjects(List.of("missing", SUBJECT, "unknown"));
+
+        assertEquals(List.of(missing, cached), actual);
+        assertEquals(List.of(missing), service.findUsersBySubjects(List.of("missing")));
+        Mockito.verify(delegate, Mockito.times(1)).findUsersBySubjects(any());
+    }
+
+    @Test
+    void should_ReadUserAgain_When_UserIsUpdated() {
+        var service = service(100);
+        var update = user(SUBJECT);
+        Mockito.doReturn(Optional.of(user(SUBJECT))).when(delegate).findUserBySubject(SUBJECT);
+        Mockito.doReturn(Optional.of(update)).when(delegate).updateUser(SUBJECT, update);
+
+        service.findUserBySubject(SUBJECT);
+        service.updateUser(SUBJECT, update);
+        service.findUserBySubject(SUBJECT);
+
+        Mockito.verify(delegate, Mockito.times(2)).findUserBySubject(SUBJECT);
+    }
+
+    @Test
+    void should_InvalidateUser_When_UpdateFails() {
+        var service = service(100);
+        var update = user(SUBJECT);
+        Mockito.doReturn(Optional.of(user(SUBJECT))).when(delegate).findUserBySubject(SUBJECT);
+        Mockito.doThrow(new IllegalStateException("database unavailable")).when(delegate).updateUser(SUBJECT, update);
+
+        service.findUserBySubject(SUBJECT);
+        assertThrows(IllegalStateException.class, () -> service.updateUser(SUBJECT, update));
+        service.findUserBySubject(SUBJECT);
+
+        Mockito.verify(delegate, Mockito.times(2)).findUserBySubject(SUBJECT);
+    }
+
+    @Test
+    void should_EvictUser_When_TimeToLiveIsOver() {
+        var service = service(100);
+        Mockito.doReturn(Optional.of(user(SUBJECT))).when(delegate).findUserBySubject(SUBJECT);
+
+        service.findUserBySubject(SUBJECT);
+        nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+        service.findUserBySubject(SUBJECT);
+
+        Mockito.verify(delegate, Mockito.times(2)).findUserBySubject(SUBJECT);
+        assertEquals(1, service.stats().evictionCount());
+    }
+
+    @Test
+    void should_EvictUsers_When_MaximumSizeIsExceeded() {
+        var service = service(10);
+        for (int i = 0; i < 100; i++) {
+            var subject = SUBJECT + i;
+            Mockito.doReturn(Optional.of(user(subject))).when(delegate).findUserBySubject(subject);
+            service.findUserBySubject(subject);
+        }
+
+        assertTrue(service.estimatedSize() <= 10);
+        assertTrue(service.stats().evictionCount() >= 90);
+    }
+
+    @Test
+    void should_ReadVersionFromDelegate_When_UserIsCached() {
+        var service = service(100);
+        Mockito.doReturn(Optional.of(user(SUBJECT))).when(delegate).findUserBySubject(SUBJECT);
+        Mockito.doReturn(Optional.of(2L)).when(delegate).findUserVersion(SUBJECT);
+
+        service.findUserBySubject(SUBJECT);
+
+        assertEquals(2L, service.findUserVersion(SUBJECT).orElseThrow());
+        Mockito.verify(delegate).findUserVersion(SUBJECT);
+    }
+
+    @Test
+    void should_NotKeepUsers_When_UserIsInvalidatedWhileReadInBulk() {
+        var service = service(100);
+        Mockito.doAnswer(invocation -> {
+            service.invalidate(SUBJECT);
+            return List.of(user(SUBJECT));
+        }).when(delegate).findUsersBySubjects(List.of(SUBJECT));
+
+        service.findUsersBySubjects(List.of(SUBJECT));
+        service.findUsersBySubjects(List.of(SUBJECT));
+
+        Mockito.verify(delegate, Mockito.times(2)).findUsersBySubjects(List.of(SUBJECT));
+    }
+
+    @Test
+    void should_PublishHitRatioAndEvictions_When_MetricsAreBound() {
+        var service = service(100);
+        var registry = new SimpleMeterRegistry();
+        new CachingHeliosUserServiceMetrics(service).bindTo(registry);
+        Mockito.doReturn(Optional.of(user(SUBJECT))).when(delegate).findUserBySubject(SUBJECT);
+
+        service.findUserBySubject(SUBJECT);
+        service.findUserBySubject(SUBJECT);
+        nanos.addAndGet(Duration.ofMinutes(11).toNanos());
+        service.findUserBySubject(SUBJECT);
+
+        assertEquals(1.0 / 3, registry.get("helios.user.cache.hit.ratio").gauge().value(), 1e-9);
+        assertEquals(1, registry.get("helios.user.cache.hits").functionCounter().count());
+        assertEquals(2, registry.get("helios.user.cache.misses").functionCounter().count());
+        assertEquals(1, registry.get("helios.user.cache.evictions").functionCounter().count());
+        assertEquals(1, registry.get("helios.user.cache.size").gauge().value());
+    }
+
+    private static HeliosUserDto user(String subject) {
+        return new HeliosUserDto(1L, subject, "firstName", "lastName", null, new ArrayList<>());
+    }
+}
@@ -1,10 +1,8 @@
 package com.s3b.helios.jpa.service;
 
-import com.s3b.helios.jpa.entity.HeliosUserEntity;
 import com.s3b.helios.jpa.repository.DefaultHeliosRepository;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
@@ -13,10 +11,8 @@ import org.springframework.boot.test.system.CapturedOutput;
 import org.springframework.boot.test.system.OutputCaptureExtension;
 
 import java.util.HashMap;
-import java.util.Optional;
 
-import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 
@@ -42,22 +38,21 @@ class DefaultJpaHeliosRegisterServiceTest  {
         attributes.put("given_name", firstName);
         attributes.put("family_name", lastName);
 
-        var captor = ArgumentCaptor.forClass(HeliosUserEntity.class);
+        Mockito.doReturn(1).when(repository).insertIfAbsent(subject, firstName, lastName);
 
-        assertDoesNotThrow(() -> this.service.processRegistration(attributes));
+        assertTrue(this.service.registerIfAbsent(attributes));
 
-        Mockito.verify(repository).save(captor.capture());
-        var savedEntity = captor.getValue();
-        assertEquals(subject, savedEntity.getSubject());
-        assertEquals(firstName, savedEntity.getFirstName());
-        assertEquals(lastName, savedEntity.getLastName());
+        Mockito.verify(repository).insertIfAbsent(subject, firstName, lastName);
+        Mockito.verify(repository, Mockito.never()).findBySubject(any());
+        Mockito.verify(repository, Mockito.never()).save(any());
     }
 
     @Test
     void should_Log_When_userAlreadyExists(CapturedOutput output){
-        Mockito.doReturn(Optional.of(new HeliosUserEntity())).when(repository).findBySubject(any());
+        Mockito.doReturn(0).when(repository).insertIfAbsent(any(), any(), any());
         this.service.processRegistration(new HashMap<>());
         assertTrue(output.getOut().contains("The user already exists"));
+        assertFalse(this.service.registerIfAbsent(new HashMap<>()));
 
     }
 }
\ No newline at end of file
@@ -1,8 +1,10 @@
 package com.s3b.helios.jpa.service;
 
+import com.s3b.helios.exception.HeliosVersionConflictException;
 import com.s3b.helios.jpa.entity.HeliosAddressEntity;
 import com.s3b.helios.jpa.entity.HeliosUserEntity;
 import com.s3b.helios.jpa.repository.DefaultHeliosRepository;
+import com.s3b.helios.jpa.repository.HeliosUserRow;
 import com.s3b.helios.model.HeliosAddressDto;
 import com.s3b.helios.model.HeliosUserDto;
 import org.junit.jupiter.api.Assertions;
@@ -13,12 +15,20 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 
@@ -46,19 +56,69 @@ class DefaultJpaHeliosUserServiceTest {
 
     @Test
     void should_ReturnUser_when_SubjectIsFound(){
-        Mockito.doReturn(Optional.of(buildEntity())).when(repository).findBySubject(SAVED_SUBJECT);
+        Mockito.doReturn(List.of(buildRow(1L))).when(repository).findRowsBySubject(SAVED_SUBJECT);
         var actual = this.service.findUserBySubject(SAVED_SUBJECT);
         assertTrue(actual.isPresent());
         assertUser(actual.get());
+        Mockito.verify(repository, Mockito.never()).findBySubject(any());
+    }
+
+    @Test
+    void should_ReturnUserWithoutAddress_when_UserHasNoAddress(){
+        Mockito.doReturn(List.of(buildRow(null))).when(repository).findRowsBySubject(SAVED_SUBJECT);
+        var actual = this.service.findUserBySubject(SAVED_SUBJECT);
+        assertTrue(actual.isPresent());
+        assertEquals(SAVED_SUBJECT, actual.get().getSubject());
+        assertTrue(actual.get().getAddress().isEmpty());
     }
 
     @Test
     void should_ReturnEmpty_when_SubjectIsNotFound(){
-        Mockito.doReturn(Optional.empty()).when(repository).findBySubject(SAVED_SUBJECT);
+        Mockito.doReturn(List.of()).when(repository).findRowsBySubject(SAVED_SUBJECT);
         var actual = this.service.findUserBySubject(SAVED_SUBJECT);
         assertTrue(actual.isEmpty());
     }
 
+    @Test
+    void should_GroupRowsByUserInRequestedOrder_when_FindingUsersBySubjects(){
+        var other = new HeliosUserRow(2L, "other", SAVED_FIRSTNAME, SAVED_LASTNAME, SAVED_BIRTHDATE, 3L,
+                null, null, null, null, null, null);
+        Mockito.doReturn(List.of(buildRow(1L), buildRow(2L), other)).when(repository)
+                .findRowsBySubjectIn(List.of("other", SAVED_SUBJECT, "unknown"));
+
+        var actual = this.service.findUsersBySubjects(List.of("other", SAVED_SUBJECT, "other", "unknown"));
+
+        assertEquals(List.of("other", SAVED_SUBJECT), actual.stream().map(HeliosUserDto::getSubject).toList());
+        assertTrue(actual.get(0).getAddress().isEmpty());
+        assertEquals(2, actual.get(1).getAddress().size());
+    }
+
+    @Test
+    void should_QueryOncePerChunk_when_FindingManyUsersBySubjects(){
+        var subjects = IntStream.range(0, DefaultJpaHeliosUserService.SUBJECTS_CHUNK_SIZE * 2 + 1).mapToObj(i -> "subject" + i).toList();
+
+        assertTrue(this.service.findUsersBySubjects(subjects).isEmpty());
+
+        Mockito.verify(repository, Mockito.times(3)).findRowsBySubjectIn(any());
+    }
+
+    @Test
+    void should_EmitOneUserPerIdAndCloseCursor_when_ExportingUsers(){
+        var closed = new AtomicBoolean();
+        var other = new HeliosUserRow(2L, "other", SAVED_FIRSTNAME, SAVED_LASTNAME, SAVED_BIRTHDATE, 3L,
+                null, null, null, null, null, null);
+        Mockito.doReturn(Stream.of(buildRow(1L), buildRow(2L), other).onClose(() -> closed.set(true)))
+                .when(repository).streamAllRows();
+
+        var actual = new ArrayList<HeliosUserDto>();
+        this.service.exportUsers(actual::add);
+
+        assertEquals(List.of(SAVED_SUBJECT, "other"), actual.stream().map(HeliosUserDto::getSubject).toList());
+        assertEquals(2, actual.get(0).getAddress().size());
+        assertTrue(actual.get(1).getAddress().isEmpty());
+        assertTrue(closed.get());
+    }
+
     @Test
     void should_ReturnEmpty_when_SubjectToUpdateIsNotFound(){
         Mockito.doReturn(Optional.empty()).when(repository).findBySubject(SAVED_SUBJECT);
@@ -86,12 +146,111 @@ class DefaultJpaHeliosUserServiceTest {
 
         assertEquals(SAVED_SUBJECT, updatedEntity.getSubject());
         assertEquals(newFirstName, updatedEntity.getFirstName());
-        assertEquals(2, updatedEntity.getAddress().size());
+        assertEquals(1, updatedEntity.getAddress().size());
 
         assertTrue(actual.isPresent());
         assertUser(actual.get());
     }
 
+    @Test
+    void should_NotGrowAddresses_when_SameUserIsUpdatedTwice(){
+        var entity = buildEntity();
+        var kept = address(1L, "1 Street");
+        entity.setAddress(new ArrayList<>(List.of(kept)));
+        Mockito.doReturn(Optional.of(entity)).when(repository).findBySubject(SAVED_SUBJECT);
+        Mockito.doAnswer(invocation -> invocation.getArgument(0)).when(repository).save(any());
+        var update = new HeliosUserDto();
+        update.setAddress(List.of(new HeliosAddressDto(1L, "1 Street", SAVED_COMPLEMENT, "NEW ZIP", SAVED_CITY, SAVED_COUNTRY)));
+
+        this.service.updateUser(SAVED_SUBJECT, update);
+        var actual = this.service.updateUser(SAVED_SUBJECT, update).orElseThrow();
+
+        assertEquals(1, actual.getAddress().size());
+        assertSame(kept, entity.getAddress().get(0));
+        assertEquals("NEW ZIP", kept.getZipCode());
+    }
+
+    @Test
+    void should_DiffAddressesById_when_UserIsPatched(){
+        var entity = buildEntity();
+        var kept = address(1L, "1 Street");
+        var removed = address(2L, "2 Street");
+        entity.setAddress(new ArrayList<>(List.of(kept, removed)));
+        Mockito.doReturn(Optional.of(entity)).when(repository).findBySubject(SAVED_SUBJECT);
+        Mockito.doAnswer(invocation -> invocation.getArgument(0)).when(repository).save(any());
+
+        var changedAddress = new HeliosAddressDto();
+        changedAddress.setId(1L);
+        changedAddress.setCity("new city");
+        var addedAddress = new HeliosAddressDto(null, "3 Street", null, "ZIP", "city", "country");
+        var unknownAddress = new HeliosAddressDto(42L, "4 Street", null, "ZIP", "city", "country");
+        var patch = new HeliosUserDto();
+        patch.setLastName("new lastname");
+        patch.setAddress(List.of(changedAddress, addedAddress, unknownAddress));
+
+        var actual = this.service.patchUser(SAVED_SUBJECT, patch).orElseThrow();
+
+        assertEquals(SAVED_FIRSTNAME, actual.getFirstName());
+        assertEquals("new lastname", actual.getLastName());
+        assertEquals(List.of("1 Street", "3 Street"), actual.getAddress().stream().map(HeliosAddressDto::getAddress).toList());
+        assertSame(kept, entity.getAddress().get(0));
+        assertEquals("new city", kept.getCity());
+        assertEquals(SAVED_ZIPCODE, kept.getZipCode());
+    }
+
+    @Test
+    void should_RejectPatch_when_VersionIsNotCurrent(){
+        Mockito.doReturn(Optional.of(buildEntity())).when(repository).findBySubject(SAVED_SUBJECT);
+        var patch = new HeliosUserDto();
+        patch.setVersion(5L);
+
+        assertThrows(HeliosVersionConflictException.class, () -> this.service.patchUser(SAVED_SUBJECT, patch));
+
+        Mockito.verify(repository, Mockito.never()).incrementVersion(any());
+        Mockito.verify(repository, Mockito.never()).save(any());
+    }
+
+    @Test
+    void should_RejectUpdate_when_UserIsChangedConcurrently(){
+        var entity = buildEntity();
+        Mockito.doReturn(Optional.of(entity)).when(repository).findBySubject(SAVED_SUBJECT);
+        Mockito.doThrow(new OptimisticLockingFailureException("stale")).when(repository).incrementVersion(entity);
+        var update = new HeliosUserDto();
+        update.setFirstName("new firstname");
+
+        assertThrows(HeliosVersionConflictException.class, () -> this.service.updateUser(SAVED_SUBJECT, update));
+
+        Mockito.verify(repository, Mockito.never()).save(any());
+    }
+
+    @Test
+    void should_KeepAddresses_when_PatchHasNoAddress(){
+        var entity = buildEntity();
+        Mockito.doReturn(Optional.of(entity)).when(repository).findBySubject(SAVED_SUBJECT);
+        Mockito.doAnswer(invocation -> invocation.getArgument(0)).when(repository).save(any());
+        var patch = new HeliosUserDto();
+        patch.setFirstName("new firstname");
+
+        var actual = this.service.patchUser(SAVED_SUBJECT, patch).orElseThrow();
+
+        assertEquals("new firstname", actual.getFirstName());
+        assertEquals(1, actual.getAddress().size());
+    }
+
+    @Test
+    void should_ReturnEmpty_when_SubjectToPatchIsNotFound(){
+        Mockito.doReturn(Optional.empty()).when(repository).findBySubject(SAVED_SUBJECT);
+        var actual = this.service.patchUser(SAVED_SUBJECT, new HeliosUserDto());
+        assertTrue(actual.isEmpty());
+        Mockito.verify(repository, Mockito.never()).save(any());
+    }
+
+    private HeliosAddressEntity address(Long id, String address){
+        var addressEntity = new HeliosAddressEntity(address, SAVED_COMPLEMENT, SAVED_ZIPCODE, SAVED_CITY, SAVED_COUNTRY, null);
+        ReflectionTestUtils.setField(addressEntity, "id", id);
+        return addressEntity;
+    }
+
     private HeliosUserEntity buildEntity(){
         var addressEntity = new HeliosAddressEntity();
         addressEntity.setAddress(SAVED_ADDRESS);
@@ -105,11 +264,16 @@ class DefaultJpaHeliosUserServiceTest {
         userEntity.setLastName(SAVED_LASTNAME);
         userEntity.setFirstName(SAVED_FIRSTNAME);
         userEntity.setBirthdate(SAVED_BIRTHDATE);
-        userEntity.setAddress(List.of(addressEntity));
+        userEntity.setAddress(new ArrayList<>(List.of(addressEntity)));
 
         return userEntity;
     }
 
+    private HeliosUserRow buildRow(Long addressId){
+        return new HeliosUserRow(1L, SAVED_SUBJECT, SAVED_FIRSTNAME, SAVED_LASTNAME, SAVED_BIRTHDATE, 3L,
+                addressId, SAVED_ADDRESS, SAVED_COMPLEMENT, SAVED_ZIPCODE, SAVED_CITY, SAVED_COUNTRY);
+    }
+
     private void assertUser(HeliosUserDto userDto){
         assertEquals(SAVED_SUBJECT, userDto.getSubject());
         assertEquals(SAVED_LASTNAME, userDto.getLastName());
@@ -1,21 +1,47 @@
 package com.s3b.helios.oauth2.configuration;
 
-import com.s3b.helios.client.token.DefaultHeliosJwtTokenReader;
+import com.s3b.helios.client.key.HeliosSigningKey;
 import com.s3b.helios.client.token.DefaultHeliosJwtTokenWriter;
-import com.s3b.helios.client.token.HeliosTokenReader;
+import com.s3b.helios.client.token.DefaultHeliosPasetoTokenWriter;
 import com.s3b.helios.client.token.HeliosTokenWriter;
+import com.s3b.helios.oauth2.controller.HeliosTokenController;
 import com.s3b.helios.oauth2.handler.OAuth2AuthenticationFailureHandler;
 import com.s3b.helios.oauth2.handler.OAuth2AuthenticationSuccessHandler;
+import com.s3b.helios.oauth2.repository.CompactHeliosAuthorizationRequestCodec;
+import com.s3b.helios.oauth2.repository.CacheHeliosAuthorizationRequestStore;
+import com.s3b.helios.oauth2.repository.HeliosAuthorizationRequestCodec;
+import com.s3b.helios.oauth2.repository.HeliosAuthorizationRequestRepository;
+import com.s3b.helios.oauth2.repository.HeliosAuthorizationRequestStore;
+import com.s3b.helios.oauth2.repository.HeliosRefreshTokenStore;
 import com.s3b.helios.oauth2.repository.HttpCookieOAuth2AuthorizationRequestRepository;
+import com.s3b.helios.oauth2.repository.InMemoryHeliosAuthorizationRequestStore;
+import com.s3b.helios.oauth2.repository.InMemoryHeliosRefreshTokenStore;
+import com.s3b.helios.oauth2.repository.StateKeyedOAuth2AuthorizationRequestRepository;
 import com.s3b.helios.oauth2.service.HeliosOidcService;
+import com.s3b.helios.oauth2.service.HeliosRefreshTokenService;
+import com.s3b.helios.oauth2.service.HeliosRegistrationQueue;
+import com.s3b.helios.oauth2.service.HeliosRegistrationQueueMetrics;
 import com.s3b.helios.service.HeliosRegisterService;
+import io.micrometer.core.instrument.binder.MeterBinder;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.CacheManager;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.io.Resource;
 import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
 import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.util.StringUtils;
+
+import java.security.PrivateKey;
+import java.time.Duration;
+import java.util.Base64;
 
 /**
  * A container class registering beans used for helios Oauth2 configuration.
@@ -25,75 +51,327 @@ import org.springframework.security.oauth2.client.web.AuthorizationRequestReposi
  */
 @RequiredArgsConstructor
 @Slf4j
+@Import({HeliosOauth2AutoConfiguration.HeliosPasetoTokenConfiguration.class, HeliosOauth2AutoConfiguration.HeliosRegistrationMetricsConfiguration.class})
 public class HeliosOauth2AutoConfiguration {
 
     /**
-     * Create bean with a JWT implementation of {@link HeliosTokenReader} if it does not exist yet
+     * Create bean with a JWT implementation of {@link HeliosTokenWriter} if it does not exist yet.
+     * The tokens are signed with the private key of <code>application.token-provider.jwt.signing-key</code> when it is defined,
+     * with the <code>application.token-provider.jwt.jwtSecret</code> shared secret otherwise.
      *
      * @param jwtSecret the secret key to generate a JWT token
-     * @return the {@link DefaultHeliosJwtTokenReader} for further information
-     * @see HeliosTokenReader
+     * @param signingKey a file or classpath resource holding the private JWK signing the tokens
+     * @param expirationTimeInHours the expiration time of the generated tokens in hours
+     * @param accessTokenTtl the lifetime of the generated tokens, such as <code>15m</code>, overriding the expiration in hours when it is defined
+     * @return the {@link DefaultHeliosJwtTokenWriter} for further information
+     * @see HeliosTokenWriter
+     * @see HeliosSigningKey
      */
     @Bean
     @ConditionalOnMissingBean(HeliosTokenWriter.class)
-    public HeliosTokenWriter jwtTokenWriter(@Value("${application.token-provider.jwt.jwtSecret}") String jwtSecret,
-                                            @Value("${application.token-provider.jwt.expiration}") int expirationTimeInHours){
+    @ConditionalOnProperty(name = "application.token-provider.type", havingValue = "jwt", matchIfMissing = true)
+    public HeliosTokenWriter jwtTokenWriter(@Value("${application.token-provider.jwt.jwtSecret:}") String jwtSecret,
+                                            @Value("${application.token-provider.jwt.signing-key:#{null}}") Resource signingKey,
+                                            @Value("${application.token-provider.jwt.expiration:0}") int expirationTimeInHours,
+                                            @Value("${application.token-provider.jwt.access-token-ttl:#{null}}") Duration accessTokenTtl){
         log.info("HeliosTokenProvider implementation is missing, the default one will be create");
-        return new DefaultHeliosJwtTokenWriter(jwtSecret, expirationTimeInHours);
+        var expiration = expiration("application.token-provider.jwt", expirationTimeInHours, accessTokenTtl);
+        if (signingKey != null) {
+            return new DefaultHeliosJwtTokenWriter(HeliosSigningKey.load(signingKey), expiration);
+        }
+        if (!StringUtils.hasText(jwtSecret)) {
+            throw new IllegalStateException("Either application.token-provider.jwt.jwtSecret or application.token-provider.jwt.signing-key must be defined");
+        }
+        return new DefaultHeliosJwtTokenWriter(jwtSecret, expiration);
+    }
+
+    /**
+     * Register the PASETO token writer when the optional jpaseto dependencies are available.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "dev.paseto.jpaseto.Pasetos")
+    static class HeliosPasetoTokenConfiguration {
+
+        /**
+         * Create bean with a PASETO implementation of {@link HeliosTokenWriter} if it does not exist yet and
+         * <code>application.token-provider.type</code> is <code>paseto</code>.
+         * The <code>v2.public</code> tokens are signed with the Ed25519 private key of <code>application.token-provider.paseto.signing-key</code>
+         * when it is defined, the <code>v2.local</code> tokens are encrypted with the <code>application.token-provider.paseto.secret</code>
+         * shared secret otherwise.
+         *
+         * @param secret the Base64 encoded 256 bits secret key of the <code>v2.local</code> tokens
+         * @param signingKey a file or classpath resource holding the Ed25519 private JWK signing the tokens
+         * @param expirationTimeInHours the expiration time of the generated tokens in hours
+         * @param accessTokenTtl the lifetime of the generated tokens, such as <code>15m</code>, overriding the expiration in hours when it is defined
+         * @return the {@link DefaultHeliosPasetoTokenWriter} for further information
+         * @see HeliosTokenWriter
+         * @see HeliosSigningKey
+         */
+        @Bean
+        @ConditionalOnMissingBean(HeliosTokenWriter.class)
+        @ConditionalOnProperty(name = "application.token-provider.type", havingValue = "paseto")
+        public HeliosTokenWriter pasetoTokenWriter(@Value("${application.token-provider.paseto.secret:}") String secret,
+                                                   @Value("${application.token-provider.paseto.signing-key:#{null}}") Resource signingKey,
+                                                   @Value("${application.token-provider.paseto.expiration:0}") int expirationTimeInHours,
+                                                   @Value("${application.token-provider.paseto.access-token-ttl:#{null}}") Duration accessTokenTtl){
+            log.info("HeliosTokenProvider implementation is missing, the default PASETO one will be create");
+            var expiration = expiration("application.token-provider.paseto", expirationTimeInHours, accessTokenTtl);
+            if (signingKey != null) {
+                var key = HeliosSigningKey.load(signingKey);
+                if (!"Ed25519".equals(key.getJcaAlgorithm())) {
+                    throw new IllegalStateException("application.token-provider.paseto.signing-key must hold an Ed25519 private key");
+                }
+                return new DefaultHeliosPasetoTokenWriter((PrivateKey) key.getKey(), expiration);
+            }
+            if (!StringUtils.hasText(secret)) {
+                throw new IllegalStateException("Either application.token-provider.paseto.secret or application.token-provider.paseto.signing-key must be defined");
+            }
+            return new DefaultHeliosPasetoTokenWriter(secret, expiration);
+        }
+    }
+
+    private static Duration expiration(String prefix, int expirationTimeInHours, Duration accessTokenTtl) {
+        if (accessTokenTtl != null) {
+            if (accessTokenTtl.isNegative() || accessTokenTtl.isZero()) {
+                throw new IllegalStateException(prefix + ".access-token-ttl must be positive");
+            }
+            return accessTokenTtl;
+        }
+        if (expirationTimeInHours <= 0) {
+            throw new IllegalStateException("Either " + prefix + ".expiration or " + prefix + ".access-token-ttl must be defined");
+        }
+        return Duration.ofHours(expirationTimeInHours);
+    }
+
+    /**
+     * Create a {@link HeliosRefreshTokenStore} keeping the refresh tokens in memory if it does not exist yet and
+     * <code>application.token-provider.refresh.enabled</code> is set. A store shared by the instances of the server may be defined instead.
+     * @param maximumSize the maximum number of refresh tokens kept in memory
+     * @param refreshTokenTtl the lifetime of the refresh tokens
+     * @return the backend of the refresh tokens
+     * @see InMemoryHeliosRefreshTokenStore
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosRefreshTokenStore.class)
+    @ConditionalOnProperty(name = "application.token-provider.refresh.enabled", havingValue = "true")
+    public HeliosRefreshTokenStore heliosRefreshTokenStore(@Value("${application.token-provider.refresh.maximum-size:100000}") long maximumSize,
+                                                           @Value("${application.token-provider.refresh.ttl:14d}") Duration refreshTokenTtl){
+        return new InMemoryHeliosRefreshTokenStore(maximumSize, refreshTokenTtl);
     }
 
     /**
-     * Create bean with a default implementation of {@link OidcUserService}
+     * Create a {@link HeliosRefreshTokenService} issuing rotating refresh tokens with the access tokens if it does not exist yet and
+     * <code>application.token-provider.refresh.enabled</code> is set.
+     * @param tokenWriter the writer of the access tokens
+     * @param store the backend of the refresh tokens
+     * @param refreshTokenTtl the lifetime of the refresh tokens
+     * @return the service issuing the refresh tokens
+     * @see HeliosRefreshTokenService
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosRefreshTokenService.class)
+    @ConditionalOnProperty(name = "application.token-provider.refresh.enabled", havingValue = "true")
+    public HeliosRefreshTokenService heliosRefreshTokenService(HeliosTokenWriter tokenWriter, HeliosRefreshTokenStore store,
+                                                               @Value("${application.token-provider.refresh.ttl:14d}") Duration refreshTokenTtl){
+        log.info("Refresh tokens are issued with the access tokens, valid for {}", refreshTokenTtl);
+        return new HeliosRefreshTokenService(tokenWriter, store, refreshTokenTtl);
+    }
+
+    /**
+     * Create the {@link HeliosTokenController} exposing the refresh endpoint when <code>application.token-provider.refresh.enabled</code> is set.
+     * @param refreshTokenService the service issuing the refresh tokens
+     * @return the token API
+     * @see HeliosTokenController
+     */
+    @Bean
+    @ConditionalOnProperty(name = "application.token-provider.refresh.enabled", havingValue = "true")
+    public HeliosTokenController heliosTokenController(HeliosRefreshTokenService refreshTokenService){
+        return new HeliosTokenController(refreshTokenService);
+    }
+
+    /**
+     * Create bean with a default implementation of {@link OidcUserService}.
+     * The registrations are queued in the {@link HeliosRegistrationQueue} when it is defined, processed during the callback otherwise.
      * @param registerService a service that handles user registration
+     * @param registrationQueue the asynchronous registration pipeline, if any
      * @return the open id connect service used and called after an access token is obtained from the OpenId provider
      *
      * @see HeliosOidcService
      * @see OidcUserService
      */
     @Bean
-    public OidcUserService heliosOidcService(HeliosRegisterService registerService){
+    public OidcUserService heliosOidcService(HeliosRegisterService registerService,
+                                             ObjectProvider<HeliosRegistrationQueue> registrationQueue){
         log.info("HeliosOidcService is created");
-        return new HeliosOidcService(registerService);
+        var queue = registrationQueue.getIfAvailable();
+        return new HeliosOidcService(queue != null ? queue::submit : registerService);
+    }
+
+    /**
+     * Create a {@link HeliosRegistrationQueue} persisting the registrations in batches after the OpenId Connect callback,
+     * when <code>application.registration.async.enabled</code> is set.
+     * The queue is drained when the application context is closed.
+     * @param registerService a service that handles user registration
+     * @param capacity the maximum number of pending registrations
+     * @param batchSize the maximum number of registrations persisted at once
+     * @param workers the number of worker threads
+     * @param offerTimeout how long a registration waits for a free slot before it is processed during the callback
+     * @param shutdownTimeout how long the shutdown waits for the queue to be drained
+     * @return the asynchronous registration pipeline
+     *
+     * @see HeliosRegistrationQueue
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosRegistrationQueue.class)
+    @ConditionalOnProperty(name = "application.registration.async.enabled", havingValue = "true")
+    public HeliosRegistrationQueue heliosRegistrationQueue(HeliosRegisterService registerService,
+                                                           @Value("${application.registration.async.capacity:10000}") int capacity,
+                                                           @Value("${application.registration.async.batch-size:100}") int batchSize,
+                                                           @Value("${application.registration.async.workers:1}") int workers,
+                                                           @Value("${application.registration.async.offer-timeout:50ms}") Duration offerTimeout,
+                                                           @Value("${application.registration.async.shutdown-timeout:30s}") Duration shutdownTimeout){
+        log.info("Registrations are persisted asynchronously by {} worker(s)", workers);
+        return new HeliosRegistrationQueue(registerService, capacity, batchSize, workers, offerTimeout, shutdownTimeout);
+    }
+
+    /**
+     * Publish the metrics of the {@link HeliosRegistrationQueue} when Micrometer is available.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(MeterBinder.class)
+    @ConditionalOnProperty(name = "application.registration.async.enabled", havingValue = "true")
+    static class HeliosRegistrationMetricsConfiguration {
+
+        /**
+         * Create a {@link MeterBinder} publishing the queue depth, the lag and the counters of the registrations
+         * @param registrationQueue the asynchronous registration pipeline
+         * @return the metrics of the queue
+         */
+        @Bean
+        public HeliosRegistrationQueueMetrics heliosRegistrationQueueMetrics(HeliosRegistrationQueue registrationQueue){
+            return new HeliosRegistrationQueueMetrics(registrationQueue);
+        }
+    }
+
+    /**
+     * Create a {@link CompactHeliosAuthorizationRequestCodec} if no {@link HeliosAuthorizationRequestCodec} exists yet.
+     * The cookies are signed with the <code>application.oauth2.cookie.secret</code> shared by the instances of the server when it is defined,
+     * with a secret derived from the <code>application.token-provider.jwt.jwtSecret</code> otherwise, so every instance reads the cookies of the others.
+     * Without any of them the cookies are signed with a random secret of this instance, which only suits a single instance server.
+     *
+     * @param secret the Base64 encoded secret of 256 bits at least signing the cookies
+     * @param jwtSecret the secret signing the JWT tokens, shared by the instances of the server
+     * @param compress whether the cookie payload is deflated, <code>application.oauth2.cookie.compress</code>
+     * @return the codec of the authorization request cookie
+     * @see CompactHeliosAuthorizationRequestCodec
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosAuthorizationRequestCodec.class)
+    @ConditionalOnProperty(name = "application.oauth2.authorization-request.store", havingValue = "cookie", matchIfMissing = true)
+    public HeliosAuthorizationRequestCodec heliosAuthorizationRequestCodec(@Value("${application.oauth2.cookie.secret:}") String secret,
+                                                                           @Value("${application.token-provider.jwt.jwtSecret:}") String jwtSecret,
+                                                                           @Value("${application.oauth2.cookie.compress:false}") boolean compress){
+        if (StringUtils.hasText(secret)) {
+            return new CompactHeliosAuthorizationRequestCodec(Base64.getDecoder().decode(secret), compress);
+        }
+        if (StringUtils.hasText(jwtSecret)) {
+            log.info("application.oauth2.cookie.secret is not defined, the authorization request cookies are signed with a secret derived from the JWT secret");
+            return CompactHeliosAuthorizationRequestCodec.derivedFrom(jwtSecret, compress);
+        }
+        log.warn("Neither application.oauth2.cookie.secret nor application.token-provider.jwt.jwtSecret is defined, "
+                + "the authorization request cookies are signed with a random secret and the logins started on another instance will fail");
+        return new CompactHeliosAuthorizationRequestCodec(compress);
     }
 
     /**
-     * Create a bean implementation {@link AuthorizationRequestRepository} to store and retrieve oauth2 state from cookies
+     * Create a bean implementation {@link AuthorizationRequestRepository} to store and retrieve oauth2 state from cookies,
+     * unless <code>application.oauth2.authorization-request.store</code> is <code>server</code>.
+     * @param codec the codec of the authorization request cookie
      * @return a {@link AuthorizationRequestRepository} based on cookies
      *
      * @see HttpCookieOAuth2AuthorizationRequestRepository
      */
     @Bean
-    HttpCookieOAuth2AuthorizationRequestRepository httpCookieAuthReqRepo(){
+    @ConditionalOnMissingBean(HeliosAuthorizationRequestRepository.class)
+    @ConditionalOnProperty(name = "application.oauth2.authorization-request.store", havingValue = "cookie", matchIfMissing = true)
+    HeliosAuthorizationRequestRepository httpCookieAuthReqRepo(HeliosAuthorizationRequestCodec codec){
         log.info("OAuth2 cookie http based is created");
-        return new HttpCookieOAuth2AuthorizationRequestRepository();
+        return new HttpCookieOAuth2AuthorizationRequestRepository(codec);
+    }
+
+    /**
+     * Create a {@link HeliosAuthorizationRequestStore} if it does not exist yet and <code>application.oauth2.authorization-request.store</code>
+     * is <code>server</code>. The authorization requests are kept in the cache of <code>application.oauth2.authorization-request.cache-name</code>
+     * when it is defined, which may be shared by the instances of the server, in the memory of this instance otherwise.
+     *
+     * @param cacheManager the cache manager of the application, if any
+     * @param cacheName the name of the shared cache holding the authorization requests
+     * @param maximumSize the maximum number of authorization requests kept in memory
+     * @return the backend of the authorization requests
+     * @see InMemoryHeliosAuthorizationRequestStore
+     * @see CacheHeliosAuthorizationRequestStore
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosAuthorizationRequestStore.class)
+    @ConditionalOnProperty(name = "application.oauth2.authorization-request.store", havingValue = "server")
+    public HeliosAuthorizationRequestStore heliosAuthorizationRequestStore(ObjectProvider<CacheManager> cacheManager,
+                                                                           @Value("${application.oauth2.authorization-request.cache-name:}") String cacheName,
+                                                                           @Value("${application.oauth2.authorization-request.maximum-size:10000}") long maximumSize){
+        if (StringUtils.hasText(cacheName)) {
+            var cache = cacheManager.getObject().getCache(cacheName);
+            if (cache == null) {
+                throw new IllegalStateException("The cache " + cacheName + " of application.oauth2.authorization-request.cache-name does not exist");
+            }
+            log.info("The authorization requests are kept in the cache {}", cacheName);
+            return new CacheHeliosAuthorizationRequestStore(cache);
+        }
+        return new InMemoryHeliosAuthorizationRequestStore(maximumSize, Duration.ofSeconds(HeliosAuthorizationRequestRepository.COOKIE_EXPIRE_SECONDES));
+    }
+
+    /**
+     * Create a bean implementation {@link AuthorizationRequestRepository} keeping the authorization requests on the server side by their OAuth2 state,
+     * when <code>application.oauth2.authorization-request.store</code> is <code>server</code>.
+     * @param store the backend of the authorization requests
+     * @return a {@link AuthorizationRequestRepository} keyed by the OAuth2 state
+     *
+     * @see StateKeyedOAuth2AuthorizationRequestRepository
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosAuthorizationRequestRepository.class)
+    @ConditionalOnProperty(name = "application.oauth2.authorization-request.store", havingValue = "server")
+    HeliosAuthorizationRequestRepository stateKeyedAuthReqRepo(HeliosAuthorizationRequestStore store){
+        log.info("OAuth2 authorization requests stored by state are created");
+        return new StateKeyedOAuth2AuthorizationRequestRepository(store);
     }
 
     /**
      * Create a bean to handle Oauth2 success authentication
-     * @param httpCookieAuthReqRepo the authorization request repository based on cookie implementation
+     * @param authorizationRequestRepository the authorization request repository cleaning its cookies
      * @param heliosTokenWriter a service to manipulate token
+     * @param refreshTokenService the service issuing the refresh tokens, if any
      * @return a success oauth2 authentication handler {@link OAuth2AuthenticationSuccessHandler}
      *
-     * @see HttpCookieOAuth2AuthorizationRequestRepository
+     * @see HeliosAuthorizationRequestRepository
      * @see HeliosTokenWriter
      */
     @Bean
-    public OAuth2AuthenticationSuccessHandler authenticationSuccessHandler(HttpCookieOAuth2AuthorizationRequestRepository httpCookieAuthReqRepo,
-                                                                           HeliosTokenWriter heliosTokenWriter){
+    public OAuth2AuthenticationSuccessHandler authenticationSuccessHandler(HeliosAuthorizationRequestRepository authorizationRequestRepository,
+                                                                           HeliosTokenWriter heliosTokenWriter,
+                                                                           ObjectProvider<HeliosRefreshTokenService> refreshTokenService){
         log.info("Defining the OAuth2AuthenticationSuccessHandler");
-        return new OAuth2AuthenticationSuccessHandler(heliosTokenWriter, httpCookieAuthReqRepo);
+        return new OAuth2AuthenticationSuccessHandler(heliosTokenWriter, authorizationRequestRepository, refreshTokenService.getIfAvailable());
     }
 
     /**
      * Create a bean to handle Oauth2 failure authentication
-     * @param httpCookieAuthReqRepo the authorization request repository based on cookie implementation
+     * @param authorizationRequestRepository the authorization request repository cleaning its cookies
      * @return a failure oauth2 authentication handler {@link OAuth2AuthenticationFailureHandler}
      *
-     * @see HttpCookieOAuth2AuthorizationRequestRepository
+     * @see HeliosAuthorizationRequestRepository
      */
     @Bean
-    public OAuth2AuthenticationFailureHandler auth2AuthenticationFailureHandler(HttpCookieOAuth2AuthorizationRequestRepository httpCookieAuthReqRepo){
+    public OAuth2AuthenticationFailureHandler auth2AuthenticationFailureHandler(HeliosAuthorizationRequestRepository authorizationRequestRepository){
         log.info("Defining the OAuth2AuthenticationFailureHandler");
-        return new OAuth2AuthenticationFailureHandler(httpCookieAuthReqRepo);
+        return new OAuth2AuthenticationFailureHandler(authorizationRequestRepository);
     }
 }
@@ -0,0 +1,49 @@
+package com.s3b.helios.oauth2.configuration;
+
+import com.s3b.helios.model.HeliosAddressDto;
+import com.s3b.helios.model.HeliosUserDto;
+import org.springframework.aot.hint.BindingReflectionHintsRegistrar;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationResponseType;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * The {@link RuntimeHintsRegistrar} of the helios OpenId Connect server for a GraalVM native image.
+ * <p> - the authorization requests may be serialized in a cookie by {@link com.s3b.helios.oauth2.repository.SerializingHeliosAuthorizationRequestCodec}
+ * or in a shared cache by {@link com.s3b.helios.oauth2.repository.CacheHeliosAuthorizationRequestStore},
+ * the classes of their object graph are registered for the Java serialization
+ * <p> - the users are written by the {@link com.fasterxml.jackson.databind.ObjectMapper} of the export outside of the controller return types,
+ * the DTOs are registered for the data binding
+ *
+ * @author Sébastien SAEZ
+ */
+class HeliosOauth2RuntimeHints implements RuntimeHintsRegistrar {
+
+    /**
+     * The JDK classes wrapping the collections of an {@link OAuth2AuthorizationRequest}
+     */
+    private static final List<String> UNMODIFIABLE_COLLECTIONS = List.of(
+            "java.util.Collections$UnmodifiableCollection",
+            "java.util.Collections$UnmodifiableMap",
+            "java.util.Collections$UnmodifiableSet");
+
+    @Override
+    public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+        var serialization = hints.serialization();
+        List.of(OAuth2AuthorizationRequest.class, AuthorizationGrantType.class, OAuth2AuthorizationResponseType.class,
+                        String.class, HashMap.class, LinkedHashMap.class, HashSet.class, LinkedHashSet.class)
+                .forEach(serialization::registerType);
+        UNMODIFIABLE_COLLECTIONS.forEach(type -> serialization.registerType(TypeReference.of(type)));
+
+        new BindingReflectionHintsRegistrar().registerReflectionHints(hints.reflection(), HeliosUserDto.class, HeliosAddressDto.class);
+    }
+}
@@ -1,12 +1,16 @@
 package com.s3b.helios.oauth2.configuration;
 
 import com.s3b.helios.client.filter.DefaultHeliosTokenFilter;
+import com.s3b.helios.client.revocation.HeliosRevocationList;
 import com.s3b.helios.client.token.HeliosTokenReader;
+import com.s3b.helios.oauth2.controller.HeliosTokenController;
 import com.s3b.helios.oauth2.entrypoint.RestAuthenticationEntryPoint;
 import com.s3b.helios.oauth2.handler.OAuth2AuthenticationFailureHandler;
 import com.s3b.helios.oauth2.handler.OAuth2AuthenticationSuccessHandler;
-import com.s3b.helios.oauth2.repository.HttpCookieOAuth2AuthorizationRequestRepository;
+import com.s3b.helios.oauth2.repository.HeliosAuthorizationRequestRepository;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.core.annotation.Order;
@@ -19,6 +23,9 @@ import org.springframework.security.oauth2.client.oidc.userinfo.OidcUserService;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.util.ArrayList;
+import java.util.List;
+
 
 
 /**
@@ -36,40 +43,53 @@ public class HeliosOauth2WebSecurity {
     /**
      * Define the oauth2 spring configuration. Add filter based token too.
      * @param http the http security configuration
-     * @param httpCookieAuthReqRepo the authorization request repository based on cookie implementation. Store and retrieve state from oauth2
+     * @param authorizationRequestRepository the authorization request repository, based on cookies or on the OAuth2 state. Store and retrieve state from oauth2
      * @param authenticationSuccessHandler the handler to redirect when the authentication is a success
      * @param auth2AuthenticationFailureHandler the handler to redirect when the authentication is a failure
      * @param heliosOidcService the open id connect service used and called after an access token is obtained from the OpenId provider
      * @param tokenReader a service to read token
+     * @param excludedPaths the path patterns of <code>application.token-provider.filter.excluded-paths</code> let through without token
+     * @param refreshEnabled whether the token API is exposed, <code>application.token-provider.refresh.enabled</code>.
+     *                       Its requests are let through without token, they are authenticated by the refresh token
+     * @param revocationList the revoked tokens, if any
      * @return a {@link SecurityFilterChain} for further information
      * @throws Exception  if an error occurred when building the Object
      *
-     * @see HttpCookieOAuth2AuthorizationRequestRepository
+     * @see HeliosAuthorizationRequestRepository
      * @see OAuth2AuthenticationFailureHandler
      * @see OAuth2AuthenticationSuccessHandler
      * @see com.s3b.helios.oauth2.service.HeliosOidcService
      * @see OidcUserService
      * @see DefaultHeliosTokenFilter
+     * @see HeliosTokenController
      */
     @Bean(name = "heliosFilterChain")
     public SecurityFilterChain heliosFilterChain(HttpSecurity http,
-                                                 HttpCookieOAuth2AuthorizationRequestRepository httpCookieAuthReqRepo,
+                                                 HeliosAuthorizationRequestRepository authorizationRequestRepository,
                                                  OAuth2AuthenticationSuccessHandler authenticationSuccessHandler,
                                                  OAuth2AuthenticationFailureHandler auth2AuthenticationFailureHandler,
                                                  OidcUserService heliosOidcService,
-                                                 HeliosTokenReader tokenReader) throws Exception {
+                                                 HeliosTokenReader tokenReader,
+                                                 @Value("${application.token-provider.filter.excluded-paths:}") List<String> excludedPaths,
+                                                 @Value("${application.token-provider.refresh.enabled:false}") boolean refreshEnabled,
+                                                 ObjectProvider<HeliosRevocationList> revocationList) throws Exception {
         http.csrf(AbstractHttpConfigurer::disable)
                 .exceptionHandling(e -> e.authenticationEntryPoint(new RestAuthenticationEntryPoint()))
                 .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
                 .oauth2Login(oauth2 -> {
                     oauth2.authorizationEndpoint( authorizationEndpoint ->
-                        authorizationEndpoint.authorizationRequestRepository(httpCookieAuthReqRepo));
+                        authorizationEndpoint.authorizationRequestRepository(authorizationRequestRepository));
                     oauth2.successHandler(authenticationSuccessHandler);
                     oauth2.failureHandler(auth2AuthenticationFailureHandler);
                     oauth2.userInfoEndpoint(userEndpoint -> userEndpoint.oidcUserService(heliosOidcService));
                 });
         log.info("OAuth2 configuration is defined");
-        http.addFilterBefore(new DefaultHeliosTokenFilter(tokenReader), UsernamePasswordAuthenticationFilter.class);
+        var filterExcludedPaths = new ArrayList<>(excludedPaths);
+        if (refreshEnabled) {
+            filterExcludedPaths.add(HeliosTokenController.TOKEN_PATH + "/**");
+        }
+        http.addFilterBefore(new DefaultHeliosTokenFilter(tokenReader, filterExcludedPaths, revocationList.getIfAvailable()),
+                UsernamePasswordAuthenticationFilter.class);
         log.info("DefaultHeliosTokenFilter added before the UsernamePasswordAuthenticationFilter");
         return http.build();
     }
@@ -1,19 +1,34 @@
 package com.s3b.helios.oauth2.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.s3b.helios.exception.HeliosVersionConflictException;
 import com.s3b.helios.model.HeliosUserDto;
 import com.s3b.helios.service.HeliosUserService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Set;
 
 /**
  * The Helios API.
@@ -26,6 +41,11 @@ import org.springframework.web.server.ResponseStatusException;
 @Slf4j
 public class HeliosController {
 
+    /**
+     * The maximum number of subjects of a bulk fetch
+     */
+    static final int MAX_BULK_SUBJECTS = 1000;
+
     /**
      * This is an interface to perform operations
      * @see HeliosUserService
@@ -33,27 +53,111 @@ public class HeliosController {
     private final HeliosUserService heliosUserService;
 
     /**
-     * Fetch a user by subject
+     * The mapper writing the exported users
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Whether the export of every user is exposed, <code>application.export.enabled</code>
+     */
+    @Value("${application.export.enabled:false}")
+    private boolean exportEnabled;
+
+    /**
+     * The subjects granted the export of every user, <code>application.export.subjects</code>, nobody by default
+     */
+    @Value("${application.export.subjects:}")
+    private Set<String> exportSubjects;
+
+    /**
+     * Fetch a user by subject.
+     * The response holds the version of the user as ETag. When the If-None-Match header matches the current version,
+     * the user is answered as not modified without reading his details.
      * @param subject the specified subject from the path variable
+     * @param ifNoneMatch the ETags of the copies held by the client, may be <code>null</code>
      * @return a {@link ResponseEntity} with a user projection
      *
      * @see HeliosUserDto
+     * @see HeliosUserService#findUserVersion(String)
      */
     @GetMapping("/{subject}")
-    public ResponseEntity<HeliosUserDto> findBySubject(@PathVariable("subject") String subject){
+    public ResponseEntity<HeliosUserDto> findBySubject(@PathVariable("subject") String subject,
+                                                       @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch){
         log.info("Getting user by subject : {}", subject);
+        if (ifNoneMatch != null) {
+            var version = heliosUserService.findUserVersion(subject);
+            if (version.isPresent() && matches(ifNoneMatch, version.get())) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag(version.get())).build();
+            }
+        }
         var result = heliosUserService.findUserBySubject(subject)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NO_CONTENT));
-        return ResponseEntity.ok(result);
+        return withETag(result);
+    }
+
+
+    /**
+     * Fetch the users of several subjects in a single call
+     * @param subjects the subjects from the body, {@value #MAX_BULK_SUBJECTS} at most
+     * @return a {@link ResponseEntity} with the user projections found, the unknown subjects are skipped
+     *
+     * @see HeliosUserService#findUsersBySubjects(java.util.Collection)
+     */
+    @PostMapping("/bulk")
+    public ResponseEntity<List<HeliosUserDto>> findBySubjects(@RequestBody List<String> subjects){
+        if (subjects.size() > MAX_BULK_SUBJECTS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "At most " + MAX_BULK_SUBJECTS + " subjects can be fetched at once");
+        }
+        log.info("Getting users by subjects : {} subject(s)", subjects.size());
+        return ResponseEntity.ok(heliosUserService.findUsersBySubjects(subjects));
+    }
+
+    /**
+     * Export every user as newline delimited JSON, one user per line.
+     * The users are written as they are read, the response is not buffered.
+     * The export is only exposed when <code>application.export.enabled</code> is set
+     * and only granted to the subjects of <code>application.export.subjects</code>.
+     * @return a {@link ResponseEntity} streaming the user projections
+     *
+     * @see HeliosUserService#exportUsers(java.util.function.Consumer)
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("#root.this.isExportGranted(authentication.principal)")
+    public ResponseEntity<StreamingResponseBody> exportUsers(){
+        if (!exportEnabled) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND);
+        }
+        log.info("Exporting the users");
+        StreamingResponseBody body = outputStream -> heliosUserService.exportUsers(user -> {
+            try {
+                outputStream.write(objectMapper.writeValueAsBytes(user));
+                outputStream.write('\n');
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 
+    /**
+     * Tell whether the specified principal is granted the export of every user
+     * @param principal the subject of the authenticated user
+     * @return <code>true</code> if the subject is one of <code>application.export.subjects</code>
+     *         <code>false</code> otherwise.
+     */
+    public boolean isExportGranted(Object principal) {
+        return exportSubjects != null && exportSubjects.contains(principal);
+    }
 
     /**
      * Update a user's details with the information passed into the body.
      * The update is performed on the specified id only if it matches the authentication header from the http request.
      *
+     * When the If-Match header holds the ETag of a version, the update is rejected if the user is no longer at this version.
+     *
      * @param subject user subject id to update
      * @param heliosUserDto the new user to save
+     * @param ifMatch the ETag of the version the update is made from, may be <code>null</code>
      * @return a {@link ResponseEntity} of the user with updated details
      *
      * @see HeliosUserDto
@@ -61,11 +165,101 @@ public class HeliosController {
     @PreAuthorize("#subject == authentication.principal")
     @PutMapping("/{subject}")
     public ResponseEntity<HeliosUserDto> updateUser(@PathVariable("subject") String subject,
-                                                    @RequestBody HeliosUserDto heliosUserDto){
+                                                    @RequestBody HeliosUserDto heliosUserDto,
+                                                    @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
         log.info("Updating the user for the subject : {}", subject);
+        applyIfMatch(heliosUserDto, ifMatch);
         var result = heliosUserService.updateUser(subject, heliosUserDto)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NO_CONTENT));
-        return ResponseEntity.ok(result);
+        return withETag(result);
+    }
+
+    /**
+     * Change only the user's details passed into the body, the missing fields are left unchanged.
+     * The addresses are matched by id : an address without id is added and an address missing from the list is removed.
+     * The update is performed on the specified id only if it matches the authentication header from the http request.
+     * When the If-Match header holds the ETag of a version, the update is rejected if the user is no longer at this version.
+     *
+     * @param subject user subject id to update
+     * @param heliosUserDto the fields to change
+     * @param ifMatch the ETag of the version the update is made from, may be <code>null</code>
+     * @return a {@link ResponseEntity} of the user with updated details
+     *
+     * @see HeliosUserService#patchUser(String, HeliosUserDto)
+     */
+    @PreAuthorize("#subject == authentication.principal")
+    @PatchMapping("/{subject}")
+    public ResponseEntity<HeliosUserDto> patchUser(@PathVariable("subject") String subject,
+                                                   @RequestBody HeliosUserDto heliosUserDto,
+                                                   @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch){
+        log.info("Patching the user for the subject : {}", subject);
+        applyIfMatch(heliosUserDto, ifMatch);
+        var result = heliosUserService.patchUser(subject, heliosUserDto)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NO_CONTENT));
+        return withETag(result);
+    }
+
+    /**
+     * Answer a change made from a version which is no longer the current one with a precondition failure.
+     * @param e the conflict raised by the user service
+     * @return a {@link ResponseEntity} with the precondition failed status
+     */
+    @ExceptionHandler(HeliosVersionConflictException.class)
+    public ResponseEntity<Void> handleVersionConflict(HeliosVersionConflictException e){
+        log.info("Change rejected : {}", e.getMessage());
+        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+    }
+
+    private static ResponseEntity<HeliosUserDto> withETag(HeliosUserDto user){
+        var response = ResponseEntity.ok();
+        if (user.getVersion() != null) {
+            response.eTag(eTag(user.getVersion()));
+        }
+        return response.body(user);
+    }
+
+    private static void applyIfMatch(HeliosUserDto heliosUserDto, String ifMatch){
+        if (ifMatch == null || ifMatch.trim().equals("*")) {
+            return;
+        }
+        var version = parseETag(ifMatch.trim());
+        if (version == null) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED);
+        }
+        heliosUserDto.setVersion(version);
+    }
+
+    private static boolean matches(String ifNoneMatch, long version){
+        if (ifNoneMatch.trim().equals("*")) {
+            return true;
+        }
+        for (String eTag : ifNoneMatch.split(",")) {
+            var candidate = parseETag(eTag.trim());
+            if (candidate != null && candidate == version) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String eTag(long version){
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * @param eTag a strong or weak ETag
+     * @return the version of the ETag, <code>null</code> if it is not the ETag of a version
+     */
+    private static Long parseETag(String eTag){
+        var value = eTag.startsWith("W/") ? eTag.substring(2) : eTag;
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return null;
+        }
+        try {
+            return Long.parseLong(value.substring(1, value.length() - 1));
+        } catch (NumberFormatException e) {
+            return null;
+        }
     }
 }
 
@@ -0,0 +1,143 @@
+package com.s3b.helios.oauth2.controller;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.s3b.helios.oauth2.exception.HeliosRefreshTokenException;
+import com.s3b.helios.oauth2.service.HeliosRefreshTokenService;
+import com.s3b.helios.oauth2.service.HeliosTokenPair;
+import com.s3b.helios.oauth2.util.CookieUtils;
+import jakarta.servlet.http.Cookie;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+/**
+ * The Helios token API, renewing the short-lived access tokens with the rotating refresh tokens.
+ * <p>
+ * The refresh token is read from the <code>helios_refresh_token</code> cookie set at login, or from the <code>refresh_token</code> parameter.
+ * The cookie is only sent back to this API by the same site.
+ *
+ * @author Sébastien SAEZ
+ * @see HeliosRefreshTokenService
+ */
+@RestController
+@RequiredArgsConstructor
+@RequestMapping(HeliosTokenController.TOKEN_PATH)
+@Slf4j
+public class HeliosTokenController {
+
+    /**
+     * The path of the token API, and of the refresh token cookie
+     */
+    public static final String TOKEN_PATH = "/helios/token";
+
+    /**
+     * The name of the cookie holding the refresh token
+     */
+    public static final String REFRESH_TOKEN_COOKIE_NAME = "helios_refresh_token";
+
+    /**
+     * The name of the parameter holding the refresh token
+     */
+    static final String REFRESH_TOKEN_PARAMETER = "refresh_token";
+
+    /**
+     * The service issuing the tokens
+     */
+    private final HeliosRefreshTokenService refreshTokenService;
+
+    /**
+     * Exchange the refresh token for a new access token and a new refresh token, the refresh token cannot be used again.
+     * @param refreshToken the refresh token parameter, the cookie is read when it is missing
+     * @param request the http request
+     * @param response the http response, holding the new refresh token cookie
+     * @return a {@link ResponseEntity} with the new tokens
+     * @throws HeliosRefreshTokenException if the refresh token is not valid
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<HeliosTokenResponse> refresh(@RequestParam(value = REFRESH_TOKEN_PARAMETER, required = false) String refreshToken,
+                                                       HttpServletRequest request, HttpServletResponse response){
+        var tokens = refreshTokenService.refresh(refreshToken != null ? refreshToken : cookieValue(request));
+        writeRefreshTokenCookie(request, response, tokens);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noStore())
+                .body(HeliosTokenResponse.of(tokens));
+    }
+
+    /**
+     * Revoke the refresh token and the refresh tokens issued from the same login, such as on logout.
+     * The current access token stays valid until it expires.
+     * @param refreshToken the refresh token parameter, the cookie is read when it is missing
+     * @param request the http request
+     * @param response the http response, deleting the refresh token cookie
+     * @return a {@link ResponseEntity} without content
+     */
+    @PostMapping("/revoke")
+    public ResponseEntity<Void> revoke(@RequestParam(value = REFRESH_TOKEN_PARAMETER, required = false) String refreshToken,
+                                       HttpServletRequest request, HttpServletResponse response){
+        refreshTokenService.revoke(refreshToken != null ? refreshToken : cookieValue(request));
+        CookieUtils.addStrictCookie(request, response, REFRESH_TOKEN_COOKIE_NAME, "", 0, TOKEN_PATH);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Answer a rejected refresh token as an <code>invalid_grant</code> error and delete the refresh token cookie.
+     * @param e the rejection raised by the refresh token service
+     * @param request the http request
+     * @param response the http response
+     * @return a {@link ResponseEntity} with the unauthorized status
+     */
+    @ExceptionHandler(HeliosRefreshTokenException.class)
+    public ResponseEntity<Map<String, String>> handleInvalidRefreshToken(HeliosRefreshTokenException e,
+                                                                         HttpServletRequest request, HttpServletResponse response){
+        log.info("Refresh rejected : {}", e.getMessage());
+        CookieUtils.addStrictCookie(request, response, REFRESH_TOKEN_COOKIE_NAME, "", 0, TOKEN_PATH);
+        return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
+                .body(Map.of("error", "invalid_grant", "error_description", e.getMessage()));
+    }
+
+    /**
+     * Set the refresh token of the specified tokens in the refresh token cookie
+     * @param request the http request
+     * @param response the http response
+     * @param tokens the tokens holding the refresh token
+     */
+    public static void writeRefreshTokenCookie(HttpServletRequest request, HttpServletResponse response, HeliosTokenPair tokens){
+        CookieUtils.addStrictCookie(request, response, REFRESH_TOKEN_COOKIE_NAME, tokens.refreshToken(),
+                (int) tokens.refreshTokenExpiration().toSeconds(), TOKEN_PATH);
+    }
+
+    private static String cookieValue(HttpServletRequest request){
+        return CookieUtils.getCookie(request, REFRESH_TOKEN_COOKIE_NAME).map(Cookie::getValue).orElse(null);
+    }
+
+    /**
+     * The token response, named as the OAuth 2.0 token response
+     * @param accessToken the new access token
+     * @param tokenType the type of the access token, always <code>Bearer</code>
+     * @param expiresIn the lifetime of the access token in seconds, <code>null</code> if unknown
+     * @param refreshToken the new refresh token
+     */
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record HeliosTokenResponse(@JsonProperty("access_token") String accessToken,
+                                      @JsonProperty("token_type") String tokenType,
+                                      @JsonProperty("expires_in") Long expiresIn,
+                                      @JsonProperty("refresh_token") String refreshToken) {
+
+        static HeliosTokenResponse of(HeliosTokenPair tokens) {
+            var expiration = tokens.accessTokenExpiration();
+            return new HeliosTokenResponse(tokens.accessToken(), "Bearer", expiration == null ? null : expiration.toSeconds(), tokens.refreshToken());
+        }
+    }
+}
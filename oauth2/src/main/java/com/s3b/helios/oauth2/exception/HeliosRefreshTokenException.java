@@ -0,0 +1,17 @@
+package com.s3b.helios.oauth2.exception;
+
+/**
+ * Thrown when a refresh token is unknown, expired, revoked or has already been used.
+ * @author Sébastien SAEZ
+ * @see com.s3b.helios.oauth2.service.HeliosRefreshTokenService#refresh(String)
+ */
+public class HeliosRefreshTokenException extends RuntimeException {
+
+    /**
+     * Create the exception with the reason of the rejection.
+     * @param message the reason of the rejection, never holding the token
+     */
+    public HeliosRefreshTokenException(String message) {
+        super(message);
+    }
+}
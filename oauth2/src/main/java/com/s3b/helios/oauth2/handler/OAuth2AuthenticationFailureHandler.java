@@ -1,6 +1,6 @@
 package com.s3b.helios.oauth2.handler;
 
-import com.s3b.helios.oauth2.repository.HttpCookieOAuth2AuthorizationRequestRepository;
+import com.s3b.helios.oauth2.repository.HeliosAuthorizationRequestRepository;
 import com.s3b.helios.oauth2.util.CookieUtils;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
@@ -21,10 +21,10 @@ import java.io.IOException;
 public class OAuth2AuthenticationFailureHandler extends SimpleUrlAuthenticationFailureHandler {
 
     /**
-     * The repository for authorization requests based on cookies should be cleaned after handling.
-     * @see HttpCookieOAuth2AuthorizationRequestRepository
+     * The repository for authorization requests, its cookies should be cleaned after handling.
+     * @see HeliosAuthorizationRequestRepository
      */
-    private final HttpCookieOAuth2AuthorizationRequestRepository httpCookieOAuth2AuthorizationRequestRepository;
+    private final HeliosAuthorizationRequestRepository authorizationRequestRepository;
 
     /**
      * Default behaviour for unsuccessful authentication.
@@ -44,7 +44,7 @@ public class OAuth2AuthenticationFailureHandler extends SimpleUrlAuthenticationF
                                         HttpServletResponse response,
                                         AuthenticationException exception) throws IOException {
         log.info("The authentication failed");
-        var targetUrlFromCookie = CookieUtils.getCookie(request, HttpCookieOAuth2AuthorizationRequestRepository.REDIRECT_URI_PARAM_COOKIE_NAME)
+        var targetUrlFromCookie = CookieUtils.getCookie(request, HeliosAuthorizationRequestRepository.REDIRECT_URI_PARAM_COOKIE_NAME)
                 .map(Cookie::getValue)
                 .orElse(("/api"));
 
@@ -53,7 +53,7 @@ public class OAuth2AuthenticationFailureHandler extends SimpleUrlAuthenticationF
                 .queryParam("error", exception.getLocalizedMessage())
                 .build().toUriString();
 
-        httpCookieOAuth2AuthorizationRequestRepository.removeAuthorizationRequestCookies(request, response);
+        authorizationRequestRepository.removeAuthorizationRequestCookies(request, response);
         log.info("The authorization request has been removed from the cookies");
         getRedirectStrategy().sendRedirect(request, response, targetUrl);
     }
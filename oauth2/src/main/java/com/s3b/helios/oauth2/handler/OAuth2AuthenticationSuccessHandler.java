@@ -1,12 +1,13 @@
 package com.s3b.helios.oauth2.handler;
 
 import com.s3b.helios.client.token.HeliosTokenWriter;
-import com.s3b.helios.oauth2.repository.HttpCookieOAuth2AuthorizationRequestRepository;
+import com.s3b.helios.oauth2.controller.HeliosTokenController;
+import com.s3b.helios.oauth2.repository.HeliosAuthorizationRequestRepository;
+import com.s3b.helios.oauth2.service.HeliosRefreshTokenService;
 import com.s3b.helios.oauth2.util.CookieUtils;
 import jakarta.servlet.http.Cookie;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.web.authentication.SimpleUrlAuthenticationSuccessHandler;
@@ -14,14 +15,14 @@ import org.springframework.web.util.UriComponentsBuilder;
 
 import java.io.IOException;
 
-import static com.s3b.helios.oauth2.repository.HttpCookieOAuth2AuthorizationRequestRepository.REDIRECT_URI_PARAM_COOKIE_NAME;
+import static com.s3b.helios.oauth2.repository.HeliosAuthorizationRequestRepository.REDIRECT_URI_PARAM_COOKIE_NAME;
 
 
 /**
- * A class to customize the handle of authentication success
+ * A class to customize the handle of authentication success.
+ * When a {@link HeliosRefreshTokenService} is defined, the access token comes with a refresh token set in an HttpOnly cookie.
  * @author Sébastien SAEZ
  */
-@RequiredArgsConstructor
 @Slf4j
 public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationSuccessHandler {
 
@@ -31,10 +32,37 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
     private final HeliosTokenWriter tokenWriter;
 
     /**
-     * The repository for authorization requests based on cookies should be cleaned after handling.
-     * @see HttpCookieOAuth2AuthorizationRequestRepository
+     * The repository for authorization requests, its cookies should be cleaned after handling.
+     * @see HeliosAuthorizationRequestRepository
      */
-    private final HttpCookieOAuth2AuthorizationRequestRepository httpCookieOAuth2AuthorizationRequestRepository;
+    private final HeliosAuthorizationRequestRepository authorizationRequestRepository;
+
+    /**
+     * The service issuing the refresh tokens, <code>null</code> when the refresh tokens are disabled
+     */
+    private final HeliosRefreshTokenService refreshTokenService;
+
+    /**
+     * Create a handler issuing the access tokens only
+     * @param tokenWriter the service to generate a token
+     * @param authorizationRequestRepository the repository for authorization requests
+     */
+    public OAuth2AuthenticationSuccessHandler(HeliosTokenWriter tokenWriter, HeliosAuthorizationRequestRepository authorizationRequestRepository) {
+        this(tokenWriter, authorizationRequestRepository, null);
+    }
+
+    /**
+     * Create a handler issuing the access tokens with a refresh token when the service is defined
+     * @param tokenWriter the service to generate a token
+     * @param authorizationRequestRepository the repository for authorization requests
+     * @param refreshTokenService the service issuing the refresh tokens, may be <code>null</code>
+     */
+    public OAuth2AuthenticationSuccessHandler(HeliosTokenWriter tokenWriter, HeliosAuthorizationRequestRepository authorizationRequestRepository,
+                                              HeliosRefreshTokenService refreshTokenService) {
+        this.tokenWriter = tokenWriter;
+        this.authorizationRequestRepository = authorizationRequestRepository;
+        this.refreshTokenService = refreshTokenService;
+    }
 
     /**
      * Clean authentication and redirect to the target url
@@ -42,7 +70,7 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
      * @param response the response
      * @param authentication the <tt>Authentication</tt> object which was created during
      * the authentication process.
-     * @see HttpCookieOAuth2AuthorizationRequestRepository
+     * @see HeliosAuthorizationRequestRepository
      */
     @Override
     public void onAuthenticationSuccess(HttpServletRequest request, HttpServletResponse response, Authentication authentication) throws IOException {
@@ -68,7 +96,7 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
      * @return the target url otherwise "/api"
      *
      * @see HeliosTokenWriter
-     * @see HttpCookieOAuth2AuthorizationRequestRepository
+     * @see HeliosAuthorizationRequestRepository
      */
     @Override
     protected String determineTargetUrl(HttpServletRequest request, HttpServletResponse response, Authentication authentication) {
@@ -76,7 +104,14 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
                 .map(Cookie::getValue)
                 .orElse("/api");
 
-        var token = tokenWriter.generate(authentication.getName());
+        String token;
+        if (refreshTokenService != null) {
+            var tokens = refreshTokenService.issue(authentication.getName());
+            HeliosTokenController.writeRefreshTokenCookie(request, response, tokens);
+            token = tokens.accessToken();
+        } else {
+            token = tokenWriter.generate(authentication.getName());
+        }
         return UriComponentsBuilder.fromUriString(redirectUri).queryParam("token", token)
                 .build().toUriString();
     }
@@ -85,12 +120,12 @@ public class OAuth2AuthenticationSuccessHandler extends SimpleUrlAuthenticationS
      * Clean cookies and authentication context
      * @param request the request which caused the successful authentication
      * @param response the response
-     * @see HttpCookieOAuth2AuthorizationRequestRepository
+     * @see HeliosAuthorizationRequestRepository
      */
     protected void clearAuthenticationAttributes(HttpServletRequest request, HttpServletResponse response) {
         log.debug("Cleaning authentication attributes from the request");
         super.clearAuthenticationAttributes(request);
         log.debug("Cleaning the authentication request from cookies");
-        httpCookieOAuth2AuthorizationRequestRepository.removeAuthorizationRequestCookies(request, response);
+        authorizationRequestRepository.removeAuthorizationRequestCookies(request, response);
     }
 }
\ No newline at end of file
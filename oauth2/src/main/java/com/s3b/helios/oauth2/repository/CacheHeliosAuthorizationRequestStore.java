@@ -0,0 +1,53 @@
+package com.s3b.helios.oauth2.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.Cache;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+/**
+ * A {@link HeliosAuthorizationRequestStore} holding the authorization requests in a Spring {@link Cache},
+ * such as a Redis, Hazelcast or Infinispan cache shared by the instances behind a load balancer.
+ * <p>
+ * The time to live of the entries is the one of the cache, it must be configured to
+ * {@link HeliosAuthorizationRequestRepository#COOKIE_EXPIRE_SECONDES} on the cache provider.
+ *
+ * @author Sébastien SAEZ
+ */
+@RequiredArgsConstructor
+public class CacheHeliosAuthorizationRequestStore implements HeliosAuthorizationRequestStore {
+
+    /**
+     * The shared cache of the authorization requests by state
+     */
+    private final Cache cache;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void save(String state, OAuth2AuthorizationRequest authorizationRequest) {
+        cache.put(state, authorizationRequest);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OAuth2AuthorizationRequest find(String state) {
+        return cache.get(state, OAuth2AuthorizationRequest.class);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The authorization request is read then evicted, two concurrent callbacks with the same state may both read it
+     * when the cache provider does not evict atomically.
+     */
+    @Override
+    public OAuth2AuthorizationRequest remove(String state) {
+        var authorizationRequest = find(state);
+        if (authorizationRequest != null) {
+            cache.evict(state);
+        }
+        return authorizationRequest;
+    }
+}
@@ -0,0 +1,348 @@
+package com.s3b.helios.oauth2.repository;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.ByteArrayOutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * A {@link HeliosAuthorizationRequestCodec} writing only the fields of the authorization request in a compact binary form signed with HMAC-SHA256.
+ * <p>
+ * The value is the URL safe Base64 of <code>[version][flags][payload][HMAC]</code> :
+ * <p> - the payload holds the authorization uri, the client id, the redirect uri, the state, the scopes, the additional parameters and the attributes,
+ * each string prefixed by its length in a variable length integer
+ * <p> - the payload is deflated when the compression is enabled and the deflated form is shorter
+ * <p> - the HMAC covers the version, the flags and the payload, a value which has been changed or signed with another secret is rejected
+ * before being read
+ * <p>
+ * The authorization request uri is not stored, it is rebuilt from the other fields by {@link OAuth2AuthorizationRequest.Builder#build()}.
+ * The additional parameters and the attributes must hold {@link String} values, as the ones of Spring Security do.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class CompactHeliosAuthorizationRequestCodec implements HeliosAuthorizationRequestCodec {
+
+    /**
+     * The version of the format
+     */
+    private static final byte VERSION = 1;
+
+    /**
+     * The flag of a deflated payload
+     */
+    private static final byte DEFLATED = 1;
+
+    /**
+     * The HMAC algorithm signing the values
+     */
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    /**
+     * The length of the HMAC-SHA256 in bytes, also the minimum length of the secret
+     */
+    private static final int MAC_LENGTH = 32;
+
+    /**
+     * The maximum length of an inflated payload, a cookie cannot hold more
+     */
+    private static final int MAX_PAYLOAD_LENGTH = 4096;
+
+    /**
+     * The HKDF context binding a derived secret to the authorization request cookie
+     */
+    private static final byte[] DERIVATION_INFO = "helios-authorization-request-cookie".getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The key signing the values
+     */
+    private final SecretKeySpec key;
+
+    /**
+     * Whether the payload is deflated
+     */
+    private final boolean compress;
+
+    /**
+     * Create a codec signing the values with a random secret, without compression.
+     * The cookies are only readable by this instance, which suits a single instance server.
+     */
+    public CompactHeliosAuthorizationRequestCodec() {
+        this(false);
+    }
+
+    /**
+     * Create a codec signing the values with a random secret.
+     * The cookies are only readable by this instance, which suits a single instance server.
+     * @param compress whether the payload is deflated when it gets shorter
+     */
+    public CompactHeliosAuthorizationRequestCodec(boolean compress) {
+        this(randomSecret(), compress);
+    }
+
+    /**
+     * Create a codec signing the values with the specified secret
+     * @param secret the secret shared by the instances of the server, 256 bits at least
+     * @param compress whether the payload is deflated when it gets shorter
+     */
+    public CompactHeliosAuthorizationRequestCodec(byte[] secret, boolean compress) {
+        if (secret == null || secret.length < MAC_LENGTH) {
+            throw new IllegalArgumentException("The secret of the authorization request cookie must hold 256 bits at least");
+        }
+        this.key = new SecretKeySpec(secret, MAC_ALGORITHM);
+        this.compress = compress;
+    }
+
+    /**
+     * Create a codec signing the values with a secret derived by HKDF-SHA256 (RFC 5869) from another secret shared by the instances of the server,
+     * such as the JWT secret. The derived secret is bound to the cookie, a value signed by the codec is not a valid signature of the shared secret.
+     * @param sharedSecret the secret shared by the instances of the server
+     * @param compress whether the payload is deflated when it gets shorter
+     * @return the codec signing the values with the derived secret
+     */
+    public static CompactHeliosAuthorizationRequestCodec derivedFrom(String sharedSecret, boolean compress) {
+        if (sharedSecret == null || sharedSecret.isEmpty()) {
+            throw new IllegalArgumentException("The shared secret deriving the authorization request cookie secret must be defined");
+        }
+        var pseudoRandomKey = hmac(new byte[MAC_LENGTH], sharedSecret.getBytes(StandardCharsets.UTF_8));
+        var info = Arrays.copyOf(DERIVATION_INFO, DERIVATION_INFO.length + 1);
+        info[DERIVATION_INFO.length] = 1;
+        return new CompactHeliosAuthorizationRequestCodec(hmac(pseudoRandomKey, info), compress);
+    }
+
+    /**
+     * {@inheritDoc}
+     * @throws IllegalArgumentException if an additional parameter or an attribute does not hold a {@link String}
+     */
+    @Override
+    public String encode(OAuth2AuthorizationRequest authorizationRequest) {
+        var payload = new PayloadWriter();
+        payload.writeString(authorizationRequest.getAuthorizationUri());
+        payload.writeString(authorizationRequest.getClientId());
+        payload.writeString(authorizationRequest.getRedirectUri());
+        payload.writeString(authorizationRequest.getState());
+        payload.writeStrings(authorizationRequest.getScopes());
+        payload.writeMap(authorizationRequest.getAdditionalParameters());
+        payload.writeMap(authorizationRequest.getAttributes());
+
+        var bytes = payload.toByteArray();
+        byte flags = 0;
+        if (compress) {
+            var deflated = deflate(bytes);
+            if (deflated.length < bytes.length) {
+                bytes = deflated;
+                flags = DEFLATED;
+            }
+        }
+        var value = new byte[2 + bytes.length + MAC_LENGTH];
+        value[0] = VERSION;
+        value[1] = flags;
+        System.arraycopy(bytes, 0, value, 2, bytes.length);
+        System.arraycopy(mac(value, value.length - MAC_LENGTH), 0, value, value.length - MAC_LENGTH, MAC_LENGTH);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OAuth2AuthorizationRequest decode(String value) {
+        try {
+            var bytes = Base64.getUrlDecoder().decode(value);
+            if (bytes.length < 2 + MAC_LENGTH || bytes[0] != VERSION) {
+                log.warn("The authorization request cookie has an unknown format");
+                return null;
+            }
+            var signedLength = bytes.length - MAC_LENGTH;
+            if (!MessageDigest.isEqual(mac(bytes, signedLength), Arrays.copyOfRange(bytes, signedLength, bytes.length))) {
+                log.warn("The signature of the authorization request cookie is not valid");
+                return null;
+            }
+            var payload = ByteBuffer.wrap(bytes, 2, signedLength - 2);
+            if ((bytes[1] & DEFLATED) != 0) {
+                payload = ByteBuffer.wrap(inflate(bytes, 2, signedLength - 2));
+            }
+            return read(payload);
+        } catch (IllegalArgumentException | BufferUnderflowException | DataFormatException e) {
+            log.warn("The authorization request cookie cannot be decoded: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private static OAuth2AuthorizationRequest read(ByteBuffer payload) {
+        var builder = OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri(readString(payload))
+                .clientId(readString(payload))
+                .redirectUri(readString(payload))
+                .state(readString(payload));
+        var scopes = new LinkedHashSet<String>();
+        for (int i = readLength(payload); i > 0; i--) {
+            scopes.add(readString(payload));
+        }
+        var additionalParameters = readMap(payload);
+        var attributes = readMap(payload);
+        return builder.scopes(scopes)
+                .additionalParameters(additionalParameters)
+                .attributes(attributes)
+                .build();
+    }
+
+    private static Map<String, Object> readMap(ByteBuffer payload) {
+        var map = new LinkedHashMap<String, Object>();
+        for (int i = readLength(payload); i > 0; i--) {
+            map.put(readString(payload), readString(payload));
+        }
+        return map;
+    }
+
+    private static String readString(ByteBuffer payload) {
+        var length = readLength(payload) - 1;
+        if (length < 0) {
+            return null;
+        }
+        if (length > payload.remaining()) {
+            throw new IllegalArgumentException("The length of a string exceeds the payload");
+        }
+        var string = new String(payload.array(), payload.arrayOffset() + payload.position(), length, StandardCharsets.UTF_8);
+        payload.position(payload.position() + length);
+        return string;
+    }
+
+    private static int readLength(ByteBuffer payload) {
+        int length = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            var b = payload.get();
+            length |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                if (length < 0 || length > MAX_PAYLOAD_LENGTH) {
+                    throw new IllegalArgumentException("The length " + length + " exceeds the maximum payload");
+                }
+                return length;
+            }
+        }
+        throw new IllegalArgumentException("Malformed length");
+    }
+
+    private byte[] mac(byte[] bytes, int length) {
+        try {
+            var mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(key);
+            mac.update(bytes, 0, length);
+            return mac.doFinal();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static byte[] hmac(byte[] key, byte[] bytes) {
+        try {
+            var mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(key, MAC_ALGORITHM));
+            return mac.doFinal(bytes);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static byte[] deflate(byte[] bytes) {
+        var deflater = new Deflater(Deflater.BEST_COMPRESSION, true);
+        try {
+            deflater.setInput(bytes);
+            deflater.finish();
+            var output = new ByteArrayOutputStream(bytes.length);
+            var buffer = new byte[512];
+            while (!deflater.finished()) {
+                output.write(buffer, 0, deflater.deflate(buffer));
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(byte[] bytes, int offset, int length) throws DataFormatException {
+        var inflater = new Inflater(true);
+        try {
+            inflater.setInput(bytes, offset, length);
+            var output = new byte[MAX_PAYLOAD_LENGTH];
+            var inflated = 0;
+            while (!inflater.finished()) {
+                var count = inflater.inflate(output, inflated, output.length - inflated);
+                inflated += count;
+                if (count == 0 && (inflater.needsInput() || inflater.needsDictionary() || inflated == output.length)) {
+                    throw new DataFormatException("The deflated payload is truncated or too large");
+                }
+            }
+            return Arrays.copyOf(output, inflated);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] randomSecret() {
+        var secret = new byte[MAC_LENGTH];
+        new SecureRandom().nextBytes(secret);
+        return secret;
+    }
+
+    /**
+     * The binary writer of the payload
+     */
+    private static final class PayloadWriter extends ByteArrayOutputStream {
+
+        private PayloadWriter() {
+            super(256);
+        }
+
+        void writeString(String string) {
+            if (string == null) {
+                writeLength(0);
+                return;
+            }
+            var bytes = string.getBytes(StandardCharsets.UTF_8);
+            writeLength(bytes.length + 1);
+            write(bytes, 0, bytes.length);
+        }
+
+        void writeStrings(Collection<String> strings) {
+            writeLength(strings.size());
+            strings.forEach(this::writeString);
+        }
+
+        void writeMap(Map<String, Object> map) {
+            writeLength(map.size());
+            map.forEach((name, value) -> {
+                if (!(value instanceof String string)) {
+                    throw new IllegalArgumentException("The value of " + name + " is not a String and cannot be stored in the authorization request cookie");
+                }
+                writeString(name);
+                writeString(string);
+            });
+        }
+
+        void writeLength(int length) {
+            while ((length & ~0x7F) != 0) {
+                write((length & 0x7F) | 0x80);
+                length >>>= 7;
+            }
+            write(length);
+        }
+    }
+}
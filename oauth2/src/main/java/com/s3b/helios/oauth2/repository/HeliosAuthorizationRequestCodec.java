@@ -0,0 +1,28 @@
+package com.s3b.helios.oauth2.repository;
+
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+/**
+ * Encode the {@link OAuth2AuthorizationRequest} kept between the redirection to the OpenId provider and the callback
+ * in a value fitting a cookie.
+ *
+ * @author Sébastien SAEZ
+ * @see HttpCookieOAuth2AuthorizationRequestRepository
+ * @see CompactHeliosAuthorizationRequestCodec
+ */
+public interface HeliosAuthorizationRequestCodec {
+
+    /**
+     * Encode the specified authorization request
+     * @param authorizationRequest the authorization request to store
+     * @return the cookie value, made of cookie safe characters only
+     */
+    String encode(OAuth2AuthorizationRequest authorizationRequest);
+
+    /**
+     * Decode the specified cookie value
+     * @param value the cookie value
+     * @return the authorization request, <code>null</code> if the value is malformed or has not been encoded by this codec
+     */
+    OAuth2AuthorizationRequest decode(String value);
+}
@@ -0,0 +1,38 @@
+package com.s3b.helios.oauth2.repository;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+/**
+ * An {@link AuthorizationRequestRepository} keeping the redirect uri of the application in a cookie, cleaned by the authentication handlers.
+ *
+ * @author Sébastien SAEZ
+ * @see HttpCookieOAuth2AuthorizationRequestRepository
+ * @see StateKeyedOAuth2AuthorizationRequestRepository
+ */
+public interface HeliosAuthorizationRequestRepository extends AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
+
+    /**
+     * The name of the cookie holding the authorization request
+     */
+    String OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME = "oauth2_auth_request";
+
+    /**
+     * The name of the cookie and of the query parameter holding the redirect uri of the application
+     */
+    String REDIRECT_URI_PARAM_COOKIE_NAME = "redirect_uri";
+
+    /**
+     * The time to live of the authorization requests and of the cookies in seconds
+     */
+    int COOKIE_EXPIRE_SECONDES = 60;
+
+    /**
+     * Clean the redirect uri and the authorization request for the cookie response
+     * @param request the {@code HttpServletRequest}
+     * @param response the {@code HttpServletResponse}
+     */
+    void removeAuthorizationRequestCookies(HttpServletRequest request, HttpServletResponse response);
+}
@@ -0,0 +1,34 @@
+package com.s3b.helios.oauth2.repository;
+
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+/**
+ * The backend of {@link StateKeyedOAuth2AuthorizationRequestRepository}, holding the authorization requests by their OAuth2 state.
+ * The instances of a server behind a load balancer must share the same backend, since the callback may reach another instance.
+ *
+ * @author Sébastien SAEZ
+ * @see InMemoryHeliosAuthorizationRequestStore
+ * @see CacheHeliosAuthorizationRequestStore
+ */
+public interface HeliosAuthorizationRequestStore {
+
+    /**
+     * Store the specified authorization request until it is removed or its time to live is over
+     * @param state the OAuth2 state of the authorization request
+     * @param authorizationRequest the authorization request
+     */
+    void save(String state, OAuth2AuthorizationRequest authorizationRequest);
+
+    /**
+     * @param state the OAuth2 state of the authorization request
+     * @return the authorization request, <code>null</code> if it does not exist or has expired
+     */
+    OAuth2AuthorizationRequest find(String state);
+
+    /**
+     * Remove the authorization request, it cannot be used again
+     * @param state the OAuth2 state of the authorization request
+     * @return the removed authorization request, <code>null</code> if it does not exist or has expired
+     */
+    OAuth2AuthorizationRequest remove(String state);
+}
@@ -0,0 +1,23 @@
+package com.s3b.helios.oauth2.repository;
+
+import java.time.Instant;
+
+/**
+ * The state of a refresh token kept by the server, the token itself is never stored.
+ *
+ * @param subject the subject of the End-User
+ * @param familyId the identifier shared by the successive refresh tokens of a login, revoked together
+ * @param expiresAt the instant after which the token cannot be used
+ * @param used whether the token has already been exchanged, a second use reveals a stolen token
+ * @author Sébastien SAEZ
+ * @see HeliosRefreshTokenStore
+ */
+public record HeliosRefreshToken(String subject, String familyId, Instant expiresAt, boolean used) {
+
+    /**
+     * @return a copy of this token marked as used
+     */
+    public HeliosRefreshToken markUsed() {
+        return new HeliosRefreshToken(subject, familyId, expiresAt, true);
+    }
+}
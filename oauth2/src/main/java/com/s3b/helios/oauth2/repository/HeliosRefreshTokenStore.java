@@ -0,0 +1,34 @@
+package com.s3b.helios.oauth2.repository;
+
+/**
+ * The backend of the refresh tokens, keyed by the SHA-256 hash of the tokens.
+ * <p>
+ * The instances of a server behind a load balancer must share the same backend and {@link #consume(String)} must be atomic,
+ * so that a refresh token is exchanged once even when two requests present it at the same time.
+ *
+ * @author Sébastien SAEZ
+ * @see InMemoryHeliosRefreshTokenStore
+ * @see com.s3b.helios.oauth2.service.HeliosRefreshTokenService
+ */
+public interface HeliosRefreshTokenStore {
+
+    /**
+     * Store a new refresh token
+     * @param tokenHash the hash of the refresh token
+     * @param refreshToken the state of the refresh token
+     */
+    void save(String tokenHash, HeliosRefreshToken refreshToken);
+
+    /**
+     * Mark the refresh token as used, atomically
+     * @param tokenHash the hash of the refresh token
+     * @return the state of the refresh token before this call, <code>null</code> if it is unknown
+     */
+    HeliosRefreshToken consume(String tokenHash);
+
+    /**
+     * Remove every refresh token of the family
+     * @param familyId the identifier shared by the successive refresh tokens of a login
+     */
+    void revokeFamily(String familyId);
+}
@@ -5,29 +5,46 @@ import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
-import org.springframework.security.oauth2.client.web.AuthorizationRequestRepository;
 import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
 
 /**
- * An implementation of {@link AuthorizationRequestRepository} to store authorization requests in a cookie based repository
+ * An implementation of {@link HeliosAuthorizationRequestRepository} to store authorization requests in a cookie based repository.
+ * The cookie value is written and read by a {@link HeliosAuthorizationRequestCodec}.
  */
 @Slf4j
-public class HttpCookieOAuth2AuthorizationRequestRepository implements AuthorizationRequestRepository<OAuth2AuthorizationRequest> {
-    public static final String OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME = "oauth2_auth_request";
-    public static final String REDIRECT_URI_PARAM_COOKIE_NAME = "redirect_uri";
-    private static final int COOKIE_EXPIRE_SECONDES = 60;
+public class HttpCookieOAuth2AuthorizationRequestRepository implements HeliosAuthorizationRequestRepository {
+
+    /**
+     * The codec of the authorization request cookie
+     */
+    private final HeliosAuthorizationRequestCodec codec;
+
+    /**
+     * Create a repository storing the authorization requests with a {@link CompactHeliosAuthorizationRequestCodec} signed with a random secret
+     */
+    public HttpCookieOAuth2AuthorizationRequestRepository() {
+        this(new CompactHeliosAuthorizationRequestCodec());
+    }
+
+    /**
+     * Create a repository storing the authorization requests with the specified codec
+     * @param codec the codec of the authorization request cookie
+     */
+    public HttpCookieOAuth2AuthorizationRequestRepository(HeliosAuthorizationRequestCodec codec) {
+        this.codec = codec;
+    }
 
     /**
      * Retrieve the request from the cookie.
      * @param request the {@code HttpServletRequest}
-     * @return the authorization request stored in the cookies
+     * @return the authorization request stored in the cookies, <code>null</code> if the cookie is missing or cannot be decoded
      *
      * @see OAuth2AuthorizationRequest
      */
     @Override
     public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
         log.info("loadAuthorizationRequest - Retrieve authorization request from the cookies");
-        return CookieUtils.getCookie(request, OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME).map(cookie -> CookieUtils.deserialize(cookie, OAuth2AuthorizationRequest.class))
+        return CookieUtils.getCookie(request, OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME).map(cookie -> codec.decode(cookie.getValue()))
                 .orElse(null);
     }
 
@@ -46,7 +63,7 @@ public class HttpCookieOAuth2AuthorizationRequestRepository implements Authoriza
             return;
         }
 
-        CookieUtils.addCookie(response, OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME, CookieUtils.serialize(authorizationRequest), COOKIE_EXPIRE_SECONDES);
+        CookieUtils.addCookie(response, OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME, codec.encode(authorizationRequest), COOKIE_EXPIRE_SECONDES);
         String redirectUriAfterLogin = request.getParameter(REDIRECT_URI_PARAM_COOKIE_NAME);
         log.info("saveAuthorizationRequest - Cookie added with expire time of {}", COOKIE_EXPIRE_SECONDES);
         if (StringUtils.isNotBlank(redirectUriAfterLogin)) {
@@ -64,10 +81,9 @@ public class HttpCookieOAuth2AuthorizationRequestRepository implements Authoriza
     }
 
     /**
-     * Clean the redirect uri and the authorization request for the cookie response
-     * @param request the {@code HttpServletRequest}
-     * @param response the {@code HttpServletResponse}
+     * {@inheritDoc}
      */
+    @Override
     public void removeAuthorizationRequestCookies(HttpServletRequest request, HttpServletResponse response) {
         CookieUtils.deleteCookie(request, response, OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME);
         CookieUtils.deleteCookie(request, response, REDIRECT_URI_PARAM_COOKIE_NAME);
@@ -0,0 +1,89 @@
+package com.s3b.helios.oauth2.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+import java.time.Duration;
+
+/**
+ * A {@link HeliosAuthorizationRequestStore} holding the authorization requests in the memory of this instance.
+ * <p>
+ * The store is bounded : an authorization request is evicted when its time to live is over or when the maximum size is reached,
+ * so a flood of login attempts never abandoned by their browsers cannot exhaust the heap.
+ * It suits a single instance server or a load balancer with sticky sessions.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class InMemoryHeliosAuthorizationRequestStore implements HeliosAuthorizationRequestStore {
+
+    /**
+     * The authorization requests by state
+     */
+    private final Cache<String, OAuth2AuthorizationRequest> authorizationRequests;
+
+    /**
+     * Create a store
+     * @param maximumSize the maximum number of pending authorization requests
+     * @param timeToLive how long an authorization request is kept
+     */
+    public InMemoryHeliosAuthorizationRequestStore(long maximumSize, Duration timeToLive) {
+        this(maximumSize, timeToLive, Ticker.systemTicker());
+    }
+
+    /**
+     * Create a store with the specified time source
+     * @param maximumSize the maximum number of pending authorization requests
+     * @param timeToLive how long an authorization request is kept
+     * @param ticker the time source of the expiry
+     */
+    InMemoryHeliosAuthorizationRequestStore(long maximumSize, Duration timeToLive, Ticker ticker) {
+        this.authorizationRequests = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .ticker(ticker)
+                .build();
+        log.info("In-memory authorization request store created with a maximum size of {} and a time to live of {}", maximumSize, timeToLive);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void save(String state, OAuth2AuthorizationRequest authorizationRequest) {
+        authorizationRequests.put(state, authorizationRequest);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OAuth2AuthorizationRequest find(String state) {
+        return authorizationRequests.getIfPresent(state);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OAuth2AuthorizationRequest remove(String state) {
+        return authorizationRequests.asMap().remove(state);
+    }
+
+    /**
+     * @return the approximate number of pending authorization requests
+     */
+    public long size() {
+        return authorizationRequests.estimatedSize();
+    }
+
+    /**
+     * Perform the pending evictions, which are otherwise done along the writes
+     */
+    void cleanUp() {
+        authorizationRequests.cleanUp();
+    }
+}
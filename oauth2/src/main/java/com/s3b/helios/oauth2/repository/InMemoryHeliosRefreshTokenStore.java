@@ -0,0 +1,118 @@
+package com.s3b.helios.oauth2.repository;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link HeliosRefreshTokenStore} holding the refresh tokens in the memory of this instance.
+ * <p>
+ * The used tokens are kept until they expire to detect their reuse. The store is bounded, the least recently written tokens are evicted
+ * when the maximum size is reached, which logs out their End-Users at the expiry of their access token.
+ * The refresh tokens are lost on restart, it suits a single instance server.
+ * <p>
+ * The hashes of the tokens are also indexed by family, so a revocation only touches the tokens of its family.
+ * The index entry of a token is removed when the token expires or is evicted.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class InMemoryHeliosRefreshTokenStore implements HeliosRefreshTokenStore {
+
+    /**
+     * The refresh tokens by hash
+     */
+    private final Cache<String, HeliosRefreshToken> refreshTokens;
+
+    /**
+     * The hashes of the refresh tokens by family, a set is only changed while its mapping is computed
+     */
+    private final ConcurrentHashMap<String, Set<String>> tokenHashesByFamily = new ConcurrentHashMap<>();
+
+    /**
+     * Create a store
+     * @param maximumSize the maximum number of refresh tokens, used ones included
+     * @param timeToLive the lifetime of the refresh tokens
+     */
+    public InMemoryHeliosRefreshTokenStore(long maximumSize, Duration timeToLive) {
+        this.refreshTokens = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(timeToLive)
+                .evictionListener((String tokenHash, HeliosRefreshToken refreshToken, RemovalCause cause) -> unindex(refreshToken.familyId(), tokenHash))
+                .build();
+        log.info("In-memory refresh token store created with a maximum size of {} and a time to live of {}", maximumSize, timeToLive);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The token is indexed before it is stored, so an immediate eviction removes its index entry.
+     */
+    @Override
+    public void save(String tokenHash, HeliosRefreshToken refreshToken) {
+        tokenHashesByFamily.compute(refreshToken.familyId(), (familyId, tokenHashes) -> {
+            var hashes = tokenHashes == null ? new HashSet<String>() : tokenHashes;
+            hashes.add(tokenHash);
+            return hashes;
+        });
+        refreshTokens.put(tokenHash, refreshToken);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public HeliosRefreshToken consume(String tokenHash) {
+        var previous = new HeliosRefreshToken[1];
+        refreshTokens.asMap().computeIfPresent(tokenHash, (hash, refreshToken) -> {
+            previous[0] = refreshToken;
+            return refreshToken.used() ? refreshToken : refreshToken.markUsed();
+        });
+        return previous[0];
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only the tokens of the family are removed, found through the family index.
+     */
+    @Override
+    public void revokeFamily(String familyId) {
+        var tokenHashes = tokenHashesByFamily.remove(familyId);
+        if (tokenHashes != null) {
+            refreshTokens.invalidateAll(tokenHashes);
+        }
+    }
+
+    /**
+     * @return the approximate number of refresh tokens, used ones included
+     */
+    public long size() {
+        return refreshTokens.estimatedSize();
+    }
+
+    /**
+     * @return the number of families indexed
+     */
+    long familyCount() {
+        return tokenHashesByFamily.size();
+    }
+
+    /**
+     * Perform the pending evictions, which are otherwise done along the writes
+     */
+    void cleanUp() {
+        refreshTokens.cleanUp();
+    }
+
+    private void unindex(String familyId, String tokenHash) {
+        tokenHashesByFamily.computeIfPresent(familyId, (id, tokenHashes) -> {
+            tokenHashes.remove(tokenHash);
+            return tokenHashes.isEmpty() ? null : tokenHashes;
+        });
+    }
+}
@@ -0,0 +1,41 @@
+package com.s3b.helios.oauth2.repository;
+
+import com.s3b.helios.oauth2.util.CookieUtils;
+import jakarta.servlet.http.Cookie;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+/**
+ * A {@link HeliosAuthorizationRequestCodec} storing the authorization request with the Java serialization, the format of the previous releases.
+ * <p>
+ * The cookie holds several kilobytes sent back on every request and is deserialized without any integrity check,
+ * it is only kept to read the cookies of a previous release during an upgrade.
+ *
+ * @author Sébastien SAEZ
+ * @see CompactHeliosAuthorizationRequestCodec
+ */
+@Slf4j
+public class SerializingHeliosAuthorizationRequestCodec implements HeliosAuthorizationRequestCodec {
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String encode(OAuth2AuthorizationRequest authorizationRequest) {
+        return CookieUtils.serialize(authorizationRequest);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public OAuth2AuthorizationRequest decode(String value) {
+        try {
+            return CookieUtils.deserialize(new Cookie(HeliosAuthorizationRequestRepository.OAUTH2_AUTHORIZATION_REQUEST_COOKIE_NAME, value),
+                    OAuth2AuthorizationRequest.class);
+        } catch (RuntimeException e) {
+            log.warn("The authorization request cookie cannot be deserialized: {}", e.getMessage());
+            return null;
+        }
+    }
+}
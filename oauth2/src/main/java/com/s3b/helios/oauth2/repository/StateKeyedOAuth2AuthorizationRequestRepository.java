@@ -0,0 +1,136 @@
+package com.s3b.helios.oauth2.repository;
+
+import com.s3b.helios.oauth2.util.CookieUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+import org.springframework.security.oauth2.core.endpoint.OAuth2ParameterNames;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+
+/**
+ * An implementation of {@link HeliosAuthorizationRequestRepository} keeping the authorization requests on the server side,
+ * in a {@link HeliosAuthorizationRequestStore} keyed by the OAuth2 state.
+ * <p>
+ * The browser only carries the opaque state, sent back by the OpenId provider as a query parameter of the callback,
+ * so no cookie payload is decoded. An authorization request is removed when the callback is processed and cannot be replayed.
+ * <p>
+ * The state is bound to the browser which started the login by a short-lived HttpOnly cookie holding its SHA-256 hash.
+ * A callback whose state does not match the cookie is rejected, so an attacker cannot log a victim in with the attacker's authorization code.
+ * The cookie is <code>SameSite=Lax</code> to be sent on the redirect of the OpenId provider, and a new login of the browser replaces it.
+ *
+ * @author Sébastien SAEZ
+ * @see HttpCookieOAuth2AuthorizationRequestRepository
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class StateKeyedOAuth2AuthorizationRequestRepository implements HeliosAuthorizationRequestRepository {
+
+    /**
+     * The name of the cookie holding the hash of the state of the browser
+     */
+    public static final String STATE_COOKIE_NAME = "oauth2_state";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    /**
+     * The backend holding the authorization requests
+     */
+    private final HeliosAuthorizationRequestStore store;
+
+    /**
+     * Retrieve the authorization request of the state parameter.
+     * @param request the {@code HttpServletRequest}
+     * @return the authorization request of the state, <code>null</code> if the state is missing, unknown, expired or not bound to the browser
+     */
+    @Override
+    public OAuth2AuthorizationRequest loadAuthorizationRequest(HttpServletRequest request) {
+        var state = boundState(request);
+        return state == null ? null : store.find(state);
+    }
+
+    /**
+     * Store the authorization request by its state, the hash of the state and the redirect uri in cookies. If the authorization request is null, the cookies are deleted.
+     * @param authorizationRequest the {@link OAuth2AuthorizationRequest}
+     * @param request the {@code HttpServletRequest}
+     * @param response the {@code HttpServletResponse}
+     */
+    @Override
+    public void saveAuthorizationRequest(OAuth2AuthorizationRequest authorizationRequest, HttpServletRequest request, HttpServletResponse response) {
+        if (authorizationRequest == null) {
+            var state = request.getParameter(OAuth2ParameterNames.STATE);
+            if (state != null) {
+                store.remove(state);
+            }
+            removeAuthorizationRequestCookies(request, response);
+            log.info("saveAuthorizationRequest - authorizationRequest is not valid, the request has been removed");
+            return;
+        }
+        if (StringUtils.isBlank(authorizationRequest.getState())) {
+            throw new IllegalArgumentException("The authorization request must have a state to be stored");
+        }
+
+        store.save(authorizationRequest.getState(), authorizationRequest);
+        CookieUtils.addLaxCookie(request, response, STATE_COOKIE_NAME, hash(authorizationRequest.getState()), COOKIE_EXPIRE_SECONDES);
+        String redirectUriAfterLogin = request.getParameter(REDIRECT_URI_PARAM_COOKIE_NAME);
+        if (StringUtils.isNotBlank(redirectUriAfterLogin)) {
+            log.info("saveAuthorizationRequest - the redirect uri after the logging is set to {}", redirectUriAfterLogin);
+            CookieUtils.addCookie(response, REDIRECT_URI_PARAM_COOKIE_NAME, redirectUriAfterLogin, COOKIE_EXPIRE_SECONDES);
+        }
+    }
+
+    /**
+     * Remove the authorization request of the state parameter from the store.
+     * @param request the {@code HttpServletRequest}
+     * @param response the {@code HttpServletResponse}
+     * @return the removed authorization request, <code>null</code> if the state is missing, unknown, expired or not bound to the browser
+     */
+    @Override
+    public OAuth2AuthorizationRequest removeAuthorizationRequest(HttpServletRequest request, HttpServletResponse response) {
+        var state = boundState(request);
+        return state == null ? null : store.remove(state);
+    }
+
+    /**
+     * Clean the redirect uri and the state cookies, the authorization request has already been removed from the store by the callback
+     * @param request the {@code HttpServletRequest}
+     * @param response the {@code HttpServletResponse}
+     */
+    @Override
+    public void removeAuthorizationRequestCookies(HttpServletRequest request, HttpServletResponse response) {
+        CookieUtils.deleteCookie(request, response, REDIRECT_URI_PARAM_COOKIE_NAME);
+        CookieUtils.deleteCookie(request, response, STATE_COOKIE_NAME);
+    }
+
+    /**
+     * @return the state parameter when the state cookie of the browser holds its hash, <code>null</code> otherwise
+     */
+    private static String boundState(HttpServletRequest request) {
+        var state = request.getParameter(OAuth2ParameterNames.STATE);
+        if (state == null) {
+            return null;
+        }
+        var bound = CookieUtils.getCookie(request, STATE_COOKIE_NAME)
+                .map(cookie -> MessageDigest.isEqual(cookie.getValue().getBytes(StandardCharsets.US_ASCII), hash(state).getBytes(StandardCharsets.US_ASCII)))
+                .orElse(false);
+        if (!bound) {
+            log.warn("The state of the callback is not bound to the browser, the authorization request is ignored");
+            return null;
+        }
+        return state;
+    }
+
+    private static String hash(String state) {
+        try {
+            return ENCODER.encodeToString(MessageDigest.getInstance("SHA-256").digest(state.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
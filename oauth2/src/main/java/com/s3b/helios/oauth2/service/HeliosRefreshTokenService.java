@@ -0,0 +1,153 @@
+package com.s3b.helios.oauth2.service;
+
+import com.s3b.helios.client.token.HeliosTokenWriter;
+import com.s3b.helios.oauth2.exception.HeliosRefreshTokenException;
+import com.s3b.helios.oauth2.repository.HeliosRefreshToken;
+import com.s3b.helios.oauth2.repository.HeliosRefreshTokenStore;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Issue the short-lived access tokens with rotating refresh tokens.
+ * <p>
+ * The access tokens stay verified by the resource servers without any lookup, only the refresh tokens are checked by the server :
+ * <p> - a refresh token is an opaque random value, only its SHA-256 hash is stored
+ * <p> - a refresh token is exchanged once, the new pair holds a new refresh token of the same family
+ * <p> - a refresh token used twice has been stolen, every refresh token of its family is revoked and the End-User must log in again
+ * <p>
+ * A revoked End-User keeps access until the expiry of his access token, the lifetime of the access tokens is the revocation window.
+ *
+ * @author Sébastien SAEZ
+ * @see HeliosRefreshTokenStore
+ */
+@Slf4j
+public class HeliosRefreshTokenService {
+
+    /**
+     * The length of the refresh tokens in bytes
+     */
+    private static final int TOKEN_LENGTH = 32;
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+
+    /**
+     * The writer of the access tokens
+     */
+    private final HeliosTokenWriter tokenWriter;
+
+    /**
+     * The backend of the refresh tokens
+     */
+    private final HeliosRefreshTokenStore store;
+
+    /**
+     * The lifetime of the refresh tokens
+     */
+    private final Duration refreshTokenExpiration;
+
+    /**
+     * The time source of the expiry
+     */
+    private final Clock clock;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * Create the service
+     * @param tokenWriter the writer of the access tokens
+     * @param store the backend of the refresh tokens
+     * @param refreshTokenExpiration the lifetime of the refresh tokens
+     */
+    public HeliosRefreshTokenService(HeliosTokenWriter tokenWriter, HeliosRefreshTokenStore store, Duration refreshTokenExpiration) {
+        this(tokenWriter, store, refreshTokenExpiration, Clock.systemUTC());
+    }
+
+    /**
+     * Create the service with the specified time source
+     * @param tokenWriter the writer of the access tokens
+     * @param store the backend of the refresh tokens
+     * @param refreshTokenExpiration the lifetime of the refresh tokens
+     * @param clock the time source of the expiry
+     */
+    public HeliosRefreshTokenService(HeliosTokenWriter tokenWriter, HeliosRefreshTokenStore store, Duration refreshTokenExpiration, Clock clock) {
+        this.tokenWriter = tokenWriter;
+        this.store = store;
+        this.refreshTokenExpiration = refreshTokenExpiration;
+        this.clock = clock;
+    }
+
+    /**
+     * Issue the tokens of a new login, starting a new refresh token family
+     * @param subject the subject of the End-User
+     * @return the access token and its refresh token
+     */
+    public HeliosTokenPair issue(String subject) {
+        return issue(subject, UUID.randomUUID().toString());
+    }
+
+    /**
+     * Exchange the refresh token for a new pair, the refresh token cannot be used again
+     * @param refreshToken the refresh token of the previous pair
+     * @return the new access token and its refresh token
+     * @throws HeliosRefreshTokenException if the refresh token is unknown, expired, revoked or already used
+     */
+    public HeliosTokenPair refresh(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            throw new HeliosRefreshTokenException("The refresh token is missing");
+        }
+        var previous = store.consume(hash(refreshToken));
+        if (previous == null) {
+            throw new HeliosRefreshTokenException("The refresh token is unknown or revoked");
+        }
+        if (previous.used()) {
+            store.revokeFamily(previous.familyId());
+            log.warn("A refresh token of {} has been used twice, the refresh tokens of this login are revoked", previous.subject());
+            throw new HeliosRefreshTokenException("The refresh token has already been used");
+        }
+        if (!clock.instant().isBefore(previous.expiresAt())) {
+            throw new HeliosRefreshTokenException("The refresh token is expired");
+        }
+        log.debug("Refresh token exchanged for {}", previous.subject());
+        return issue(previous.subject(), previous.familyId());
+    }
+
+    /**
+     * Revoke the refresh token and every other refresh token of its family, such as on logout.
+     * Unknown tokens are ignored.
+     * @param refreshToken the refresh token to revoke
+     */
+    public void revoke(String refreshToken) {
+        if (refreshToken == null || refreshToken.isBlank()) {
+            return;
+        }
+        var revoked = store.consume(hash(refreshToken));
+        if (revoked != null) {
+            store.revokeFamily(revoked.familyId());
+            log.debug("The refresh tokens of a login of {} are revoked", revoked.subject());
+        }
+    }
+
+    private HeliosTokenPair issue(String subject, String familyId) {
+        var bytes = new byte[TOKEN_LENGTH];
+        random.nextBytes(bytes);
+        var refreshToken = ENCODER.encodeToString(bytes);
+        store.save(hash(refreshToken), new HeliosRefreshToken(subject, familyId, clock.instant().plus(refreshTokenExpiration), false));
+        return new HeliosTokenPair(tokenWriter.generate(subject), tokenWriter.getExpiration(), refreshToken, refreshTokenExpiration);
+    }
+
+    private static String hash(String refreshToken) {
+        try {
+            return ENCODER.encodeToString(MessageDigest.getInstance("SHA-256").digest(refreshToken.getBytes(StandardCharsets.US_ASCII)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,244 @@
+package com.s3b.helios.oauth2.service;
+
+import com.s3b.helios.service.HeliosRegisterService;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A write-behind pipeline taking the registrations off the OpenId Connect callback.
+ * <p>
+ * The registrations are queued in a bounded queue and persisted in batches with {@link HeliosRegisterService#processRegistrations(List)}
+ * by a fixed number of worker threads :
+ * <p> - when the queue stays full during the offer timeout, the registration is processed on the calling thread, which slows down the callbacks
+ * instead of losing registrations
+ * <p> - when a batch fails, its registrations are processed one by one so a single invalid registration does not discard the others
+ * <p> - {@link #close()} stops accepting registrations and waits for the workers to drain the queue
+ *
+ * @author Sébastien SAEZ
+ * @see HeliosOidcService
+ */
+@Slf4j
+public class HeliosRegistrationQueue implements AutoCloseable {
+
+    /**
+     * How long an idle worker waits for a registration before checking the shutdown
+     */
+    private static final long POLL_TIMEOUT_MILLIS = 200;
+
+    /**
+     * The service persisting the registrations
+     */
+    private final HeliosRegisterService registerService;
+
+    /**
+     * The pending registrations
+     */
+    private final BlockingQueue<Registration> queue;
+
+    /**
+     * The maximum number of registrations persisted at once
+     */
+    private final int batchSize;
+
+    /**
+     * How long a registration waits for a free slot before it is processed on the calling thread
+     */
+    private final Duration offerTimeout;
+
+    /**
+     * How long {@link #close()} waits for the queue to be drained
+     */
+    private final Duration shutdownTimeout;
+
+    /**
+     * The worker threads
+     */
+    private final ExecutorService workers;
+
+    /**
+     * Whether the registrations are still queued
+     */
+    private volatile boolean running = true;
+
+    /**
+     * The number of registrations persisted
+     */
+    private final AtomicLong processed = new AtomicLong();
+
+    /**
+     * The number of registrations which could not be persisted
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * The number of registrations processed on the calling thread
+     */
+    private final AtomicLong callerRuns = new AtomicLong();
+
+    /**
+     * Create the queue and start the workers.
+     * @param registerService the service persisting the registrations
+     * @param capacity the maximum number of pending registrations
+     * @param batchSize the maximum number of registrations persisted at once
+     * @param workerCount the number of worker threads
+     * @param offerTimeout how long a registration waits for a free slot before it is processed on the calling thread
+     * @param shutdownTimeout how long {@link #close()} waits for the queue to be drained
+     */
+    public HeliosRegistrationQueue(HeliosRegisterService registerService, int capacity, int batchSize, int workerCount,
+                                   Duration offerTimeout, Duration shutdownTimeout) {
+        if (capacity < 1 || batchSize < 1 || workerCount < 1) {
+            throw new IllegalArgumentException("The capacity, the batch size and the worker count must be positive");
+        }
+        this.registerService = registerService;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.offerTimeout = offerTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        var threadNumber = new AtomicInteger();
+        this.workers = Executors.newFixedThreadPool(workerCount,
+                runnable -> new Thread(runnable, "helios-registration-" + threadNumber.incrementAndGet()));
+        for (int i = 0; i < workerCount; i++) {
+            workers.execute(this::work);
+        }
+    }
+
+    /**
+     * Queue the registration of an End-User.
+     * When the queue stays full during the offer timeout or is closed, the registration is processed on the calling thread.
+     * @param attributes the user's information of the End-User
+     */
+    public void submit(Map<String, Object> attributes) {
+        if (running) {
+            try {
+                if (queue.offer(new Registration(attributes, System.nanoTime()), offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                    return;
+                }
+                log.warn("The registration queue is full, the registration is processed on the calling thread");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        callerRuns.incrementAndGet();
+        registerService.processRegistration(attributes);
+        processed.incrementAndGet();
+    }
+
+    /**
+     * Stop accepting registrations and wait for the pending ones to be persisted, during the shutdown timeout at most.
+     */
+    @Override
+    public void close() {
+        running = false;
+        workers.shutdown();
+        try {
+            if (!workers.awaitTermination(shutdownTimeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                workers.shutdownNow();
+                log.error("{} registration(s) not persisted before the shutdown timeout", queue.size());
+                return;
+            }
+            // A registration queued while the workers were stopping is persisted by the closing thread
+            var leftovers = new ArrayList<Registration>();
+            queue.drainTo(leftovers);
+            if (!leftovers.isEmpty()) {
+                persist(leftovers);
+            }
+        } catch (InterruptedException e) {
+            workers.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the number of pending registrations
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    /**
+     * @return how long the oldest pending registration has been waiting, {@link Duration#ZERO} if none is pending
+     */
+    public Duration getLag() {
+        var oldest = queue.peek();
+        return oldest == null ? Duration.ZERO : Duration.ofNanos(System.nanoTime() - oldest.queuedAt());
+    }
+
+    /**
+     * @return the number of registrations persisted
+     */
+    public long getProcessedCount() {
+        return processed.get();
+    }
+
+    /**
+     * @return the number of registrations which could not be persisted
+     */
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    /**
+     * @return the number of registrations processed on the calling thread because the queue was full or closed
+     */
+    public long getCallerRunsCount() {
+        return callerRuns.get();
+    }
+
+    private void work() {
+        var batch = new ArrayList<Registration>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                var first = queue.poll(POLL_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                persist(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void persist(List<Registration> batch) {
+        try {
+            registerService.processRegistrations(batch.stream().map(Registration::attributes).toList());
+            processed.addAndGet(batch.size());
+            log.debug("{} registration(s) persisted", batch.size());
+        } catch (RuntimeException batchException) {
+            log.warn("The batch of {} registration(s) failed, they are processed one by one: {}", batch.size(), batchException.getMessage());
+            for (Registration registration : batch) {
+                try {
+                    registerService.processRegistration(registration.attributes());
+                    processed.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failed.incrementAndGet();
+                    log.error("The registration failed: {}", e.getMessage(), e);
+                }
+            }
+        }
+    }
+
+    /**
+     * A pending registration
+     * @param attributes the user's information of the End-User
+     * @param queuedAt the {@link System#nanoTime()} of the submission
+     */
+    private record Registration(Map<String, Object> attributes, long queuedAt) {
+    }
+}
@@ -0,0 +1,47 @@
+package com.s3b.helios.oauth2.service;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publish the queue depth, the lag and the counters of a {@link HeliosRegistrationQueue} to Micrometer.
+ *
+ * @author Sébastien SAEZ
+ */
+@RequiredArgsConstructor
+public class HeliosRegistrationQueueMetrics implements MeterBinder {
+
+    /**
+     * The observed registration queue
+     */
+    private final HeliosRegistrationQueue registrationQueue;
+
+    /**
+     * {@inheritDoc}
+     * @param registry the registry publishing the meters
+     */
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("helios.registration.queue.depth", registrationQueue, HeliosRegistrationQueue::getQueueDepth)
+                .description("The number of pending registrations")
+                .register(registry);
+        TimeGauge.builder("helios.registration.queue.lag", registrationQueue, TimeUnit.MILLISECONDS, queue -> queue.getLag().toMillis())
+                .description("How long the oldest pending registration has been waiting")
+                .register(registry);
+        FunctionCounter.builder("helios.registration.processed", registrationQueue, HeliosRegistrationQueue::getProcessedCount)
+                .description("The number of registrations persisted")
+                .register(registry);
+        FunctionCounter.builder("helios.registration.failed", registrationQueue, HeliosRegistrationQueue::getFailedCount)
+                .description("The number of registrations which could not be persisted")
+                .register(registry);
+        FunctionCounter.builder("helios.registration.caller.runs", registrationQueue, HeliosRegistrationQueue::getCallerRunsCount)
+                .description("The number of registrations processed on the calling thread because the queue was full")
+                .register(registry);
+    }
+}
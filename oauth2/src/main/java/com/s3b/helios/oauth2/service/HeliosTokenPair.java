@@ -0,0 +1,16 @@
+package com.s3b.helios.oauth2.service;
+
+import java.time.Duration;
+
+/**
+ * An access token with the refresh token renewing it.
+ *
+ * @param accessToken the short-lived token verified by the resource servers
+ * @param accessTokenExpiration the lifetime of the access token, <code>null</code> if the token writer does not tell it
+ * @param refreshToken the opaque token exchanged once for a new pair
+ * @param refreshTokenExpiration the lifetime of the refresh token
+ * @author Sébastien SAEZ
+ * @see HeliosRefreshTokenService
+ */
+public record HeliosTokenPair(String accessToken, Duration accessTokenExpiration, String refreshToken, Duration refreshTokenExpiration) {
+}
@@ -56,6 +56,43 @@ public final class CookieUtils {
         response.addCookie(cookie);
     }
 
+    /**
+     * Add a cookie only sent back to the specified path by the same site, such as a credential
+     * @param request the {@code HttpServletRequest}, the cookie is secure when the request is
+     * @param response the {@code HttpServletResponse}
+     * @param name of the cookie to store
+     * @param value of the cookie to store, an empty value with a maxAge of 0 deletes the cookie
+     * @param maxAge the duration of the cookie
+     * @param path the path the cookie is sent back to
+     */
+    public static void addStrictCookie(HttpServletRequest request, HttpServletResponse response, String name, String value, int maxAge, String path) {
+        var cookie = new Cookie(name, value);
+        cookie.setPath(path);
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setMaxAge(maxAge);
+        cookie.setAttribute("SameSite", "Strict");
+        response.addCookie(cookie);
+    }
+
+    /**
+     * Add a cookie sent back by the same site and on the top-level navigations from another site, such as the redirect of an OpenId provider
+     * @param request the {@code HttpServletRequest}, the cookie is secure when the request is
+     * @param response the {@code HttpServletResponse}
+     * @param name of the cookie to store
+     * @param value of the cookie to store
+     * @param maxAge the duration of the cookie
+     */
+    public static void addLaxCookie(HttpServletRequest request, HttpServletResponse response, String name, String value, int maxAge) {
+        var cookie = new Cookie(name, value);
+        cookie.setPath("/");
+        cookie.setHttpOnly(true);
+        cookie.setSecure(request.isSecure());
+        cookie.setMaxAge(maxAge);
+        cookie.setAttribute("SameSite", "Lax");
+        response.addCookie(cookie);
+    }
+
     /**
      * Delete the cookie from the specified response by cleaning the value and setting the maxAge to 0
      * @param request the {@code HttpServletRequest}
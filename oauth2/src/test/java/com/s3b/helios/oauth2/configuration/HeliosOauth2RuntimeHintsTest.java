@@ -0,0 +1,38 @@
+package com.s3b.helios.oauth2.configuration;
+
+import com.s3b.helios.model.HeliosAddressDto;
+import com.s3b.helios.model.HeliosUserDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.TypeReference;
+import org.springframework.aot.hint.predicate.RuntimeHintsPredicates;
+import org.springframework.core.io.support.SpringFactoriesLoader;
+import org.springframework.security.oauth2.core.AuthorizationGrantType;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HeliosOauth2RuntimeHintsTest {
+
+    @Test
+    void should_RegisterCookieAndExportTypes_When_HintsAreRegistered() {
+        var hints = new RuntimeHints();
+
+        new HeliosOauth2RuntimeHints().registerHints(hints, getClass().getClassLoader());
+
+        assertThat(RuntimeHintsPredicates.serialization().onType(OAuth2AuthorizationRequest.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.serialization().onType(AuthorizationGrantType.class)).accepts(hints);
+        assertThat(RuntimeHintsPredicates.serialization().onType(TypeReference.of("java.util.Collections$UnmodifiableMap"))).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onMethod(HeliosUserDto.class, "getSubject")).accepts(hints);
+        assertThat(RuntimeHintsPredicates.reflection().onType(HeliosAddressDto.class)).accepts(hints);
+    }
+
+    @Test
+    void should_LoadRegistrar_When_AotFactoriesAreRead() {
+        var registrars = SpringFactoriesLoader.forResourceLocation("META-INF/spring/aot.factories")
+                .load(RuntimeHintsRegistrar.class);
+
+        assertThat(registrars).hasAtLeastOneElementOfType(HeliosOauth2RuntimeHints.class);
+    }
+}
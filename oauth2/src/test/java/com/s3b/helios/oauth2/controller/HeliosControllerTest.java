@@ -1,5 +1,7 @@
 package com.s3b.helios.oauth2.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.s3b.helios.exception.HeliosVersionConflictException;
 import com.s3b.helios.model.HeliosAddressDto;
 import com.s3b.helios.model.HeliosUserDto;
 import com.s3b.helios.service.HeliosUserService;
@@ -8,17 +10,35 @@ import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
 
 @ExtendWith(MockitoExtension.class)
@@ -27,6 +47,9 @@ class HeliosControllerTest {
     @Mock
     private HeliosUserService service;
 
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+
     @InjectMocks
     private HeliosController controller;
 
@@ -34,7 +57,7 @@ class HeliosControllerTest {
     void should_NoContent_When_UserNotFound() {
         Mockito.when(service.findUserBySubject(any())).thenReturn(Optional.empty());
 
-        var actual = assertThrows(ResponseStatusException.class, () -> controller.findBySubject("subject"));
+        var actual = assertThrows(ResponseStatusException.class, () -> controller.findBySubject("subject", null));
 
         assertEquals(HttpStatus.NO_CONTENT, actual.getStatusCode());
     }
@@ -43,19 +66,154 @@ class HeliosControllerTest {
     void should_OkWithDto_When_UserFound() {
         Mockito.when(service.findUserBySubject(any())).thenReturn(Optional.of(buildHeliosDto()));
 
-        var actual = controller.findBySubject("subject");
+        var actual = controller.findBySubject("subject", null);
+
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertNotNull(actual.getBody());
+        assertHeliosDto(actual.getBody());
+
+    }
+
+    @Test
+    void should_NotModified_When_IfNoneMatchIsCurrentVersion() {
+        Mockito.when(service.findUserVersion("subject")).thenReturn(Optional.of(7L));
+
+        var actual = controller.findBySubject("subject", "\"6\", W/\"7\"");
+
+        assertEquals(HttpStatus.NOT_MODIFIED, actual.getStatusCode());
+        assertEquals("\"7\"", actual.getHeaders().getETag());
+        Mockito.verify(service, Mockito.never()).findUserBySubject(any());
+    }
+
+    @Test
+    void should_OkWithETag_When_IfNoneMatchIsStale() {
+        var user = buildHeliosDto();
+        user.setVersion(8L);
+        Mockito.when(service.findUserVersion("subject")).thenReturn(Optional.of(8L));
+        Mockito.when(service.findUserBySubject("subject")).thenReturn(Optional.of(user));
+
+        var actual = controller.findBySubject("subject", "\"7\"");
 
         assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertEquals("\"8\"", actual.getHeaders().getETag());
         assertNotNull(actual.getBody());
         assertHeliosDto(actual.getBody());
+    }
+
+    @Test
+    void should_PassVersionToService_When_UpdateHasIfMatch() {
+        Mockito.when(service.updateUser(any(), any())).thenReturn(Optional.of(buildHeliosDto()));
+        var request = new HeliosUserDto();
 
+        controller.updateUser("subject", request, "\"3\"");
+
+        assertEquals(3L, request.getVersion());
+    }
+
+    @Test
+    void should_PreconditionFailed_When_IfMatchIsNotAVersion() {
+        var request = new HeliosUserDto();
+
+        var actual = assertThrows(ResponseStatusException.class, () -> controller.patchUser("subject", request, "\"abc\""));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, actual.getStatusCode());
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    void should_PreconditionFailed_When_VersionConflicts() {
+        var actual = controller.handleVersionConflict(new HeliosVersionConflictException("subject", 3L, 4L));
+
+        assertEquals(HttpStatus.PRECONDITION_FAILED, actual.getStatusCode());
+    }
+
+    @Test
+    void should_OkWithDtos_When_UsersAreFetchedInBulk() {
+        Mockito.when(service.findUsersBySubjects(List.of("mockedSubject", "unknown"))).thenReturn(List.of(buildHeliosDto()));
+
+        var actual = controller.findBySubjects(List.of("mockedSubject", "unknown"));
+
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+        assertNotNull(actual.getBody());
+        assertEquals(1, actual.getBody().size());
+        assertHeliosDto(actual.getBody().get(0));
+    }
+
+    @Test
+    void should_BadRequest_When_TooManySubjectsAreFetchedInBulk() {
+        var subjects = Collections.nCopies(HeliosController.MAX_BULK_SUBJECTS + 1, "subject");
+
+        var actual = assertThrows(ResponseStatusException.class, () -> controller.findBySubjects(subjects));
+
+        assertEquals(HttpStatus.BAD_REQUEST, actual.getStatusCode());
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    void should_NotFound_When_ExportIsDisabled() {
+        var actual = assertThrows(ResponseStatusException.class, () -> controller.exportUsers());
+
+        assertEquals(HttpStatus.NOT_FOUND, actual.getStatusCode());
+        Mockito.verifyNoInteractions(service);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void should_WriteOneUserPerLine_When_UsersAreExported() throws IOException {
+        ReflectionTestUtils.setField(controller, "exportEnabled", true);
+        Mockito.doAnswer(invocation -> {
+            var consumer = (Consumer<HeliosUserDto>) invocation.getArgument(0);
+            consumer.accept(buildHeliosDto());
+            consumer.accept(buildHeliosDto());
+            return null;
+        }).when(service).exportUsers(any());
+
+        var actual = controller.exportUsers();
+        var output = new ByteArrayOutputStream();
+        assertNotNull(actual.getBody());
+        actual.getBody().writeTo(output);
+
+        assertEquals(MediaType.APPLICATION_NDJSON, actual.getHeaders().getContentType());
+        var lines = output.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        assertHeliosDto(objectMapper.readValue(lines[1], HeliosUserDto.class));
+    }
+
+    @Test
+    void should_GrantExport_When_SubjectIsListed() {
+        assertFalse(controller.isExportGranted("admin"));
+
+        ReflectionTestUtils.setField(controller, "exportSubjects", Set.of("admin"));
+
+        assertTrue(controller.isExportGranted("admin"));
+        assertFalse(controller.isExportGranted("subject"));
+    }
+
+    @Test
+    void should_DenyExport_When_SubjectIsNotGranted() {
+        try (var context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(HeliosUserService.class, () -> service);
+            context.registerBean(ObjectMapper.class, () -> objectMapper);
+            context.register(MethodSecurityConfiguration.class, HeliosController.class);
+            TestPropertyValues.of("application.export.enabled=true", "application.export.subjects=admin").applyTo(context);
+            context.refresh();
+            var securedController = context.getBean(HeliosController.class);
+
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("subject", "default", List.of()));
+            assertThrows(AccessDeniedException.class, securedController::exportUsers);
+
+            SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("admin", "default", List.of()));
+            assertEquals(HttpStatus.OK, securedController.exportUsers().getStatusCode());
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
     }
 
     @Test
     void should_OkWithDto_When_UserIsUpdated() {
         Mockito.when(service.updateUser(any(), any())).thenReturn(Optional.of(buildHeliosDto()));
 
-        var actual = controller.updateUser("subject", new HeliosUserDto());
+        var actual = controller.updateUser("subject", new HeliosUserDto(), null);
         assertEquals(HttpStatus.OK, actual.getStatusCode());
 
         assertNotNull(actual.getBody());
@@ -68,7 +226,29 @@ class HeliosControllerTest {
         Mockito.when(service.updateUser(any(), any())).thenReturn(Optional.empty());
         var request = new HeliosUserDto();
 
-        var actual = assertThrows(ResponseStatusException.class, () -> controller.updateUser("subject", request));
+        var actual = assertThrows(ResponseStatusException.class, () -> controller.updateUser("subject", request, null));
+
+        assertEquals(HttpStatus.NO_CONTENT, actual.getStatusCode());
+    }
+
+    @Test
+    void should_OkWithDto_When_UserIsPatched() {
+        Mockito.when(service.patchUser(any(), any())).thenReturn(Optional.of(buildHeliosDto()));
+
+        var actual = controller.patchUser("subject", new HeliosUserDto(), null);
+        assertEquals(HttpStatus.OK, actual.getStatusCode());
+
+        assertNotNull(actual.getBody());
+        assertHeliosDto(actual.getBody());
+        Mockito.verify(service, Mockito.never()).updateUser(any(), any());
+    }
+
+    @Test
+    void should_NoContent_When_UserToPatchIsNotFound() {
+        Mockito.when(service.patchUser(any(), any())).thenReturn(Optional.empty());
+        var request = new HeliosUserDto();
+
+        var actual = assertThrows(ResponseStatusException.class, () -> controller.patchUser("subject", request, null));
 
         assertEquals(HttpStatus.NO_CONTENT, actual.getStatusCode());
     }
@@ -103,4 +283,8 @@ class HeliosControllerTest {
 
     }
 
-}
\ No newline at end of file
+    @Configuration(proxyBeanMethods = false)
+    @EnableMethodSecurity
+    static class MethodSecurityConfiguration {
+    }
+}
@@ -0,0 +1,112 @@
+package com.s3b.helios.oauth2.controller;
+
+import com.s3b.helios.oauth2.service.HeliosRefreshTokenService;
+import com.s3b.helios.service.HeliosRegisterService;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.SpringBootConfiguration;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.cookie;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@SpringBootTest(classes = HeliosTokenControllerTest.TokenApplication.class, properties = {
+        "application.token-provider.jwt.jwtSecret=" + HeliosTokenControllerTest.SECRET,
+        "application.token-provider.jwt.access-token-ttl=15m",
+        "application.token-provider.refresh.enabled=true",
+        "spring.security.oauth2.client.registration.google.client-id=client",
+        "spring.security.oauth2.client.registration.google.client-secret=secret"
+})
+@AutoConfigureMockMvc
+class HeliosTokenControllerTest {
+
+    static final String SECRET = "c2FtcGxlc2FtcGxlc2FtcGxlc2FtcGxlc2FtcGxlc2FtcGxlc2FtcGxlc2FtcGxl";
+
+    @MockBean
+    private HeliosRegisterService registerService;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private HeliosRefreshTokenService refreshTokenService;
+
+    @Test
+    void should_IssueNewTokens_When_RefreshTokenCookieIsSentWithoutValidBearer() throws Exception {
+        var login = refreshTokenService.issue("subject");
+
+        var result = mockMvc.perform(post(HeliosTokenController.TOKEN_PATH + "/refresh")
+                        .cookie(new Cookie(HeliosTokenController.REFRESH_TOKEN_COOKIE_NAME, login.refreshToken())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.access_token").isNotEmpty())
+                .andExpect(jsonPath("$.token_type").value("Bearer"))
+                .andExpect(jsonPath("$.expires_in").value(900))
+                .andExpect(cookie().httpOnly(HeliosTokenController.REFRESH_TOKEN_COOKIE_NAME, true))
+                .andExpect(cookie().path(HeliosTokenController.REFRESH_TOKEN_COOKIE_NAME, HeliosTokenController.TOKEN_PATH))
+                .andReturn();
+        var refreshToken = result.getResponse().getCookie(HeliosTokenController.REFRESH_TOKEN_COOKIE_NAME).getValue();
+        assertNotEquals(login.refreshToken(), refreshToken);
+
+        mockMvc.perform(post(HeliosTokenController.TOKEN_PATH + "/refresh")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + expiredToken())
+                        .cookie(new Cookie(HeliosTokenController.REFRESH_TOKEN_COOKIE_NAME, refreshToken)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.access_token").isNotEmpty());
+    }
+
+    @Test
+    void should_RejectRefreshAndKeepOtherPathsProtected_When_RefreshTokenIsInvalid() throws Exception {
+        mockMvc.perform(post(HeliosTokenController.TOKEN_PATH + "/refresh")
+                        .cookie(new Cookie(HeliosTokenController.REFRESH_TOKEN_COOKIE_NAME, "unknown")))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error").value("invalid_grant"))
+                .andExpect(cookie().maxAge(HeliosTokenController.REFRESH_TOKEN_COOKIE_NAME, 0));
+
+        mockMvc.perform(post("/helios/bulk"))
+                .andExpect(status().isForbidden());
+    }
+
+    @Test
+    void should_RevokeRefreshToken_When_RevokedWithoutBearer() throws Exception {
+        var login = refreshTokenService.issue("subject");
+
+        mockMvc.perform(post(HeliosTokenController.TOKEN_PATH + "/revoke")
+                        .param("refresh_token", login.refreshToken()))
+                .andExpect(status().isNoContent())
+                .andExpect(cookie().maxAge(HeliosTokenController.REFRESH_TOKEN_COOKIE_NAME, 0));
+
+        mockMvc.perform(post(HeliosTokenController.TOKEN_PATH + "/refresh")
+                        .param("refresh_token", login.refreshToken()))
+                .andExpect(status().isUnauthorized());
+    }
+
+    private static String expiredToken() {
+        var issuedAt = Instant.now().minusSeconds(3600);
+        return Jwts.builder()
+                .subject("subject")
+                .issuedAt(Date.from(issuedAt))
+                .expiration(Date.from(issuedAt.plusSeconds(900)))
+                .signWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .compact();
+    }
+
+    @SpringBootConfiguration
+    @EnableAutoConfiguration
+    static class TokenApplication {
+    }
+}
@@ -0,0 +1,100 @@
+package com.s3b.helios.oauth2.repository;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+import java.util.Base64;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CompactHeliosAuthorizationRequestCodecTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes();
+
+    @Test
+    void should_DecodeSameRequest_When_RequestIsEncoded() {
+        for (boolean compress : new boolean[]{false, true}) {
+            var codec = new CompactHeliosAuthorizationRequestCodec(SECRET, compress);
+            var authorizationRequest = authorizationRequest();
+
+            var actual = codec.decode(codec.encode(authorizationRequest));
+
+            assertNotNull(actual);
+            assertEquals(authorizationRequest.getAuthorizationUri(), actual.getAuthorizationUri());
+            assertEquals(authorizationRequest.getClientId(), actual.getClientId());
+            assertEquals(authorizationRequest.getRedirectUri(), actual.getRedirectUri());
+            assertEquals(authorizationRequest.getState(), actual.getState());
+            assertEquals(authorizationRequest.getScopes(), actual.getScopes());
+            assertEquals(authorizationRequest.getAdditionalParameters(), actual.getAdditionalParameters());
+            assertEquals(authorizationRequest.getAttributes(), actual.getAttributes());
+            assertEquals(authorizationRequest.getAuthorizationRequestUri(), actual.getAuthorizationRequestUri());
+        }
+    }
+
+    @Test
+    void should_RejectValue_When_ValueIsTamperedOrSignedWithAnotherSecret() {
+        var codec = new CompactHeliosAuthorizationRequestCodec(SECRET, false);
+        var value = Base64.getUrlDecoder().decode(codec.encode(authorizationRequest()));
+        value[10] ^= 1;
+
+        assertNull(codec.decode(Base64.getUrlEncoder().withoutPadding().encodeToString(value)));
+        assertNull(codec.decode(new CompactHeliosAuthorizationRequestCodec().encode(authorizationRequest())));
+        assertNull(codec.decode("not a cookie"));
+        assertNull(codec.decode(new SerializingHeliosAuthorizationRequestCodec().encode(authorizationRequest())));
+    }
+
+    @Test
+    void should_DecodeValueOfAnotherInstance_When_SecretIsShared() {
+        var authorizationRequest = authorizationRequest();
+        var jwtSecret = Base64.getEncoder().encodeToString(SECRET);
+
+        var configured = new CompactHeliosAuthorizationRequestCodec(SECRET, false).encode(authorizationRequest);
+        var derived = CompactHeliosAuthorizationRequestCodec.derivedFrom(jwtSecret, false).encode(authorizationRequest);
+
+        assertEquals(authorizationRequest.getState(), new CompactHeliosAuthorizationRequestCodec(SECRET, false).decode(configured).getState());
+        assertEquals(authorizationRequest.getState(), CompactHeliosAuthorizationRequestCodec.derivedFrom(jwtSecret, false).decode(derived).getState());
+        assertNull(CompactHeliosAuthorizationRequestCodec.derivedFrom("another" + jwtSecret, false).decode(derived));
+        assertNull(new CompactHeliosAuthorizationRequestCodec(jwtSecret.getBytes(), false).decode(derived));
+        assertThrows(IllegalArgumentException.class, () -> CompactHeliosAuthorizationRequestCodec.derivedFrom("", false));
+    }
+
+    @Test
+    void should_ProduceSmallerCookie_When_ComparedToJavaSerialization() {
+        var authorizationRequest = authorizationRequest();
+        var serialized = new SerializingHeliosAuthorizationRequestCodec().encode(authorizationRequest).length();
+        var compact = new CompactHeliosAuthorizationRequestCodec(SECRET, false).encode(authorizationRequest).length();
+        var deflated = new CompactHeliosAuthorizationRequestCodec(SECRET, true).encode(authorizationRequest).length();
+
+        assertTrue(compact * 3 < serialized, compact + " is not three times smaller than " + serialized);
+        assertTrue(deflated <= compact);
+    }
+
+    @Test
+    void should_ThrowIllegalArgument_When_SecretIsTooShortOrAttributeIsNotString() {
+        assertThrows(IllegalArgumentException.class, () -> new CompactHeliosAuthorizationRequestCodec(new byte[16], false));
+
+        var authorizationRequest = OAuth2AuthorizationRequest.from(authorizationRequest())
+                .attributes(attributes -> attributes.put("count", 1))
+                .build();
+        var codec = new CompactHeliosAuthorizationRequestCodec(SECRET, false);
+        assertThrows(IllegalArgumentException.class, () -> codec.encode(authorizationRequest));
+    }
+
+    private static OAuth2AuthorizationRequest authorizationRequest() {
+        return OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+                .clientId("123456789012-abcdefghijklmnopqrstuvwxyz012345.apps.googleusercontent.com")
+                .redirectUri("https://helios.example.com/login/oauth2/code/google")
+                .scopes(Set.of("openid", "profile", "email"))
+                .state("Qm9iTHVjYXM0MmJvYmx1Y2FzNDJib2JsdWNhczQyYm9i")
+                .additionalParameters(Map.of("nonce", "bm9uY2Vub25jZW5vbmNlbm9uY2Vub25jZW5vbmNlbm9uY2U"))
+                .attributes(Map.of("registration_id", "google", "nonce", "bm9uY2Vub25jZW5vbmNlbm9uY2Vub25jZW5vbmNlbm9uY2U"))
+                .build();
+    }
+}
@@ -0,0 +1,45 @@
+package com.s3b.helios.oauth2.repository;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class InMemoryHeliosRefreshTokenStoreTest {
+
+    @Test
+    void should_RemoveOnlyTokensOfFamily_When_FamilyIsRevoked() {
+        var store = new InMemoryHeliosRefreshTokenStore(100, Duration.ofDays(1));
+        store.save("hash-1", refreshToken("family-1"));
+        store.save("hash-2", refreshToken("family-1"));
+        store.save("hash-3", refreshToken("family-2"));
+
+        store.revokeFamily("family-1");
+
+        assertNull(store.consume("hash-1"));
+        assertNull(store.consume("hash-2"));
+        assertNotNull(store.consume("hash-3"));
+        assertEquals(1, store.familyCount());
+    }
+
+    @Test
+    void should_UnindexTokens_When_TokensAreEvicted() {
+        var store = new InMemoryHeliosRefreshTokenStore(10, Duration.ofDays(1));
+        for (int i = 0; i < 1000; i++) {
+            store.save("hash-" + i, refreshToken("family-" + i));
+        }
+        store.cleanUp();
+
+        assertTrue(store.familyCount() <= 10, store.familyCount() + " families are indexed");
+        assertEquals(store.size(), store.familyCount());
+    }
+
+    private static HeliosRefreshToken refreshToken(String familyId) {
+        return new HeliosRefreshToken("subject", familyId, Instant.now().plusSeconds(3600), false);
+    }
+}
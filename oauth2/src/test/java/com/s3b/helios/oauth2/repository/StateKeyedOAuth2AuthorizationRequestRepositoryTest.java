@@ -0,0 +1,133 @@
+package com.s3b.helios.oauth2.repository;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.oauth2.core.endpoint.OAuth2AuthorizationRequest;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class StateKeyedOAuth2AuthorizationRequestRepositoryTest {
+
+    private static final Duration TIME_TO_LIVE = Duration.ofSeconds(HeliosAuthorizationRequestRepository.COOKIE_EXPIRE_SECONDES);
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final InMemoryHeliosAuthorizationRequestStore store = new InMemoryHeliosAuthorizationRequestStore(100, TIME_TO_LIVE, nanos::get);
+
+    private final StateKeyedOAuth2AuthorizationRequestRepository repository = new StateKeyedOAuth2AuthorizationRequestRepository(store);
+
+    @Test
+    void should_LoadRequestOfState_When_RequestIsSaved() {
+        var authorizationRequest = authorizationRequest("state-1");
+        var authorizationResponse = new MockHttpServletResponse();
+        var authorization = new MockHttpServletRequest();
+        authorization.setParameter(HeliosAuthorizationRequestRepository.REDIRECT_URI_PARAM_COOKIE_NAME, "https://app.example.com/home");
+
+        repository.saveAuthorizationRequest(authorizationRequest, authorization, authorizationResponse);
+
+        assertEquals(2, authorizationResponse.getCookies().length);
+        assertNotNull(authorizationResponse.getCookie(HeliosAuthorizationRequestRepository.REDIRECT_URI_PARAM_COOKIE_NAME));
+        var stateCookie = authorizationResponse.getCookie(StateKeyedOAuth2AuthorizationRequestRepository.STATE_COOKIE_NAME);
+        assertTrue(stateCookie.isHttpOnly());
+        assertEquals("Lax", stateCookie.getAttribute("SameSite"));
+        assertEquals(HeliosAuthorizationRequestRepository.COOKIE_EXPIRE_SECONDES, stateCookie.getMaxAge());
+        assertEquals(authorizationRequest, repository.loadAuthorizationRequest(callback("state-1", stateCookie)));
+        assertNull(repository.loadAuthorizationRequest(callback("unknown", stateCookie)));
+        assertNull(repository.loadAuthorizationRequest(new MockHttpServletRequest()));
+    }
+
+    @Test
+    void should_IgnoreCallback_When_StateIsNotBoundToTheBrowser() {
+        var authorizationRequest = authorizationRequest("state-1");
+        save(authorizationRequest);
+        var otherLogin = save(authorizationRequest("state-2"));
+
+        assertNull(repository.loadAuthorizationRequest(callback("state-1")));
+        assertNull(repository.loadAuthorizationRequest(callback("state-1", otherLogin)));
+        assertNull(repository.removeAuthorizationRequest(callback("state-1"), new MockHttpServletResponse()));
+        assertEquals(authorizationRequest, store.find("state-1"));
+    }
+
+    @Test
+    void should_RemoveRequest_When_CallbackIsProcessed() {
+        var authorizationRequest = authorizationRequest("state-1");
+        var stateCookie = save(authorizationRequest);
+
+        assertEquals(authorizationRequest, repository.removeAuthorizationRequest(callback("state-1", stateCookie), new MockHttpServletResponse()));
+        assertNull(repository.removeAuthorizationRequest(callback("state-1", stateCookie), new MockHttpServletResponse()));
+        assertNull(repository.loadAuthorizationRequest(callback("state-1", stateCookie)));
+    }
+
+    @Test
+    void should_DeleteStateCookie_When_CookiesAreRemoved() {
+        var stateCookie = save(authorizationRequest("state-1"));
+        var response = new MockHttpServletResponse();
+
+        repository.removeAuthorizationRequestCookies(callback("state-1", stateCookie), response);
+
+        assertEquals(0, response.getCookie(StateKeyedOAuth2AuthorizationRequestRepository.STATE_COOKIE_NAME).getMaxAge());
+    }
+
+    @Test
+    void should_ExpireRequest_When_TimeToLiveIsOver() {
+        var stateCookie = save(authorizationRequest("state-1"));
+
+        nanos.addAndGet(TIME_TO_LIVE.plusSeconds(1).toNanos());
+
+        assertNull(repository.loadAuthorizationRequest(callback("state-1", stateCookie)));
+    }
+
+    @Test
+    void should_BoundStore_When_RequestsAreNeverRemoved() {
+        for (int i = 0; i < 1000; i++) {
+            save(authorizationRequest("state-" + i));
+        }
+        store.cleanUp();
+
+        assertTrue(store.size() <= 100, store.size() + " requests are kept");
+    }
+
+    @Test
+    void should_ThrowIllegalArgument_When_RequestHasNoState() {
+        var authorizationRequest = authorizationRequest(null);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> repository.saveAuthorizationRequest(authorizationRequest, new MockHttpServletRequest(), new MockHttpServletResponse()));
+    }
+
+    private Cookie save(OAuth2AuthorizationRequest authorizationRequest) {
+        var response = new MockHttpServletResponse();
+        repository.saveAuthorizationRequest(authorizationRequest, new MockHttpServletRequest(), response);
+        return response.getCookie(StateKeyedOAuth2AuthorizationRequestRepository.STATE_COOKIE_NAME);
+    }
+
+    private static MockHttpServletRequest callback(String state, Cookie... cookies) {
+        var request = new MockHttpServletRequest("GET", "/login/oauth2/code/google");
+        request.setParameter("state", state);
+        request.setParameter("code", "code");
+        if (cookies.length > 0) {
+            request.setCookies(cookies);
+        }
+        return request;
+    }
+
+    private static OAuth2AuthorizationRequest authorizationRequest(String state) {
+        return OAuth2AuthorizationRequest.authorizationCode()
+                .authorizationUri("https://accounts.google.com/o/oauth2/v2/auth")
+                .clientId("client-id")
+                .redirectUri("https://helios.example.com/login/oauth2/code/google")
+                .scopes(Set.of("openid"))
+                .state(state)
+                .build();
+    }
+}
@@ -0,0 +1,101 @@
+package com.s3b.helios.oauth2.service;
+
+import com.s3b.helios.oauth2.exception.HeliosRefreshTokenException;
+import com.s3b.helios.oauth2.repository.InMemoryHeliosRefreshTokenStore;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HeliosRefreshTokenServiceTest {
+
+    private static final Duration REFRESH_TOKEN_TTL = Duration.ofDays(14);
+
+    private final MutableClock clock = new MutableClock(Instant.parse("2026-01-01T00:00:00Z"));
+
+    private final HeliosRefreshTokenService service = new HeliosRefreshTokenService(subject -> "access-" + subject,
+            new InMemoryHeliosRefreshTokenStore(100, REFRESH_TOKEN_TTL), REFRESH_TOKEN_TTL, clock);
+
+    @Test
+    void should_RotateRefreshToken_When_RefreshTokenIsExchanged() {
+        var login = service.issue("user@example.com");
+
+        var refreshed = service.refresh(login.refreshToken());
+
+        assertEquals("access-user@example.com", refreshed.accessToken());
+        assertEquals(REFRESH_TOKEN_TTL, refreshed.refreshTokenExpiration());
+        assertNotEquals(login.refreshToken(), refreshed.refreshToken());
+        assertEquals("access-user@example.com", service.refresh(refreshed.refreshToken()).accessToken());
+    }
+
+    @Test
+    void should_RevokeFamily_When_RefreshTokenIsReused() {
+        var login = service.issue("user@example.com");
+        var refreshed = service.refresh(login.refreshToken());
+        var otherLogin = service.issue("user@example.com");
+
+        assertThrows(HeliosRefreshTokenException.class, () -> service.refresh(login.refreshToken()));
+        assertThrows(HeliosRefreshTokenException.class, () -> service.refresh(refreshed.refreshToken()));
+        assertEquals("access-user@example.com", service.refresh(otherLogin.refreshToken()).accessToken());
+    }
+
+    @Test
+    void should_ThrowRefreshTokenException_When_RefreshTokenIsExpired() {
+        var login = service.issue("user@example.com");
+
+        clock.advance(REFRESH_TOKEN_TTL);
+
+        assertThrows(HeliosRefreshTokenException.class, () -> service.refresh(login.refreshToken()));
+    }
+
+    @Test
+    void should_ThrowRefreshTokenException_When_RefreshTokenIsUnknownOrMissing() {
+        assertThrows(HeliosRefreshTokenException.class, () -> service.refresh("unknown"));
+        assertThrows(HeliosRefreshTokenException.class, () -> service.refresh(null));
+    }
+
+    @Test
+    void should_RejectFamily_When_RefreshTokenIsRevoked() {
+        var login = service.issue("user@example.com");
+        var refreshed = service.refresh(login.refreshToken());
+
+        service.revoke(refreshed.refreshToken());
+
+        assertThrows(HeliosRefreshTokenException.class, () -> service.refresh(refreshed.refreshToken()));
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant instant;
+
+        private MutableClock(Instant instant) {
+            this.instant = instant;
+        }
+
+        void advance(Duration duration) {
+            instant = instant.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.s3b.helios.oauth2.service;
+
+import com.s3b.helios.service.HeliosRegisterService;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HeliosRegistrationQueueTest {
+
+    private static final Duration OFFER_TIMEOUT = Duration.ofMillis(10);
+
+    private static final Duration SHUTDOWN_TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void should_PersistEveryRegistrationInBatches_When_QueueIsClosed() {
+        var registerService = new RecordingRegisterService();
+        var queue = new HeliosRegistrationQueue(registerService, 100, 10, 2, OFFER_TIMEOUT, SHUTDOWN_TIMEOUT);
+
+        for (int i = 0; i < 50; i++) {
+            queue.submit(Map.of("sub", "subject-" + i));
+        }
+        queue.close();
+
+        assertEquals(50, registerService.subjects.size());
+        assertEquals(50, queue.getProcessedCount());
+        assertEquals(0, queue.getQueueDepth());
+        assertEquals(Duration.ZERO, queue.getLag());
+        assertTrue(registerService.batchSizes.stream().allMatch(size -> size <= 10));
+    }
+
+    @Test
+    void should_ProcessOnCallingThread_When_QueueIsFull() throws InterruptedException {
+        var release = new CountDownLatch(1);
+        var registerService = new RecordingRegisterService() {
+            @Override
+            public void processRegistrations(List<Map<String, Object>> registrations) {
+                await(release);
+                super.processRegistrations(registrations);
+            }
+        };
+        var queue = new HeliosRegistrationQueue(registerService, 1, 1, 1, OFFER_TIMEOUT, SHUTDOWN_TIMEOUT);
+
+        queue.submit(Map.of("sub", "first"));
+        // The worker takes the first registration and waits, the second fills the queue
+        waitUntilEmpty(queue);
+        queue.submit(Map.of("sub", "second"));
+        queue.submit(Map.of("sub", "third"));
+
+        assertEquals(1, queue.getCallerRunsCount());
+        assertTrue(registerService.subjects.contains("third"));
+        assertEquals(1, queue.getQueueDepth());
+        assertTrue(queue.getLag().compareTo(Duration.ZERO) > 0);
+
+        release.countDown();
+        queue.close();
+        assertEquals(Set.of("first", "second", "third"), Set.copyOf(registerService.subjects));
+    }
+
+    @Test
+    void should_ProcessOneByOne_When_BatchFails() {
+        var registerService = new RecordingRegisterService() {
+            @Override
+            public void processRegistrations(List<Map<String, Object>> registrations) {
+                throw new IllegalStateException("batch failure");
+            }
+
+            @Override
+            public void processRegistration(Map<String, Object> attributes) {
+                if ("invalid".equals(attributes.get("sub"))) {
+                    throw new IllegalArgumentException("invalid registration");
+                }
+                super.processRegistration(attributes);
+            }
+        };
+        var queue = new HeliosRegistrationQueue(registerService, 10, 10, 1, OFFER_TIMEOUT, SHUTDOWN_TIMEOUT);
+
+        queue.submit(Map.of("sub", "valid"));
+        queue.submit(Map.of("sub", "invalid"));
+        queue.close();
+
+        assertEquals(List.of("valid"), registerService.subjects);
+        assertEquals(1, queue.getProcessedCount());
+        assertEquals(1, queue.getFailedCount());
+    }
+
+    @Test
+    void should_ProcessOnCallingThread_When_QueueIsClosed() {
+        var registerService = new RecordingRegisterService();
+        var queue = new HeliosRegistrationQueue(registerService, 10, 10, 1, OFFER_TIMEOUT, SHUTDOWN_TIMEOUT);
+        queue.close();
+
+        queue.submit(Map.of("sub", "late"));
+
+        assertEquals(List.of("late"), registerService.subjects);
+        assertEquals(1, queue.getCallerRunsCount());
+    }
+
+    private static void waitUntilEmpty(HeliosRegistrationQueue queue) throws InterruptedException {
+        var deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (queue.getQueueDepth() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingRegisterService implements HeliosRegisterService {
+
+        final List<String> subjects = new CopyOnWriteArrayList<>();
+
+        final Set<Integer> batchSizes = ConcurrentHashMap.newKeySet();
+
+        @Override
+        public void processRegistration(Map<String, Object> attributes) {
+            subjects.add(String.valueOf(attributes.get("sub")));
+        }
+
+        @Override
+        public void processRegistrations(List<Map<String, Object>> registrations) {
+            batchSizes.add(registrations.size());
+            HeliosRegisterService.super.processRegistrations(registrations);
+        }
+    }
+}
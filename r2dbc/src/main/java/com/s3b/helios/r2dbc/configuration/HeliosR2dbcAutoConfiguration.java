@@ -0,0 +1,94 @@
+package com.s3b.helios.r2dbc.configuration;
+
+import com.s3b.helios.r2dbc.service.DefaultR2dbcHeliosRegisterService;
+import com.s3b.helios.r2dbc.service.DefaultR2dbcHeliosUserService;
+import com.s3b.helios.service.HeliosRegisterService;
+import com.s3b.helios.service.HeliosUserService;
+import com.s3b.helios.service.reactive.BlockingHeliosRegisterService;
+import com.s3b.helios.service.reactive.BlockingHeliosUserService;
+import com.s3b.helios.service.reactive.ReactiveHeliosRegisterService;
+import com.s3b.helios.service.reactive.ReactiveHeliosUserService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.data.r2dbc.R2dbcDataAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcTransactionManagerAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.ReactiveTransactionManager;
+import org.springframework.transaction.reactive.TransactionalOperator;
+
+/**
+ * A container class registering beans used for helios R2DBC configuration.
+ * The reactive services are also exposed as {@link HeliosRegisterService} and {@link HeliosUserService}
+ * for the servlet applications, they block the calling thread then.
+ *
+ * @author Sébastien SAEZ
+ *
+ */
+@AutoConfiguration(after = {R2dbcAutoConfiguration.class, R2dbcDataAutoConfiguration.class, R2dbcTransactionManagerAutoConfiguration.class})
+@ConditionalOnClass(DatabaseClient.class)
+@ConditionalOnBean({DatabaseClient.class, ReactiveTransactionManager.class})
+@Slf4j
+public class HeliosR2dbcAutoConfiguration {
+
+    /**
+     * Create bean with a R2DBC implementation of {@link ReactiveHeliosRegisterService} if it does not exist yet
+     *
+     * @param databaseClient the client running the statements
+     * @param transactionManager the manager of the R2DBC transactions
+     * @return the default R2DBC implementation
+     * @see DefaultR2dbcHeliosRegisterService
+     */
+    @Bean
+    @ConditionalOnMissingBean(ReactiveHeliosRegisterService.class)
+    public ReactiveHeliosRegisterService heliosR2dbcRegisterService(DatabaseClient databaseClient, ReactiveTransactionManager transactionManager){
+        log.info("ReactiveHeliosRegisterService implementation is missing, the default one will be create");
+        return new DefaultR2dbcHeliosRegisterService(databaseClient, TransactionalOperator.create(transactionManager));
+    }
+
+    /**
+     * Create bean with a R2DBC implementation of {@link ReactiveHeliosUserService} if it does not exist yet
+     *
+     * @param databaseClient the client running the statements
+     * @param transactionManager the manager of the R2DBC transactions
+     * @param exportFetchSize the number of rows fetched at once by the export, <code>application.export.fetch-size</code>
+     * @return the default R2DBC implementation
+     * @see DefaultR2dbcHeliosUserService
+     */
+    @Bean
+    @ConditionalOnMissingBean(ReactiveHeliosUserService.class)
+    public ReactiveHeliosUserService heliosR2dbcUserService(DatabaseClient databaseClient, ReactiveTransactionManager transactionManager,
+                                                            @Value("${application.export.fetch-size:1000}") int exportFetchSize){
+        log.info("ReactiveHeliosUserService implementation is missing, the default one will be create");
+        return new DefaultR2dbcHeliosUserService(databaseClient, TransactionalOperator.create(transactionManager), exportFetchSize);
+    }
+
+    /**
+     * Create a blocking {@link HeliosRegisterService} on top of the reactive one if it does not exist yet
+     *
+     * @param reactiveRegisterService the reactive service performing the registrations
+     * @return a {@link BlockingHeliosRegisterService}
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosRegisterService.class)
+    public HeliosRegisterService heliosR2dbcBlockingRegisterService(ReactiveHeliosRegisterService reactiveRegisterService){
+        return new BlockingHeliosRegisterService(reactiveRegisterService);
+    }
+
+    /**
+     * Create a blocking {@link HeliosUserService} on top of the reactive one if it does not exist yet
+     *
+     * @param reactiveUserService the reactive service performing the operations
+     * @return a {@link BlockingHeliosUserService}
+     */
+    @Bean
+    @ConditionalOnMissingBean(HeliosUserService.class)
+    public HeliosUserService heliosR2dbcBlockingUserService(ReactiveHeliosUserService reactiveUserService){
+        return new BlockingHeliosUserService(reactiveUserService);
+    }
+}
@@ -0,0 +1,81 @@
+package com.s3b.helios.r2dbc.service;
+
+import com.s3b.helios.service.reactive.ReactiveHeliosRegisterService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+import static com.s3b.helios.constant.GoogleAttributesConstant.FAMILY_NAME_KEY;
+import static com.s3b.helios.constant.GoogleAttributesConstant.GIVEN_NAME_KEY;
+import static com.s3b.helios.constant.GoogleAttributesConstant.SUBJECT_KEY;
+
+/**
+ * An implementation of {@link ReactiveHeliosRegisterService} based on R2DBC
+ *
+ * @author Sébastien SAEZ
+ */
+@RequiredArgsConstructor
+@Slf4j
+public class DefaultR2dbcHeliosRegisterService implements ReactiveHeliosRegisterService {
+
+    /**
+     * The insert-if-absent statement, the UNIQUE constraint on the subject makes it atomic
+     */
+    private static final String INSERT_IF_ABSENT = "INSERT INTO helios_user (subject, first_name, last_name) "
+            + "VALUES (:subject, :firstName, :lastName) ON CONFLICT DO NOTHING";
+
+    /**
+     * The client running the statements
+     */
+    private final DatabaseClient databaseClient;
+
+    /**
+     * The operator running the batches of registrations in a transaction
+     */
+    private final TransactionalOperator transactionalOperator;
+
+    /**
+     * {@inheritDoc}
+     * Store the attributes mapped to a user with a single insert-if-absent statement.
+     * @param attributes the user's information of the End-User
+     * @return a {@link Mono} emitting <code>true</code> if the user is new, <code>false</code> if it already exists
+     */
+    @Override
+    public Mono<Boolean> processRegistration(Map<String, Object> attributes) {
+        var subject = String.valueOf(attributes.get(SUBJECT_KEY));
+        return databaseClient.sql(INSERT_IF_ABSENT)
+                .bind("subject", subject)
+                .bind("firstName", String.valueOf(attributes.get(GIVEN_NAME_KEY)))
+                .bind("lastName", String.valueOf(attributes.get(FAMILY_NAME_KEY)))
+                .fetch()
+                .rowsUpdated()
+                .map(rows -> rows > 0)
+                .doOnNext(created -> {
+                    if (created) {
+                        log.info("Registration saved with success : {}", subject);
+                    } else {
+                        log.info("The user already exists {}", subject);
+                    }
+                });
+    }
+
+    /**
+     * {@inheritDoc}
+     * The registrations are stored in a single transaction
+     * @param registrations the user's information of each End-User
+     * @return a {@link Mono} completing when every registration is stored
+     */
+    @Override
+    public Mono<Void> processRegistrations(List<Map<String, Object>> registrations) {
+        return Flux.fromIterable(registrations)
+                .concatMap(this::processRegistration)
+                .then()
+                .as(transactionalOperator::transactional);
+    }
+}
@@ -0,0 +1,384 @@
+package com.s3b.helios.r2dbc.service;
+
+import com.s3b.helios.exception.HeliosVersionConflictException;
+import com.s3b.helios.model.HeliosAddressDto;
+import com.s3b.helios.model.HeliosUserDto;
+import com.s3b.helios.service.reactive.ReactiveHeliosUserService;
+import io.r2dbc.spi.Readable;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An implementation of {@link ReactiveHeliosUserService} based on R2DBC.
+ * <p>
+ * The users are read with their addresses in a single query and mapped without any entity.
+ * The changes of a user run in a transaction, the user row is locked and its version is incremented on each change.
+ *
+ * @author Sébastien SAEZ
+ */
+@Slf4j
+public class DefaultR2dbcHeliosUserService implements ReactiveHeliosUserService {
+
+    /**
+     * The maximum number of subjects of a single IN list query
+     */
+    static final int SUBJECTS_CHUNK_SIZE = 500;
+
+    /**
+     * The query reading the users joined with their addresses, without the filter
+     */
+    private static final String USER_ROWS = "SELECT u.id, u.subject, u.first_name, u.last_name, u.birthdate, u.version, "
+            + "a.id AS address_id, a.address, a.address_complement, a.zip_code, a.city, a.country "
+            + "FROM helios_user u LEFT JOIN helios_address a ON a.helios_user_id = u.id ";
+
+    /**
+     * The client running the statements
+     */
+    private final DatabaseClient databaseClient;
+
+    /**
+     * The operator running the changes in a transaction
+     */
+    private final TransactionalOperator transactionalOperator;
+
+    /**
+     * The number of rows fetched from the database at once by the export
+     */
+    private final int exportFetchSize;
+
+    /**
+     * Create the service with an export fetching 1000 rows at once
+     * @param databaseClient the client running the statements
+     * @param transactionalOperator the operator running the changes in a transaction
+     */
+    public DefaultR2dbcHeliosUserService(DatabaseClient databaseClient, TransactionalOperator transactionalOperator) {
+        this(databaseClient, transactionalOperator, 1000);
+    }
+
+    /**
+     * Create the service
+     * @param databaseClient the client running the statements
+     * @param transactionalOperator the operator running the changes in a transaction
+     * @param exportFetchSize the number of rows fetched from the database at once by the export
+     */
+    public DefaultR2dbcHeliosUserService(DatabaseClient databaseClient, TransactionalOperator transactionalOperator, int exportFetchSize) {
+        this.databaseClient = databaseClient;
+        this.transactionalOperator = transactionalOperator;
+        this.exportFetchSize = exportFetchSize;
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param subject the id to retrieve a user
+     * @return a {@link Mono} of the user projection for the specified subject, empty if the user is not found
+     */
+    @Override
+    public Mono<HeliosUserDto> findUserBySubject(String subject) {
+        return databaseClient.sql(USER_ROWS + "WHERE u.subject = :subject ORDER BY a.id")
+                .bind("subject", subject)
+                .map(DefaultR2dbcHeliosUserService::userRow)
+                .all()
+                .collectList()
+                .flatMap(rows -> {
+                    if (rows.isEmpty()) {
+                        log.info("The user {} is not found", subject);
+                        return Mono.empty();
+                    }
+                    return Mono.just(buildHeliosUserDto(rows));
+                });
+    }
+
+    /**
+     * {@inheritDoc}
+     * @param subject the id to retrieve a user
+     * @return a {@link Mono} of the version of the user, empty if the user is not found
+     */
+    @Override
+    public Mono<Long> findUserVersion(String subject) {
+        return databaseClient.sql("SELECT version FROM helios_user WHERE subject = :subject")
+                .bind("subject", subject)
+                .map(row -> number(row, "version"))
+                .one();
+    }
+
+    /**
+     * {@inheritDoc}
+     * The users are read with one query per chunk of {@value #SUBJECTS_CHUNK_SIZE} subjects.
+     * @param subjects the ids to retrieve the users
+     * @return a {@link Flux} of the user projections found, in the order of the first occurrence of their subject
+     */
+    @Override
+    public Flux<HeliosUserDto> findUsersBySubjects(Collection<String> subjects) {
+        return Flux.fromIterable(subjects)
+                .filter(Objects::nonNull)
+                .distinct()
+                .buffer(SUBJECTS_CHUNK_SIZE)
+                .concatMap(chunk -> databaseClient.sql(USER_ROWS + "WHERE u.subject IN (:subjects) ORDER BY u.id, a.id")
+                        .bind("subjects", chunk)
+                        .map(DefaultR2dbcHeliosUserService::userRow)
+                        .all()
+                        .bufferUntilChanged(UserRow::id)
+                        .map(DefaultR2dbcHeliosUserService::buildHeliosUserDto)
+                        .collectMap(HeliosUserDto::getSubject)
+                        .flatMapIterable(usersBySubject -> chunk.stream().map(usersBySubject::get).filter(Objects::nonNull).toList()));
+    }
+
+    /**
+     * {@inheritDoc}
+     * The rows are fetched by batches of the export fetch size as they are requested, only the rows of the current user are kept in memory.
+     * @return a {@link Flux} of every user projection, in the order of the user ids
+     */
+    @Override
+    public Flux<HeliosUserDto> exportUsers() {
+        return databaseClient.sql(USER_ROWS + "ORDER BY u.id, a.id")
+                .filter((statement, next) -> next.execute(statement.fetchSize(exportFetchSize)))
+                .map(DefaultR2dbcHeliosUserService::userRow)
+                .all()
+                .bufferUntilChanged(UserRow::id)
+                .map(DefaultR2dbcHeliosUserService::buildHeliosUserDto)
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * {@inheritDoc}
+     * The details are applied as a patch, see {@link #patchUser(String, HeliosUserDto)}.
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the new user details to save
+     * @return a {@link Mono} of the user with his updated details, empty if the user is not found
+     */
+    @Override
+    public Mono<HeliosUserDto> updateUser(String subject, HeliosUserDto heliosUserDto) {
+        return patchUser(subject, heliosUserDto);
+    }
+
+    /**
+     * {@inheritDoc}
+     * Only the changed columns are written, the addresses are diffed by id : an address without id is added,
+     * an address with an id is changed and an address missing from the list is removed.
+     * An address id which does not belong to the user is ignored.
+     * Only the addresses which differ are written, and the version of the user is only incremented when something changes.
+     * @param subject the user's subject to perform the changes
+     * @param heliosUserDto the fields to change
+     * @return a {@link Mono} of the user with his updated details, empty if the user is not found
+     */
+    @Override
+    public Mono<HeliosUserDto> patchUser(String subject, HeliosUserDto heliosUserDto) {
+        return lockUser(subject, heliosUserDto.getVersion())
+                .flatMap(user -> findUserBySubject(subject)
+                        .flatMap(current -> (heliosUserDto.hasAddressSpecified()
+                                        ? patchAddresses(user, current.getAddress(), heliosUserDto.getAddress())
+                                        : Mono.just(false))
+                                .flatMap(addressesChanged -> addressesChanged || isChanged(heliosUserDto, current)
+                                        ? updateColumns(user, heliosUserDto)
+                                                .then(findUserBySubject(subject))
+                                                .doOnNext(changed -> log.info("The user {} changed", subject))
+                                        : Mono.just(current)
+                                                .doOnNext(unchanged -> log.info("The user {} is unchanged", subject)))))
+                .as(transactionalOperator::transactional);
+    }
+
+    /**
+     * Lock the row of a user until the end of the transaction and check the version the change is made from.
+     * @param subject the subject of the user
+     * @param expectedVersion the version the change is made from, <code>null</code> to skip the check
+     * @return the locked user, empty if the user is not found
+     */
+    private Mono<LockedUser> lockUser(String subject, Long expectedVersion) {
+        return databaseClient.sql("SELECT id, version FROM helios_user WHERE subject = :subject FOR UPDATE")
+                .bind("subject", subject)
+                .map(row -> new LockedUser(number(row, "id"), subject, number(row, "version")))
+                .one()
+                .switchIfEmpty(Mono.fromRunnable(() -> log.info("The user {} to change is not found", subject)))
+                .flatMap(user -> expectedVersion != null && expectedVersion != user.version()
+                        ? Mono.error(new HeliosVersionConflictException(subject, expectedVersion, user.version()))
+                        : Mono.just(user));
+    }
+
+    /**
+     * Write the non-null columns of the user and increment his version, even if only his addresses change.
+     * It is only called when something changes, so an unchanged user keeps his version.
+     */
+    private Mono<Void> updateColumns(LockedUser user, HeliosUserDto heliosUserDto) {
+        var columns = new LinkedHashMap<String, Object>();
+        putIfNotNull(columns, "first_name", heliosUserDto.getFirstName());
+        putIfNotNull(columns, "last_name", heliosUserDto.getLastName());
+        putIfNotNull(columns, "birthdate", heliosUserDto.getBirthdate());
+        var sql = new StringBuilder("UPDATE helios_user SET ");
+        columns.keySet().forEach(column -> sql.append(column).append(" = :").append(column).append(", "));
+        sql.append("version = version + 1 WHERE id = :id AND version = :version");
+        var spec = databaseClient.sql(sql.toString())
+                .bind("id", user.id())
+                .bind("version", user.version());
+        for (Map.Entry<String, Object> column : columns.entrySet()) {
+            spec = spec.bind(column.getKey(), column.getValue());
+        }
+        return spec.fetch()
+                .rowsUpdated()
+                .flatMap(rows -> rows == 0
+                        ? Mono.error(new HeliosVersionConflictException(user.subject(), user.version(), null))
+                        : Mono.empty());
+    }
+
+    private Mono<Void> insertAddresses(long userId, List<HeliosAddressDto> addressDtos) {
+        return Flux.fromIterable(addressDtos)
+                .concatMap(addrDto -> {
+                    var spec = databaseClient.sql("INSERT INTO helios_address (helios_user_id, address, address_complement, zip_code, city, country) "
+                                    + "VALUES (:userId, :address, :addressComplement, :zipCode, :city, :country)")
+                            .bind("userId", userId);
+                    spec = bindNullable(spec, "address", addrDto.getAddress());
+                    spec = bindNullable(spec, "addressComplement", addrDto.getAddressComplement());
+                    spec = bindNullable(spec, "zipCode", addrDto.getZipcode());
+                    spec = bindNullable(spec, "city", addrDto.getCity());
+                    spec = bindNullable(spec, "country", addrDto.getCountry());
+                    return spec.fetch().rowsUpdated();
+                })
+                .then();
+    }
+
+    /**
+     * Apply the addresses of the body to the user, the unchanged addresses are not written.
+     * @return a {@link Mono} of whether an address is added, changed or removed
+     */
+    private Mono<Boolean> patchAddresses(LockedUser user, List<HeliosAddressDto> currentAddresses, List<HeliosAddressDto> addressDtos) {
+        var existing = new HashMap<Long, HeliosAddressDto>();
+        currentAddresses.forEach(address -> existing.put(address.getId(), address));
+        var kept = new HashSet<Long>();
+        var added = new ArrayList<HeliosAddressDto>();
+        var changes = new ArrayList<Mono<Long>>();
+        for (HeliosAddressDto addrDto : addressDtos) {
+            if (addrDto.getId() == null) {
+                added.add(addrDto);
+            } else if (existing.containsKey(addrDto.getId())) {
+                kept.add(addrDto.getId());
+                if (isChanged(existing.get(addrDto.getId()), addrDto)) {
+                    changes.add(updateAddress(addrDto));
+                }
+            } else {
+                log.warn("The address {} does not belong to the user {}, it is ignored", addrDto.getId(), user.subject());
+            }
+        }
+        var removed = existing.keySet().stream().filter(id -> !kept.contains(id)).toList();
+        var delete = removed.isEmpty()
+                ? Mono.<Long>empty()
+                : databaseClient.sql("DELETE FROM helios_address WHERE id IN (:ids)").bind("ids", removed).fetch().rowsUpdated();
+        return delete.thenMany(Flux.concat(changes))
+                .then(insertAddresses(user.id(), added))
+                .thenReturn(!removed.isEmpty() || !changes.isEmpty() || !added.isEmpty());
+    }
+
+    private static boolean isChanged(HeliosUserDto heliosUserDto, HeliosUserDto current) {
+        return isChanged(heliosUserDto.getFirstName(), current.getFirstName())
+                || isChanged(heliosUserDto.getLastName(), current.getLastName())
+                || isChanged(heliosUserDto.getBirthdate(), current.getBirthdate());
+    }
+
+    private static boolean isChanged(HeliosAddressDto current, HeliosAddressDto addrDto) {
+        return isChanged(addrDto.getAddress(), current.getAddress())
+                || isChanged(addrDto.getAddressComplement(), current.getAddressComplement())
+                || isChanged(addrDto.getZipcode(), current.getZipcode())
+                || isChanged(addrDto.getCity(), current.getCity())
+                || isChanged(addrDto.getCountry(), current.getCountry());
+    }
+
+    /**
+     * @return whether a value is specified and differs from the current one
+     */
+    private static boolean isChanged(Object value, Object current) {
+        return value != null && !value.equals(current);
+    }
+
+    private Mono<Long> updateAddress(HeliosAddressDto addrDto) {
+        var columns = new LinkedHashMap<String, Object>();
+        putIfNotNull(columns, "address", addrDto.getAddress());
+        putIfNotNull(columns, "address_complement", addrDto.getAddressComplement());
+        putIfNotNull(columns, "zip_code", addrDto.getZipcode());
+        putIfNotNull(columns, "city", addrDto.getCity());
+        putIfNotNull(columns, "country", addrDto.getCountry());
+        if (columns.isEmpty()) {
+            return Mono.empty();
+        }
+        var sql = new StringBuilder("UPDATE helios_address SET ");
+        columns.keySet().forEach(column -> sql.append(column).append(" = :").append(column).append(", "));
+        sql.setLength(sql.length() - 2);
+        sql.append(" WHERE id = :id");
+        var spec = databaseClient.sql(sql.toString()).bind("id", addrDto.getId());
+        for (Map.Entry<String, Object> column : columns.entrySet()) {
+            spec = spec.bind(column.getKey(), column.getValue());
+        }
+        return spec.fetch().rowsUpdated();
+    }
+
+    private static void putIfNotNull(Map<String, Object> columns, String column, Object value) {
+        if (value != null) {
+            columns.put(column, value);
+        }
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, String value) {
+        return value == null ? spec.bindNull(name, String.class) : spec.bind(name, value);
+    }
+
+    private static Long number(Readable row, String column) {
+        var value = row.get(column, Number.class);
+        return value == null ? null : value.longValue();
+    }
+
+    private static UserRow userRow(Readable row) {
+        return new UserRow(number(row, "id"),
+                row.get("subject", String.class),
+                row.get("first_name", String.class),
+                row.get("last_name", String.class),
+                row.get("birthdate", LocalDate.class),
+                number(row, "version"),
+                number(row, "address_id"),
+                row.get("address", String.class),
+                row.get("address_complement", String.class),
+                row.get("zip_code", String.class),
+                row.get("city", String.class),
+                row.get("country", String.class));
+    }
+
+    private static HeliosUserDto buildHeliosUserDto(List<UserRow> rows) {
+        var first = rows.get(0);
+        var addressList = new ArrayList<HeliosAddressDto>(rows.size());
+        rows.stream().filter(row -> row.addressId() != null).forEach(row -> addressList.add(new HeliosAddressDto(row.addressId(),
+                row.address(),
+                row.addressComplement(),
+                row.zipCode(),
+                row.city(),
+                row.country())));
+        return new HeliosUserDto(first.id(),
+                first.subject(),
+                first.firstName(),
+                first.lastName(),
+                first.birthdate(),
+                addressList,
+                first.version());
+    }
+
+    /**
+     * A row joining a user with one of his addresses
+     */
+    private record UserRow(Long id, String subject, String firstName, String lastName, LocalDate birthdate, Long version,
+                           Long addressId, String address, String addressComplement, String zipCode, String city, String country) {
+    }
+
+    /**
+     * A user whose row is locked by the current transaction
+     */
+    private record LockedUser(long id, String subject, long version) {
+    }
+}
@@ -0,0 +1,179 @@
+package com.s3b.helios.r2dbc.service;
+
+import com.s3b.helios.exception.HeliosVersionConflictException;
+import com.s3b.helios.model.HeliosAddressDto;
+import com.s3b.helios.model.HeliosUserDto;
+import io.r2dbc.spi.ConnectionFactories;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.connection.init.ResourceDatabasePopulator;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.test.StepVerifier;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class DefaultR2dbcHeliosUserServiceTest {
+
+    private DatabaseClient databaseClient;
+
+    private DefaultR2dbcHeliosRegisterService registerService;
+
+    private DefaultR2dbcHeliosUserService service;
+
+    @BeforeEach
+    void setUp() {
+        var connectionFactory = ConnectionFactories.get("r2dbc:h2:mem:///" + UUID.randomUUID()
+                + "?options=MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DEFAULT_NULL_ORDERING=HIGH;DB_CLOSE_DELAY=-1");
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).populate(connectionFactory).block();
+        databaseClient = DatabaseClient.create(connectionFactory);
+        var transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(connectionFactory));
+        registerService = new DefaultR2dbcHeliosRegisterService(databaseClient, transactionalOperator);
+        service = new DefaultR2dbcHeliosUserService(databaseClient, transactionalOperator, 2);
+    }
+
+    @Test
+    void should_InsertOnlyOnce_When_SubjectIsRegisteredTwice() {
+        StepVerifier.create(registerService.processRegistration(registration("subject")))
+                .expectNext(true)
+                .verifyComplete();
+        StepVerifier.create(registerService.processRegistration(registration("subject")))
+                .expectNext(false)
+                .verifyComplete();
+        StepVerifier.create(registerService.processRegistrations(List.of(registration("subject"), registration("other"))))
+                .verifyComplete();
+
+        StepVerifier.create(databaseClient.sql("SELECT count(*) AS total FROM helios_user").map(row -> row.get("total", Number.class).longValue()).one())
+                .expectNext(2L)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_ReturnUserWithAddresses_When_SubjectExists() {
+        register("subject");
+        service.updateUser("subject", new HeliosUserDto(null, null, "first", "last", LocalDate.of(1990, 1, 1),
+                List.of(address(null, "1 rue de Paris", "75001"), address(null, "2 rue de Lyon", "69001")))).block();
+
+        StepVerifier.create(service.findUserBySubject("subject"))
+                .assertNext(user -> {
+                    assertEquals("first", user.getFirstName());
+                    assertEquals(LocalDate.of(1990, 1, 1), user.getBirthdate());
+                    assertEquals(1L, user.getVersion());
+                    assertEquals(List.of("1 rue de Paris", "2 rue de Lyon"), user.getAddress().stream().map(HeliosAddressDto::getAddress).toList());
+                })
+                .verifyComplete();
+        StepVerifier.create(service.findUserBySubject("unknown")).verifyComplete();
+        StepVerifier.create(service.findUserVersion("subject")).expectNext(1L).verifyComplete();
+    }
+
+    @Test
+    void should_KeepSubjectsOrder_When_FindingManyUsers() {
+        var subjects = new ArrayList<String>();
+        IntStream.range(0, DefaultR2dbcHeliosUserService.SUBJECTS_CHUNK_SIZE + 2).forEach(i -> subjects.add("subject-" + i));
+        registerService.processRegistrations(subjects.stream().map(this::registration).toList()).block();
+        Collections.reverse(subjects);
+        var requested = new ArrayList<>(subjects);
+        requested.add(1, "unknown");
+        requested.add(subjects.get(1));
+
+        StepVerifier.create(service.findUsersBySubjects(requested).map(HeliosUserDto::getSubject).collectList())
+                .expectNext(subjects)
+                .verifyComplete();
+    }
+
+    @Test
+    void should_ExportEveryUserOnce_When_RowsAreFetchedInBatches() {
+        register("first");
+        register("second");
+        register("third");
+        service.updateUser("second", new HeliosUserDto(null, null, null, null, null,
+                List.of(address(null, "1 rue de Paris", "75001"), address(null, "2 rue de Lyon", "69001"), address(null, "3 rue de Nice", "06000")))).block();
+
+        StepVerifier.create(service.exportUsers().map(user -> user.getSubject() + ":" + user.getAddress().size()))
+                .expectNext("first:0", "second:3", "third:0")
+                .verifyComplete();
+    }
+
+    @Test
+    void should_DiffAddressesById_When_PatchingUser() {
+        register("subject");
+        var user = service.updateUser("subject", new HeliosUserDto(null, null, "first", "last", null,
+                List.of(address(null, "1 rue de Paris", "75001"), address(null, "2 rue de Lyon", "69001")))).block();
+        var kept = user.getAddress().get(0).getId();
+        var patch = new HeliosUserDto(null, null, null, "changed", null,
+                List.of(address(kept, null, "75002"), address(null, "3 rue de Nice", "06000"), address(999L, "ignored", "00000")));
+
+        StepVerifier.create(service.patchUser("subject", patch))
+                .assertNext(patched -> {
+                    assertEquals("first", patched.getFirstName());
+                    assertEquals("changed", patched.getLastName());
+                    assertEquals(2L, patched.getVersion());
+                    assertEquals(2, patched.getAddress().size());
+                    assertEquals(kept, patched.getAddress().get(0).getId());
+                    assertEquals("1 rue de Paris", patched.getAddress().get(0).getAddress());
+                    assertEquals("75002", patched.getAddress().get(0).getZipcode());
+                    assertNull(patched.getAddress().get(0).getAddressComplement());
+                    assertEquals("3 rue de Nice", patched.getAddress().get(1).getAddress());
+                })
+                .verifyComplete();
+    }
+
+    @Test
+    void should_RaiseConflict_When_VersionIsStale() {
+        register("subject");
+        var stale = new HeliosUserDto(null, null, "first", null, null, null, 5L);
+
+        StepVerifier.create(service.patchUser("subject", stale))
+                .expectError(HeliosVersionConflictException.class)
+                .verify();
+        StepVerifier.create(service.findUserBySubject("subject"))
+                .assertNext(user -> {
+                    assertNull(user.getFirstName());
+                    assertEquals(0L, user.getVersion());
+                })
+                .verifyComplete();
+        StepVerifier.create(service.patchUser("unknown", stale)).verifyComplete();
+    }
+
+    @Test
+    void should_KeepVersion_When_NothingChanges() {
+        register("subject");
+        var user = service.updateUser("subject", new HeliosUserDto(null, null, "first", "last", null,
+                List.of(address(null, "1 rue de Paris", "75001")))).block();
+        var same = new HeliosUserDto(null, null, "first", null, null,
+                List.of(address(user.getAddress().get(0).getId(), "1 rue de Paris", "75001")), user.getVersion());
+
+        StepVerifier.create(service.updateUser("subject", same))
+                .assertNext(unchanged -> {
+                    assertEquals(user.getVersion(), unchanged.getVersion());
+                    assertEquals(user.getAddress().get(0).getId(), unchanged.getAddress().get(0).getId());
+                })
+                .verifyComplete();
+        StepVerifier.create(service.findUserVersion("subject"))
+                .expectNext(user.getVersion())
+                .verifyComplete();
+    }
+
+    private void register(String subject) {
+        databaseClient.sql("INSERT INTO helios_user (subject) VALUES (:subject)").bind("subject", subject).fetch().rowsUpdated().block();
+    }
+
+    private Map<String, Object> registration(String subject) {
+        return Map.of("sub", subject, "given_name", "given", "family_name", "family");
+    }
+
+    private static HeliosAddressDto address(Long id, String address, String zipCode) {
+        return new HeliosAddressDto(id, address, null, zipCode, id == null ? "city" : null, id == null ? "France" : null);
+    }
+}
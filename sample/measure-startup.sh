@@ -0,0 +1,24 @@
+#!/usr/bin/env sh
+# Compare the startup of the sample application with the reflective bean definitions and with the AOT generated ones.
+# Usage: sample/measure-startup.sh [runs], after ./mvnw -pl sample -am package -DskipTests
+set -e
+
+JAR="$(dirname "$0")/target/helios-sample.jar"
+RUNS="${1:-10}"
+
+measure() {
+    mode="$1"
+    shift
+    total=0
+    i=0
+    while [ "$i" -lt "$RUNS" ]; do
+        ms=$(java "$@" -jar "$JAR" --sample.exit-on-ready=true --server.port=0 \
+            | sed -n 's/.*startup-ms=\([0-9]*\).*/\1/p')
+        total=$((total + ms))
+        i=$((i + 1))
+    done
+    echo "$mode: $((total / RUNS)) ms on average over $RUNS runs"
+}
+
+measure jvm
+measure jvm-aot -Dspring.aot.enabled=true
@@ -0,0 +1,46 @@
+package com.s3b.helios.sample;
+
+import com.s3b.helios.oauth2.controller.HeliosController;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.NativeDetector;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * A server application of the oauth2 and JDBC starters, built with the AOT processing to compare the startup of the JVM modes.
+ * <p>
+ * The same jar starts with the reflective bean definitions by default, and with the generated ones with <code>-Dspring.aot.enabled=true</code>.
+ * It can be compiled in a native image with the <code>native</code> profile of the Spring Boot parent.
+ *
+ * @author Sébastien SAEZ
+ */
+@SpringBootApplication
+@Import(HeliosController.class)
+@Slf4j
+public class HeliosSampleApplication {
+
+    public static void main(String[] args) {
+        SpringApplication.run(HeliosSampleApplication.class, args);
+    }
+
+    /**
+     * Log the time from the start of the process to the ready application, and stop it when <code>sample.exit-on-ready</code> is set.
+     * @param event the event published once the application is ready
+     */
+    @EventListener
+    public void onReady(ApplicationReadyEvent event) {
+        var mode = NativeDetector.inNativeImage() ? "native" : Boolean.getBoolean("spring.aot.enabled") ? "jvm-aot" : "jvm";
+        var uptime = NativeDetector.inNativeImage() ? event.getTimeTaken().toMillis() : ManagementFactory.getRuntimeMXBean().getUptime();
+        log.info("helios-sample ready mode={} startup-ms={} used-heap-bytes={}", mode, uptime,
+                Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory());
+        if (event.getApplicationContext().getEnvironment().getProperty("sample.exit-on-ready", Boolean.class, false)) {
+            System.exit(SpringApplication.exit((ConfigurableApplicationContext) event.getApplicationContext()));
+        }
+    }
+}